@@ -0,0 +1,56 @@
+package bench;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Entry point of the benchmarks, run with {@code gradle bench}. Each benchmark is warmed up before being measured,
+ * and the average time of each operation is printed. Specific benchmarks can be selected by name, for example {@code
+ * gradle bench -Pbenchmarks=minify,serializer}.<br>
+ * These are plain timing loops rather than a proper harness; numbers are only meaningful when compared between runs
+ * on the same machine.
+ */
+public final class Benchmarks{
+	private Benchmarks(){}
+
+	private static final int WARMUP = 3;
+	private static final int ITERATIONS = 5;
+
+	public static void main(String[] args) throws Exception{
+		Map<String, Benchmark> benchmarks = new LinkedHashMap<>();
+		benchmarks.put("literal", LiteralFormatBenchmark::run);
+		benchmarks.put("minify", MinifyBenchmark::run);
+		benchmarks.put("serializer", SerializerBenchmark::run);
+
+		List<String> names = args.length==0 ? Arrays.asList(benchmarks.keySet().toArray(new String[0])) : Arrays.asList(args);
+		for(String name : names){
+			Benchmark b = benchmarks.get(name);
+			if(b==null) throw new IllegalArgumentException("Unknown benchmark '"+name+"', expected one of "+benchmarks.keySet());
+			System.out.println("== "+name);
+			b.run();
+		}
+	}
+
+	/**
+	 * Measure the operation, after warming up.
+	 *
+	 * @param name      Name of the operation
+	 * @param operation The operation
+	 * @return Average time of each operation, in milliseconds
+	 */
+	static double measure(String name, Runnable operation){
+		for(int i = 0; i<WARMUP; i++) operation.run();
+		long t = System.nanoTime();
+		for(int i = 0; i<ITERATIONS; i++) operation.run();
+		double ms = (System.nanoTime()-t)/1e6/ITERATIONS;
+		System.out.printf("%s: %.1fms%n", name, ms);
+		return ms;
+	}
+
+	@FunctionalInterface
+	interface Benchmark{
+		void run() throws Exception;
+	}
+}
@@ -0,0 +1,27 @@
+package bench;
+
+import among.ToStringContext;
+import among.ToStringOption;
+import among.obj.Among;
+import among.obj.AmongObject;
+
+/**
+ * Throughput of serializing literals that need escaping.
+ */
+final class LiteralFormatBenchmark{
+	private LiteralFormatBenchmark(){}
+
+	static void run(){
+		AmongObject o = Among.object();
+		for(int i = 0; i<20000; i++)
+			o.prop("key "+i, Among.list("value", i, "needs \"escape\"", Among.value("multi\nline // text")));
+		StringBuilder stb = new StringBuilder();
+		int size = o.toPrettyString().length();
+		double ms = Benchmarks.measure("toPrettyString()", () -> {
+			stb.setLength(0);
+			o.toPrettyString(stb, 0, ToStringOption.DEFAULT, ToStringContext.NONE);
+		});
+		System.out.printf("%d chars, %.1f MB/s%n", size, size/(ms*1e3));
+		Benchmarks.measure("toString()", o::toString);
+	}
+}
@@ -0,0 +1,37 @@
+package bench;
+
+import among.AmongEngine;
+import among.AmongRoot;
+import among.CompileResult;
+import among.Source;
+import among.obj.AmongMinifier;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Size and speed of the minifier against {@link AmongRoot#toString()}, on a large document.
+ */
+final class MinifyBenchmark{
+	private MinifyBenchmark(){}
+
+	static void run() throws IOException{
+		CompileResult result;
+		try(InputStream in = MinifyBenchmark.class.getResourceAsStream("/recompile_tests/json.among")){
+			if(in==null) throw new IOException("Benchmark resource not found");
+			result = new AmongEngine().read(Source.read(new InputStreamReader(in, StandardCharsets.UTF_8)));
+		}
+		result.expectSuccess();
+		AmongRoot root = new AmongRoot();
+		for(int i = 0; i<2000; i++) root.add(result.root().get(0));
+
+		String original = root.toString();
+		String minified = AmongMinifier.minify(root);
+		System.out.printf("toString(): %d chars, minified: %d chars (%.1f%%)%n",
+				original.length(), minified.length(), minified.length()*100.0/original.length());
+		Benchmarks.measure("toString()", root::toString);
+		Benchmarks.measure("minify()", () -> AmongMinifier.minify(root));
+	}
+}
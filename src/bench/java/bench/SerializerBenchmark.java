@@ -0,0 +1,79 @@
+package bench;
+
+import among.ToStringOption;
+import among.mapper.AmongSerializer;
+import among.obj.Among;
+import among.obj.AmongObject;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Serializing Java objects directly, against converting them to a tree first.
+ */
+final class SerializerBenchmark{
+	private SerializerBenchmark(){}
+
+	static void run(){
+		AmongSerializer serializer = new AmongSerializer();
+		List<Server> servers = new ArrayList<>();
+		for(int i = 0; i<20000; i++) servers.add(server(i));
+		ToStringOption option = new ToStringOption("  ", 2, 3, false, 80);
+		String expected = tree(servers).toPrettyString(0, option);
+		if(!expected.equals(serializer.toPrettyString(servers, 0, option)))
+			throw new IllegalStateException("Serializer output differs from the tree");
+		System.out.printf("%d chars%n", expected.length());
+		Benchmarks.measure("tree + toPrettyString()", () -> tree(servers).toPrettyString(0, option));
+		Benchmarks.measure("serializer", () -> serializer.toPrettyString(servers, 0, option));
+	}
+
+	private static Server server(int i){
+		Server s = new Server();
+		s.name = "server-"+i;
+		s.port = 8000+i;
+		s.enabled = i%2==0;
+		s.mode = i%3==0 ? Mode.FAST : Mode.SLOW;
+		s.description = i%4==0 ? null : "line 1\nline \"2\"";
+		s.tags = new ArrayList<>();
+		for(int j = 0; j<i%5; j++) s.tags.add("tag"+j);
+		s.limits = new LinkedHashMap<>();
+		if(i%2==1) s.limits.put("cpu", i%7);
+		s.limits.put("memory limit", 512*i);
+		s.weights = new double[]{0.5, i};
+		return s;
+	}
+
+	private static Among tree(List<Server> servers){
+		List<Among> l = new ArrayList<>();
+		for(Server s : servers) l.add(tree(s));
+		return Among.list(l.toArray(new Object[0]));
+	}
+
+	private static Among tree(Server s){
+		AmongObject o = Among.object().prop("name", s.name).prop("port", s.port).prop("enabled", s.enabled).prop("mode", s.mode.name());
+		if(s.description!=null) o.prop("description", s.description);
+		o.prop("tags", Among.list(s.tags.toArray(new Object[0])));
+		AmongObject limits = Among.object();
+		s.limits.forEach(limits::prop);
+		o.prop("limits", limits);
+		o.prop("weights", Among.list(s.weights[0], s.weights[1]));
+		return o;
+	}
+
+	public enum Mode{
+		FAST, SLOW
+	}
+
+	public static class Server{
+		String name;
+		int port;
+		boolean enabled;
+		Mode mode;
+		String description;
+		List<String> tags;
+		Map<String, Integer> limits;
+		double[] weights;
+	}
+}
@@ -1,5 +1,7 @@
 package among;
 
+import among.internals.MemoryEstimates;
+
 import among.macro.MacroRegistry;
 import among.operator.OperatorRegistry;
 
@@ -40,6 +42,18 @@ public final class AmongDefinition extends ToPrettyString.Base{
 		return operators;
 	}
 
+	/**
+	 * Returns estimated size of memory retained by this definition and all macros and operators in it, in bytes.
+	 *
+	 * @return Estimated size of memory retained by this definition, in bytes
+	 * @see MacroRegistry#estimateRetainedBytes()
+	 * @see OperatorRegistry#estimateRetainedBytes()
+	 */
+	public long estimateRetainedBytes(){
+		return MemoryEstimates.object(2, 0)+
+				macros.estimateRetainedBytes()+operators.estimateRetainedBytes();
+	}
+
 	/**
 	 * Create a shallow copy of this definition. Macro and operator instances are recycled.
 	 *
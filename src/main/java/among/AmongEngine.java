@@ -1,24 +1,53 @@
 package among;
 
+import among.binary.AmongBinary;
+import among.internals.Digests;
+import among.internals.ImportScanner;
 import among.internals.Parser;
 import among.internals.library.DefaultInstanceProvider;
 import among.macro.MacroDefinition;
 import among.obj.Among;
+import among.obj.AmongDeduplicator;
+import among.obj.AmongDigest;
+import among.obj.AmongList;
+import among.obj.AmongObject;
+import among.obj.AmongPrimitive;
+import among.obj.SourcePositionTable;
 import among.operator.OperatorDefinition;
 import among.operator.OperatorRegistry;
 import org.jetbrains.annotations.Nullable;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
-import java.util.LinkedHashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.function.Consumer;
 
 /**
  * An object responsible for reading among sources. Additionally, this class provides number of compilation options and
- * interface to provide custom instances or source resolving rules.
+ * interface to provide custom instances or source resolving rules.<br>
+ * Engines can be used by multiple threads concurrently, as long as the compilation options are not changed afterwards.
+ * Each path is resolved once; threads requesting a path being resolved by another thread wait for the same result
+ * instead of resolving it again. Circular references are detected per chain of resolution, including chains spanning
+ * multiple threads waiting on each other. Methods handling events of resolution, such as {@link
+ * AmongEngine#handleCompileSuccess(String, CompileResult)}, may be called from multiple threads concurrently.
  */
 public class AmongEngine{
 	/**
@@ -59,9 +88,70 @@ public class AmongEngine{
 	 */
 	public int invalidUnicodeHandling = ErrorHandling.ERROR;
 
-	private final List<Provider<Source>> sourceProviders = new ArrayList<>();
-	private final List<Provider<RootAndDefinition>> instanceProviders = new ArrayList<>();
-	private final Map<String, ReadResult> pathByInstance = new HashMap<>();
+	/**
+	 * If enabled, every list consisting only of numeric primitives in successfully compiled roots will be packed.
+	 * Packed lists store numbers in primitive arrays, greatly reducing memory usage of large numeric data.<br>
+	 * Note that elements of packed lists do not retain their source positions.
+	 *
+	 * @see AmongList#pack()
+	 */
+	public boolean packNumericLists = false;
+
+	/**
+	 * If enabled, values of successfully compiled roots will be frozen, and structurally identical subtrees will be
+	 * canonicalized into single shared instance. Identical subtrees are shared between every source compiled by this
+	 * engine, until {@link AmongEngine#clearInstances()} is called.<br>
+	 * This can greatly reduce memory usage of sources with repetitive contents, such as the ones heavily relying on
+	 * macros. As the resulting values are frozen, {@link Among#copy()} should be used to obtain modifiable values.
+	 *
+	 * @see AmongRoot#deduplicate(AmongDeduplicator)
+	 */
+	public boolean deduplicateCompileResult = false;
+
+	/**
+	 * Specifies how source positions of successfully compiled roots and macro templates are stored. Nodes never store
+	 * their positions; with {@link SourcePositionMode#RESULT RESULT}, positions of the nodes reachable from the root
+	 * and macro templates are kept in {@link CompileResult#sourcePositions()}. With {@link SourcePositionMode#TABLE
+	 * TABLE}, these positions are moved to {@link AmongEngine#sourcePositions()} along with path of the source. Nodes
+	 * expanded from macros share the storage of their templates, so the shared nodes keep the positions in the source
+	 * the macro was defined in, including the ones imported with {@code use}; the expanded node itself is put at the
+	 * position of the macro call. With {@link SourcePositionMode#DISCARD DISCARD}, source positions are dropped.<br>
+	 * If any other value is provided, {@link SourcePositionMode#RESULT RESULT} will be used.
+	 *
+	 * @see SourcePositionMode
+	 */
+	public int sourcePositionMode = SourcePositionMode.RESULT;
+
+	private final List<Provider<Source>> sourceProviders = new CopyOnWriteArrayList<>();
+	private final List<Provider<RootAndDefinition>> instanceProviders = new CopyOnWriteArrayList<>();
+	/**
+	 * Resolutions in progress, and failed resolutions started ahead of the parser until the first request or until the
+	 * parser scheduling them is done.
+	 */
+	private final Map<String, Resolution> resolving = new ConcurrentHashMap<>();
+	private volatile InstanceCache instances = InstanceCache.unbounded();
+	private final AmongDeduplicator deduplicator = new AmongDeduplicator();
+	private final SourcePositionTable sourcePositions = new SourcePositionTable();
+	private final Consumer<String> evictionListener = this::releaseEvicted;
+
+	/**
+	 * Content key of instances provided by instance providers. Provided instances are assumed to be unchanged between
+	 * each run.
+	 */
+	private static final AmongDigest PROVIDED_CONTENT_KEY = new AmongDigest(0, 0);
+
+	@Nullable private CompiledCache compiledCache;
+	@Nullable private Executor importExecutor;
+
+	/**
+	 * State of resolutions in progress on each thread. Removed once the thread finishes all of its resolutions.
+	 */
+	private final ThreadLocal<Resolver> resolvers = new ThreadLocal<>();
+	/**
+	 * Lock guarding {@link Resolver#chain} and {@link Resolver#waitingOn} of every resolver, so that the graph of
+	 * threads waiting on each other is observed consistently.
+	 */
+	private final Object waitLock = new Object();
 
 	{
 		instanceProviders.add(DefaultInstanceProvider.instance());
@@ -89,6 +179,71 @@ public class AmongEngine{
 		instanceProviders.add(Objects.requireNonNull(instanceProvider));
 	}
 
+	/**
+	 * Sets the compiled cache used by this engine. If set, sources resolved from source providers are first looked up
+	 * from the cache; the cached root and definition are used instead of compiling the source if neither the source nor
+	 * any of the scripts it imports were changed since, and the source was compiled with the same options. Successfully
+	 * compiled sources are stored to the cache.<br>
+	 * Cached entries do not have source positions; with {@link SourcePositionMode#TABLE}, sources are always compiled so
+	 * that their positions are put in {@link AmongEngine#sourcePositions()}. Results loaded from the cache do not have
+	 * {@link CompileResult}, hence no positions, with {@link SourcePositionMode#RESULT}.<br>
+	 * Scripts imported by cached entries are resolved before the entry is used. Instances from instance providers are
+	 * assumed to be unchanged, and code-defined macros referenced by the cached definition are resolved from the
+	 * imported scripts and {@link AmongEngine#createDefaultDefinition(String)}.
+	 *
+	 * @param compiledCache Compiled cache to be used, or {@code null} to disable caching
+	 * @see CompiledCache
+	 */
+	public final void setCompiledCache(@Nullable CompiledCache compiledCache){
+		this.compiledCache = compiledCache;
+	}
+	@Nullable public final CompiledCache compiledCache(){
+		return compiledCache;
+	}
+
+	/**
+	 * Sets the executor used for resolving imported scripts in parallel. If set, paths of {@code use} statements are
+	 * scanned from each source before it is parsed, and paths not yet resolved are resolved with the executor ahead of
+	 * the parser. As each of the imported scripts does the same, the whole tree of imports is resolved in parallel,
+	 * with each path resolved once.<br>
+	 * The parser still imports definitions in order of the use statements, waiting for the scripts still being
+	 * resolved; definitions are merged in the same order as sequential compilation. Failure of a script resolved ahead
+	 * is reported to the first script importing it.
+	 *
+	 * @param importExecutor Executor to be used, or {@code null} to resolve imported scripts sequentially on the thread
+	 *                       parsing the source
+	 * @see ImportScanner
+	 */
+	public final void setImportExecutor(@Nullable Executor importExecutor){
+		this.importExecutor = importExecutor;
+	}
+	@Nullable public final Executor importExecutor(){
+		return importExecutor;
+	}
+
+	/**
+	 * Sets the cache storing instances resolved by this engine. Instances in previous cache are not moved to the new
+	 * cache. By default, {@link InstanceCache#unbounded()} is used, which keeps every instance until {@link
+	 * AmongEngine#clearInstances()} is called.<br>
+	 * Paths evicted from the cache are resolved again on next request. Entries of {@link
+	 * AmongEngine#sourcePositions()} of evicted paths are removed on eviction; canonical instances of the
+	 * deduplicator used by {@link AmongEngine#deduplicateCompileResult} are weakly referenced, and released once no
+	 * cached instance uses them.
+	 *
+	 * @param instanceCache Instance cache to be used
+	 * @throws NullPointerException If {@code instanceCache == null}
+	 * @see InstanceCache#builder()
+	 */
+	public final void setInstanceCache(InstanceCache instanceCache){
+		Objects.requireNonNull(instanceCache);
+		this.instances.removeEvictionListener(evictionListener);
+		instanceCache.addEvictionListener(evictionListener);
+		this.instances = instanceCache;
+	}
+	public final InstanceCache instanceCache(){
+		return instances;
+	}
+
 	/**
 	 * Reads and parses the source into newly created {@link AmongRoot}. The instance read will not be correlated to any
 	 * path.
@@ -112,10 +267,99 @@ public class AmongEngine{
 	 * @return Result with {@code root} (or new root if it was {@code null}) containing objects parsed from {@code source}
 	 */
 	public final CompileResult read(Source source, @Nullable AmongRoot root, @Nullable AmongDefinition importDefinition){
-		return new Parser(source, this,
-				root==null ? new AmongRoot() : root,
-				importDefinition==null ? new AmongDefinition() : importDefinition)
-				.parse();
+		return read(source, root, importDefinition, null);
+	}
+
+	private CompileResult read(Source source, @Nullable AmongRoot root, @Nullable AmongDefinition importDefinition, @Nullable String path){
+		Executor importExecutor = this.importExecutor;
+		List<String> aheadPaths = importExecutor==null ? Collections.emptyList() : ImportScanner.scan(source);
+		if(importExecutor!=null) resolveAhead(aheadPaths, importExecutor);
+		CompileResult result;
+		try{
+			result = new Parser(source, this,
+					root==null ? new AmongRoot() : root,
+					importDefinition==null ? new AmongDefinition() : importDefinition)
+					.parse();
+		}finally{
+			abandonAhead(aheadPaths);
+		}
+		if(result.isSuccess()){
+			packAndDeduplicate(result.root());
+			SourcePositionTable positions = result.sourcePositions();
+			switch(sourcePositionMode){
+				case SourcePositionMode.TABLE:
+					retainReachable(positions, result);
+					synchronized(sourcePositions){
+						int fileId = path==null ? -1 : sourcePositions.fileId(path);
+						if(fileId!=-1) sourcePositions.removeFile(fileId); // entries of the instance being replaced
+						sourcePositions.putAll(positions, fileId);
+					}
+					positions.clear();
+					break;
+				case SourcePositionMode.DISCARD:
+					positions.clear();
+					break;
+				default:
+					retainReachable(positions, result);
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Drops positions of the nodes discarded during compilation, such as the ones replaced by macro expansions.
+	 */
+	private static void retainReachable(SourcePositionTable positions, CompileResult result){
+		List<Among> roots = new ArrayList<>(result.root().values());
+		AmongVisitor templateRoots = new AmongVisitor(){
+			@Override public void visit(AmongPrimitive primitive){
+				roots.add(primitive);
+			}
+			@Override public boolean visitBefore(AmongObject object){
+				roots.add(object);
+				return false;
+			}
+			@Override public boolean visitBefore(AmongList list){
+				roots.add(list);
+				return false;
+			}
+		};
+		result.definition().macros().allMacros().forEach(m -> {
+			if(m instanceof MacroDefinition) ((MacroDefinition)m).visitTemplate(templateRoots);
+		});
+		positions.retainReachable(roots);
+	}
+
+	private void packAndDeduplicate(AmongRoot root){
+		if(packNumericLists){
+			AmongVisitor packer = new AmongVisitor(){
+				@Override public void visit(AmongPrimitive primitive){}
+				@Override public void visitAfter(AmongList list){
+					list.pack();
+				}
+			};
+			for(Among among : root) among.visit(packer);
+		}
+		if(deduplicateCompileResult){
+			synchronized(deduplicator){
+				root.deduplicate(deduplicator);
+			}
+		}
+	}
+
+	/**
+	 * Returns the side table containing source positions of nodes compiled with {@link SourcePositionMode#TABLE}.
+	 * Entries of each path are kept until the path is compiled again, its instance is evicted from {@link
+	 * AmongEngine#instanceCache()}, or {@link AmongEngine#clearInstances()} is called. Nodes read with {@link
+	 * AmongEngine#read(Source)} have unknown file, as they are not correlated to any path.<br>
+	 * The table is modified during compilation while holding its lock; accessing the table while sources are compiled
+	 * by other threads should be synchronized on the table.
+	 *
+	 * @return Source position table of this engine
+	 * @see AmongEngine#sourcePositionMode
+	 */
+	public final SourcePositionTable sourcePositions(){
+		return sourcePositions;
 	}
 
 	/**
@@ -144,7 +388,8 @@ public class AmongEngine{
 	 * If neither instance nor source cannot be resolved, {@link ReadResult.Failure} will be returned. If the
 	 * compilation result returned by {@link AmongEngine#read(Source)} contains error, {@link ReadResult.Failure} will
 	 * be returned. Following calls in the future with identical path will yield the same result without an attempt to
-	 * resolve the instance or source again.<br>
+	 * resolve the instance or source again, unless the result was evicted from {@link AmongEngine#instanceCache()}. If
+	 * the path is being resolved by another thread, this method waits for the result instead.<br>
 	 * Note that modifying the returned root might produce unwanted behavior.
 	 *
 	 * @param path          Path of the instance
@@ -153,12 +398,34 @@ public class AmongEngine{
 	 * @throws NullPointerException If {@code path == null}
 	 */
 	public final ReadResult getOrReadFrom(String path, @Nullable Consumer<String> reportHandler){
-		ReadResult r = pathByInstance.get(path);
-		if(r==null){
-			r = resolve(path, reportHandler);
-			pathByInstance.put(path, r);
+		Resolver resolver = resolver();
+		try{
+			ReadResult r;
+			Resolution resolution = resolving.get(Objects.requireNonNull(path));
+			if(resolution==null){
+				InstanceCache instances = this.instances;
+				r = instances.get(path);
+				if(r==null){
+					Resolution newResolution = new Resolution(path, resolver, false);
+					resolution = resolving.putIfAbsent(path, newResolution);
+					if(resolution!=null) r = await(resolution, resolver, reportHandler);
+					else{
+						// another thread might have completed the resolution after the cache lookup
+						ReadResult cached = instances.contains(path) ? instances.get(path) : null;
+						if(cached!=null){
+							resolving.remove(path, newResolution);
+							newResolution.result.complete(cached);
+							r = cached;
+						}else r = resolve(newResolution, reportHandler);
+					}
+				}
+			}else r = await(resolution, resolver, reportHandler);
+			Map<String, AmongDigest> dependencies = resolver.dependencyStack.peek();
+			if(dependencies!=null) dependencies.put(path, contentKey(r));
+			return r;
+		}finally{
+			release(resolver);
 		}
-		return r;
 	}
 
 	/**
@@ -186,7 +453,8 @@ public class AmongEngine{
 	 * If neither instance nor source cannot be resolved, {@link ReadResult.Failure} will be returned. If the
 	 * compilation result returned by {@link AmongEngine#read(Source)} contains error, {@link ReadResult.Failure} will
 	 * be returned. Following calls of {@link AmongEngine#getOrReadFrom(String)} in the future with identical path will
-	 * yield the same result without an attempt to resolve the instance or source again.<br>
+	 * yield the same result without an attempt to resolve the instance or source again. If the path is being resolved
+	 * by another thread, this method waits for the result of that resolution instead of resolving the path again.<br>
 	 * Note that modifying the returned root might produce unwanted behavior.
 	 *
 	 * @param path          Path of the instance
@@ -195,50 +463,187 @@ public class AmongEngine{
 	 * @throws NullPointerException If {@code path == null}
 	 */
 	public final ReadResult readFrom(String path, @Nullable Consumer<String> reportHandler){
-		ReadResult r = resolve(path, reportHandler);
-		pathByInstance.put(path, r);
-		return r;
+		Resolver resolver = resolver();
+		try{
+			List<String> trace;
+			synchronized(waitLock){
+				trace = resolver.trace(Objects.requireNonNull(path));
+			}
+			if(trace!=null){ // path is already resolving, which implies circular referencing
+				reportCircularReference(path, trace, reportHandler);
+				return new ReadResult.Failure(path);
+			}
+			Resolution resolution = new Resolution(path, resolver, false);
+			while(true){
+				Resolution prev = resolving.putIfAbsent(path, resolution);
+				if(prev==null) return resolve(resolution, reportHandler);
+				// resolution in progress reads the path anew as well; share its result instead of resolving twice
+				if(!prev.result.isDone()) return await(prev, resolver, reportHandler);
+				resolving.remove(path, prev); // failure resolved ahead, replaced by this resolution
+			}
+		}finally{
+			release(resolver);
+		}
+	}
+
+	private void resolveAhead(List<String> paths, Executor executor){
+		for(String path : paths){
+			if(resolving.containsKey(path)||instances.contains(path)) continue;
+			try{
+				executor.execute(() -> resolveAhead(path));
+			}catch(RejectedExecutionException ex){
+				return; // the parser resolves the rest by itself
+			}
+		}
 	}
 
-	private final LinkedHashSet<String> resolvingPathCache = new LinkedHashSet<>();
+	private void resolveAhead(String path){
+		if(resolving.containsKey(path)||instances.contains(path)) return;
+		Resolver resolver = resolver();
+		try{
+			Resolution resolution = new Resolution(path, resolver, true);
+			if(resolving.putIfAbsent(path, resolution)!=null) return;
+			// another thread might have completed the resolution after the cache lookup
+			ReadResult cached = instances.contains(path) ? instances.get(path) : null;
+			if(cached!=null){
+				resolution.result.complete(cached); // threads might be waiting for the resolution already
+				resolving.remove(path, resolution);
+			}else resolve(resolution, null);
+		}catch(RuntimeException ignored){
+			// rethrown to the threads waiting for the resolution, and resolved again by the next import
+		}finally{
+			release(resolver);
+		}
+	}
 
-	private ReadResult resolve(String path, @Nullable Consumer<String> reportHandler){
-		if(!resolvingPathCache.add(path)){ // path is already resolving, which implies circular referencing
-			if(reportHandler!=null){
-				List<String> trace = new ArrayList<>();
-				boolean found = false;
-				for(String s : resolvingPathCache){
-					if(found) trace.add(s);
-					else if(s.equals(path)){
-						found = true;
-						trace.add(s);
-					}
+	/**
+	 * Drops failed resolutions started ahead of the parser which were not requested by it, as no importer is left to
+	 * report the failure to. Resolutions still in progress are dropped once they are done.
+	 */
+	private void abandonAhead(List<String> paths){
+		for(String path : paths){
+			Resolution resolution = resolving.get(path);
+			if(resolution!=null&&resolution.unrequested!=null&&
+					resolution.unrequested.compareAndSet(true, false)&&
+					resolution.result.isDone())
+				resolving.remove(path, resolution);
+		}
+	}
+
+	private Resolver resolver(){
+		Resolver resolver = resolvers.get();
+		if(resolver==null) resolvers.set(resolver = new Resolver());
+		return resolver;
+	}
+
+	private void release(Resolver resolver){
+		if(resolver.chain.isEmpty()&&resolver.dependencyStack.isEmpty()) resolvers.remove();
+	}
+
+	/**
+	 * Resolves the path of the resolution on current thread, completes it with the result, and stores the result to
+	 * the instance cache.
+	 */
+	private ReadResult resolve(Resolution resolution, @Nullable Consumer<String> reportHandler){
+		Resolver resolver = resolution.owner;
+		synchronized(waitLock){
+			resolver.chain.add(resolution);
+		}
+		ReadResult r;
+		try{
+			r = resolveInternal(resolution, reportHandler);
+		}catch(RuntimeException|Error ex){
+			resolving.remove(resolution.path, resolution); // let the next call try again
+			resolution.result.completeExceptionally(ex);
+			throw ex;
+		}finally{
+			synchronized(waitLock){
+				resolver.chain.remove(resolver.chain.size()-1);
+			}
+		}
+		instances.put(resolution.path, r);
+		resolution.result.complete(r);
+		// failures resolved ahead are kept until the first request, so that it can be reported to the importer
+		if(resolution.failure==null||resolution.unrequested==null||!resolution.unrequested.get())
+			resolving.remove(resolution.path, resolution);
+		// eviction of the instance during put is ignored by releaseEvicted, as the resolution was not done yet
+		if(!instances.contains(resolution.path)) releaseEvicted(resolution.path);
+		return r;
+	}
+
+	/**
+	 * Waits for the resolution to complete. If waiting would block forever because the resolution (directly or through
+	 * other threads) waits for current thread, the reference is circular; failure is returned without waiting. If the
+	 * resolution in progress fails, its failure is reported to {@code reportHandler} as well.
+	 */
+	private ReadResult await(Resolution resolution, Resolver resolver, @Nullable Consumer<String> reportHandler){
+		boolean inProgress = !resolution.result.isDone();
+		boolean firstRequest = resolution.unrequested!=null&&resolution.unrequested.compareAndSet(true, false);
+		if(firstRequest&&!inProgress) resolving.remove(resolution.path, resolution);
+		if(inProgress){
+			synchronized(waitLock){
+				List<String> trace = cycle(resolution, resolver);
+				if(trace!=null){
+					reportCircularReference(resolution.path, trace, reportHandler);
+					return new ReadResult.Failure(resolution.path);
 				}
-				switch(trace.size()){
-					case 0: // what?
-						reportHandler.accept("Cannot resolve definitions from path '"+path+"': Cosmic ray interference or sth idk");
-						break;
-					case 1: // self-reference
-						reportHandler.accept("Cannot resolve definitions from path '"+path+"': Self-reference");
-						break;
-					default:{ // circular reference
-						StringBuilder stb = new StringBuilder();
-						stb.append("Cannot resolve definitions from path '").append(path).append("': Circular reference detected");
-						for(int i = 0; i<trace.size()-1; i++)
-							stb.append("\n  '").append(trace.get(i)).append("' references '").append(trace.get(i+1)).append("'");
-						stb.append("\n  and '").append(trace.get(trace.size()-1)).append("' references '").append(path).append("'");
-						reportHandler.accept(stb.toString());
-					}
+				resolver.waitingOn = resolution;
+			}
+		}
+		try{
+			ReadResult r = resolution.result.join();
+			if((inProgress||firstRequest)&&resolution.failure!=null&&reportHandler!=null)
+				reportHandler.accept(resolution.failure);
+			return r;
+		}catch(CompletionException ex){
+			Throwable cause = ex.getCause();
+			if(cause instanceof RuntimeException) throw (RuntimeException)cause;
+			if(cause instanceof Error) throw (Error)cause;
+			throw ex;
+		}finally{
+			if(resolver.waitingOn!=null){
+				synchronized(waitLock){
+					resolver.waitingOn = null;
 				}
 			}
-			return new ReadResult.Failure(path);
 		}
-		ReadResult r = resolveInternal(path, reportHandler);
-		resolvingPathCache.remove(path);
-		return r;
 	}
 
-	private ReadResult resolveInternal(String path, @Nullable Consumer<String> reportHandler){
+	/**
+	 * Follows the chain of threads waiting on each other, starting from the owner of the resolution. Should be called
+	 * while holding {@link AmongEngine#waitLock}.
+	 *
+	 * @return Paths forming circular reference, starting from the path of the resolution; or {@code null} if waiting
+	 * for the resolution does not end up waiting for {@code resolver}
+	 */
+	@Nullable private static List<String> cycle(Resolution resolution, Resolver resolver){
+		List<String> trace = new ArrayList<>();
+		for(Resolution r = resolution; r!=null; r = r.owner.waitingOn){
+			List<Resolution> chain = r.owner.chain;
+			int i = chain.indexOf(r);
+			if(i<0) return null; // already completed
+			for(; i<chain.size(); i++) trace.add(chain.get(i).path);
+			if(r.owner==resolver) return trace;
+		}
+		return null;
+	}
+
+	private static void reportCircularReference(String path, List<String> trace, @Nullable Consumer<String> reportHandler){
+		if(reportHandler==null) return;
+		if(trace.size()==1){ // self-reference
+			reportHandler.accept("Cannot resolve definitions from path '"+path+"': Self-reference");
+			return;
+		}
+		StringBuilder stb = new StringBuilder();
+		stb.append("Cannot resolve definitions from path '").append(path).append("': Circular reference detected");
+		for(int i = 0; i<trace.size()-1; i++)
+			stb.append("\n  '").append(trace.get(i)).append("' references '").append(trace.get(i+1)).append("'");
+		stb.append("\n  and '").append(trace.get(trace.size()-1)).append("' references '").append(path).append("'");
+		reportHandler.accept(stb.toString());
+	}
+
+	private ReadResult resolveInternal(Resolution resolution, @Nullable Consumer<String> reportHandler){
+		String path = resolution.path;
 		boolean error = false;
 		for(Provider<RootAndDefinition> ip : instanceProviders){
 			try{
@@ -253,13 +658,33 @@ public class AmongEngine{
 			try{
 				Source source = sp.resolve(path);
 				if(source!=null){
+					CompiledCache cache = this.compiledCache;
+					AmongDigest cacheDigest = null;
+					Map<String, AmongDigest> dependencies = null;
+					ArrayDeque<Map<String, AmongDigest>> dependencyStack = resolver().dependencyStack;
+					if(cache!=null){
+						cacheDigest = cacheDigest(source);
+						// cached entries have no source positions to put in the table
+						if(sourcePositionMode!=SourcePositionMode.TABLE){
+							ReadResult cached = loadFromCache(cache, path, cacheDigest, reportHandler);
+							if(cached!=null) return cached;
+						}
+						dependencyStack.push(dependencies = new LinkedHashMap<>());
+					}
 					RootAndDefinition rad = createDefaultDefinition(path);
-					CompileResult res = read(source,
-							rad==null ? null : rad.root(),
-							rad==null ? null : rad.definition());
+					CompileResult res;
+					try{
+						res = read(source,
+								rad==null ? null : rad.root(),
+								rad==null ? null : rad.definition(), path);
+					}finally{
+						if(dependencies!=null) dependencyStack.pop();
+					}
 					if(res.isSuccess()){
 						handleCompileSuccess(path, res);
-						return new ReadResult.Compiled(path, res);
+						ReadResult.Compiled compiled = new ReadResult.Compiled(path, res);
+						if(cache!=null) storeToCache(cache, cacheDigest, dependencies, compiled);
+						return compiled;
 					}else{
 						handleCompileError(path, res);
 						error = true;
@@ -271,19 +696,152 @@ public class AmongEngine{
 				error = true;
 			}
 		}
-		if(reportHandler!=null)
-			reportHandler.accept(
-					"Cannot resolve definitions from path '"+path+"': "+
-							(error ? "Error in script" : "No script corresponding to path"));
+		resolution.failure = "Cannot resolve definitions from path '"+path+"': "+
+				(error ? "Error in script" : "No script corresponding to path");
+		if(reportHandler!=null) reportHandler.accept(resolution.failure);
 		return new ReadResult.Failure(path);
 	}
 
+	@Nullable private ReadResult loadFromCache(CompiledCache cache, String path, AmongDigest sourceDigest, @Nullable Consumer<String> reportHandler){
+		CompiledCache.Entry entry;
+		try{
+			entry = cache.load(path);
+		}catch(Exception ex){
+			handleCacheException(path, ex);
+			return null;
+		}
+		if(entry==null) return null;
+		if(entry.sourceDigest().equals(sourceDigest)){
+			AmongDefinition imports = new AmongDefinition();
+			RootAndDefinition defaultDefinition = createDefaultDefinition(path);
+			if(defaultDefinition!=null) defaultDefinition.definition().macros().allMacros().forEach(imports.macros()::add);
+			boolean valid = true;
+			ArrayDeque<Map<String, AmongDigest>> dependencyStack = resolver().dependencyStack;
+			dependencyStack.push(new HashMap<>()); // dependencies resolved here are not dependencies of outer script
+			try{
+				for(Map.Entry<String, AmongDigest> e : entry.dependencies().entrySet()){
+					ReadResult dependency = getOrReadFrom(e.getKey(), reportHandler);
+					if(!dependency.isSuccess()||!e.getValue().equals(contentKey(dependency))){
+						valid = false;
+						break;
+					}
+					dependency.definition().macros().allMacros().forEach(imports.macros()::add);
+				}
+			}finally{
+				dependencyStack.pop();
+			}
+			if(valid){
+				try{
+					RootAndDefinition rad = AmongBinary.readRootAndDefinition(new ByteArrayInputStream(entry.data()), imports);
+					packAndDeduplicate(rad.root());
+					ReadResult.Cached cached = new ReadResult.Cached(path, rad);
+					cached.contentKey = contentKey(sourceDigest, entry.dependencies());
+					return cached;
+				}catch(IOException ex){
+					handleCacheException(path, ex);
+				}
+			}
+		}
+		try{
+			cache.invalidate(path);
+		}catch(Exception ex){
+			handleCacheException(path, ex);
+		}
+		return null;
+	}
+
+	private void storeToCache(CompiledCache cache, AmongDigest sourceDigest, Map<String, AmongDigest> dependencies, ReadResult.Compiled compiled){
+		if(dependencies.containsValue(null)) return;
+		compiled.contentKey = contentKey(sourceDigest, dependencies);
+		try{
+			ByteArrayOutputStream out = new ByteArrayOutputStream();
+			AmongBinary.write(compiled.rootAndDefinition(), out);
+			cache.store(compiled.path(), new CompiledCache.Entry(sourceDigest, dependencies, out.toByteArray()));
+		}catch(Exception ex){
+			handleCacheException(compiled.path(), ex);
+		}
+	}
+
+	/**
+	 * Returns digest of the source combined with every option affecting compilation, so that entries compiled with
+	 * different options are not used.
+	 */
+	private AmongDigest cacheDigest(Source source){
+		MessageDigest md = Digests.md5();
+		md.update(source.digest().toBytes());
+		md.update((byte)((allowDuplicateObjectProperty ? 1 : 0)|
+				(allowInvalidOperatorRegistration ? 2 : 0)|
+				(copyMacroConstant ? 4 : 0)|
+				(packNumericLists ? 8 : 0)));
+		md.update((byte)invalidUnicodeHandling);
+		return AmongDigest.of(md.digest());
+	}
+
+	@Nullable private static AmongDigest contentKey(ReadResult result){
+		if(result instanceof ReadResult.Provided) return PROVIDED_CONTENT_KEY;
+		return result.isSuccess() ? result.contentKey : null;
+	}
+
+	private static AmongDigest contentKey(AmongDigest sourceDigest, Map<String, AmongDigest> dependencies){
+		MessageDigest md = Digests.md5();
+		md.update(sourceDigest.toBytes());
+		for(Map.Entry<String, AmongDigest> e : new TreeMap<>(dependencies).entrySet()){
+			md.update(e.getKey().getBytes(StandardCharsets.UTF_8));
+			md.update((byte)0);
+			md.update(e.getValue().toBytes());
+		}
+		return AmongDigest.of(md.digest());
+	}
+
+	/**
+	 * Create a report of estimated memory used by this engine; which includes instances read with {@link
+	 * AmongEngine#getOrReadFrom(String)} and {@link AmongEngine#readFrom(String)}, source position table and
+	 * deduplicator. Estimates of instances with frozen values, such as the ones compiled with {@link
+	 * AmongEngine#deduplicateCompileResult}, are cached after the first report, so the report can be polled
+	 * periodically without walking these instances again.
+	 *
+	 * @return Report of estimated memory used by this engine
+	 * @see ReadResult#estimateRetainedBytes()
+	 */
+	public final MemoryReport memoryReport(){
+		Map<String, Long> instanceBytes = new LinkedHashMap<>();
+		instances.forEach((path, r) -> instanceBytes.put(path, r.estimateRetainedBytes()));
+		long sourcePositionBytes, deduplicatorBytes;
+		synchronized(sourcePositions){
+			sourcePositionBytes = sourcePositions.estimateRetainedBytes();
+		}
+		synchronized(deduplicator){
+			deduplicatorBytes = deduplicator.estimateRetainedBytes();
+		}
+		return new MemoryReport(instanceBytes, sourcePositionBytes, deduplicatorBytes);
+	}
+
 	/**
 	 * Clears all caches of instance read with {@link AmongEngine#getOrReadFrom(String)} and {@link
-	 * AmongEngine#readFrom(String)}. Source providers and instance providers are not affected.
+	 * AmongEngine#readFrom(String)}, including pinned instances of {@link AmongEngine#instanceCache()}. Source
+	 * providers, instance providers and compiled cache are not affected.<br>
+	 * Resolutions in progress are not interrupted; threads waiting for them still receive their results.
 	 */
 	public final void clearInstances(){
-		pathByInstance.clear();
+		resolving.values().removeIf(r -> r.result.isDone());
+		instances.clear();
+		synchronized(deduplicator){
+			deduplicator.clear();
+		}
+		synchronized(sourcePositions){
+			sourcePositions.clear();
+		}
+	}
+
+	/**
+	 * Releases source positions of the evicted path. If the path is being resolved, the resolution replaces the
+	 * entries by itself; instances evicted before their resolution is done are released once it is done.
+	 */
+	private void releaseEvicted(String path){
+		synchronized(sourcePositions){
+			Resolution resolution = resolving.get(path);
+			if(resolution==null||resolution.result.isDone()) sourcePositions.removeFile(path);
+		}
 	}
 
 	protected void handleSourceResolveException(String path, Exception ex){
@@ -296,6 +854,11 @@ public class AmongEngine{
 		ex.printStackTrace();
 	}
 
+	protected void handleCacheException(String path, Exception ex){
+		System.err.println("An error occurred while accessing compiled cache of '"+path+"'");
+		ex.printStackTrace();
+	}
+
 	protected void handleCompileSuccess(String path, CompileResult result){
 		result.printReports(path);
 	}
@@ -316,4 +879,61 @@ public class AmongEngine{
 	@Nullable protected RootAndDefinition createDefaultDefinition(String path){
 		return null;
 	}
+
+	/**
+	 * Resolution of single path, shared by every thread requesting the path while it is in progress.
+	 */
+	private static final class Resolution{
+		final String path;
+		final Resolver owner;
+		final CompletableFuture<ReadResult> result = new CompletableFuture<>();
+		/**
+		 * Message reported on failure, visible to other threads once {@link Resolution#result} is completed.
+		 */
+		@Nullable String failure;
+		/**
+		 * Whether the resolution was started ahead of the parser, and no one has requested the result yet. {@code null}
+		 * if the resolution was requested from the start.
+		 */
+		@Nullable final AtomicBoolean unrequested;
+
+		Resolution(String path, Resolver owner, boolean ahead){
+			this.path = path;
+			this.owner = owner;
+			this.unrequested = ahead ? new AtomicBoolean(true) : null;
+		}
+	}
+
+	/**
+	 * Resolutions in progress on single thread.
+	 */
+	private static final class Resolver{
+		/**
+		 * Resolutions in progress, from outermost to innermost. Guarded by {@link AmongEngine#waitLock}.
+		 */
+		final List<Resolution> chain = new ArrayList<>();
+		/**
+		 * Resolution of another thread this thread is waiting for. Guarded by {@link AmongEngine#waitLock}.
+		 */
+		@Nullable Resolution waitingOn;
+		/**
+		 * Dependencies of each script being compiled, mapped to their content keys. {@code null} value indicates the
+		 * dependency has no content key, in which case the compiled script is not cached.
+		 */
+		final ArrayDeque<Map<String, AmongDigest>> dependencyStack = new ArrayDeque<>();
+
+		/**
+		 * @return Paths of resolutions in progress starting from the path, or {@code null} if the path is not being
+		 * resolved by this thread
+		 */
+		@Nullable List<String> trace(String path){
+			for(int i = 0; i<chain.size(); i++){
+				if(!chain.get(i).path.equals(path)) continue;
+				List<String> trace = new ArrayList<>();
+				for(; i<chain.size(); i++) trace.add(chain.get(i).path);
+				return trace;
+			}
+			return null;
+		}
+	}
 }
@@ -1,7 +1,9 @@
 package among;
 
 import among.exception.Sussy;
+import among.internals.MemoryEstimates;
 import among.obj.Among;
+import among.obj.AmongDeduplicator;
 
 import java.util.ArrayList;
 import java.util.Collections;
@@ -64,6 +66,46 @@ public final class AmongRoot extends ToPrettyString.Base implements Iterable<Amo
 		}
 	}
 
+	/**
+	 * Returns estimated size of memory retained by this root and all of its values, in bytes.
+	 *
+	 * @return Estimated size of memory retained by this root, in bytes
+	 * @see Among#estimateRetainedBytes()
+	 */
+	public long estimateRetainedBytes(){
+		long bytes = MemoryEstimates.object(1, 0)+
+				MemoryEstimates.arrayList(values.size());
+		for(Among among : values) bytes += among.estimateRetainedBytes();
+		return bytes;
+	}
+
+	/**
+	 * Freeze all values and canonicalize structurally identical subtrees into single shared instance. Values of this
+	 * root will be replaced with canonical instances.
+	 *
+	 * @return Estimated size of memory reclaimed, in bytes
+	 * @see AmongDeduplicator
+	 */
+	public long deduplicate(){
+		return deduplicate(new AmongDeduplicator());
+	}
+
+	/**
+	 * Freeze all values and canonicalize structurally identical subtrees into single shared instance, using given
+	 * deduplicator. Subtrees identical to ones previously seen by the deduplicator will be shared as well. Values of
+	 * this root will be replaced with canonical instances.
+	 *
+	 * @param deduplicator Deduplicator to use
+	 * @return Estimated size of memory reclaimed during this operation, in bytes
+	 * @see AmongDeduplicator
+	 */
+	public long deduplicate(AmongDeduplicator deduplicator){
+		long bytesReclaimed = deduplicator.bytesReclaimed();
+		for(int i = 0; i<values.size(); i++)
+			values.set(i, deduplicator.deduplicate(values.get(i)));
+		return deduplicator.bytesReclaimed()-bytesReclaimed;
+	}
+
 	/**
 	 * Create a shallow copy of this root. Values are re-added to the new root without copying.
 	 *
@@ -0,0 +1,334 @@
+package among;
+
+import among.obj.Among;
+import among.obj.AmongList;
+import among.obj.AmongObject;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+/**
+ * Cursor for iterating {@link Among} nodes in depth-first order, using an explicit stack instead of recursion. The
+ * stack is reused across nodes and across traversals started with {@link AmongTraversal#reset(Among)}; as such,
+ * traversing a tree does not allocate any objects once the stack has grown to the depth of the tree.<br>
+ * Snippet below shows basic usage of the traversal.
+ * <pre>
+ * AmongTraversal t = new AmongTraversal(among);
+ * while(t.next()){
+ *   Among node = t.current();
+ *   if(node.isObj()&&node.asObj().hasName()) t.prune(); // Skip elements of named objects
+ * }
+ * </pre>
+ * Unlike {@link AmongWalker}, path of the current node is not created unless requested with {@link
+ * AmongTraversal#path()}.
+ * <p>
+ * Modifying the tree during traversal - except for the current node itself, before its elements are visited - may
+ * produce unwanted behavior.
+ *
+ * @see Among#walk(AmongWalker)
+ * @see Among#visit(AmongVisitor)
+ */
+public final class AmongTraversal{
+	/**
+	 * Traverse each node of {@code among} in depth-first order.
+	 *
+	 * @param among  Starting node
+	 * @param action Action to be performed on each node, with traversal positioned at the node
+	 * @throws NullPointerException If either {@code among == null} or {@code action == null}
+	 */
+	public static void forEach(Among among, Consumer<AmongTraversal> action){
+		new AmongTraversal(among).forEach(action);
+	}
+
+	/**
+	 * Traverse each node of values in {@code root}, in parallel. Each value of the root is traversed independently
+	 * by tasks submitted to {@link ForkJoinPool#commonPool()}. This method returns after every traversal is
+	 * finished.<br>
+	 * Calling {@link AmongTraversal#stop()} on any traversal will stop all the other traversals as well. Exceptions
+	 * thrown from {@code action} will be rethrown after the traversal is terminated.
+	 * <p>
+	 * As the action can be called simultaneously from multiple threads, it should be thread-safe. Also, values of the
+	 * root should not share any mutable nodes with each other; see {@link Among#freeze()}.
+	 *
+	 * @param root   Root containing values to traverse
+	 * @param action Action to be performed on each node, with traversal positioned at the node
+	 * @throws NullPointerException If either {@code root == null} or {@code action == null}
+	 */
+	public static void parallelForEach(AmongRoot root, Consumer<AmongTraversal> action){
+		Objects.requireNonNull(action);
+		Among[] values = root.values().toArray(new Among[0]);
+		if(values.length==0) return;
+		ForkJoinPool.commonPool().invoke(new TraverseTask(values, 0, values.length, action, new AtomicBoolean()));
+	}
+
+	private static final int INITIAL_DEPTH = 8;
+
+	// stack of containers; elements of the container at stack[i] are at depth i+1
+	private Among[] containers = new Among[INITIAL_DEPTH];
+	private int[] positions = new int[INITIAL_DEPTH];
+	private int[] sizes = new int[INITIAL_DEPTH];
+	private boolean[] objectFrames = new boolean[INITIAL_DEPTH];
+	// property keys and values of objects in the stack, filled when the object is entered
+	private String[][] keys = new String[INITIAL_DEPTH][];
+	private Among[][] values = new Among[INITIAL_DEPTH][];
+	private int stackSize;
+
+	@Nullable private Among root;
+	@Nullable private Among current;
+	@Nullable private String key;
+	private int index = -1;
+	private boolean started;
+	private boolean prune;
+	private boolean stopped;
+	@Nullable private AtomicBoolean sharedStop;
+
+	private final PropertyFiller filler = new PropertyFiller();
+
+	/**
+	 * Creates new traversal starting from {@code root}.
+	 *
+	 * @param root Starting node
+	 * @throws NullPointerException If {@code root == null}
+	 */
+	public AmongTraversal(Among root){
+		reset(root);
+	}
+
+	/**
+	 * Restart the traversal from {@code root}. Internal stack will be reused.
+	 *
+	 * @param root Starting node
+	 * @throws NullPointerException If {@code root == null}
+	 */
+	public void reset(Among root){
+		this.root = Objects.requireNonNull(root);
+		for(int i = 0; i<stackSize; i++) clearFrame(i);
+		this.stackSize = 0;
+		this.current = null;
+		this.key = null;
+		this.index = -1;
+		this.started = false;
+		this.prune = false;
+		this.stopped = false;
+	}
+
+	/**
+	 * Moves to next node. The starting node is visited first, then each of its elements in depth-first order.
+	 *
+	 * @return Whether the traversal moved to next node; {@code false} if every node was visited or the traversal was
+	 * stopped
+	 */
+	public boolean next(){
+		if(stopped) return false;
+		if(sharedStop!=null&&sharedStop.get()){
+			stop();
+			return false;
+		}
+		if(!started){
+			started = true;
+			current = root;
+			return true;
+		}
+		if(current==null) return false;
+		if(!prune) enter(current);
+		prune = false;
+		while(stackSize>0){
+			int top = stackSize-1;
+			if(positions[top]<sizes[top]){
+				int i = positions[top]++;
+				index = i;
+				if(objectFrames[top]){
+					key = keys[top][i];
+					current = values[top][i];
+				}else{
+					key = null;
+					current = containers[top].asList().get(i);
+				}
+				return true;
+			}
+			clearFrame(top);
+			stackSize--;
+		}
+		current = null;
+		key = null;
+		index = -1;
+		return false;
+	}
+
+	private void enter(Among among){
+		int size;
+		if(among.isObj()) size = among.asObj().size();
+		else if(among.isList()) size = among.asList().size();
+		else return;
+		if(size==0) return;
+		int d = stackSize;
+		if(d==containers.length) grow();
+		containers[d] = among;
+		positions[d] = 0;
+		sizes[d] = size;
+		objectFrames[d] = among.isObj();
+		if(among.isObj()){
+			String[] keys = this.keys[d];
+			Among[] values = this.values[d];
+			if(keys==null||keys.length<size){
+				int capacity = Math.max(size, keys==null ? 8 : keys.length*2);
+				this.keys[d] = keys = new String[capacity];
+				this.values[d] = values = new Among[capacity];
+			}
+			filler.fill(among.asObj(), keys, values);
+		}
+		stackSize++;
+	}
+
+	private void grow(){
+		int len = containers.length*2;
+		containers = Arrays.copyOf(containers, len);
+		positions = Arrays.copyOf(positions, len);
+		sizes = Arrays.copyOf(sizes, len);
+		objectFrames = Arrays.copyOf(objectFrames, len);
+		keys = Arrays.copyOf(keys, len);
+		values = Arrays.copyOf(values, len);
+	}
+
+	private void clearFrame(int i){
+		containers[i] = null;
+		if(objectFrames[i]){
+			Arrays.fill(keys[i], 0, sizes[i], null);
+			Arrays.fill(values[i], 0, sizes[i], null);
+		}
+	}
+
+	/**
+	 * Performs the action on each remaining node.
+	 *
+	 * @param action Action to be performed on each node, with traversal positioned at the node
+	 * @throws NullPointerException If {@code action == null}
+	 */
+	public void forEach(Consumer<AmongTraversal> action){
+		Objects.requireNonNull(action);
+		while(next()) action.accept(this);
+	}
+
+	/**
+	 * Prevents the traversal from visiting elements of current node.
+	 */
+	public void prune(){
+		prune = true;
+	}
+
+	/**
+	 * Stops the traversal. Every subsequent call of {@link AmongTraversal#next()} will return {@code false}.
+	 */
+	public void stop(){
+		stopped = true;
+		if(sharedStop!=null) sharedStop.set(true);
+	}
+
+	/**
+	 * @return Current node
+	 * @throws IllegalStateException If the traversal is not positioned at any node
+	 */
+	public Among current(){
+		if(current==null) throw new IllegalStateException("No current node");
+		return current;
+	}
+
+	/**
+	 * @return Depth of current node; the starting node has depth of {@code 0}, its elements {@code 1}, and so on
+	 */
+	public int depth(){
+		return stackSize;
+	}
+
+	/**
+	 * @return Property key of current node if its parent is {@link AmongObject}, {@code null} otherwise
+	 */
+	@Nullable public String key(){
+		return key;
+	}
+
+	/**
+	 * @return Position of current node in its parent; either index of the {@link AmongList} or position of the
+	 * property in {@link AmongObject}. {@code -1} for starting node.
+	 */
+	public int index(){
+		return index;
+	}
+
+	/**
+	 * @return Parent of current node, or {@code null} if current node is the starting node
+	 */
+	@Nullable public Among parent(){
+		return stackSize==0 ? null : containers[stackSize-1];
+	}
+
+	/**
+	 * Creates a path of current node, relative to the starting node.
+	 *
+	 * @return Path of current node
+	 */
+	public NodePath path(){
+		NodePath.Element[] elements = new NodePath.Element[stackSize];
+		for(int i = 0; i<stackSize; i++){
+			int idx = positions[i]-1;
+			elements[i] = objectFrames[i] ? new NodePath.Property(keys[i][idx]) : new NodePath.Index(idx);
+		}
+		return NodePath.of(elements);
+	}
+
+	private static final class PropertyFiller implements BiConsumer<String, Among>{
+		private String[] keys;
+		private Among[] values;
+		private int i;
+
+		void fill(AmongObject object, String[] keys, Among[] values){
+			this.keys = keys;
+			this.values = values;
+			this.i = 0;
+			object.forEachProperty(this);
+			this.keys = null;
+			this.values = null;
+		}
+
+		@Override public void accept(String key, Among value){
+			keys[i] = key;
+			values[i++] = value;
+		}
+	}
+
+	private static final class TraverseTask extends RecursiveAction{
+		private static final long serialVersionUID = 1L;
+
+		private final Among[] values;
+		private final int start, end;
+		private final Consumer<AmongTraversal> action;
+		private final AtomicBoolean stop;
+
+		TraverseTask(Among[] values, int start, int end, Consumer<AmongTraversal> action, AtomicBoolean stop){
+			this.values = values;
+			this.start = start;
+			this.end = end;
+			this.action = action;
+			this.stop = stop;
+		}
+
+		@Override protected void compute(){
+			if(end-start>1){
+				int mid = (start+end) >>> 1;
+				invokeAll(new TraverseTask(values, start, mid, action, stop),
+						new TraverseTask(values, mid, end, action, stop));
+				return;
+			}
+			if(stop.get()) return;
+			AmongTraversal t = new AmongTraversal(values[start]);
+			t.sharedStop = stop;
+			t.forEach(action);
+		}
+	}
+}
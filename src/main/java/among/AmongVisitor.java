@@ -0,0 +1,46 @@
+package among;
+
+import among.obj.Among;
+import among.obj.AmongList;
+import among.obj.AmongObject;
+import among.obj.AmongPrimitive;
+
+/**
+ * Visitor for {@link Among} objects. Unlike {@link AmongWalker}, paths of the visited objects are not provided; which
+ * makes the traversal free of any allocation.
+ *
+ * @see Among#visit(AmongVisitor)
+ * @see AmongWalker
+ */
+@FunctionalInterface
+public interface AmongVisitor{
+	/**
+	 * Performs operation on the visited object. Modifying the instance is permitted.
+	 *
+	 * @param primitive The object being visited
+	 */
+	void visit(AmongPrimitive primitive);
+	/**
+	 * Performs operation on the visited object. Modifying the instance is permitted.
+	 *
+	 * @param object The object being visited
+	 * @return Whether it will visit the elements inside the object; returning {@code false} will prevent visitor from
+	 * visiting elements inside {@code object}.
+	 */
+	default boolean visitBefore(AmongObject object){
+		return true;
+	}
+	/**
+	 * Performs operation on the visited object. Modifying the instance is permitted.
+	 *
+	 * @param list The object being visited
+	 * @return Whether it will visit the elements inside the list; returning {@code false} will prevent visitor from
+	 * visiting elements inside {@code list}.
+	 */
+	default boolean visitBefore(AmongList list){
+		return true;
+	}
+
+	default void visitAfter(AmongObject object){}
+	default void visitAfter(AmongList list){}
+}
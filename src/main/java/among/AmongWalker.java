@@ -10,6 +10,7 @@ import among.obj.AmongPrimitive;
  *
  * @see Among#walk(AmongWalker)
  * @see Among#walk(AmongWalker, NodePath)
+ * @see AmongVisitor
  */
 @FunctionalInterface
 public interface AmongWalker{
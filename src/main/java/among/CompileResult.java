@@ -1,6 +1,9 @@
 package among;
 
 import among.exception.SussyCompile;
+import among.internals.MemoryEstimates;
+import among.obj.SourcePositionTable;
+import among.report.Report;
 import among.report.ReportList;
 import org.jetbrains.annotations.Nullable;
 
@@ -17,12 +20,17 @@ public final class CompileResult{
 	private final AmongRoot root;
 	private final AmongDefinition definition;
 	private final ReportList reports;
+	private final SourcePositionTable sourcePositions;
 
 	public CompileResult(Source source, AmongRoot root, AmongDefinition definition, ReportList reports){
+		this(source, root, definition, reports, new SourcePositionTable());
+	}
+	public CompileResult(Source source, AmongRoot root, AmongDefinition definition, ReportList reports, SourcePositionTable sourcePositions){
 		this.source = source;
 		this.root = root;
 		this.definition = definition;
 		this.reports = new ReportList(reports);
+		this.sourcePositions = sourcePositions;
 	}
 
 	/**
@@ -82,6 +90,18 @@ public final class CompileResult{
 		return reports;
 	}
 
+	/**
+	 * Source positions of the nodes created during operation, with unknown file. Depending on {@link
+	 * AmongEngine#sourcePositionMode}, the entries may have been moved to {@link AmongEngine#sourcePositions()} or
+	 * discarded after the operation.
+	 *
+	 * @return Source positions of the nodes created during operation
+	 * @see SourcePositionMode
+	 */
+	public SourcePositionTable sourcePositions(){
+		return sourcePositions;
+	}
+
 	/**
 	 * Whether the operation was successful or not. It is determined by simply checking for presence of error reports;
 	 * any error report found indicates failure of the operation.
@@ -119,6 +139,34 @@ public final class CompileResult{
 		if(!isSuccess()) throw new SussyCompile("Failed to compile");
 	}
 
+	/**
+	 * Returns estimated size of memory retained by this result, including the source, root, definition, reports and
+	 * source positions.
+	 *
+	 * @return Estimated size of memory retained by this result, in bytes
+	 * @see AmongRoot#estimateRetainedBytes()
+	 * @see AmongDefinition#estimateRetainedBytes()
+	 */
+	public long estimateRetainedBytes(){
+		long bytes = MemoryEstimates.object(5, 0)+
+				source.estimateRetainedBytes()+
+				root.estimateRetainedBytes()+
+				definition.estimateRetainedBytes()+
+				sourcePositions.estimateRetainedBytes()+
+				MemoryEstimates.arrayList(reports.size());
+		for(Report r : reports){
+			bytes += REPORT_SIZE+MemoryEstimates.string(r.message())+MemoryEstimates.arrayList(r.hints().size());
+			for(String hint : r.hints()) bytes += MemoryEstimates.string(hint);
+		}
+		return bytes;
+	}
+
+	/**
+	 * Size of each report: type, message, source position, exception and list of hints. Exceptions are not counted, as
+	 * they are usually shared with the stack that threw them.
+	 */
+	private static final int REPORT_SIZE = MemoryEstimates.object(4, 4);
+
 	public void printReports(){
 		reports.printReports(this.source);
 	}
@@ -0,0 +1,92 @@
+package among;
+
+import among.binary.AmongBinary;
+import among.obj.AmongDigest;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Persistent storage of compiled scripts, consulted by {@link AmongEngine} before compiling sources resolved from source
+ * providers. Each entry is keyed by path, and records digest of the source along with content keys of every script
+ * imported with {@code use} statements; entries are only used if the source and every dependency are unchanged.<br>
+ * Implementations should be thread-safe if the engine is used by multiple threads.
+ *
+ * @see AmongEngine#setCompiledCache(CompiledCache)
+ * @see FileCompiledCache
+ */
+public interface CompiledCache{
+	/**
+	 * Load the entry stored with given path. The exception thrown will be logged, and the entry will be ignored.
+	 *
+	 * @param path Path of the script
+	 * @return Entry stored with the path, or {@code null} if there's none
+	 * @throws Exception If any error occurs
+	 */
+	@Nullable Entry load(String path) throws Exception;
+
+	/**
+	 * Store the entry with given path, replacing previous entry. The exception thrown will be logged.
+	 *
+	 * @param path  Path of the script
+	 * @param entry Entry to store
+	 * @throws Exception If any error occurs
+	 */
+	void store(String path, Entry entry) throws Exception;
+
+	/**
+	 * Remove the entry stored with given path, if it exists. Called when the stored entry is outdated or invalid. The
+	 * exception thrown will be logged.
+	 *
+	 * @param path Path of the script
+	 * @throws Exception If any error occurs
+	 */
+	void invalidate(String path) throws Exception;
+
+	/**
+	 * Compiled script along with digests required for validating it.
+	 */
+	final class Entry{
+		private final AmongDigest sourceDigest;
+		private final Map<String, AmongDigest> dependencies;
+		private final byte[] data;
+
+		/**
+		 * @param sourceDigest Digest of the source, as computed by {@link Source#digest()}, combined with options of the
+		 *                     engine affecting compilation
+		 * @param dependencies Paths of every script imported by the source, mapped to its content key at the time of
+		 *                     compilation
+		 * @param data         Compiled root and definition, written by {@link AmongBinary#write(RootAndDefinition,
+		 *                     java.io.OutputStream)}
+		 */
+		public Entry(AmongDigest sourceDigest, Map<String, AmongDigest> dependencies, byte[] data){
+			this.sourceDigest = Objects.requireNonNull(sourceDigest);
+			this.dependencies = Collections.unmodifiableMap(new LinkedHashMap<>(dependencies));
+			this.data = Objects.requireNonNull(data);
+		}
+
+		public AmongDigest sourceDigest(){
+			return sourceDigest;
+		}
+		public Map<String, AmongDigest> dependencies(){
+			return dependencies;
+		}
+		/**
+		 * @return Compiled root and definition in binary form. The array is not copied, and should not be modified.
+		 */
+		public byte[] data(){
+			return data;
+		}
+
+		@Override public String toString(){
+			return "Entry{"+
+					"sourceDigest="+sourceDigest+
+					", dependencies="+dependencies+
+					", data="+data.length+" bytes"+
+					'}';
+		}
+	}
+}
@@ -0,0 +1,105 @@
+package among;
+
+import among.internals.Digests;
+import among.obj.AmongDigest;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * {@link CompiledCache} storing each entry as a file in a directory. File name of each entry is derived from digest of
+ * the path. Entries are written to temporary file first and moved in place, so partially written entries are never
+ * read.
+ */
+public final class FileCompiledCache implements CompiledCache{
+	private static final int MAGIC = 0x414D4E43; // AMNC
+	private static final int VERSION = 1;
+	private static final String EXTENSION = ".amongc";
+
+	private final Path directory;
+
+	/**
+	 * @param directory Directory to store entries in; it will be created on first store if it does not exist
+	 * @throws NullPointerException If {@code directory == null}
+	 */
+	public FileCompiledCache(Path directory){
+		this.directory = Objects.requireNonNull(directory);
+	}
+
+	public Path directory(){
+		return directory;
+	}
+
+	@Nullable @Override public Entry load(String path) throws IOException{
+		Path file = fileOf(path);
+		if(!Files.isRegularFile(file)) return null;
+		try(DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))){
+			if(in.readInt()!=MAGIC||in.readInt()!=VERSION||!in.readUTF().equals(path)) return null;
+			AmongDigest sourceDigest = new AmongDigest(in.readLong(), in.readLong());
+			Map<String, AmongDigest> dependencies = new LinkedHashMap<>();
+			for(int i = in.readInt(); i>0; i--){
+				String dependency = in.readUTF();
+				dependencies.put(dependency, new AmongDigest(in.readLong(), in.readLong()));
+			}
+			byte[] data = new byte[in.readInt()];
+			in.readFully(data);
+			return new Entry(sourceDigest, dependencies, data);
+		}catch(NoSuchFileException ex){
+			return null;
+		}
+	}
+
+	@Override public void store(String path, Entry entry) throws IOException{
+		Files.createDirectories(directory);
+		Path file = fileOf(path);
+		Path temp = Files.createTempFile(directory, null, ".tmp");
+		try{
+			try(DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))){
+				out.writeInt(MAGIC);
+				out.writeInt(VERSION);
+				out.writeUTF(path);
+				out.writeLong(entry.sourceDigest().high);
+				out.writeLong(entry.sourceDigest().low);
+				out.writeInt(entry.dependencies().size());
+				for(Map.Entry<String, AmongDigest> e : entry.dependencies().entrySet()){
+					out.writeUTF(e.getKey());
+					out.writeLong(e.getValue().high);
+					out.writeLong(e.getValue().low);
+				}
+				out.writeInt(entry.data().length);
+				out.write(entry.data());
+			}
+			Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+		}finally{
+			Files.deleteIfExists(temp);
+		}
+	}
+
+	@Override public void invalidate(String path) throws IOException{
+		Files.deleteIfExists(fileOf(path));
+	}
+
+	private Path fileOf(String path){
+		MessageDigest md = Digests.md5();
+		return directory.resolve(AmongDigest.of(md.digest(path.getBytes(StandardCharsets.UTF_8)))+EXTENSION);
+	}
+
+	@Override public String toString(){
+		return "FileCompiledCache{"+
+				"directory="+directory+
+				'}';
+	}
+}
@@ -0,0 +1,155 @@
+package among;
+
+import org.jetbrains.annotations.Nullable;
+
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+/**
+ * Storage of instances resolved by {@link AmongEngine}, keyed by path. The engine consults the cache before resolving a
+ * path, and stores each result of resolution to the cache; paths evicted from the cache are resolved again on next
+ * request. Resolutions in progress are tracked by the engine separately, and are never stored in the cache.<br>
+ * Implementations should be thread-safe. The default cache, created by {@link InstanceCache#unbounded()}, keeps every
+ * instance until {@link AmongEngine#clearInstances()} is called; bounded caches with eviction policies can be created
+ * with {@link InstanceCache#builder()}.
+ *
+ * @see AmongEngine#setInstanceCache(InstanceCache)
+ * @see InstanceCacheBuilder
+ */
+public interface InstanceCache{
+	/**
+	 * Returns the instance stored with given path. Counted as a hit or a miss.
+	 *
+	 * @param path Path of the instance
+	 * @return Instance stored with the path, or {@code null} if there's none
+	 */
+	@Nullable ReadResult get(String path);
+
+	/**
+	 * Returns whether an instance is stored with given path. Unlike {@link InstanceCache#get(String)}, it is not
+	 * counted as an access.
+	 *
+	 * @param path Path of the instance
+	 * @return Whether an instance is stored with the path
+	 */
+	boolean contains(String path);
+
+	/**
+	 * Store the instance with given path, replacing previous instance.
+	 *
+	 * @param path   Path of the instance
+	 * @param result Instance to store
+	 */
+	void put(String path, ReadResult result);
+
+	/**
+	 * Remove every instance, including pinned ones. Statistics are not reset.
+	 */
+	void clear();
+
+	/**
+	 * Performs the action for each instance currently stored. Not counted as an access.
+	 *
+	 * @param action Action to be performed for each path and instance
+	 */
+	void forEach(BiConsumer<String, ReadResult> action);
+
+	/**
+	 * @return Number of instances currently stored
+	 */
+	int size();
+
+	/**
+	 * @return Snapshot of statistics of this cache
+	 */
+	Stats stats();
+
+	/**
+	 * Registers a listener notified with path of each instance removed by the eviction policy, including expired and
+	 * garbage collected ones. Instances removed by {@link InstanceCache#clear()} or replaced by {@link
+	 * InstanceCache#put(String, ReadResult)} are not notified. {@link AmongEngine} uses the listener to release data
+	 * kept for each path, such as its source positions.<br>
+	 * Implementations should notify the listener without holding the lock of the cache; the instance being put might be
+	 * evicted by the same call, such as the ones heavier than the maximum weight. Caches without eviction may ignore the
+	 * listener, which is the default behavior.
+	 *
+	 * @param listener Listener to be notified with path of each evicted instance
+	 */
+	default void addEvictionListener(Consumer<String> listener){}
+
+	/**
+	 * Unregisters a listener registered with {@link InstanceCache#addEvictionListener(Consumer)}.
+	 *
+	 * @param listener Listener to be removed
+	 */
+	default void removeEvictionListener(Consumer<String> listener){}
+
+	/**
+	 * @return New cache storing every instance without eviction
+	 */
+	static InstanceCache unbounded(){
+		return new InstanceCaches.Unbounded();
+	}
+
+	/**
+	 * @return New builder for bounded caches
+	 */
+	static InstanceCacheBuilder builder(){
+		return new InstanceCacheBuilder();
+	}
+
+	/**
+	 * Snapshot of statistics of {@link InstanceCache}.
+	 */
+	final class Stats{
+		private final long hitCount;
+		private final long missCount;
+		private final long evictionCount;
+
+		public Stats(long hitCount, long missCount, long evictionCount){
+			this.hitCount = hitCount;
+			this.missCount = missCount;
+			this.evictionCount = evictionCount;
+		}
+
+		/**
+		 * @return Number of {@link InstanceCache#get(String)} calls returning an instance
+		 */
+		public long hitCount(){
+			return hitCount;
+		}
+		/**
+		 * @return Number of {@link InstanceCache#get(String)} calls returning {@code null}
+		 */
+		public long missCount(){
+			return missCount;
+		}
+		/**
+		 * @return Number of instances removed by the eviction policy, including expired and garbage collected ones
+		 */
+		public long evictionCount(){
+			return evictionCount;
+		}
+		/**
+		 * @return Number of {@link InstanceCache#get(String)} calls
+		 */
+		public long requestCount(){
+			return hitCount+missCount;
+		}
+		/**
+		 * @return Ratio of hits to requests, or {@code 1} if there was no request
+		 */
+		public double hitRate(){
+			long requests = requestCount();
+			return requests==0 ? 1 : (double)hitCount/requests;
+		}
+
+		@Override public String toString(){
+			return "Stats{"+
+					"hitCount="+hitCount+
+					", missCount="+missCount+
+					", evictionCount="+evictionCount+
+					'}';
+		}
+	}
+}
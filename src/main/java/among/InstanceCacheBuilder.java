@@ -0,0 +1,138 @@
+package among;
+
+import among.internals.library.DefaultInstanceProvider;
+
+import java.time.Duration;
+import java.util.Objects;
+import java.util.function.LongSupplier;
+import java.util.function.Predicate;
+import java.util.function.ToLongFunction;
+
+/**
+ * Builder for bounded {@link InstanceCache}s. Instances are evicted in least-recently-used order once the total weight
+ * exceeds the maximum, and after expiration if set. Pinned instances are never evicted, and do not count towards the
+ * total weight.<br>
+ * By default, the cache is unbounded, and instances provided by instance providers - such as the default libraries
+ * from {@link DefaultInstanceProvider} - are pinned.
+ *
+ * @see InstanceCache#builder()
+ */
+public final class InstanceCacheBuilder{
+	private long maximumWeight = Long.MAX_VALUE;
+	private ToLongFunction<ReadResult> weigher = r -> 1;
+	private long expireAfterAccess = -1;
+	private long expireAfterWrite = -1;
+	private boolean softValues;
+	private Predicate<String> pinnedPaths = path -> false;
+	private boolean pinProvided = true;
+	private LongSupplier ticker = System::nanoTime;
+
+	InstanceCacheBuilder(){}
+
+	/**
+	 * Sets the maximum number of instances, excluding pinned ones.
+	 *
+	 * @param maximumSize Maximum number of instances
+	 * @return This builder
+	 * @throws IllegalArgumentException If {@code maximumSize < 0}
+	 */
+	public InstanceCacheBuilder maximumSize(long maximumSize){
+		return maximumWeight(maximumSize, r -> 1);
+	}
+
+	/**
+	 * Sets the maximum total weight of instances, excluding pinned ones. Weight of each instance is computed once,
+	 * when it is stored. {@link ReadResult#estimateRetainedBytes()} can be used as weigher to bound the memory used by
+	 * the instances.
+	 *
+	 * @param maximumWeight Maximum total weight of instances
+	 * @param weigher       Function computing weight of each instance; should not return negative value
+	 * @return This builder
+	 * @throws IllegalArgumentException If {@code maximumWeight < 0}
+	 * @throws NullPointerException     If {@code weigher == null}
+	 */
+	public InstanceCacheBuilder maximumWeight(long maximumWeight, ToLongFunction<ReadResult> weigher){
+		if(maximumWeight<0) throw new IllegalArgumentException("maximumWeight < 0");
+		this.maximumWeight = maximumWeight;
+		this.weigher = Objects.requireNonNull(weigher);
+		return this;
+	}
+
+	/**
+	 * Expires instances not accessed for given duration after last access or store.
+	 *
+	 * @param duration Duration after last access
+	 * @return This builder
+	 * @throws IllegalArgumentException If {@code duration} is negative
+	 */
+	public InstanceCacheBuilder expireAfterAccess(Duration duration){
+		if(duration.isNegative()) throw new IllegalArgumentException("Negative duration");
+		this.expireAfterAccess = duration.toNanos();
+		return this;
+	}
+
+	/**
+	 * Expires instances after given duration since they were stored.
+	 *
+	 * @param duration Duration after store
+	 * @return This builder
+	 * @throws IllegalArgumentException If {@code duration} is negative
+	 */
+	public InstanceCacheBuilder expireAfterWrite(Duration duration){
+		if(duration.isNegative()) throw new IllegalArgumentException("Negative duration");
+		this.expireAfterWrite = duration.toNanos();
+		return this;
+	}
+
+	/**
+	 * Holds instances with {@link java.lang.ref.SoftReference}s, so that they can be garbage collected in response to
+	 * memory demand. Pinned instances are strongly referenced.
+	 *
+	 * @return This builder
+	 */
+	public InstanceCacheBuilder softValues(){
+		this.softValues = true;
+		return this;
+	}
+
+	/**
+	 * Pins instances of paths matching the predicate. Can be called multiple times; instances of paths matching any
+	 * of the predicates are pinned.
+	 *
+	 * @param paths Predicate of paths to pin
+	 * @return This builder
+	 * @throws NullPointerException If {@code paths == null}
+	 */
+	public InstanceCacheBuilder pin(Predicate<String> paths){
+		this.pinnedPaths = this.pinnedPaths.or(Objects.requireNonNull(paths));
+		return this;
+	}
+
+	/**
+	 * Sets whether instances provided by instance providers are pinned. Enabled by default.
+	 *
+	 * @param pinProvided Whether instances provided by instance providers are pinned
+	 * @return This builder
+	 */
+	public InstanceCacheBuilder pinProvided(boolean pinProvided){
+		this.pinProvided = pinProvided;
+		return this;
+	}
+
+	/**
+	 * Sets the source of time used for expiration, in nanoseconds. {@link System#nanoTime()} is used by default.
+	 *
+	 * @param ticker Source of time in nanoseconds
+	 * @return This builder
+	 * @throws NullPointerException If {@code ticker == null}
+	 */
+	public InstanceCacheBuilder ticker(LongSupplier ticker){
+		this.ticker = Objects.requireNonNull(ticker);
+		return this;
+	}
+
+	public InstanceCache build(){
+		return new InstanceCaches.Bounded(maximumWeight, weigher, expireAfterAccess, expireAfterWrite,
+				softValues, pinnedPaths, pinProvided, ticker);
+	}
+}
@@ -0,0 +1,278 @@
+package among;
+
+import org.jetbrains.annotations.Nullable;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.SoftReference;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.function.LongSupplier;
+import java.util.function.Predicate;
+import java.util.function.ToLongFunction;
+
+/**
+ * Implementations of {@link InstanceCache}.
+ */
+final class InstanceCaches{
+	private InstanceCaches(){}
+
+	static final class Unbounded implements InstanceCache{
+		private final Map<String, ReadResult> instances = new ConcurrentHashMap<>();
+		private final LongAdder hits = new LongAdder();
+		private final LongAdder misses = new LongAdder();
+
+		@Nullable @Override public ReadResult get(String path){
+			ReadResult r = instances.get(path);
+			(r!=null ? hits : misses).increment();
+			return r;
+		}
+		@Override public boolean contains(String path){
+			return instances.containsKey(path);
+		}
+		@Override public void put(String path, ReadResult result){
+			instances.put(path, result);
+		}
+		@Override public void clear(){
+			instances.clear();
+		}
+		@Override public void forEach(BiConsumer<String, ReadResult> action){
+			instances.forEach(action);
+		}
+		@Override public int size(){
+			return instances.size();
+		}
+		@Override public Stats stats(){
+			return new Stats(hits.sum(), misses.sum(), 0);
+		}
+	}
+
+	/**
+	 * Cache evicting least-recently-used instances. Nodes are kept in access order, so that each lookup moves the node
+	 * to the end of the map.<br>
+	 * Paths evicted while holding the lock are queued, and eviction listeners are notified after the lock is released.
+	 */
+	static final class Bounded implements InstanceCache{
+		private final long maximumWeight;
+		private final ToLongFunction<ReadResult> weigher;
+		private final long expireAfterAccess;
+		private final long expireAfterWrite;
+		private final boolean softValues;
+		private final Predicate<String> pinnedPaths;
+		private final boolean pinProvided;
+		private final LongSupplier ticker;
+
+		private final LinkedHashMap<String, Node> nodes = new LinkedHashMap<>(16, 0.75f, true);
+		private final ReferenceQueue<ReadResult> collected = new ReferenceQueue<>();
+		private final List<Consumer<String>> evictionListeners = new CopyOnWriteArrayList<>();
+		/**
+		 * Paths evicted but not yet notified to the listeners. Guarded by the lock of the cache.
+		 */
+		private final List<String> pendingEvictions = new ArrayList<>();
+		/**
+		 * Total weight of unpinned instances.
+		 */
+		private long weight;
+		private long hits;
+		private long misses;
+		private long evictions;
+
+		Bounded(long maximumWeight, ToLongFunction<ReadResult> weigher, long expireAfterAccess, long expireAfterWrite,
+		        boolean softValues, Predicate<String> pinnedPaths, boolean pinProvided, LongSupplier ticker){
+			this.maximumWeight = maximumWeight;
+			this.weigher = weigher;
+			this.expireAfterAccess = expireAfterAccess;
+			this.expireAfterWrite = expireAfterWrite;
+			this.softValues = softValues;
+			this.pinnedPaths = pinnedPaths;
+			this.pinProvided = pinProvided;
+			this.ticker = ticker;
+		}
+
+		@Nullable @Override public ReadResult get(String path){
+			ReadResult r;
+			synchronized(this){
+				r = getInternal(path);
+			}
+			notifyEvictions();
+			return r;
+		}
+		@Nullable private ReadResult getInternal(String path){
+			purgeCollected();
+			Node node = nodes.get(path); // moves the node to the end
+			if(node==null){
+				misses++;
+				return null;
+			}
+			long now = ticker.getAsLong();
+			ReadResult r = node.get();
+			if(r==null||isExpired(node, now)){
+				evict(node);
+				misses++;
+				return null;
+			}
+			node.accessTime = now;
+			hits++;
+			return r;
+		}
+		@Override public boolean contains(String path){
+			boolean contains;
+			synchronized(this){
+				purgeCollected();
+				Node node = nodes.get(path);
+				contains = node!=null&&node.get()!=null&&!isExpired(node, ticker.getAsLong());
+			}
+			notifyEvictions();
+			return contains;
+		}
+		@Override public void put(String path, ReadResult result){
+			synchronized(this){
+				purgeCollected();
+				long now = ticker.getAsLong();
+				Node prev = nodes.remove(path);
+				if(prev!=null) weight -= prev.weight;
+				boolean pinned = pinProvided&&result instanceof ReadResult.Provided||pinnedPaths.test(path);
+				Node node = new Node(path, result, pinned ? 0 : weigher.applyAsLong(result), pinned,
+						softValues&&!pinned ? collected : null, now);
+				nodes.put(path, node);
+				weight += node.weight;
+				evictExpired(now);
+				for(Iterator<Node> it = nodes.values().iterator(); weight>maximumWeight&&it.hasNext(); ){
+					Node n = it.next();
+					if(n.pinned) continue;
+					it.remove();
+					evicted(n);
+				}
+			}
+			notifyEvictions();
+		}
+		@Override public synchronized void clear(){
+			nodes.clear();
+			weight = 0;
+			while(collected.poll()!=null);
+		}
+		@Override public void forEach(BiConsumer<String, ReadResult> action){
+			List<Node> snapshot;
+			synchronized(this){
+				purgeCollected();
+				snapshot = new ArrayList<>(nodes.values());
+			}
+			notifyEvictions();
+			for(Node node : snapshot){
+				ReadResult r = node.get();
+				if(r!=null) action.accept(node.path, r);
+			}
+		}
+		@Override public int size(){
+			int size;
+			synchronized(this){
+				purgeCollected();
+				size = nodes.size();
+			}
+			notifyEvictions();
+			return size;
+		}
+		@Override public synchronized Stats stats(){
+			return new Stats(hits, misses, evictions);
+		}
+		@Override public void addEvictionListener(Consumer<String> listener){
+			evictionListeners.add(listener);
+		}
+		@Override public void removeEvictionListener(Consumer<String> listener){
+			evictionListeners.remove(listener);
+		}
+
+		private boolean isExpired(Node node, long now){
+			if(node.pinned) return false;
+			return expireAfterAccess>=0&&now-node.accessTime>=expireAfterAccess||
+					expireAfterWrite>=0&&now-node.writeTime>=expireAfterWrite;
+		}
+
+		private void evictExpired(long now){
+			if(expireAfterAccess<0&&expireAfterWrite<0) return;
+			for(Iterator<Node> it = nodes.values().iterator(); it.hasNext(); ){
+				Node n = it.next();
+				if(!isExpired(n, now)) continue;
+				it.remove();
+				evicted(n);
+			}
+		}
+
+		private void purgeCollected(){
+			for(Reference<? extends ReadResult> ref; (ref = collected.poll())!=null; ){
+				String path = ((Node.Ref)ref).path;
+				Node node = nodes.get(path);
+				if(node!=null&&node.ref==ref) evict(node);
+			}
+		}
+
+		private void evict(Node node){
+			nodes.remove(node.path);
+			evicted(node);
+		}
+
+		/**
+		 * Accounts the node already removed from {@link Bounded#nodes} as evicted.
+		 */
+		private void evicted(Node node){
+			weight -= node.weight;
+			evictions++;
+			if(!evictionListeners.isEmpty()) pendingEvictions.add(node.path);
+		}
+
+		/**
+		 * Notifies the listeners with queued evictions. Must be called without holding the lock.
+		 */
+		private void notifyEvictions(){
+			List<String> paths;
+			synchronized(this){
+				if(pendingEvictions.isEmpty()) return;
+				paths = new ArrayList<>(pendingEvictions);
+				pendingEvictions.clear();
+			}
+			for(String path : paths)
+				for(Consumer<String> l : evictionListeners) l.accept(path);
+		}
+	}
+
+	private static final class Node{
+		final String path;
+		@Nullable final ReadResult strong;
+		@Nullable final Ref ref;
+		final long weight;
+		final boolean pinned;
+		final long writeTime;
+		long accessTime;
+
+		Node(String path, ReadResult result, long weight, boolean pinned, @Nullable ReferenceQueue<ReadResult> queue, long now){
+			this.path = path;
+			this.strong = queue==null ? result : null;
+			this.ref = queue==null ? null : new Ref(path, result, queue);
+			this.weight = weight;
+			this.pinned = pinned;
+			this.writeTime = now;
+			this.accessTime = now;
+		}
+
+		@Nullable ReadResult get(){
+			return ref!=null ? ref.get() : strong;
+		}
+
+		static final class Ref extends SoftReference<ReadResult>{
+			final String path;
+
+			Ref(String path, ReadResult referent, ReferenceQueue<ReadResult> q){
+				super(referent, q);
+				this.path = path;
+			}
+		}
+	}
+}
@@ -0,0 +1,81 @@
+package among;
+
+import among.internals.MemoryEstimates;
+import among.obj.AmongDeduplicator;
+import among.obj.SourcePositionTable;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Snapshot of estimated memory usage of {@link AmongEngine}. All values are estimates; see {@link MemoryEstimates}
+ * for details.
+ *
+ * @see AmongEngine#memoryReport()
+ */
+public final class MemoryReport{
+	private final Map<String, Long> instanceBytes;
+	private final long totalInstanceBytes;
+	private final long sourcePositionBytes;
+	private final long deduplicatorBytes;
+
+	MemoryReport(Map<String, Long> instanceBytes, long sourcePositionBytes, long deduplicatorBytes){
+		this.instanceBytes = Collections.unmodifiableMap(new LinkedHashMap<>(instanceBytes));
+		long total = 0;
+		for(long l : instanceBytes.values()) total += l;
+		this.totalInstanceBytes = total;
+		this.sourcePositionBytes = sourcePositionBytes;
+		this.deduplicatorBytes = deduplicatorBytes;
+	}
+
+	/**
+	 * @return Unmodifiable map of path to estimated size of each instance cached by the engine, in bytes
+	 * @see ReadResult#estimateRetainedBytes()
+	 */
+	public Map<String, Long> instanceBytes(){
+		return instanceBytes;
+	}
+	/**
+	 * @return Number of instances cached by the engine
+	 */
+	public int instances(){
+		return instanceBytes.size();
+	}
+	/**
+	 * @return Estimated size of all instances cached by the engine, in bytes
+	 */
+	public long totalInstanceBytes(){
+		return totalInstanceBytes;
+	}
+	/**
+	 * @return Estimated size of source position table, in bytes
+	 * @see SourcePositionTable#estimateRetainedBytes()
+	 */
+	public long sourcePositionBytes(){
+		return sourcePositionBytes;
+	}
+	/**
+	 * @return Estimated size of deduplicator, excluding canonical instances, in bytes
+	 * @see AmongDeduplicator#estimateRetainedBytes()
+	 */
+	public long deduplicatorBytes(){
+		return deduplicatorBytes;
+	}
+	/**
+	 * @return Estimated size of memory retained by the engine, in bytes
+	 */
+	public long totalBytes(){
+		return totalInstanceBytes+sourcePositionBytes+deduplicatorBytes;
+	}
+
+	@Override public String toString(){
+		return "MemoryReport{"+
+				"instances="+instances()+
+				", totalInstanceBytes="+totalInstanceBytes+
+				", sourcePositionBytes="+sourcePositionBytes+
+				", deduplicatorBytes="+deduplicatorBytes+
+				", totalBytes="+totalBytes()+
+				'}';
+	}
+}
@@ -6,9 +6,7 @@ import among.obj.AmongList;
 import among.obj.AmongObject;
 import org.jetbrains.annotations.Nullable;
 
-import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Objects;
@@ -39,7 +37,7 @@ public final class NodePath implements Iterable<NodePath.Element>{
 	 * @throws NullPointerException If either {@code path} or one of its elements are {@code null}
 	 */
 	public static NodePath of(Element... path){
-		return path.length==0 ? EMPTY : new NodePath(path);
+		return path.length==0 ? EMPTY : new NodePath(path.clone());
 	}
 	/**
 	 * Returns path instance with given elements.
@@ -49,7 +47,7 @@ public final class NodePath implements Iterable<NodePath.Element>{
 	 * @throws NullPointerException If either {@code path} or one of its elements are {@code null}
 	 */
 	public static NodePath of(List<Element> path){
-		return path.isEmpty() ? EMPTY : new NodePath(path);
+		return path.isEmpty() ? EMPTY : new NodePath(path.toArray(new Element[0]));
 	}
 
 	public static NodePathBuilder index(int idx){
@@ -59,39 +57,78 @@ public final class NodePath implements Iterable<NodePath.Element>{
 		return new NodePathBuilder().prop(prop);
 	}
 
-	private final Element[] path;
+	/**
+	 * Parent path, or {@code null} if this path is not constructed with {@link NodePath#subPath(Element)}. Paths
+	 * constructed with sub path share the elements of parent path, instead of copying them.
+	 */
+	@Nullable private final NodePath parent;
+	/**
+	 * Last element of the path, if {@link NodePath#parent} is present.
+	 */
+	@Nullable private final Element element;
+	private final int size;
+	private final int hash;
+	/**
+	 * Array of all elements. Lazily created on paths with parent.
+	 */
+	@Nullable private volatile Element[] path;
 
 	private NodePath(){
+		this.parent = null;
+		this.element = null;
+		this.size = 0;
+		this.hash = 1;
 		this.path = new Element[0];
 	}
-	private NodePath(Element... path){
-		this.path = path.clone();
-		for(Element e : this.path)
-			Objects.requireNonNull(e);
-	}
-	private NodePath(List<Element> path){
-		this.path = path.toArray(new Element[0]);
-		for(Element e : this.path)
+	/**
+	 * @param path Elements of the path, not copied
+	 */
+	private NodePath(Element[] path){
+		for(Element e : path)
 			Objects.requireNonNull(e);
+		this.parent = null;
+		this.element = null;
+		this.size = path.length;
+		this.hash = Arrays.hashCode(path);
+		this.path = path;
 	}
-	private NodePath(NodePath path, Element... subPath){
-		List<Element> list = new ArrayList<>();
-		Collections.addAll(list, path.path);
-		Collections.addAll(list, subPath);
-		this.path = list.toArray(new Element[0]);
-		for(Element e : this.path)
-			Objects.requireNonNull(e);
+	private NodePath(NodePath parent, Element element){
+		this.parent = parent;
+		this.element = Objects.requireNonNull(element);
+		this.size = parent.size+1;
+		this.hash = 31*parent.hash+element.hashCode(); // equivalent to Arrays.hashCode()
 	}
 
 	public int size(){
-		return path.length;
+		return size;
 	}
 	public boolean isEmpty(){
-		return path.length==0;
+		return size==0;
 	}
 
 	public Element get(int index){
-		return path[index];
+		if(index==size-1&&element!=null) return element;
+		return path()[index];
+	}
+
+	private Element[] path(){
+		Element[] path = this.path;
+		if(path==null){
+			path = new Element[size];
+			NodePath p = this;
+			int i = size;
+			for(; p.element!=null; p = p.parent){
+				Element[] parentPath = p.path;
+				if(parentPath!=null){ // use materialized array of ancestors if present
+					System.arraycopy(parentPath, 0, path, 0, i);
+					break;
+				}
+				path[--i] = p.element;
+			}
+			if(p.element==null) System.arraycopy(p.path, 0, path, 0, i);
+			this.path = path;
+		}
+		return path;
 	}
 
 	/**
@@ -101,7 +138,7 @@ public final class NodePath implements Iterable<NodePath.Element>{
 	 * @return The object this path is pointing at, or {@code null} if there is no such element.
 	 */
 	@Nullable public Among resolveAndGet(Among among){
-		return resolveAndGet(among, 0, path.length);
+		return resolveAndGet(among, 0, size);
 	}
 	/**
 	 * Returns the object this path is pointing at.
@@ -112,6 +149,7 @@ public final class NodePath implements Iterable<NodePath.Element>{
 	 * @return The object this path is pointing at, or {@code null} if there is no such element.
 	 */
 	@Nullable public Among resolveAndGet(Among among, int start, int end){
+		Element[] path = path();
 		for(int i = Math.max(0, start); i<Math.min(path.length, end); i++){
 			among = path[i].resolve(among);
 			if(among==null) break;
@@ -131,9 +169,9 @@ public final class NodePath implements Iterable<NodePath.Element>{
 	 */
 	public boolean resolveAndSet(Among among, Among element){
 		if(isEmpty()) return false; // Overwriting itself always fails
-		Among a = resolveAndGet(among, 0, path.length-1);
+		Among a = resolveAndGet(among, 0, size-1);
 		if(a!=null){
-			path[path.length-1].set(a, element);
+			get(size-1).set(a, element);
 			return true;
 		}else return false;
 	}
@@ -157,6 +195,17 @@ public final class NodePath implements Iterable<NodePath.Element>{
 	public NodePath subPath(int index){
 		return subPath(new Index(index));
 	}
+	/**
+	 * Constructs new path instance with sub path. One element will be added after the end this path. The new path
+	 * shares elements of this path; as such, this operation takes constant time regardless of the length of the path.
+	 *
+	 * @param element Element to be added after the end
+	 * @return Path with {@code element} added
+	 * @throws NullPointerException If {@code element == null}
+	 */
+	public NodePath subPath(Element element){
+		return new NodePath(this, element);
+	}
 	/**
 	 * Constructs new path instance with sub path. The sub path will be added after the end this path.
 	 *
@@ -165,25 +214,35 @@ public final class NodePath implements Iterable<NodePath.Element>{
 	 * @throws NullPointerException If either {@code subPath} or one of its elements are {@code null}
 	 */
 	public NodePath subPath(Element... subPath){
-		return subPath.length==0 ? this : new NodePath(this, subPath);
+		NodePath p = this;
+		for(Element e : subPath) p = new NodePath(p, e);
+		return p;
 	}
 
 	@Override public Iterator<Element> iterator(){
-		return Arrays.stream(path).iterator();
+		return Arrays.stream(path()).iterator();
 	}
 
 	@Override public boolean equals(Object o){
 		if(this==o) return true;
 		if(o==null||getClass()!=o.getClass()) return false;
 		NodePath nodePath = (NodePath)o;
-		return Arrays.equals(path, nodePath.path);
+		if(size!=nodePath.size||hash!=nodePath.hash) return false;
+		NodePath p1 = this, p2 = nodePath;
+		while(p1.element!=null&&p2.element!=null){ // compare shared ancestors by reference
+			if(p1==p2) return true;
+			if(!p1.element.equals(p2.element)) return false;
+			p1 = p1.parent;
+			p2 = p2.parent;
+		}
+		return p1==p2||Arrays.equals(p1.path(), p2.path());
 	}
 	@Override public int hashCode(){
-		return Arrays.hashCode(path);
+		return hash;
 	}
 
 	@Override public String toString(){
-		return Arrays.stream(path).map(Object::toString).collect(Collectors.joining());
+		return Arrays.stream(path()).map(Object::toString).collect(Collectors.joining());
 	}
 
 	/**
@@ -1,6 +1,9 @@
 package among;
 
 import among.exception.SussyCompile;
+import among.internals.MemoryEstimates;
+import among.obj.Among;
+import among.obj.AmongDigest;
 import org.jetbrains.annotations.Nullable;
 
 import java.util.function.Consumer;
@@ -8,10 +11,12 @@ import java.util.function.Consumer;
 /**
  * Result of {@link AmongEngine#readFrom(String, Consumer)} and {@link AmongEngine#getOrReadFrom(String,
  * Consumer)}.<br>
- * This object can be divided into three states, each being:
+ * This object can be divided into four states, each being:
  * <ul>
  *   <li>Script being resolved from instance provider. It will contain no {@link CompileResult}.</li>
  *   <li>Script being resolved from source provider. It will contain {@link CompileResult} as well as other things.</li>
+ *   <li>Script being resolved from source provider, but loaded from {@link CompiledCache} instead of being compiled.
+ *   It will contain no {@link CompileResult}.</li>
  *   <li>Script failed to resolve, either by no source being provided or by unexpected exception.
  *   It will contain no {@link CompileResult}. {@link RootAndDefinition} provided by the instance will be an empty instance.</li>
  * </ul>
@@ -23,6 +28,12 @@ import java.util.function.Consumer;
 public abstract class ReadResult{
 	private final String path;
 	private final RootAndDefinition rootAndDefinition;
+	private volatile long retainedBytes = -1;
+	/**
+	 * Content key of the result, set by {@link AmongEngine} while compiled cache is set; derived from digest of the
+	 * source and content keys of each dependency.
+	 */
+	@Nullable volatile AmongDigest contentKey;
 
 	private ReadResult(String path, RootAndDefinition rootAndDefinition){
 		this.path = path;
@@ -44,6 +55,10 @@ public abstract class ReadResult{
 
 	public abstract boolean isSuccess();
 
+	void invalidateRetainedBytes(){
+		retainedBytes = -1;
+	}
+
 	@Nullable public abstract CompileResult result();
 	@Nullable public Source source(){
 		CompileResult result = result();
@@ -78,6 +93,33 @@ public abstract class ReadResult{
 	 */
 	public void dropCompileResult(){}
 
+	/**
+	 * Returns estimated size of memory retained by this result, including compile result if present. If every value of
+	 * the root is frozen, such as the results compiled with {@link AmongEngine#deduplicateCompileResult}, the estimate
+	 * is computed once and cached; {@link ReadResult#dropCompileResult()} invalidates the cache. Otherwise the estimate
+	 * is computed on each call, as the values might be modified.
+	 *
+	 * @return Estimated size of memory retained by this result, in bytes
+	 * @see CompileResult#estimateRetainedBytes()
+	 */
+	public long estimateRetainedBytes(){
+		long bytes = retainedBytes;
+		if(bytes>=0) return bytes;
+		boolean frozen = true;
+		for(Among among : root()){
+			if(!among.isFrozen()){
+				frozen = false;
+				break;
+			}
+		}
+		CompileResult result = result();
+		bytes = MemoryEstimates.object(4, 8)+MemoryEstimates.string(path)+MemoryEstimates.object(2, 0)+
+				(result!=null ? result.estimateRetainedBytes() :
+						root().estimateRetainedBytes()+definition().estimateRetainedBytes());
+		if(frozen) retainedBytes = bytes;
+		return bytes;
+	}
+
 	/**
 	 * Result for scripts resolved with instance provider.
 	 */
@@ -115,6 +157,23 @@ public abstract class ReadResult{
 		}
 		@Override public void dropCompileResult(){
 			this.result = null;
+			invalidateRetainedBytes();
+		}
+	}
+
+	/**
+	 * Result for scripts loaded from {@link CompiledCache}.
+	 */
+	public static final class Cached extends ReadResult{
+		public Cached(String path, RootAndDefinition rootAndDefinition){
+			super(path, rootAndDefinition);
+		}
+
+		@Override public boolean isSuccess(){
+			return true;
+		}
+		@Nullable @Override public CompileResult result(){
+			return null;
 		}
 	}
 
@@ -1,9 +1,16 @@
 package among;
 
+import among.internals.Digests;
+import among.internals.MemoryEstimates;
+import among.obj.AmongDigest;
+import org.jetbrains.annotations.Nullable;
+
 import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.Reader;
 import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
@@ -58,6 +65,7 @@ public final class Source{
 	 * Positions of starting char of each {@link Source#rawSource}.
 	 */
 	private final int[] lineStarts;
+	@Nullable private volatile AmongDigest digest;
 
 	private Source(String[] rawSource){
 		this.rawSource = rawSource;
@@ -80,6 +88,38 @@ public final class Source{
 		return Collections.unmodifiableList(Arrays.asList(rawSource));
 	}
 
+	/**
+	 * Returns 128-bit digest of the source text. Sources with identical text produce same digest regardless of the
+	 * line separator used. The result is computed once and cached.
+	 *
+	 * @return Digest of the source text
+	 */
+	public AmongDigest digest(){
+		AmongDigest digest = this.digest;
+		if(digest==null){
+			MessageDigest md = Digests.md5();
+			for(int i = 0; i<rawSource.length; i++){
+				if(i!=0) md.update((byte)'\n');
+				md.update(rawSource[i].getBytes(StandardCharsets.UTF_8));
+			}
+			this.digest = digest = AmongDigest.of(md.digest());
+		}
+		return digest;
+	}
+
+	/**
+	 * @return Estimated size of memory retained by this source, in bytes
+	 * @see MemoryEstimates
+	 */
+	public long estimateRetainedBytes(){
+		long bytes = MemoryEstimates.object(3, 0)+
+				MemoryEstimates.array(rawSource.length, MemoryEstimates.REFERENCE)+
+				MemoryEstimates.array(codePoints.length, 4)+
+				MemoryEstimates.array(lineStarts.length, 4);
+		for(String s : rawSource) bytes += MemoryEstimates.string(s);
+		return bytes;
+	}
+
 	public int totalLength(){
 		return codePoints.length;
 	}
@@ -0,0 +1,46 @@
+package among;
+
+import among.obj.SourcePositionTable;
+
+/**
+ * Specifies how source positions of successfully compiled nodes are stored.
+ * <table summary="">
+ *   <tr>
+ *     <td>Value</td><td>Behavior</td>
+ *   </tr>
+ *   <tr>
+ *     <td>{@link SourcePositionMode#RESULT}</td> <td>Source positions are kept in the table of each compile
+ *     result.</td>
+ *   </tr>
+ *   <tr>
+ *     <td>{@link SourcePositionMode#TABLE}</td> <td>Source positions are moved to side table of the engine, along
+ *     with identifier of the file.</td>
+ *   </tr>
+ *   <tr>
+ *     <td>{@link SourcePositionMode#DISCARD}</td> <td>Source positions are discarded.</td>
+ *   </tr>
+ * </table>
+ * <br>
+ * Source positions are never stored in the nodes themselves; they are recorded in {@link
+ * CompileResult#sourcePositions()} during compilation, as they are used for reporting errors. The mode only takes
+ * effect after the compilation succeeds; sources with compilation error retain source positions in the result
+ * regardless of the mode.<br>
+ * If any other value is provided, the default value will be used; see the individual use cases for details.
+ *
+ * @see SourcePositionTable
+ */
+public interface SourcePositionMode{
+	/**
+	 * Source positions are kept in {@link CompileResult#sourcePositions()}.
+	 */
+	int RESULT = 0;
+	/**
+	 * Source positions are moved to side table of the engine, along with identifier of the file. The table of the
+	 * compile result will be cleared.
+	 */
+	int TABLE = 1;
+	/**
+	 * Source positions are discarded. The table of the compile result will be cleared.
+	 */
+	int DISCARD = 2;
+}
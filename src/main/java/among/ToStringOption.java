@@ -8,18 +8,22 @@ import java.util.Objects;
 public final class ToStringOption{
 	public static final ToStringOption DEFAULT = new ToStringOption("  ", 2, 3, false);
 
+	private static final int INDENT_CACHE_SIZE = 32;
+
 	/**
 	 * Indentation to be used.
 	 */
 	public final String indent;
 	/**
 	 * Inclusive maximum size for objects to be formatted 'compact' - the object will be written in one line, without
-	 * excessive whitespaces or line breaks. Compact formatting does not affect child elements.
+	 * excessive whitespaces or line breaks. Compact formatting does not affect child elements. Ignored if {@link
+	 * ToStringOption#maxLineWidth} is set.
 	 */
 	public final int compactObjectSize;
 	/**
 	 * Inclusive maximum size for lists to be formatted 'compact' - the list will be written in one line, without
-	 * excessive whitespaces or line breaks. Compact formatting does not affect child elements.
+	 * excessive whitespaces or line breaks. Compact formatting does not affect child elements. Ignored if {@link
+	 * ToStringOption#maxLineWidth} is set.
 	 */
 	public final int compactListSize;
 	/**
@@ -28,12 +32,49 @@ public final class ToStringOption{
 	 * does not include such feature.
 	 */
 	public final boolean jsonCompatibility;
+	/**
+	 * If set to positive value, objects and lists will be formatted 'compact' if the whole compact form, including
+	 * every child element, fits in the line without exceeding this width; otherwise child elements are placed on
+	 * separate lines. Width of the line is counted in UTF-16 code units. If set to zero or negative value, {@link
+	 * ToStringOption#compactObjectSize} and {@link ToStringOption#compactListSize} will be used instead.
+	 */
+	public final int maxLineWidth;
+
+	/**
+	 * Indentations for each depth below {@link ToStringOption#INDENT_CACHE_SIZE}, filled in the constructor so that
+	 * instances can be shared between threads without synchronization.
+	 */
+	private final String[] indentCache = new String[INDENT_CACHE_SIZE];
 
 	public ToStringOption(String indent, int compactObjectSize, int compactListSize, boolean jsonCompatibility){
+		this(indent, compactObjectSize, compactListSize, jsonCompatibility, 0);
+	}
+	public ToStringOption(String indent, int compactObjectSize, int compactListSize, boolean jsonCompatibility, int maxLineWidth){
 		this.indent = Objects.requireNonNull(indent);
 		this.compactObjectSize = compactObjectSize;
 		this.compactListSize = compactListSize;
 		this.jsonCompatibility = jsonCompatibility;
+		this.maxLineWidth = maxLineWidth;
+		indentCache[0] = "";
+		for(int i = 1; i<INDENT_CACHE_SIZE; i++) indentCache[i] = indentCache[i-1]+indent;
+	}
+
+	/**
+	 * Returns {@link ToStringOption#indent} repeated {@code indents} times. Results for shallow indentations are
+	 * precomputed.
+	 *
+	 * @param indents Number of indentations
+	 * @return Indentation string
+	 */
+	public String indentOf(int indents){
+		if(indents<=0) return "";
+		return indents<INDENT_CACHE_SIZE ? indentCache[indents] : repeatIndent(indents);
+	}
+
+	private String repeatIndent(int indents){
+		StringBuilder stb = new StringBuilder(indent.length()*indents);
+		for(int i = 0; i<indents; i++) stb.append(indent);
+		return stb.toString();
 	}
 
 	/**
@@ -51,10 +92,11 @@ public final class ToStringOption{
 		return compactObjectSize==that.compactObjectSize&&
 				compactListSize==that.compactListSize&&
 				jsonCompatibility==that.jsonCompatibility&&
+				maxLineWidth==that.maxLineWidth&&
 				indent.equals(that.indent);
 	}
 	@Override public int hashCode(){
-		return Objects.hash(indent, compactObjectSize, compactListSize, jsonCompatibility);
+		return Objects.hash(indent, compactObjectSize, compactListSize, jsonCompatibility, maxLineWidth);
 	}
 
 	@Override public String toString(){
@@ -63,6 +105,7 @@ public final class ToStringOption{
 				", compactObjectSize="+compactObjectSize+
 				", compactListSize="+compactListSize+
 				", jsonCompatibility="+jsonCompatibility+
+				", maxLineWidth="+maxLineWidth+
 				'}';
 	}
 }
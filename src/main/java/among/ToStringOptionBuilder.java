@@ -10,12 +10,14 @@ public final class ToStringOptionBuilder{
 	private int compactObjectSize;
 	private int compactListSize;
 	private boolean jsonCompatibility;
+	private int maxLineWidth;
 
 	public ToStringOptionBuilder(ToStringOption original){
 		this.indent = original.indent;
 		this.compactObjectSize = original.compactObjectSize;
 		this.compactListSize = original.compactListSize;
 		this.jsonCompatibility = original.jsonCompatibility;
+		this.maxLineWidth = original.maxLineWidth;
 	}
 
 	public ToStringOptionBuilder indent(String indent){
@@ -43,7 +45,12 @@ public final class ToStringOptionBuilder{
 		return this;
 	}
 
+	public ToStringOptionBuilder maxLineWidth(int maxLineWidth){
+		this.maxLineWidth = maxLineWidth;
+		return this;
+	}
+
 	public ToStringOption build(){
-		return new ToStringOption(indent, compactObjectSize, compactListSize, jsonCompatibility);
+		return new ToStringOption(indent, compactObjectSize, compactListSize, jsonCompatibility, maxLineWidth);
 	}
 }
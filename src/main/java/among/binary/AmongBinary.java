@@ -0,0 +1,568 @@
+package among.binary;
+
+import among.AmongDefinition;
+import among.AmongRoot;
+import among.AmongVisitor;
+import among.NodePath;
+import among.RootAndDefinition;
+import among.macro.Macro;
+import among.macro.MacroDefinition;
+import among.macro.MacroParameter;
+import among.macro.MacroParameterList;
+import among.macro.MacroRegistry;
+import among.macro.MacroReplacement;
+import among.macro.MacroReplacement.MacroOp;
+import among.macro.MacroSignature;
+import among.macro.MacroType;
+import among.obj.Among;
+import among.obj.AmongList;
+import among.obj.AmongObject;
+import among.obj.AmongPrimitive;
+import among.operator.OperatorDefinition;
+import among.operator.OperatorType;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Compact binary format for {@link AmongRoot} and {@link AmongDefinition}. Reading the binary form is significantly
+ * faster than parsing the source, as neither tokenization nor macro expansion is performed; macros and operators are
+ * registered directly.
+ * <p>
+ * The binary starts with magic number {@link AmongBinary#MAGIC}, format version and flags indicating presence of root
+ * and definition. It is followed by a string table, where every string used is stored once; and then the root and
+ * definition sections, which reference strings by index. All integers except for the magic number and operator
+ * priorities are stored as unsigned LEB128 variable-length integers.
+ * <p>
+ * Macros defined in code (i.e. any macros other than {@link MacroDefinition}) cannot be stored; instead, their
+ * signature and parameter names are recorded, and they are looked up from imported definitions on read. Macros
+ * called by other macros are stored as well, even if they are not registered in the definition.
+ */
+public final class AmongBinary{
+	private AmongBinary(){}
+
+	public static final int MAGIC = 0x414D4E42; // AMNB
+	public static final int VERSION = 1;
+
+	private static final int HAS_ROOT = 1;
+	private static final int HAS_DEFINITION = 2;
+
+	private static final int PRIMITIVE = 0;
+	private static final int OBJECT = 1;
+	private static final int LIST = 2;
+	private static final int OPERATION = 3;
+
+	private static final int MACRO_DEFINITION = 0;
+	private static final int MACRO_REFERENCE = 1;
+
+	private static final int PATH_PROPERTY = 0;
+	private static final int PATH_INDEX = 1;
+
+	private static final int OP_VALUE = 0;
+	private static final int OP_NAME = 1;
+	private static final int OP_CALL = 2;
+
+	private static final MacroType[] MACRO_TYPES = MacroType.values();
+	private static final OperatorType[] OPERATOR_TYPES = OperatorType.values();
+
+	/**
+	 * Write the root in binary form. The stream is not closed.
+	 *
+	 * @param root Root to write
+	 * @param out  Stream to write to
+	 * @throws IOException If an I/O error occurs
+	 */
+	public static void write(AmongRoot root, OutputStream out) throws IOException{
+		write(root, null, out);
+	}
+	/**
+	 * Write the definition in binary form. The stream is not closed.
+	 *
+	 * @param definition Definition to write
+	 * @param out        Stream to write to
+	 * @throws IOException If an I/O error occurs
+	 */
+	public static void write(AmongDefinition definition, OutputStream out) throws IOException{
+		write(null, definition, out);
+	}
+	/**
+	 * Write the root and definition in binary form. The stream is not closed.
+	 *
+	 * @param rootAndDefinition Root and definition to write
+	 * @param out               Stream to write to
+	 * @throws IOException If an I/O error occurs
+	 */
+	public static void write(RootAndDefinition rootAndDefinition, OutputStream out) throws IOException{
+		write(rootAndDefinition.root(), rootAndDefinition.definition(), out);
+	}
+
+	private static void write(@Nullable AmongRoot root, @Nullable AmongDefinition definition, OutputStream out) throws IOException{
+		Writer w = new Writer();
+		if(root!=null) w.root(root);
+		if(definition!=null) w.definition(definition);
+
+		Buffer header = new Buffer();
+		header.int32(MAGIC);
+		header.varint(VERSION);
+		header.varint((root!=null ? HAS_ROOT : 0)|(definition!=null ? HAS_DEFINITION : 0));
+		header.varint(w.strings.size());
+		for(String s : w.strings){
+			byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+			header.varint(bytes.length);
+			header.bytes(bytes);
+		}
+		header.writeTo(out);
+		w.body.writeTo(out);
+	}
+
+	/**
+	 * Read the root written in binary form. The stream is read until the end, but not closed.
+	 *
+	 * @param in Stream to read from
+	 * @return Root read from the stream
+	 * @throws IOException If an I/O error occurs, or the stream does not contain a valid root
+	 */
+	public static AmongRoot readRoot(InputStream in) throws IOException{
+		Reader r = new Reader(readAll(in), null);
+		if(r.root==null) throw new IOException("Binary does not contain root");
+		return r.root;
+	}
+	/**
+	 * Read the definition written in binary form. The stream is read until the end, but not closed.
+	 *
+	 * @param in Stream to read from
+	 * @return Definition read from the stream
+	 * @throws IOException If an I/O error occurs, or the stream does not contain a valid definition
+	 * @see AmongBinary#readDefinition(InputStream, AmongDefinition)
+	 */
+	public static AmongDefinition readDefinition(InputStream in) throws IOException{
+		return readDefinition(in, null);
+	}
+	/**
+	 * Read the definition written in binary form. The stream is read until the end, but not closed.
+	 *
+	 * @param in      Stream to read from
+	 * @param imports Definition used for resolving code-defined macros referenced by the binary
+	 * @return Definition read from the stream
+	 * @throws IOException If an I/O error occurs, or the stream does not contain a valid definition, or code-defined
+	 *                     macros cannot be resolved
+	 */
+	public static AmongDefinition readDefinition(InputStream in, @Nullable AmongDefinition imports) throws IOException{
+		Reader r = new Reader(readAll(in), imports);
+		if(r.definition==null) throw new IOException("Binary does not contain definition");
+		return r.definition;
+	}
+	/**
+	 * Read the root and definition written in binary form. The stream is read until the end, but not closed. Missing
+	 * root or definition will be replaced with empty one.
+	 *
+	 * @param in      Stream to read from
+	 * @param imports Definition used for resolving code-defined macros referenced by the binary
+	 * @return Root and definition read from the stream
+	 * @throws IOException If an I/O error occurs, or the stream does not contain valid binary, or code-defined macros
+	 *                     cannot be resolved
+	 */
+	public static RootAndDefinition readRootAndDefinition(InputStream in, @Nullable AmongDefinition imports) throws IOException{
+		Reader r = new Reader(readAll(in), imports);
+		return new RootAndDefinition(
+				r.root!=null ? r.root : new AmongRoot(),
+				r.definition!=null ? r.definition : new AmongDefinition());
+	}
+
+	private static byte[] readAll(InputStream in) throws IOException{
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		byte[] buffer = new byte[8192];
+		for(int read; (read = in.read(buffer))>=0; )
+			out.write(buffer, 0, read);
+		return out.toByteArray();
+	}
+
+	private static final class Writer{
+		final List<String> strings = new ArrayList<>();
+		private final Map<String, Integer> stringToIndex = new HashMap<>();
+		private final Map<Macro, Integer> macroToIndex = new IdentityHashMap<>();
+		final Buffer body = new Buffer();
+
+		void root(AmongRoot root){
+			body.varint(root.size());
+			for(Among among : root) node(among);
+		}
+
+		void definition(AmongDefinition definition){
+			List<Macro> macros = new ArrayList<>();
+			definition.macros().allMacros().forEach(macros::add);
+			Buffer macroTable = new Buffer();
+			for(Macro m : macros) macro(macroTable, m);
+			body.varint(macroToIndex.size());
+			body.bytes(macroTable);
+			body.varint(macros.size());
+			for(Macro m : macros) body.varint(macroToIndex.get(m));
+
+			List<OperatorDefinition> operators = new ArrayList<>();
+			definition.operators().allOperators().forEach(operators::add);
+			body.varint(operators.size());
+			for(OperatorDefinition o : operators){
+				body.varint(string(o.name()));
+				body.varint(o.isKeyword() ? 1 : 0);
+				body.varint(o.type().ordinal());
+				body.varint(o.alias()==null ? 0 : string(o.alias())+1);
+				body.varint(o.properties()&0xFF);
+				body.int64(Double.doubleToRawLongBits(o.priority()));
+			}
+		}
+
+		/**
+		 * Writes the macro to the macro table, after every macro it calls. Each macro is written at most once.
+		 */
+		private void macro(Buffer table, Macro macro){
+			if(macroToIndex.containsKey(macro)) return;
+			if(!(macro instanceof MacroDefinition)){
+				table.varint(MACRO_REFERENCE);
+				table.varint(string(macro.name()));
+				table.varint(macro.type().ordinal());
+				MacroParameterList params = macro.parameter();
+				table.varint(params.size());
+				for(int i = 0; i<params.size(); i++)
+					table.varint(string(params.paramAt(i).name()));
+				macroToIndex.put(macro, macroToIndex.size());
+				return;
+			}
+			MacroDefinition def = (MacroDefinition)macro;
+			for(MacroReplacement r : def.replacements())
+				if(r.operation() instanceof MacroOp.MacroCall)
+					macro(table, ((MacroOp.MacroCall)r.operation()).macro());
+
+			table.varint(MACRO_DEFINITION);
+			table.varint(string(def.name()));
+			table.varint(def.type().ordinal());
+			MacroParameterList params = def.parameter();
+			table.varint(params.size());
+			for(int i = 0; i<params.size(); i++){
+				MacroParameter p = params.paramAt(i);
+				table.varint(string(p.name()));
+				Among defaultValue = p.defaultValue();
+				if(defaultValue==null) table.varint(0);
+				else{
+					table.varint(1);
+					node(table, defaultValue);
+				}
+			}
+			byte[] typeInferences = def.typeInferences();
+			if(typeInferences==null) table.varint(0);
+			else{
+				table.varint(typeInferences.length+1);
+				table.bytes(typeInferences);
+			}
+			Among[] template = new Among[1];
+			def.visitTemplate(new TemplateCapture(template));
+			node(table, template[0]);
+			table.varint(def.replacements().size());
+			for(MacroReplacement r : def.replacements()){
+				NodePath path = r.path();
+				table.varint(path.size());
+				for(NodePath.Element e : path){
+					if(e.isProperty()){
+						table.varint(PATH_PROPERTY);
+						table.varint(string(e.property()));
+					}else{
+						table.varint(PATH_INDEX);
+						table.varint(e.index());
+					}
+				}
+				MacroOp op = r.operation();
+				if(op instanceof MacroOp.ValueReplacement){
+					table.varint(OP_VALUE);
+					table.varint(((MacroOp.ValueReplacement)op).param());
+				}else if(op instanceof MacroOp.NameReplacement){
+					table.varint(OP_NAME);
+					table.varint(((MacroOp.NameReplacement)op).param());
+				}else if(op instanceof MacroOp.MacroCall){
+					table.varint(OP_CALL);
+					table.varint(macroToIndex.get(((MacroOp.MacroCall)op).macro()));
+				}else throw new IllegalStateException("Unsupported macro operation: "+op);
+			}
+			macroToIndex.put(macro, macroToIndex.size());
+		}
+
+		private void node(Among among){
+			node(body, among);
+		}
+		private void node(Buffer b, Among among){
+			if(among.isPrimitive()){
+				b.varint(PRIMITIVE);
+				b.varint(string(among.asPrimitive().getValue()));
+			}else if(among.isObj()){
+				AmongObject o = among.asObj();
+				b.varint(OBJECT);
+				b.varint(string(o.getName()));
+				b.varint(o.size());
+				o.forEachProperty((k, v) -> {
+					b.varint(string(k));
+					node(b, v);
+				});
+			}else{
+				AmongList l = among.asList();
+				b.varint(l.isOperation() ? OPERATION : LIST);
+				b.varint(string(l.getName()));
+				b.varint(l.size());
+				for(int i = 0; i<l.size(); i++) node(b, l.get(i));
+			}
+		}
+
+		private int string(String s){
+			Integer i = stringToIndex.get(s);
+			if(i==null){
+				i = strings.size();
+				strings.add(s);
+				stringToIndex.put(s, i);
+			}
+			return i;
+		}
+	}
+
+	/**
+	 * Captures the root of macro template without copying.
+	 */
+	private static final class TemplateCapture implements AmongVisitor{
+		private final Among[] template;
+
+		TemplateCapture(Among[] template){
+			this.template = template;
+		}
+
+		@Override public void visit(AmongPrimitive primitive){
+			if(template[0]==null) template[0] = primitive;
+		}
+		@Override public boolean visitBefore(AmongObject object){
+			if(template[0]==null) template[0] = object;
+			return false;
+		}
+		@Override public boolean visitBefore(AmongList list){
+			if(template[0]==null) template[0] = list;
+			return false;
+		}
+	}
+
+	private static final class Reader{
+		private final byte[] data;
+		private int pos;
+		private final String[] strings;
+		@Nullable private final AmongDefinition imports;
+
+		@Nullable AmongRoot root;
+		@Nullable AmongDefinition definition;
+
+		Reader(byte[] data, @Nullable AmongDefinition imports) throws IOException{
+			this.data = data;
+			this.imports = imports;
+			try{
+				if(data.length<4||int32()!=MAGIC) throw new IOException("Not an Among binary");
+				int version = varint();
+				if(version!=VERSION) throw new IOException("Unsupported binary version "+version);
+				int flags = varint();
+				strings = new String[varint()];
+				for(int i = 0; i<strings.length; i++){
+					int len = varint();
+					if(len>data.length-pos) throw new IOException("Unexpected end of binary");
+					strings[i] = new String(data, pos, len, StandardCharsets.UTF_8);
+					pos += len;
+				}
+				if((flags&HAS_ROOT)!=0) root = root();
+				if((flags&HAS_DEFINITION)!=0) definition = definition();
+			}catch(ArrayIndexOutOfBoundsException ex){
+				throw new IOException("Unexpected end of binary", ex);
+			}catch(RuntimeException ex){
+				throw new IOException("Invalid binary", ex);
+			}
+		}
+
+		private AmongRoot root() throws IOException{
+			AmongRoot root = new AmongRoot();
+			for(int i = varint(); i>0; i--) root.add(node());
+			return root;
+		}
+
+		private AmongDefinition definition() throws IOException{
+			AmongDefinition definition = new AmongDefinition();
+			Macro[] macros = new Macro[varint()];
+			for(int i = 0; i<macros.length; i++)
+				macros[i] = macro(macros, i);
+			MacroRegistry registry = definition.macros();
+			for(int i = varint(); i>0; i--) registry.add(macros[varint()]);
+			for(int i = varint(); i>0; i--){
+				String name = string();
+				boolean keyword = varint()!=0;
+				OperatorType type = OPERATOR_TYPES[varint()];
+				int alias = varint();
+				byte properties = (byte)varint();
+				double priority = Double.longBitsToDouble(int64());
+				definition.operators().add(new OperatorDefinition(name, keyword, type,
+						alias==0 ? null : strings[alias-1], properties, priority));
+			}
+			return definition;
+		}
+
+		private Macro macro(Macro[] macros, int index) throws IOException{
+			int kind = varint();
+			String name = string();
+			MacroType type = MACRO_TYPES[varint()];
+			if(kind==MACRO_REFERENCE){
+				String[] paramNames = new String[varint()];
+				for(int i = 0; i<paramNames.length; i++) paramNames[i] = string();
+				return resolve(new MacroSignature(name, type), paramNames);
+			}else if(kind!=MACRO_DEFINITION) throw new IOException("Unknown macro kind "+kind);
+			MacroParameter[] params = new MacroParameter[varint()];
+			for(int i = 0; i<params.length; i++){
+				String paramName = string();
+				params[i] = new MacroParameter(paramName, varint()!=0 ? node() : null);
+			}
+			int typeInferenceLength = varint();
+			byte[] typeInferences = null;
+			if(typeInferenceLength>0){
+				typeInferences = Arrays.copyOfRange(data, pos, pos+typeInferenceLength-1);
+				pos += typeInferenceLength-1;
+			}
+			Among template = node();
+			List<MacroReplacement> replacements = new ArrayList<>();
+			for(int i = varint(); i>0; i--){
+				NodePath path = NodePath.of();
+				for(int j = varint(); j>0; j--)
+					path = path.subPath(varint()==PATH_PROPERTY ? new NodePath.Property(string()) : new NodePath.Index(varint()));
+				MacroOp op;
+				switch(varint()){
+					case OP_VALUE: op = new MacroOp.ValueReplacement(varint()); break;
+					case OP_NAME: op = new MacroOp.NameReplacement(varint()); break;
+					case OP_CALL:{
+						int callee = varint();
+						if(callee>=index) throw new IOException("Invalid macro reference");
+						op = new MacroOp.MacroCall(macros[callee]);
+						break;
+					}
+					default: throw new IOException("Unknown macro operation");
+				}
+				replacements.add(new MacroReplacement(path, op));
+			}
+			return new MacroDefinition(new MacroSignature(name, type), MacroParameterList.of(params),
+					template, replacements, typeInferences);
+		}
+
+		private Macro resolve(MacroSignature signature, String[] paramNames) throws IOException{
+			if(imports!=null){
+				Optional<Macro> macro = imports.macros().allMacros()
+						.filter(m -> m.signature().equals(signature)&&sameParams(m.parameter(), paramNames))
+						.findFirst();
+				if(macro.isPresent()) return macro.get();
+			}
+			throw new IOException("Cannot resolve code-defined macro '"+signature+"'");
+		}
+
+		private static boolean sameParams(MacroParameterList params, String[] paramNames){
+			if(params.size()!=paramNames.length) return false;
+			for(int i = 0; i<paramNames.length; i++)
+				if(!params.paramAt(i).name().equals(paramNames[i])) return false;
+			return true;
+		}
+
+		private Among node() throws IOException{
+			int tag = varint();
+			String string = string();
+			switch(tag){
+				case PRIMITIVE: return Among.value(string);
+				case OBJECT:{
+					AmongObject o = Among.namedObject(string);
+					for(int i = varint(); i>0; i--){
+						String key = string();
+						o.setProperty(key, node());
+					}
+					return o;
+				}
+				case LIST: case OPERATION:{
+					AmongList l = Among.namedList(string);
+					l.setOperation(tag==OPERATION);
+					for(int i = varint(); i>0; i--) l.add(node());
+					return l;
+				}
+				default: throw new IOException("Unknown node tag "+tag);
+			}
+		}
+
+		private String string(){
+			return strings[varint()];
+		}
+
+		private int varint(){
+			int value = 0;
+			for(int shift = 0; ; shift += 7){
+				byte b = data[pos++];
+				value |= (b&0x7F)<<shift;
+				if(b>=0) return value;
+			}
+		}
+		private int int32(){
+			int v = (data[pos]&0xFF)<<24|(data[pos+1]&0xFF)<<16|(data[pos+2]&0xFF)<<8|data[pos+3]&0xFF;
+			pos += 4;
+			return v;
+		}
+		private long int64(){
+			long hi = int32()&0xFFFFFFFFL;
+			return hi<<32|int32()&0xFFFFFFFFL;
+		}
+	}
+
+	/**
+	 * Growable byte array.
+	 */
+	private static final class Buffer{
+		private byte[] data = new byte[256];
+		private int size;
+
+		void varint(int value){
+			ensure(5);
+			while((value&~0x7F)!=0){
+				data[size++] = (byte)(value&0x7F|0x80);
+				value >>>= 7;
+			}
+			data[size++] = (byte)value;
+		}
+		void int32(int value){
+			ensure(4);
+			data[size++] = (byte)(value>>>24);
+			data[size++] = (byte)(value>>>16);
+			data[size++] = (byte)(value>>>8);
+			data[size++] = (byte)value;
+		}
+		void int64(long value){
+			int32((int)(value>>>32));
+			int32((int)value);
+		}
+		void bytes(byte[] bytes){
+			ensure(bytes.length);
+			System.arraycopy(bytes, 0, data, size, bytes.length);
+			size += bytes.length;
+		}
+		void bytes(Buffer buffer){
+			ensure(buffer.size);
+			System.arraycopy(buffer.data, 0, data, size, buffer.size);
+			size += buffer.size;
+		}
+		void writeTo(OutputStream out) throws IOException{
+			out.write(data, 0, size);
+		}
+
+		private void ensure(int bytes){
+			if(size+bytes>data.length)
+				data = Arrays.copyOf(data, Math.max(data.length*2, size+bytes));
+		}
+	}
+}
@@ -0,0 +1,23 @@
+package among.internals;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * Factory of message digests used for {@link among.obj.AmongDigest}s - content digests of nodes, digests of sources
+ * and content keys of compiled cache.
+ */
+public final class Digests{
+	private Digests(){}
+
+	/**
+	 * @return New MD5 message digest
+	 */
+	public static MessageDigest md5(){
+		try{
+			return MessageDigest.getInstance("MD5");
+		}catch(NoSuchAlgorithmException e){
+			throw new IllegalStateException("MD5 not supported", e); // Every Java platform is required to support MD5
+		}
+	}
+}
@@ -0,0 +1,227 @@
+package among.internals;
+
+import among.Source;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static among.Source.EOF;
+
+/**
+ * Scans paths of {@code use} and {@code use public} statements of a source without parsing it, so that imported scripts
+ * can be resolved ahead of the parser. Only the lexical structure of the source is considered - comments, quoted
+ * primitives and brackets - as the syntax of the rest depends on operators defined by the imports themselves. Paths
+ * with unicode escapes are skipped.<br>
+ * The result should only be used as a hint; it may contain paths the parser would not import due to syntax errors, and
+ * miss paths the parser does import.
+ */
+public final class ImportScanner{
+	private final Source source;
+	private int srcIndex;
+
+	private ImportScanner(Source source){
+		this.source = source;
+	}
+
+	/**
+	 * @param source Source to scan
+	 * @return Paths of each use statement at top level of the source, in order of appearance
+	 */
+	public static List<String> scan(Source source){
+		List<String> paths = new ArrayList<>();
+		new ImportScanner(source).scan(paths);
+		return paths;
+	}
+
+	private void scan(List<String> paths){
+		int depth = 0;
+		boolean statementStart = true;
+		while(true){
+			if(statementStart&&depth==0){
+				statementStart = false;
+				skipWhitespace(true);
+				int start = srcIndex;
+				if(word().equals("use")){
+					String path = usePath();
+					if(path!=null) paths.add(path);
+				}else srcIndex = start;
+			}
+			int c = nextCodePoint(false);
+			switch(c){
+				case EOF: return;
+				case '\n': case ',':
+					if(depth==0) statementStart = true;
+					break;
+				case '{': case '[': case '(':
+					depth++;
+					break;
+				case '}': case ']': case ')':
+					if(depth>0) depth--;
+					break;
+				case '\'': case '"':
+					primitive(c, null);
+					break;
+				case '\\':
+					srcIndex++;
+			}
+		}
+	}
+
+	/**
+	 * Reads path of the use statement, mirroring {@link Parser}.
+	 */
+	@Nullable private String usePath(){
+		skipWhitespace(false);
+		int start = srcIndex;
+		if(word().equals("public")) skipWhitespace(false);
+		else srcIndex = start;
+		int prev = srcIndex;
+		int c = nextCodePoint(false);
+		if(c=='\''||c=='"'){
+			StringBuilder stb = new StringBuilder();
+			return primitive(c, stb) ? stb.toString() : null;
+		}
+		srcIndex = prev;
+		StringBuilder stb = new StringBuilder();
+		int trimmedLength = 0;
+		while(true){
+			prev = srcIndex;
+			c = nextCodePoint(false);
+			switch(c){
+				case ' ': case '\t':
+					if(stb.length()>0) stb.appendCodePoint(c);
+					continue;
+				case EOF: case '\n': case ',': case '{': case '}': case '[': case ']': case '(': case ')':
+					srcIndex = prev;
+					stb.setLength(trimmedLength);
+					return stb.length()>0 ? stb.toString() : null;
+				case '\\':
+					c = backslash();
+					if(c==EOF) return null;
+			}
+			stb.appendCodePoint(c);
+			trimmedLength = stb.length();
+		}
+	}
+
+	/**
+	 * Reads plain word without consuming the character after it.
+	 */
+	private String word(){
+		StringBuilder stb = new StringBuilder();
+		while(true){
+			int prev = srcIndex;
+			int c = nextCodePoint(false);
+			switch(c){
+				case EOF: case ' ': case '\t': case '\n': case ',': case ':': case '\\': case '\'': case '"':
+				case '{': case '}': case '[': case ']': case '(': case ')':
+					srcIndex = prev;
+					return stb.toString();
+			}
+			stb.appendCodePoint(c);
+		}
+	}
+
+	/**
+	 * Reads quoted primitive, after the opening quote.
+	 *
+	 * @param stb String builder to append the value to, or {@code null} to skip the primitive
+	 * @return Whether the primitive was read completely
+	 */
+	private boolean primitive(int closure, @Nullable StringBuilder stb){
+		while(true){
+			int c = nextCodePoint(true);
+			switch(c){
+				case EOF: return false;
+				case '\\':
+					c = backslash();
+					if(c==EOF) return false;
+					break;
+				case '\n':{
+					int prev = srcIndex;
+					skipWhitespace(false);
+					if(source.codePointAt(srcIndex)=='|') srcIndex++;
+					else srcIndex = prev;
+					break;
+				}
+				default:
+					if(c==closure) return true;
+			}
+			if(stb!=null) stb.appendCodePoint(c);
+		}
+	}
+
+	private void skipWhitespace(boolean lineBreak){
+		while(true){
+			int prev = srcIndex;
+			switch(nextCodePoint(false)){
+				case ' ': case '\t': continue;
+				case '\n': if(lineBreak) continue;
+				default:
+					srcIndex = prev;
+					return;
+			}
+		}
+	}
+
+	/**
+	 * @return Escaped character, or {@link Source#EOF} if the escape is not supported
+	 */
+	private int backslash(){
+		int c = source.codePointAt(srcIndex++);
+		switch(c){
+			case 'n': return '\n';
+			case 't': return '\t';
+			case 'r': return '\r';
+			case 'b': return '\b';
+			case 'f': return '\f';
+			case 'u': case 'U': return EOF;
+			default: return c;
+		}
+	}
+
+	private int nextCodePoint(boolean ignoreComment){
+		while(true){
+			if(!source.isInBounds(srcIndex)) return EOF;
+			int c = source.codePointAt(srcIndex++);
+			switch(c){
+				case '\\': switch(source.codePointAt(srcIndex)){
+					case '\r': if(source.codePointAt(srcIndex+1)=='\n') srcIndex++;
+					case '\n': // ignore newlines immediately followed by backslash
+						srcIndex++;
+						continue;
+					default: return '\\';
+				}
+				case '\r': if(source.codePointAt(srcIndex)=='\n') srcIndex++;
+				case '\n': return '\n';
+				case '/':
+					if(ignoreComment) break;
+					switch(source.codePointAt(srcIndex)){
+						case '/':
+							while(true){
+								int c2 = source.codePointAt(srcIndex);
+								if(c2==EOF||c2=='\n'||c2=='\r') break;
+								srcIndex++;
+								if(c2=='\\'&&source.codePointAt(srcIndex)!=EOF) srcIndex++;
+							}
+							continue;
+						case '*':
+							srcIndex++;
+							while(true){
+								int c2 = source.codePointAt(srcIndex);
+								if(c2==EOF) break;
+								srcIndex++;
+								if(c2=='*'&&source.codePointAt(srcIndex)=='/'){
+									srcIndex++;
+									break;
+								}
+							}
+							continue;
+						default: return '/';
+					}
+			}
+			return c;
+		}
+	}
+}
@@ -1,90 +1,152 @@
 package among.internals;
 
 import among.ToStringOption;
+import org.jetbrains.annotations.Nullable;
 
-import java.util.regex.Pattern;
-
+/**
+ * Classification and escaping of literals. Each method scans the string once, without regular expressions; strings
+ * not requiring any escape are appended as-is.
+ */
 public final class LiteralFormats{
 	private LiteralFormats(){}
 
-	private static final Pattern NEWLINE = Pattern.compile("\r\n?|\n");
-	private static final Pattern BACKSPACE = Pattern.compile("\b");
-	private static final Pattern FORMAT = Pattern.compile("\f");
+	// Characters escaped with backslash on each context; every context other than JSON also escapes '//' and '/*'
+	private static final int PRIMITIVE = 1;
+	private static final int PRIMITIVE_JSON = 1<<1;
+	private static final int WORD = 1<<2;
+	private static final int KEY = 1<<3; // also used for values
+	private static final int MACRO_NAME = 1<<4;
+	private static final int PARAM = 1<<5;
+	// Characters not allowed in simple words, and simple keys/values/macro names respectively
+	private static final int NOT_SIMPLE_WORD = 1<<6;
+	private static final int NOT_SIMPLE = 1<<7;
+	private static final int WHITESPACE = 1<<8;
+
+	private static final int[] CHARS = new int[128];
 
-	private static final Pattern SIMPLE_WORD = Pattern.compile("[^\\s:,{}\\[\\]()]+");
-	private static final Pattern SIMPLE_MACRO_NAME = Pattern.compile("^(?!\\s)[^:{}\r\n]+(?<!\\s)$");
-	private static final Pattern SIMPLE_KEY = Pattern.compile("^(?!\\s)[^:{}\r\n]+(?<!\\s)$");
-	private static final Pattern SIMPLE_VALUE = Pattern.compile("^(?!\\s)[^:{}\r\n]+(?<!\\s)$");
+	static{
+		flag(WHITESPACE|WORD|PARAM|NOT_SIMPLE_WORD, " \t\n\u000B\f\r");
+		flag(NOT_SIMPLE, "\r\n:{}");
+		flag(NOT_SIMPLE_WORD, ":,{}[]()");
+		flag(PRIMITIVE|PRIMITIVE_JSON, "\\\"");
+		flag(WORD|PARAM, "\\{}[]()\"',:");
+		flag(KEY, "\\{}[]()\"',");
+		flag(MACRO_NAME, "\\{}[]()\"',:");
+		flag(PARAM, "=");
+	}
 
-	private static final Pattern PRIMITIVE_SPECIALS = Pattern.compile("[\\\\\"]|/[*/]");
-	private static final Pattern PRIMITIVE_SPECIALS_JSON = Pattern.compile("[\\\\\"]");
+	private static void flag(int flag, String chars){
+		for(int i = 0; i<chars.length(); i++) CHARS[chars.charAt(i)] |= flag;
+	}
 
-	private static final Pattern WORD_SPECIALS = Pattern.compile("[\\s\\\\{}\\[\\]()\"',:]|/[*/]");
-	private static final Pattern KEY_SPECIALS = Pattern.compile("[\\\\{}\\[\\]()\"',]|/[*/]");
-	private static final Pattern MACRO_NAME_SPECIALS = Pattern.compile("[\\\\{}\\[\\]()\"',:]|/[*/]");
-	private static final Pattern PARAM_SPECIALS = Pattern.compile("[\\s\\\\{}\\[\\]()\"',:=]|/[*/]");
-	private static final Pattern VALUE_SPECIALS = Pattern.compile("[\\\\{}\\[\\]()\"',]|/[*/]");
+	private static boolean is(char c, int flag){
+		return c<128&&(CHARS[c]&flag)!=0;
+	}
 
 	public static boolean isSimpleWord(String name){
-		return SIMPLE_WORD.matcher(name).matches();
+		if(name.isEmpty()) return false;
+		for(int i = 0; i<name.length(); i++)
+			if(is(name.charAt(i), NOT_SIMPLE_WORD)) return false;
+		return true;
 	}
 	public static boolean isSimpleMacroName(String name){
-		return SIMPLE_MACRO_NAME.matcher(name).matches();
+		return isSimple(name);
 	}
 	public static boolean isSimpleKey(String key){
-		return SIMPLE_KEY.matcher(key).matches();
+		return isSimple(key);
 	}
 	public static boolean isSimpleValue(String value){
-		return SIMPLE_VALUE.matcher(value).matches();
+		return isSimple(value);
+	}
+
+	private static boolean isSimple(String s){
+		int len = s.length();
+		if(len==0||is(s.charAt(0), WHITESPACE)||is(s.charAt(len-1), WHITESPACE)) return false;
+		for(int i = 0; i<len; i++)
+			if(is(s.charAt(i), NOT_SIMPLE)) return false;
+		return true;
 	}
 
 	public static void simpleWordToString(StringBuilder stb, String name){
-		stb.append(standardReplace(WORD_SPECIALS, name, true));
+		escape(stb, name, WORD, null);
 	}
 	public static void simpleKeyToString(StringBuilder stb, String key){
-		stb.append(standardReplace(KEY_SPECIALS, key, true));
+		escape(stb, key, KEY, null);
 	}
 	public static void simpleMacroNameToString(StringBuilder stb, String name){
-		stb.append(standardReplace(MACRO_NAME_SPECIALS, name, true));
+		escape(stb, name, MACRO_NAME, null);
 	}
 
 	public static void paramToString(StringBuilder stb, String param){
-		stb.append(standardReplace(PARAM_SPECIALS, param, true));
+		escape(stb, param, PARAM, null);
 	}
 
 	public static void simpleValueToString(StringBuilder stb, String primitive){
-		stb.append(standardReplace(VALUE_SPECIALS, primitive, true));
+		escape(stb, primitive, KEY, null);
 	}
 	public static void primitiveToString(StringBuilder stb, String primitive){
-		stb.append('"').append(standardReplace(PRIMITIVE_SPECIALS, primitive, true)).append('"');
+		stb.append('"');
+		escape(stb, primitive, PRIMITIVE, null);
+		stb.append('"');
 	}
 
 	public static void primitiveToPrettyString(StringBuilder stb, String primitive, int indents, ToStringOption option){
 		stb.append('"');
-		if(option.jsonCompatibility){
-			stb.append(standardReplace(PRIMITIVE_SPECIALS_JSON, primitive, true));
-		}else{
-			stb.append(NEWLINE.matcher(standardReplace(PRIMITIVE_SPECIALS, primitive, false))
-					.replaceAll(newlineAndIndent(indents+2, option)+'|'));
-		}
+		if(option.jsonCompatibility) escape(stb, primitive, PRIMITIVE_JSON, null);
+		else escape(stb, primitive, PRIMITIVE, newlineAndIndent(indents+2, option)+'|');
 		stb.append('"');
 	}
 
 	public static String newlineAndIndent(int indents, ToStringOption option){
-		StringBuilder stb = new StringBuilder();
-		newlineAndIndent(stb, indents, option);
-		return stb.toString();
+		return '\n'+option.indentOf(indents);
 	}
 
 	public static void newlineAndIndent(StringBuilder stb, int indents, ToStringOption option){
-		stb.append('\n');
-		for(int i = 0; i<indents; i++) stb.append(option.indent);
+		stb.append('\n').append(option.indentOf(indents));
 	}
 
-	private static String standardReplace(Pattern specialPattern, String value, boolean newline){
-		value = specialPattern.matcher(value).replaceAll("\\\\$0");
-		if(newline) value = NEWLINE.matcher(value).replaceAll("\\\\n");
-		value = BACKSPACE.matcher(value).replaceAll("\\\\b");
-		return FORMAT.matcher(value).replaceAll("\\\\f");
+	/**
+	 * Appends the value with special characters of the context escaped with backslash, line breaks ({@code \r\n},
+	 * {@code \r} and {@code \n}) replaced with {@code \n} or {@code newline}, and backspace and form feed replaced with
+	 * {@code \b} and {@code \f}.
+	 *
+	 * @param stb     String builder to append to
+	 * @param value   The value
+	 * @param context Flag of the context
+	 * @param newline Replacement of line breaks, or {@code null} to replace them with {@code \n}
+	 */
+	private static void escape(StringBuilder stb, String value, int context, @Nullable String newline){
+		boolean escapeComment = context!=PRIMITIVE_JSON;
+		int len = value.length();
+		int start = 0;
+		for(int i = 0; i<len; i++){
+			char c = value.charAt(i);
+			boolean special = is(c, context);
+			if(special||c=='\r'||c=='\n'||c=='\b'||c=='\f'){
+				stb.append(value, start, i);
+				if(special) stb.append('\\');
+				switch(c){
+					case '\r':
+						// escaped line breaks are not paired, as they are separated with backslash
+						if(!special&&i+1<len&&value.charAt(i+1)=='\n') i++;
+					case '\n':
+						if(newline==null) stb.append("\\n");
+						else stb.append(newline);
+						break;
+					case '\b': stb.append("\\b"); break;
+					case '\f': stb.append("\\f"); break;
+					default: stb.append(c);
+				}
+				start = i+1;
+			}else if(c=='/'&&escapeComment&&i+1<len){
+				char next = value.charAt(i+1);
+				if(next=='*'||next=='/'){
+					stb.append(value, start, i).append('\\').append(c).append(next);
+					start = ++i+1;
+				}
+			}
+		}
+		if(start==0) stb.append(value);
+		else stb.append(value, start, len);
 	}
 }
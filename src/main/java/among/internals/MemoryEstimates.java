@@ -0,0 +1,100 @@
+package among.internals;
+
+/**
+ * Helpers for estimating memory usage of objects, based on typical 64-bit JVM with compressed object pointers and
+ * compact strings. Objects shared between multiple owners, such as strings and subtrees, are counted once for each
+ * owner; as such, estimates are usually an upper bound of the memory actually retained.
+ */
+public final class MemoryEstimates{
+	private MemoryEstimates(){}
+
+	public static final int OBJECT_HEADER = 12;
+	public static final int ARRAY_HEADER = 16;
+	public static final int REFERENCE = 4;
+
+	/**
+	 * Size of {@link among.obj.AmongPrimitive}: frozen state and value.
+	 */
+	public static final int PRIMITIVE = object(2, 0);
+	/**
+	 * Size of {@link among.obj.AmongObject}: frozen state, name, property map, Java view and borrowed flag.
+	 */
+	public static final int OBJECT = object(4, 1);
+	/**
+	 * Size of {@link among.obj.AmongList}: frozen state, name, element list, packed storage, Java view, operation flag
+	 * and borrowed flag.
+	 */
+	public static final int LIST = object(5, 2);
+
+	public static final int ARRAY_LIST = 24;
+	public static final int HASH_MAP = 48;
+	public static final int LINKED_HASH_MAP = 56;
+	public static final int HASH_MAP_ENTRY = 32;
+	public static final int LINKED_HASH_MAP_ENTRY = 40;
+
+	public static long align(long bytes){
+		return bytes+7&~7;
+	}
+
+	/**
+	 * @param references     Number of reference fields
+	 * @param primitiveBytes Total size of primitive fields, in bytes
+	 * @return Estimated size of an object with given fields
+	 */
+	public static int object(int references, int primitiveBytes){
+		return (int)align(OBJECT_HEADER+references*REFERENCE+primitiveBytes);
+	}
+
+	/**
+	 * @param length      Length of the array
+	 * @param elementSize Size of each element, in bytes
+	 * @return Estimated size of the array
+	 */
+	public static long array(long length, int elementSize){
+		return align(ARRAY_HEADER+length*elementSize);
+	}
+
+	/**
+	 * Returns estimated size of the string. Empty strings are assumed to be shared constant, and counted as zero.
+	 *
+	 * @param s The string
+	 * @return Estimated size of the string
+	 */
+	public static long string(String s){
+		if(s.isEmpty()) return 0;
+		for(int i = 0; i<s.length(); i++)
+			if(s.charAt(i)>0xFF) return 24+array(s.length(), 2);
+		return 24+array(s.length(), 1);
+	}
+
+	/**
+	 * @param size Number of elements
+	 * @return Estimated size of {@link java.util.ArrayList} with given number of elements, excluding the elements
+	 */
+	public static long arrayList(int size){
+		return ARRAY_LIST+array(size, REFERENCE);
+	}
+
+	/**
+	 * @param size Number of entries
+	 * @return Estimated size of {@link java.util.HashMap} with given number of entries, excluding the keys and values
+	 */
+	public static long hashMap(int size){
+		return HASH_MAP+array(tableSize(size), REFERENCE)+(long)HASH_MAP_ENTRY*size;
+	}
+
+	/**
+	 * @param size Number of entries
+	 * @return Estimated size of {@link java.util.LinkedHashMap} with given number of entries, excluding the keys and
+	 * values
+	 */
+	public static long linkedHashMap(int size){
+		return LINKED_HASH_MAP+array(tableSize(size), REFERENCE)+(long)LINKED_HASH_MAP_ENTRY*size;
+	}
+
+	private static int tableSize(int size){
+		int capacity = 16;
+		while(capacity*.75<size) capacity <<= 1;
+		return capacity;
+	}
+}
@@ -14,6 +14,7 @@ import among.obj.AmongList;
 import among.obj.AmongNameable;
 import among.obj.AmongObject;
 import among.obj.AmongPrimitive;
+import among.obj.SourcePositionTable;
 import among.operator.OperatorDefinition;
 import among.operator.OperatorProperty;
 import among.operator.OperatorRegistry;
@@ -46,6 +47,10 @@ public final class Parser implements ReportHandler{
 	private final AmongEngine engine;
 	private final Tokenizer tokenizer;
 	private final ReportList reports = new ReportList.Mutable();
+	/**
+	 * Source positions of nodes created by this parser. Will be returned as compilation result.
+	 */
+	private final SourcePositionTable positions = new SourcePositionTable();
 
 	private boolean recovering;
 	@Nullable private ParserMacroBuilder currentMacro;
@@ -74,7 +79,7 @@ public final class Parser implements ReportHandler{
 		}catch(RuntimeException ex){
 			report(ReportType.ERROR, "Unexpected error", ex);
 		}
-		return new CompileResult(tokenizer.source(), root, definition, reports);
+		return new CompileResult(tokenizer.source(), root, definition, reports, positions);
 	}
 
 	private void among(){
@@ -118,7 +123,7 @@ public final class Parser implements ReportHandler{
 							continue;
 						}
 						a = Among.value(next.expectLiteral());
-						a.setSourcePosition(next.start);
+						positions.put(a, -1, next.start);
 					}
 					root.add(a);
 					stmtEnd();
@@ -455,7 +460,7 @@ public final class Parser implements ReportHandler{
 			return null;
 		}
 		AmongPrimitive p = Among.value(next.expectLiteral());
-		p.setSourcePosition(next.start);
+		positions.put(p, -1, next.start);
 		return next.is(QUOTED_PRIMITIVE)||resolveParamRef(p) ? p : primitiveMacro(p, next.start);
 	}
 
@@ -499,7 +504,7 @@ public final class Parser implements ReportHandler{
 
 	private AmongObject obj(@Nullable String name, int startIndex){
 		AmongObject object = Among.namedObject(name);
-		object.setSourcePosition(startIndex);
+		positions.put(object, -1, startIndex);
 		L:
 		while(true){
 			Token keyToken = tokenizer.next(true, TokenizationMode.KEY);
@@ -549,7 +554,7 @@ public final class Parser implements ReportHandler{
 
 	private AmongList list(@Nullable String name, int startIndex){
 		AmongList list = Among.namedList(name);
-		list.setSourcePosition(startIndex);
+		positions.put(list, -1, startIndex);
 		L:
 		while(true){
 			tokenizer.discard();
@@ -583,7 +588,7 @@ public final class Parser implements ReportHandler{
 
 	private AmongList oper(@Nullable String name, int startIndex){
 		AmongList list = Among.namedList(name);
-		list.setSourcePosition(startIndex);
+		positions.put(list, -1, startIndex);
 		list.setOperation(true);
 		L:
 		while(true){
@@ -636,7 +641,7 @@ public final class Parser implements ReportHandler{
 			return Among.value("ERROR");
 		}
 		AmongPrimitive p = Among.value(next.expectLiteral());
-		p.setSourcePosition(next.start);
+		positions.put(p, -1, next.start);
 		return next.is(QUOTED_PRIMITIVE)||resolveParamRef(p) ? p : primitiveMacro(p, next.start);
 	}
 
@@ -652,20 +657,20 @@ public final class Parser implements ReportHandler{
 					if(op.hasProperty(OperatorProperty.ACCESSOR)){
 						if(b.isPrimitive()){
 							AmongList l = Among.namedList(op.aliasOrName()+b.asPrimitive().getValue(), a);
-							l.setSourcePosition(next.start);
+							positions.put(l, -1, next.start);
 							a = accessMacro(l, next.start);
 						}else{
 							AmongNameable b2 = b.asNameable().copy();
 							b2.setName("");
 							AmongList call = Among.namedList(op.aliasOrName()+b.asNameable().getName(), a, b2);
-							call.setSourcePosition(next.start);
+							positions.put(call, -1, next.start);
 							a = b.isObj() ? objectFnMacro(call, next.start) :
 									b.asList().isOperation() ? operationFnMacro(call, next.start) :
 											listFnMacro(call, next.start);
 						}
 					}else{
 						AmongList list = Among.namedList(op.aliasOrName(), a, b);
-						list.setSourcePosition(next.start);
+						positions.put(list, -1, next.start);
 						list.setOperation(true);
 						a = operationMacro(list, next.start);
 					}
@@ -685,7 +690,7 @@ public final class Parser implements ReportHandler{
 			OperatorDefinition op = operators.get(i).get(next.expectLiteral());
 			if(op!=null){
 				AmongList list = Among.namedList(op.aliasOrName(), a, rightAssociativeBinary(operators, i));
-				list.setSourcePosition(next.start);
+				positions.put(list, -1, next.start);
 				list.setOperation(true);
 				return operationMacro(list, next.start);
 			}
@@ -703,7 +708,7 @@ public final class Parser implements ReportHandler{
 				OperatorDefinition op = operators.get(i).get(next.expectLiteral());
 				if(op!=null){
 					AmongList list = Among.namedList(op.aliasOrName(), a);
-					list.setSourcePosition(next.start);
+					positions.put(list, -1, next.start);
 					list.setOperation(true);
 					a = operationMacro(list, next.start);
 					continue;
@@ -721,7 +726,7 @@ public final class Parser implements ReportHandler{
 			OperatorDefinition op = operators.get(i).get(next.expectLiteral());
 			if(op!=null){
 				AmongList list = Among.namedList(op.aliasOrName(), prefix(operators, i));
-				list.setSourcePosition(next.start);
+				positions.put(list, -1, next.start);
 				list.setOperation(true);
 				return operationMacro(list, next.start);
 			}
@@ -765,7 +770,11 @@ public final class Parser implements ReportHandler{
 			}
 			try{
 				Among among = macro.apply(target, engine.copyMacroConstant, reportAt(sourcePosition));
-				if(among!=null) return among;
+				if(among!=null){
+					// nodes copied from the template have no position in this source; the call site is used instead
+					if(!among.isFrozen()&&!positions.contains(among)) positions.put(among, -1, sourcePosition);
+					return among;
+				}
 			}catch(RuntimeException ex){
 				report(ReportType.ERROR, "Unexpected error on macro processing", sourcePosition, ex);
 			}
@@ -773,6 +782,10 @@ public final class Parser implements ReportHandler{
 		return Among.value("ERROR");
 	}
 
+	@Override public int sourcePositionOf(Among among){
+		return positions.position(among);
+	}
+
 	@Override public void report(ReportType type, String message, int srcIndex, @Nullable Throwable ex, String... hints){
 		if(!recovering){
 			if(srcIndex<0){
@@ -434,7 +434,7 @@ final class Tokenizer{
 			int c = source.codePointAt(srcIndex++);
 			switch(c){
 				case '\\': switch(source.codePointAt(srcIndex)){
-					case '\r': if(source.codePointAt(srcIndex)=='\n') srcIndex++;
+					case '\r': if(source.codePointAt(srcIndex+1)=='\n') srcIndex++;
 					case '\n': // ignore newlines immediately followed by backslash
 						srcIndex++;
 						continue;
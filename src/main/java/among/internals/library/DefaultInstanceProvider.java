@@ -174,7 +174,7 @@ public final class DefaultInstanceProvider implements Provider<RootAndDefinition
 								reportHandler.reportError("Index out of range ("+i+", size = "+l.size()+")");
 						}catch(NumberFormatException ex){
 							if(reportHandler!=null)
-								reportHandler.reportError("Expected int", args[1].sourcePosition());
+								reportHandler.reportError("Expected int", reportHandler.sourcePositionOf(args[1]));
 						}
 					}
 					return null;
@@ -194,7 +194,7 @@ public final class DefaultInstanceProvider implements Provider<RootAndDefinition
 						return i>=0&&i<l.size() ? l.get(i) : args[2];
 					}catch(NumberFormatException ex){
 						if(reportHandler!=null)
-							reportHandler.reportError("Expected int", args[1].sourcePosition());
+							reportHandler.reportError("Expected int", reportHandler.sourcePositionOf(args[1]));
 						return null;
 					}
 				}));
@@ -226,7 +226,7 @@ public final class DefaultInstanceProvider implements Provider<RootAndDefinition
 							reportHandler.reportError("Index out of range ("+i+", size = "+args[0].asList().size()+")");
 					}catch(NumberFormatException ex){
 						if(reportHandler!=null)
-							reportHandler.reportError("Expected int", args[1].sourcePosition());
+							reportHandler.reportError("Expected int", reportHandler.sourcePositionOf(args[1]));
 					}
 					return null;
 				}));
@@ -251,7 +251,7 @@ public final class DefaultInstanceProvider implements Provider<RootAndDefinition
 							reportHandler.reportError("Index out of range ("+i+", size = "+args[0].asList().size()+")");
 					}catch(NumberFormatException ex){
 						if(reportHandler!=null)
-							reportHandler.reportError("Expected int", args[1].sourcePosition());
+							reportHandler.reportError("Expected int", reportHandler.sourcePositionOf(args[1]));
 					}
 					return null;
 				}));
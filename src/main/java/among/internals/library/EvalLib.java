@@ -120,7 +120,7 @@ final class EvalLib{
 	private static boolean expect(AmongList list, int size, @Nullable ReportHandler reportHandler){
 		if(list.size()>=size) return true;
 		if(reportHandler!=null)
-			reportHandler.reportError("Not enough parameters, minimum "+size+" required", list.sourcePosition());
+			reportHandler.reportError("Not enough parameters, minimum "+size+" required", reportHandler.sourcePositionOf(list));
 		return false;
 	}
 	@Nullable private static Boolean evalBool(Among among, @Nullable ReportHandler reportHandler){
@@ -128,7 +128,7 @@ final class EvalLib{
 		if(a2==null) return null;
 		Boolean b = toBool(a2);
 		if(b==null&&reportHandler!=null)
-			reportHandler.reportError("Expected boolean", among.sourcePosition());
+			reportHandler.reportError("Expected boolean", reportHandler.sourcePositionOf(among));
 		return null;
 	}
 	@Nullable private static Double evalNum(Among among, @Nullable ReportHandler reportHandler){
@@ -136,7 +136,7 @@ final class EvalLib{
 		if(a2==null) return null;
 		Double n = toNum(a2);
 		if(n==null&&reportHandler!=null)
-			reportHandler.reportError("Expected number", among.sourcePosition());
+			reportHandler.reportError("Expected number", reportHandler.sourcePositionOf(among));
 		return n;
 	}
 
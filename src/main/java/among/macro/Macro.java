@@ -7,6 +7,7 @@ import among.ToStringOption;
 import among.TypeFlags;
 import among.exception.Sussy;
 import among.internals.LiteralFormats;
+import among.internals.MemoryEstimates;
 import among.obj.Among;
 import among.obj.AmongList;
 import among.obj.AmongObject;
@@ -65,6 +66,34 @@ public abstract class Macro extends ToPrettyString.Base{
 	public final MacroParameterList parameter(){
 		return parameter;
 	}
+	/**
+	 * @return Copy of type inferences for argument validation, or {@code null} if this macro has no type inferences
+	 */
+	public final byte @Nullable [] typeInferences(){
+		return typeInferences==null ? null : typeInferences.clone();
+	}
+
+	/**
+	 * Returns estimated size of memory retained by this macro, in bytes. Code-defined macros are estimated without
+	 * the memory used by their implementation.
+	 *
+	 * @return Estimated size of memory retained by this macro, in bytes
+	 * @see MemoryEstimates
+	 */
+	public long estimateRetainedBytes(){
+		long bytes = MemoryEstimates.object(3, 0)+
+				MemoryEstimates.object(2, 0)+MemoryEstimates.string(name())+ // signature
+				MemoryEstimates.object(2, 8)+ // parameter list
+				MemoryEstimates.arrayList(parameter.size())+MemoryEstimates.hashMap(parameter.size());
+		for(int i = 0; i<parameter.size(); i++){
+			MacroParameter p = parameter.paramAt(i);
+			bytes += MemoryEstimates.object(2, 0)+MemoryEstimates.string(p.name());
+			Among defaultValue = p.defaultValue();
+			if(defaultValue!=null) bytes += defaultValue.estimateRetainedBytes();
+		}
+		if(typeInferences!=null) bytes += MemoryEstimates.array(typeInferences.length, 1);
+		return bytes;
+	}
 
 	/**
 	 * Applies this macro to given argument value. The argument will not be modified, although its subcomponent may be
@@ -1,10 +1,12 @@
 package among.macro;
 
+import among.AmongVisitor;
 import among.report.ReportHandler;
 import among.ToPrettyString;
 import among.ToStringContext;
 import among.ToStringOption;
 import among.exception.Sussy;
+import among.internals.MemoryEstimates;
 import among.obj.Among;
 import org.jetbrains.annotations.Nullable;
 
@@ -30,11 +32,13 @@ public final class MacroDefinition extends Macro{
 	private final List<MacroReplacement> replacements;
 
 	/**
-	 * Creates new macro definition.
+	 * Creates new macro definition. The template gets frozen, so that each expansion copies only the parts modified by
+	 * the replacements, sharing the rest with the template.
 	 *
 	 * @param sig            Signature of the macro
 	 * @param params         Parameters of the macro
-	 * @param template       Result object of the macro; valid parameter references will be marked for replacements
+	 * @param template       Result object of the macro; valid parameter references will be marked for replacements.
+	 *                       Frozen by this constructor.
 	 * @param replacements   List of replacement operations
 	 * @param typeInferences Optional type inferences for argument validation
 	 * @throws NullPointerException If either of the parameters are {@code null}
@@ -43,19 +47,49 @@ public final class MacroDefinition extends Macro{
 	public MacroDefinition(MacroSignature sig, MacroParameterList params, Among template, List<MacroReplacement> replacements, byte[] typeInferences){
 		super(sig, params, typeInferences);
 		this.template = Objects.requireNonNull(template);
+		template.freeze();
 		this.replacements = new ArrayList<>(replacements);
 		for(MacroReplacement r : this.replacements) Objects.requireNonNull(r);
 	}
 
 	/**
-	 * Returns deep copy of the raw template used in this macro. This method is strictly for debugging purposes.
+	 * Returns copy of the raw template used in this macro. This method is strictly for debugging purposes.
 	 *
-	 * @return Deep copy of template object
+	 * @return Copy of template object
+	 * @see Among#copy()
 	 */
 	public Among template(){
 		return template.copy();
 	}
 
+	/**
+	 * Visits the raw template used in this macro, without copying. Modifying the template might produce unwanted
+	 * behavior.
+	 *
+	 * @param visitor The visitor
+	 */
+	public void visitTemplate(AmongVisitor visitor){
+		template.visit(visitor);
+	}
+
+	@Override public long estimateRetainedBytes(){
+		long bytes = super.estimateRetainedBytes()+template.estimateRetainedBytes()+
+				MemoryEstimates.arrayList(replacements.size());
+		for(MacroReplacement r : replacements)
+			bytes += REPLACEMENT_SIZE+(long)PATH_ELEMENT_SIZE*r.path().size();
+		return bytes;
+	}
+
+	/**
+	 * Size of each replacement, including its operation; operations hold either a parameter index or a macro.
+	 */
+	private static final int REPLACEMENT_SIZE = MemoryEstimates.object(2, 0)+MemoryEstimates.object(1, 0);
+	/**
+	 * Size of each element in path of replacements; each element takes a path node, with its parent, element, lazily
+	 * created array, size and hash, and the element itself. Property names are shared with the template.
+	 */
+	private static final int PATH_ELEMENT_SIZE = MemoryEstimates.object(3, 8)+MemoryEstimates.object(1, 0);
+
 	public List<MacroReplacement> replacements(){
 		return replacements;
 	}
@@ -73,7 +107,7 @@ public final class MacroDefinition extends Macro{
 	}
 
 	@Override protected Among applyMacro(Among[] args, boolean copyConstant, @Nullable ReportHandler reportHandler){
-		if(isConstant()) return copyConstant ? template.copy() : template;
+		if(isConstant()&&!copyConstant) return template;
 		Among o = template.copy();
 		for(MacroReplacement r : replacements)
 			o = r.apply(args, o, copyConstant, reportHandler);
@@ -1,6 +1,7 @@
 package among.macro;
 
 import among.ToStringContext;
+import among.internals.MemoryEstimates;
 import among.ToStringOption;
 import among.obj.Among;
 import among.obj.AmongList;
@@ -89,6 +90,26 @@ public final class MacroRegistry{
 		return groups.keySet().stream();
 	}
 
+	/**
+	 * @return Estimated size of memory retained by this registry and all macros registered, in bytes
+	 * @see Macro#estimateRetainedBytes()
+	 */
+	public long estimateRetainedBytes(){
+		long bytes = MemoryEstimates.object(1, 0)+
+				MemoryEstimates.hashMap(groups.size());
+		for(Group g : groups.values())
+			bytes += GROUP_SIZE+g.macros()
+					.filter(Objects::nonNull)
+					.mapToLong(m -> MemoryEstimates.REFERENCE+m.estimateRetainedBytes())
+					.sum();
+		return bytes;
+	}
+
+	/**
+	 * Size of each group, including its list of macros; references to each macro are counted separately.
+	 */
+	private static final int GROUP_SIZE = MemoryEstimates.object(1, 0)+MemoryEstimates.ARRAY_LIST+MemoryEstimates.ARRAY_HEADER;
+
 	@Override public boolean equals(Object o){
 		if(this==o) return true;
 		if(o==null||getClass()!=o.getClass()) return false;
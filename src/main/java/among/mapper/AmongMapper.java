@@ -0,0 +1,221 @@
+package among.mapper;
+
+import among.mapper.Bindings.ArrayBinding;
+import among.mapper.Bindings.CollectionBinding;
+import among.mapper.Bindings.MapBinding;
+import among.mapper.Bindings.NaturalBinding;
+import among.mapper.Bindings.NodeBinding;
+import among.obj.Among;
+import among.tape.TapeCursor;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.GenericArrayType;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.Type;
+import java.lang.reflect.TypeVariable;
+import java.lang.reflect.WildcardType;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Binds {@link Among} nodes to Java objects. Deserializers are created once per type and cached, with reflective
+ * access resolved to {@link MethodHandle}s ahead of time; binding itself does not use reflection, except for creating
+ * arrays.
+ * <p>
+ * Supported types are:
+ * <ul>
+ *     <li>{@link String}, {@link CharSequence}, primitive types and their wrappers, {@link java.math.BigInteger},
+ *     {@link java.math.BigDecimal} and {@link Number}, bound from primitives. Booleans are {@code true} or {@code
+ *     false}, ignoring case; characters are primitives with exactly one character.</li>
+ *     <li>Enums, bound from primitives with the name of the constant.</li>
+ *     <li>Arrays and {@link Collection}s, bound from lists. Interfaces are bound to {@link ArrayList}, {@link
+ *     LinkedHashSet}, {@link TreeSet} or {@link ArrayDeque}; concrete types are created with their no-arg
+ *     constructor.</li>
+ *     <li>{@link Map}s with {@link String} key, bound from objects. Interfaces are bound to {@link LinkedHashMap},
+ *     {@link TreeMap} or {@link ConcurrentHashMap}; concrete types are created with their no-arg constructor.</li>
+ *     <li>{@link Among} and its subtypes, bound to the node itself.</li>
+ *     <li>{@link Object}, bound to strings, {@link ArrayList}s and {@link LinkedHashMap}s depending on the type of the
+ *     node.</li>
+ *     <li>Records and POJOs, bound from objects. See below.</li>
+ * </ul>
+ * Records are created with their canonical constructor, each component bound from the property with the same name.
+ * POJOs are created with their no-arg constructor, each non-static and non-transient field bound from the property
+ * with the same name; using public setter method if present, otherwise the field itself. Missing properties are left
+ * as default. Generic types are resolved, including type parameters of the records and POJOs themselves.
+ * <p>
+ * Names of lists and objects are ignored, and operations are treated as lists.
+ * <p>
+ * Nodes of {@link among.tape.AmongTape} can be bound directly with {@link AmongMapper#read(TapeCursor, Class)},
+ * without converting them to tree form.
+ * <p>
+ * Instances of this class are thread-safe.
+ */
+public final class AmongMapper{
+	private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+	private static final MethodType CONSTRUCTOR = MethodType.methodType(Object.class);
+
+	private final Map<Type, Binding<?>> bindings = new ConcurrentHashMap<>();
+	private volatile boolean failOnUnknownProperties;
+
+	/**
+	 * Sets whether properties of objects without corresponding field or record component should be rejected. Unknown
+	 * properties are ignored by default.
+	 *
+	 * @param failOnUnknownProperties Whether unknown properties should be rejected
+	 * @return This
+	 */
+	public AmongMapper failOnUnknownProperties(boolean failOnUnknownProperties){
+		this.failOnUnknownProperties = failOnUnknownProperties;
+		return this;
+	}
+
+	public boolean failsOnUnknownProperties(){
+		return failOnUnknownProperties;
+	}
+
+	/**
+	 * Binds the node to the type.
+	 *
+	 * @param among Node to read
+	 * @param type  Type of the object
+	 * @param <T>   Type of the object
+	 * @return New object created from the node; primitive types are boxed
+	 * @throws among.exception.Sussy    If the node cannot be bound to the type
+	 * @throws IllegalArgumentException If the type is not supported
+	 * @throws NullPointerException     If either of the parameters are {@code null}
+	 */
+	@SuppressWarnings("unchecked")
+	public <T> T read(Among among, Class<T> type){
+		return (T)binding(type).read(among);
+	}
+	/**
+	 * Binds the node to the generic type, e.g. {@code List<String>}.
+	 *
+	 * @param among Node to read
+	 * @param type  Type of the object
+	 * @return New object created from the node; primitive types are boxed
+	 * @throws among.exception.Sussy    If the node cannot be bound to the type
+	 * @throws IllegalArgumentException If the type is not supported
+	 * @throws NullPointerException     If either of the parameters are {@code null}
+	 */
+	public Object read(Among among, Type type){
+		return binding(type).read(among);
+	}
+	/**
+	 * Binds current node of the cursor to the type. No tree form of the node is created in the process, unless
+	 * {@link Among} itself is requested. The cursor is placed back to the node after the call; if an exception is
+	 * thrown, position of the cursor is unspecified.
+	 *
+	 * @param cursor Cursor pointing at the node to read
+	 * @param type   Type of the object
+	 * @param <T>    Type of the object
+	 * @return New object created from the node; primitive types are boxed
+	 * @throws among.exception.Sussy    If the node cannot be bound to the type
+	 * @throws IllegalArgumentException If the type is not supported
+	 * @throws NullPointerException     If either of the parameters are {@code null}
+	 */
+	@SuppressWarnings("unchecked")
+	public <T> T read(TapeCursor cursor, Class<T> type){
+		return (T)binding(type).read(cursor);
+	}
+	/**
+	 * Binds current node of the cursor to the generic type, e.g. {@code List<String>}. No tree form of the node is
+	 * created in the process, unless {@link Among} itself is requested. The cursor is placed back to the node after
+	 * the call; if an exception is thrown, position of the cursor is unspecified.
+	 *
+	 * @param cursor Cursor pointing at the node to read
+	 * @param type   Type of the object
+	 * @return New object created from the node; primitive types are boxed
+	 * @throws among.exception.Sussy    If the node cannot be bound to the type
+	 * @throws IllegalArgumentException If the type is not supported
+	 * @throws NullPointerException     If either of the parameters are {@code null}
+	 */
+	public Object read(TapeCursor cursor, Type type){
+		return binding(type).read(cursor);
+	}
+
+	Binding<?> binding(Type type){
+		Binding<?> binding = bindings.get(type);
+		if(binding==null){
+			// bindings can't be created inside computeIfAbsent, as creating one may create another
+			binding = create(type);
+			Binding<?> prev = bindings.putIfAbsent(type, binding);
+			if(prev!=null) binding = prev;
+		}
+		return binding;
+	}
+
+	private Binding<?> create(Type type){
+		if(type instanceof WildcardType) return binding(((WildcardType)type).getUpperBounds()[0]);
+		if(type instanceof TypeVariable) return binding(((TypeVariable<?>)type).getBounds()[0]);
+		if(type instanceof GenericArrayType){
+			Type component = ((GenericArrayType)type).getGenericComponentType();
+			return new ArrayBinding(Types.raw(component), binding(component));
+		}
+		Class<?> raw = Types.raw(type);
+		if(raw==Object.class) return NaturalBinding.INSTANCE;
+		if(Among.class.isAssignableFrom(raw)) return new NodeBinding(raw.asSubclass(Among.class));
+		Binding<?> value = ValueBinding.of(raw);
+		if(value!=null) return value;
+		if(raw.isArray()) return new ArrayBinding(raw.getComponentType(), binding(raw.getComponentType()));
+		if(Collection.class.isAssignableFrom(raw))
+			return new CollectionBinding(collectionConstructor(raw), binding(Types.typeArgument(type, Collection.class, 0)));
+		if(Map.class.isAssignableFrom(raw)){
+			Class<?> key = Types.raw(Types.typeArgument(type, Map.class, 0));
+			if(key!=String.class&&key!=Object.class&&key!=CharSequence.class)
+				throw new IllegalArgumentException("Cannot bind map with key type "+key.getName());
+			return new MapBinding(mapConstructor(raw), binding(Types.typeArgument(type, Map.class, 1)));
+		}
+		return ObjectBinding.create(this, raw, type);
+	}
+
+	@SuppressWarnings("unchecked")
+	private static Supplier<? extends Collection<Object>> collectionConstructor(Class<?> raw){
+		if(raw.isAssignableFrom(ArrayList.class)) return ArrayList::new;
+		if(raw.isAssignableFrom(LinkedHashSet.class)) return LinkedHashSet::new;
+		if(raw.isAssignableFrom(TreeSet.class)) return TreeSet::new;
+		if(raw.isAssignableFrom(ArrayDeque.class)) return ArrayDeque::new;
+		return (Supplier<? extends Collection<Object>>)constructor(raw);
+	}
+
+	@SuppressWarnings("unchecked")
+	private static Supplier<? extends Map<String, Object>> mapConstructor(Class<?> raw){
+		if(raw.isAssignableFrom(LinkedHashMap.class)) return LinkedHashMap::new;
+		if(raw.isAssignableFrom(TreeMap.class)) return TreeMap::new;
+		if(raw.isAssignableFrom(ConcurrentHashMap.class)) return ConcurrentHashMap::new;
+		return (Supplier<? extends Map<String, Object>>)constructor(raw);
+	}
+
+	private static Supplier<?> constructor(Class<?> raw){
+		if(raw.isInterface()||Modifier.isAbstract(raw.getModifiers()))
+			throw new IllegalArgumentException("Cannot bind to abstract type "+raw.getName());
+		MethodHandle h;
+		try{
+			Constructor<?> c = raw.getDeclaredConstructor();
+			c.setAccessible(true);
+			h = LOOKUP.unreflectConstructor(c).asType(CONSTRUCTOR);
+		}catch(ReflectiveOperationException ex){
+			throw new IllegalArgumentException("Cannot access no-arg constructor of "+raw.getName(), ex);
+		}
+		return () -> {
+			try{
+				return (Object)h.invokeExact();
+			}catch(RuntimeException|Error ex){
+				throw ex;
+			}catch(Throwable t){
+				throw new IllegalStateException(t);
+			}
+		};
+	}
+}
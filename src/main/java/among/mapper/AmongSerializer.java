@@ -0,0 +1,240 @@
+package among.mapper;
+
+import among.ToStringOption;
+import among.mapper.Serializers.ArraySerializer;
+import among.mapper.Serializers.BeanSerializer;
+import among.mapper.Serializers.CollectionSerializer;
+import among.mapper.Serializers.MapSerializer;
+import among.mapper.Serializers.NodeSerializer;
+import among.mapper.Serializers.ValueSerializer;
+import among.obj.Among;
+import among.obj.AmongWriter;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes Java objects to {@link AmongWriter} as Among text, without creating {@link Among} nodes in the process.
+ * Output is identical to {@link Among#toString(ToStringOption)} or {@link Among#toPrettyString(int, ToStringOption)}
+ * of the equivalent node, and is passed to the writer in chunks while being rendered. Serializers are created once per
+ * class and cached, with reflective access resolved to {@link MethodHandle}s ahead of time.
+ * <p>
+ * Values are written depending on their runtime class:
+ * <ul>
+ *     <li>{@link Among} nodes are written as-is.</li>
+ *     <li>{@link CharSequence}s, {@link Number}s, {@link Boolean}s and {@link Character}s are written as primitives of
+ *     their string representation; enums are written as primitives of their name.</li>
+ *     <li>{@link Map}s are written as objects, with string representation of each key as property key.</li>
+ *     <li>Arrays and {@link Collection}s are written as lists.</li>
+ *     <li>Records are written as objects with each component as property, in declaration order.</li>
+ *     <li>Other classes in {@code java} and {@code javax} packages are written as primitives of their string
+ *     representation.</li>
+ *     <li>Other classes are written as objects with each non-static, non-transient field as property, starting from
+ *     the fields of the topmost superclass. Public getter ({@code getName} or {@code isName} for field {@code name})
+ *     is used if present.</li>
+ * </ul>
+ * Properties with {@code null} value are omitted. {@code null} elements of arrays and collections cannot be written.
+ * <p>
+ * Instances of this class are thread-safe.
+ *
+ * @see AmongMapper
+ */
+public final class AmongSerializer{
+	private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+	private static final MethodType GETTER = MethodType.methodType(Object.class, Object.class);
+
+	private final ClassValue<Serializer> serializers = new ClassValue<Serializer>(){
+		@Override protected Serializer computeValue(Class<?> type){
+			return create(type);
+		}
+	};
+
+	/**
+	 * Writes the value, formatted in most compact form with default option.
+	 *
+	 * @param writer Writer to write to
+	 * @param value  Value to write
+	 * @throws IOException              If an I/O error occurs
+	 * @throws among.exception.Sussy    If the value contains {@code null} element
+	 * @throws IllegalArgumentException If properties of the value cannot be accessed
+	 * @throws NullPointerException     If any of the parameters are {@code null}
+	 */
+	public void write(AmongWriter writer, Object value) throws IOException{
+		write(writer, value, ToStringOption.DEFAULT);
+	}
+	/**
+	 * Writes the value, formatted in most compact form.
+	 *
+	 * @param writer Writer to write to
+	 * @param value  Value to write
+	 * @param option Option to use
+	 * @throws IOException              If an I/O error occurs
+	 * @throws among.exception.Sussy    If the value contains {@code null} element
+	 * @throws IllegalArgumentException If properties of the value cannot be accessed
+	 * @throws NullPointerException     If any of the parameters are {@code null}
+	 */
+	public void write(AmongWriter writer, Object value, ToStringOption option) throws IOException{
+		SerializerOutput out = new SerializerOutput(this, writer, option);
+		out.write(value);
+		out.flush();
+	}
+	/**
+	 * Writes the value, formatted in human-readable form with default option.
+	 *
+	 * @param writer Writer to write to
+	 * @param value  Value to write
+	 * @throws IOException              If an I/O error occurs
+	 * @throws among.exception.Sussy    If the value contains {@code null} element
+	 * @throws IllegalArgumentException If properties of the value cannot be accessed
+	 * @throws NullPointerException     If any of the parameters are {@code null}
+	 */
+	public void writePretty(AmongWriter writer, Object value) throws IOException{
+		writePretty(writer, value, 0, ToStringOption.DEFAULT);
+	}
+	/**
+	 * Writes the value, formatted in human-readable form.
+	 *
+	 * @param writer  Writer to write to
+	 * @param value   Value to write
+	 * @param indents Number of indentations
+	 * @param option  Option to use
+	 * @throws IOException              If an I/O error occurs
+	 * @throws among.exception.Sussy    If the value contains {@code null} element
+	 * @throws IllegalArgumentException If properties of the value cannot be accessed
+	 * @throws NullPointerException     If any of the parameters are {@code null}
+	 */
+	public void writePretty(AmongWriter writer, Object value, int indents, ToStringOption option) throws IOException{
+		SerializerOutput out = new SerializerOutput(this, writer, option);
+		out.writePretty(value, indents);
+		out.flush();
+	}
+
+	/**
+	 * @param value  Value to write
+	 * @param option Option to use
+	 * @return The value formatted in most compact form
+	 * @throws among.exception.Sussy    If the value contains {@code null} element
+	 * @throws IllegalArgumentException If properties of the value cannot be accessed
+	 * @throws NullPointerException     If any of the parameters are {@code null}
+	 */
+	public String toString(Object value, ToStringOption option){
+		StringBuilder stb = new StringBuilder();
+		try{
+			AmongWriter writer = new AmongWriter(stb);
+			write(writer, value, option);
+			writer.flush();
+		}catch(IOException ex){
+			throw new IllegalStateException("Unreachable", ex); // StringBuilder does not throw IOException
+		}
+		return stb.toString();
+	}
+	/**
+	 * @param value   Value to write
+	 * @param indents Number of indentations
+	 * @param option  Option to use
+	 * @return The value formatted in human-readable form
+	 * @throws among.exception.Sussy    If the value contains {@code null} element
+	 * @throws IllegalArgumentException If properties of the value cannot be accessed
+	 * @throws NullPointerException     If any of the parameters are {@code null}
+	 */
+	public String toPrettyString(Object value, int indents, ToStringOption option){
+		StringBuilder stb = new StringBuilder();
+		try{
+			AmongWriter writer = new AmongWriter(stb);
+			writePretty(writer, value, indents, option);
+			writer.flush();
+		}catch(IOException ex){
+			throw new IllegalStateException("Unreachable", ex); // StringBuilder does not throw IOException
+		}
+		return stb.toString();
+	}
+
+	Serializer serializer(Class<?> type){
+		return serializers.get(type);
+	}
+
+	private static Serializer create(Class<?> type){
+		if(Among.class.isAssignableFrom(type)) return NodeSerializer.INSTANCE;
+		if(type.isEnum()||type.getSuperclass()!=null&&type.getSuperclass().isEnum()) return ValueSerializer.ENUM;
+		if(CharSequence.class.isAssignableFrom(type)||Number.class.isAssignableFrom(type)||
+				type==Boolean.class||type==Character.class) return ValueSerializer.TO_STRING;
+		if(Map.class.isAssignableFrom(type)) return MapSerializer.INSTANCE;
+		if(type.isArray()) return ArraySerializer.INSTANCE;
+		if(Collection.class.isAssignableFrom(type)) return CollectionSerializer.INSTANCE;
+		if(Records.isRecord(type)) return recordSerializer(type);
+		String name = type.getName();
+		if(name.startsWith("java.")||name.startsWith("javax.")) return ValueSerializer.TO_STRING;
+		return beanSerializer(type);
+	}
+
+	private static Serializer recordSerializer(Class<?> type){
+		Records.Component[] components = Records.components(type);
+		String[] keys = new String[components.length];
+		MethodHandle[] getters = new MethodHandle[components.length];
+		for(int i = 0; i<components.length; i++){
+			keys[i] = components[i].name;
+			try{
+				components[i].accessor.setAccessible(true);
+				getters[i] = LOOKUP.unreflect(components[i].accessor).asType(GETTER);
+			}catch(IllegalAccessException ex){
+				throw new IllegalArgumentException("Cannot access component '"+keys[i]+"' of "+type.getName(), ex);
+			}
+		}
+		return new BeanSerializer(keys, getters);
+	}
+
+	private static Serializer beanSerializer(Class<?> type){
+		List<Class<?>> hierarchy = new ArrayList<>();
+		for(Class<?> c = type; c!=null&&c!=Object.class; c = c.getSuperclass()) hierarchy.add(c);
+		Collections.reverse(hierarchy);
+		List<String> keys = new ArrayList<>();
+		List<MethodHandle> getters = new ArrayList<>();
+		for(Class<?> c : hierarchy){
+			for(Field f : c.getDeclaredFields()){
+				int mod = f.getModifiers();
+				if(Modifier.isStatic(mod)||Modifier.isTransient(mod)||f.isSynthetic()) continue;
+				keys.add(f.getName());
+				getters.add(getter(f));
+			}
+		}
+		return new BeanSerializer(keys.toArray(new String[0]), getters.toArray(new MethodHandle[0]));
+	}
+
+	private static MethodHandle getter(Field f){
+		String name = f.getName();
+		String capitalized = Character.toUpperCase(name.charAt(0))+name.substring(1);
+		Method m = publicMethod(f.getDeclaringClass(), "get"+capitalized, f.getType());
+		if(m==null&&(f.getType()==boolean.class||f.getType()==Boolean.class))
+			m = publicMethod(f.getDeclaringClass(), "is"+capitalized, f.getType());
+		try{
+			if(m!=null){
+				m.setAccessible(true); // declaring class might not be public
+				return LOOKUP.unreflect(m).asType(GETTER);
+			}
+			f.setAccessible(true);
+			return LOOKUP.unreflectGetter(f).asType(GETTER);
+		}catch(IllegalAccessException ex){
+			throw new IllegalArgumentException("Cannot access field '"+name+"' in "+f.getDeclaringClass().getName(), ex);
+		}
+	}
+
+	@Nullable private static Method publicMethod(Class<?> type, String name, Class<?> returnType){
+		try{
+			Method m = type.getMethod(name);
+			return !Modifier.isStatic(m.getModifiers())&&m.getReturnType()==returnType ? m : null;
+		}catch(NoSuchMethodException ex){
+			return null;
+		}
+	}
+}
@@ -0,0 +1,26 @@
+package among.mapper;
+
+import among.obj.Among;
+import among.tape.TapeCursor;
+
+/**
+ * Deserializer for specific type, created once per type by {@link AmongMapper}.
+ *
+ * @param <T> Type of the object created
+ */
+abstract class Binding<T>{
+	/**
+	 * @param among Node to read
+	 * @return New object created from the node
+	 * @throws among.exception.Sussy If the node cannot be bound to the type
+	 */
+	abstract T read(Among among);
+	/**
+	 * Creates the object from the current node of the cursor. The cursor is placed back to the node after the call.
+	 *
+	 * @param cursor Cursor pointing at the node to read
+	 * @return New object created from the node
+	 * @throws among.exception.Sussy If the node cannot be bound to the type
+	 */
+	abstract T read(TapeCursor cursor);
+}
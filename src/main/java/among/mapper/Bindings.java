@@ -0,0 +1,197 @@
+package among.mapper;
+
+import among.exception.Sussy;
+import among.exception.SussyCast;
+import among.obj.Among;
+import among.obj.AmongList;
+import among.tape.TapeCursor;
+
+import java.lang.reflect.Array;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Bindings of lists and objects to arrays, collections, maps and nodes.
+ */
+final class Bindings{
+	private Bindings(){}
+
+	static final class CollectionBinding extends Binding<Collection<Object>>{
+		private final Supplier<? extends Collection<Object>> constructor;
+		private final Binding<?> element;
+
+		CollectionBinding(Supplier<? extends Collection<Object>> constructor, Binding<?> element){
+			this.constructor = constructor;
+			this.element = element;
+		}
+
+		@Override Collection<Object> read(Among among){
+			AmongList list = among.asList();
+			Collection<Object> c = constructor.get();
+			for(int i = 0; i<list.size(); i++) c.add(element(element, list.get(i), i));
+			return c;
+		}
+		@Override Collection<Object> read(TapeCursor cursor){
+			if(!cursor.isList()) throw new Sussy("Expected list");
+			Collection<Object> c = constructor.get();
+			if(cursor.moveToFirstChild()){
+				int i = 0;
+				do c.add(element(element, cursor, i++));
+				while(cursor.moveToNextSibling());
+				cursor.moveToParent();
+			}
+			return c;
+		}
+	}
+
+	static final class ArrayBinding extends Binding<Object>{
+		private final Class<?> componentType;
+		private final Binding<?> element;
+
+		ArrayBinding(Class<?> componentType, Binding<?> element){
+			this.componentType = componentType;
+			this.element = element;
+		}
+
+		@Override Object read(Among among){
+			AmongList list = among.asList();
+			Object array = Array.newInstance(componentType, list.size());
+			for(int i = 0; i<list.size(); i++) Array.set(array, i, element(element, list.get(i), i));
+			return array;
+		}
+		@Override Object read(TapeCursor cursor){
+			if(!cursor.isList()) throw new Sussy("Expected list");
+			Object array = Array.newInstance(componentType, cursor.size());
+			if(cursor.moveToFirstChild()){
+				int i = 0;
+				do Array.set(array, i, element(element, cursor, i++));
+				while(cursor.moveToNextSibling());
+				cursor.moveToParent();
+			}
+			return array;
+		}
+	}
+
+	static final class MapBinding extends Binding<Map<String, Object>>{
+		private final Supplier<? extends Map<String, Object>> constructor;
+		private final Binding<?> value;
+
+		MapBinding(Supplier<? extends Map<String, Object>> constructor, Binding<?> value){
+			this.constructor = constructor;
+			this.value = value;
+		}
+
+		@Override Map<String, Object> read(Among among){
+			Map<String, Object> m = constructor.get();
+			for(Map.Entry<String, Among> e : among.asObj().properties().entrySet())
+				m.put(e.getKey(), property(value, e.getValue(), e.getKey()));
+			return m;
+		}
+		@Override Map<String, Object> read(TapeCursor cursor){
+			if(!cursor.isObj()) throw new Sussy("Expected object");
+			Map<String, Object> m = constructor.get();
+			if(cursor.moveToFirstChild()){
+				do{
+					String key = cursor.key();
+					m.put(key, property(value, cursor, key));
+				}while(cursor.moveToNextSibling());
+				cursor.moveToParent();
+			}
+			return m;
+		}
+	}
+
+	/**
+	 * Binding for {@link Among} and its subtypes. Tapes are converted to tree form.
+	 */
+	static final class NodeBinding extends Binding<Among>{
+		private final Class<? extends Among> type;
+
+		NodeBinding(Class<? extends Among> type){
+			this.type = type;
+		}
+
+		@Override Among read(Among among){
+			if(!type.isInstance(among)) throw new SussyCast(type, among.getClass());
+			return among;
+		}
+		@Override Among read(TapeCursor cursor){
+			return read(cursor.toAmong());
+		}
+	}
+
+	/**
+	 * Binding for {@link Object}. Primitives are bound to strings, lists to {@link ArrayList}s and objects to {@link
+	 * LinkedHashMap}s. Names of lists and objects are discarded.
+	 */
+	static final class NaturalBinding extends Binding<Object>{
+		static final NaturalBinding INSTANCE = new NaturalBinding();
+
+		@Override Object read(Among among){
+			if(among.isPrimitive()) return among.asPrimitive().getValue();
+			if(among.isList()){
+				AmongList list = among.asList();
+				List<Object> l = new ArrayList<>(list.size());
+				for(int i = 0; i<list.size(); i++) l.add(read(list.get(i)));
+				return l;
+			}
+			Map<String, Object> m = new LinkedHashMap<>();
+			for(Map.Entry<String, Among> e : among.asObj().properties().entrySet())
+				m.put(e.getKey(), read(e.getValue()));
+			return m;
+		}
+		@Override Object read(TapeCursor cursor){
+			if(cursor.isPrimitive()) return cursor.getValue();
+			if(cursor.isList()){
+				List<Object> l = new ArrayList<>(cursor.size());
+				if(cursor.moveToFirstChild()){
+					do l.add(read(cursor));
+					while(cursor.moveToNextSibling());
+					cursor.moveToParent();
+				}
+				return l;
+			}
+			Map<String, Object> m = new LinkedHashMap<>();
+			if(cursor.moveToFirstChild()){
+				do m.put(cursor.key(), read(cursor));
+				while(cursor.moveToNextSibling());
+				cursor.moveToParent();
+			}
+			return m;
+		}
+	}
+
+	static Object element(Binding<?> binding, Among among, int index){
+		try{
+			return binding.read(among);
+		}catch(Sussy ex){
+			throw new Sussy("Element "+index+": "+ex.getMessage(), ex);
+		}
+	}
+	static Object element(Binding<?> binding, TapeCursor cursor, int index){
+		try{
+			return binding.read(cursor);
+		}catch(Sussy ex){
+			throw new Sussy("Element "+index+": "+ex.getMessage(), ex);
+		}
+	}
+
+	static Object property(Binding<?> binding, Among among, String key){
+		try{
+			return binding.read(among);
+		}catch(Sussy ex){
+			throw new Sussy("Property '"+key+"': "+ex.getMessage(), ex);
+		}
+	}
+	static Object property(Binding<?> binding, TapeCursor cursor, String key){
+		try{
+			return binding.read(cursor);
+		}catch(Sussy ex){
+			throw new Sussy("Property '"+key+"': "+ex.getMessage(), ex);
+		}
+	}
+}
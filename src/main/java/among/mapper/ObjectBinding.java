@@ -0,0 +1,258 @@
+package among.mapper;
+
+import among.exception.Sussy;
+import among.obj.Among;
+import among.tape.TapeCursor;
+import org.jetbrains.annotations.Nullable;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Array;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.Type;
+import java.lang.reflect.TypeVariable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Binding of objects to records and POJOs.
+ * <p>
+ * Records are created with their canonical constructor; each component is bound from the property with the same name.
+ * Missing components are set to {@code null}, or default value for primitive types.
+ * <p>
+ * POJOs are created with their no-arg constructor; each non-static, non-transient field is bound from the property
+ * with the same name, using public setter ({@code setName} for field {@code name}) if present, or the field directly.
+ * Final fields without setter are ignored. Missing properties leave the field untouched.
+ * <p>
+ * Properties are resolved on first use, as they may reference the type itself.
+ */
+final class ObjectBinding extends Binding<Object>{
+	private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+	private static final MethodType CONSTRUCTOR = MethodType.methodType(Object.class);
+	private static final MethodType RECORD_CONSTRUCTOR = MethodType.methodType(Object.class, Object[].class);
+	private static final MethodType SETTER = MethodType.methodType(void.class, Object.class, Object.class);
+
+	/**
+	 * @throws IllegalArgumentException If the type is abstract, or neither a record nor a class with no-arg constructor
+	 */
+	static ObjectBinding create(AmongMapper mapper, Class<?> raw, Type type){
+		if(raw.isInterface()||Modifier.isAbstract(raw.getModifiers())||raw.isPrimitive())
+			throw new IllegalArgumentException("Cannot bind to abstract type "+type.getTypeName());
+		return new ObjectBinding(mapper, raw, type, Records.isRecord(raw));
+	}
+
+	private final AmongMapper mapper;
+	private final Class<?> raw;
+	private final Type type;
+	private final boolean record;
+
+	@Nullable private volatile Properties properties;
+
+	private ObjectBinding(AmongMapper mapper, Class<?> raw, Type type, boolean record){
+		this.mapper = mapper;
+		this.raw = raw;
+		this.type = type;
+		this.record = record;
+	}
+
+	@Override Object read(Among among){
+		Properties p = properties();
+		Map<String, Among> map = among.asObj().properties();
+		if(record){
+			Object[] args = p.defaults.clone();
+			for(Map.Entry<String, Among> e : map.entrySet()){
+				Property property = p.property(e.getKey());
+				if(property!=null) args[property.index] = Bindings.property(property.binding, e.getValue(), e.getKey());
+			}
+			return p.create(args);
+		}else{
+			Object o = p.create();
+			for(Map.Entry<String, Among> e : map.entrySet()){
+				Property property = p.property(e.getKey());
+				if(property!=null) property.set(o, Bindings.property(property.binding, e.getValue(), e.getKey()));
+			}
+			return o;
+		}
+	}
+
+	@Override Object read(TapeCursor cursor){
+		if(!cursor.isObj()) throw new Sussy("Expected object");
+		Properties p = properties();
+		Object[] args = record ? p.defaults.clone() : null;
+		Object o = record ? null : p.create();
+		if(cursor.moveToFirstChild()){
+			do{
+				String key = cursor.key();
+				Property property = p.property(key);
+				if(property==null) continue;
+				Object value = Bindings.property(property.binding, cursor, key);
+				if(args!=null) args[property.index] = value;
+				else property.set(o, value);
+			}while(cursor.moveToNextSibling());
+			cursor.moveToParent();
+		}
+		return args!=null ? p.create(args) : o;
+	}
+
+	private Properties properties(){
+		Properties p = this.properties;
+		if(p==null){
+			synchronized(this){
+				p = this.properties;
+				if(p==null) this.properties = p = record ? recordProperties() : pojoProperties();
+			}
+		}
+		return p;
+	}
+
+	private Properties recordProperties(){
+		Records.Component[] components = Records.components(raw);
+		Map<TypeVariable<?>, Type> variables = Types.variables(type);
+		Map<String, Property> properties = new HashMap<>();
+		Class<?>[] parameterTypes = new Class<?>[components.length];
+		Object[] defaults = new Object[components.length];
+		for(int i = 0; i<components.length; i++){
+			parameterTypes[i] = Types.raw(components[i].type);
+			if(parameterTypes[i].isPrimitive()) defaults[i] = Array.get(Array.newInstance(parameterTypes[i], 1), 0);
+			properties.put(components[i].name, new Property(mapper.binding(Types.resolve(components[i].type, variables)), i, null));
+		}
+		MethodHandle constructor;
+		try{
+			Constructor<?> c = raw.getDeclaredConstructor(parameterTypes);
+			c.setAccessible(true);
+			constructor = LOOKUP.unreflectConstructor(c)
+					.asSpreader(Object[].class, components.length)
+					.asType(RECORD_CONSTRUCTOR);
+		}catch(ReflectiveOperationException ex){
+			throw new IllegalArgumentException("Cannot access canonical constructor of "+raw.getName(), ex);
+		}
+		return new Properties(constructor, properties, defaults);
+	}
+
+	private Properties pojoProperties(){
+		MethodHandle constructor;
+		try{
+			Constructor<?> c = raw.getDeclaredConstructor();
+			c.setAccessible(true);
+			constructor = LOOKUP.unreflectConstructor(c).asType(CONSTRUCTOR);
+		}catch(ReflectiveOperationException ex){
+			throw new IllegalArgumentException("Cannot access no-arg constructor of "+raw.getName(), ex);
+		}
+		Map<String, Property> properties = new HashMap<>();
+		List<Class<?>> hierarchy = new ArrayList<>();
+		for(Class<?> c = raw; c!=null&&c!=Object.class; c = c.getSuperclass()) hierarchy.add(c);
+		Collections.reverse(hierarchy);
+		for(Class<?> c : hierarchy){
+			Map<TypeVariable<?>, Type> variables = Types.variables(resolveSupertype(c));
+			for(Field f : c.getDeclaredFields()){
+				int mod = f.getModifiers();
+				if(Modifier.isStatic(mod)||Modifier.isTransient(mod)||f.isSynthetic()) continue;
+				MethodHandle setter = setter(f);
+				if(setter==null) continue;
+				properties.put(f.getName(), new Property(mapper.binding(Types.resolve(f.getGenericType(), variables)), -1, setter));
+			}
+		}
+		return new Properties(constructor, properties, null);
+	}
+
+	/**
+	 * @return Parameterization of the superclass {@code c} as seen from the bound type
+	 */
+	private Type resolveSupertype(Class<?> c){
+		if(c==raw) return type;
+		Type t = type;
+		while(Types.raw(t)!=c){
+			Class<?> r = Types.raw(t);
+			t = Types.resolve(r.getGenericSuperclass(), Types.variables(t));
+		}
+		return t;
+	}
+
+	@Nullable private static MethodHandle setter(Field f){
+		String name = f.getName();
+		try{
+			Method m = f.getDeclaringClass().getMethod("set"+Character.toUpperCase(name.charAt(0))+name.substring(1), f.getType());
+			if(!Modifier.isStatic(m.getModifiers())){
+				m.setAccessible(true); // declaring class might not be public
+				return LOOKUP.unreflect(m).asType(SETTER);
+			}
+		}catch(NoSuchMethodException ignored){
+		}catch(IllegalAccessException ex){
+			throw new IllegalArgumentException("Cannot access setter of field '"+name+"' in "+f.getDeclaringClass().getName(), ex);
+		}
+		if(Modifier.isFinal(f.getModifiers())) return null;
+		try{
+			f.setAccessible(true);
+			return LOOKUP.unreflectSetter(f).asType(SETTER);
+		}catch(IllegalAccessException ex){
+			throw new IllegalArgumentException("Cannot access field '"+name+"' in "+f.getDeclaringClass().getName(), ex);
+		}
+	}
+
+	private final class Properties{
+		private final MethodHandle constructor;
+		private final Map<String, Property> properties;
+		@Nullable private final Object[] defaults;
+
+		Properties(MethodHandle constructor, Map<String, Property> properties, @Nullable Object[] defaults){
+			this.constructor = constructor;
+			this.properties = properties;
+			this.defaults = defaults;
+		}
+
+		@Nullable Property property(String key){
+			Property p = properties.get(key);
+			if(p==null&&mapper.failsOnUnknownProperties())
+				throw new Sussy("Unknown property '"+key+"' for "+type.getTypeName());
+			return p;
+		}
+
+		Object create(){
+			try{
+				return (Object)constructor.invokeExact();
+			}catch(RuntimeException|Error ex){
+				throw ex;
+			}catch(Throwable t){
+				throw new Sussy("Cannot create instance of "+type.getTypeName(), t);
+			}
+		}
+		Object create(Object[] args){
+			try{
+				return (Object)constructor.invokeExact(args);
+			}catch(RuntimeException|Error ex){
+				throw ex;
+			}catch(Throwable t){
+				throw new Sussy("Cannot create instance of "+type.getTypeName(), t);
+			}
+		}
+	}
+
+	private static final class Property{
+		private final Binding<?> binding;
+		private final int index;
+		@Nullable private final MethodHandle setter;
+
+		Property(Binding<?> binding, int index, @Nullable MethodHandle setter){
+			this.binding = binding;
+			this.index = index;
+			this.setter = setter;
+		}
+
+		void set(Object o, Object value){
+			try{
+				setter.invokeExact(o, value);
+			}catch(RuntimeException|Error ex){
+				throw ex;
+			}catch(Throwable t){
+				throw new Sussy(t);
+			}
+		}
+	}
+}
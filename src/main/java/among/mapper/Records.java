@@ -0,0 +1,78 @@
+package among.mapper;
+
+import org.jetbrains.annotations.Nullable;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Type;
+
+/**
+ * Record API accessed reflectively, as it's not available on older runtimes.
+ */
+final class Records{
+	private Records(){}
+
+	@Nullable private static final Method IS_RECORD;
+	@Nullable private static final Method GET_RECORD_COMPONENTS;
+	@Nullable private static final Method COMPONENT_NAME;
+	@Nullable private static final Method COMPONENT_TYPE;
+	@Nullable private static final Method COMPONENT_ACCESSOR;
+
+	static{
+		Method isRecord = null, getRecordComponents = null, componentName = null, componentType = null, componentAccessor = null;
+		try{
+			Class<?> component = Class.forName("java.lang.reflect.RecordComponent");
+			isRecord = Class.class.getMethod("isRecord");
+			getRecordComponents = Class.class.getMethod("getRecordComponents");
+			componentName = component.getMethod("getName");
+			componentType = component.getMethod("getGenericType");
+			componentAccessor = component.getMethod("getAccessor");
+		}catch(ReflectiveOperationException ignored){}
+		IS_RECORD = isRecord;
+		GET_RECORD_COMPONENTS = getRecordComponents;
+		COMPONENT_NAME = componentName;
+		COMPONENT_TYPE = componentType;
+		COMPONENT_ACCESSOR = componentAccessor;
+	}
+
+	static boolean isRecord(Class<?> c){
+		if(IS_RECORD==null) return false;
+		try{
+			return (Boolean)IS_RECORD.invoke(c);
+		}catch(ReflectiveOperationException ex){
+			return false;
+		}
+	}
+
+	/**
+	 * @param record Record class
+	 * @return Components of the record, in declaration order
+	 * @throws IllegalStateException If the components cannot be read
+	 */
+	static Component[] components(Class<?> record){
+		try{
+			Object[] components = (Object[])GET_RECORD_COMPONENTS.invoke(record);
+			Component[] result = new Component[components.length];
+			for(int i = 0; i<components.length; i++){
+				result[i] = new Component(
+						(String)COMPONENT_NAME.invoke(components[i]),
+						(Type)COMPONENT_TYPE.invoke(components[i]),
+						(Method)COMPONENT_ACCESSOR.invoke(components[i]));
+			}
+			return result;
+		}catch(ReflectiveOperationException|NullPointerException ex){
+			throw new IllegalStateException("Cannot read record components of "+record.getName(), ex);
+		}
+	}
+
+	static final class Component{
+		final String name;
+		final Type type;
+		final Method accessor;
+
+		Component(String name, Type type, Method accessor){
+			this.name = name;
+			this.type = type;
+			this.accessor = accessor;
+		}
+	}
+}
@@ -0,0 +1,43 @@
+package among.mapper;
+
+import java.io.IOException;
+
+/**
+ * Writer of specific type, created once per class by {@link AmongSerializer}. Each method produces the same text as
+ * the equivalent {@link among.obj.Among} node formatted in {@link among.ToStringContext#NONE} context.
+ */
+abstract class Serializer{
+	/**
+	 * Width returned if the value does not fit in the budget, or spans multiple lines.
+	 */
+	static final int TOO_WIDE = -1;
+
+	/**
+	 * Writes the value in most compact form.
+	 */
+	abstract void write(SerializerOutput out, Object value) throws IOException;
+	/**
+	 * Writes the value in human-readable form.
+	 */
+	abstract void writePretty(SerializerOutput out, Object value, int indents) throws IOException;
+	/**
+	 * Returns width of the value formatted in human-readable form in single line. Mirrors the measurement of pretty
+	 * formatting with {@link among.ToStringOption#maxLineWidth}; measurement stops as soon as the width exceeds the
+	 * budget.
+	 *
+	 * @return Width of the value, or {@link Serializer#TOO_WIDE} if it exceeds the budget or spans multiple lines
+	 */
+	abstract int width(SerializerOutput out, Object value, int budget);
+
+	static int measured(StringBuilder scratch, int budget){
+		int len = scratch.length();
+		if(len>budget) return TOO_WIDE;
+		for(int i = 0; i<len; i++)
+			if(scratch.charAt(i)=='\n') return TOO_WIDE;
+		return len;
+	}
+
+	static int fit(int width, int budget){
+		return width>budget ? TOO_WIDE : width;
+	}
+}
@@ -0,0 +1,78 @@
+package among.mapper;
+
+import among.ToStringOption;
+import among.exception.Sussy;
+import among.obj.AmongWriter;
+
+import java.io.IOException;
+
+/**
+ * State of single serialization. Text is rendered into a buffer, which is passed to the {@link AmongWriter} each time
+ * it exceeds {@link SerializerOutput#FLUSH_SIZE} between elements.
+ */
+final class SerializerOutput{
+	static final int FLUSH_SIZE = 4096;
+
+	private final AmongSerializer serializer;
+	private final AmongWriter writer;
+	final ToStringOption option;
+	final StringBuilder buffer = new StringBuilder();
+	/**
+	 * Buffer for measuring widths.
+	 */
+	final StringBuilder scratch = new StringBuilder();
+	/**
+	 * Column at the start of the buffer.
+	 */
+	private int columnBase;
+
+	SerializerOutput(AmongSerializer serializer, AmongWriter writer, ToStringOption option){
+		this.serializer = serializer;
+		this.writer = writer;
+		this.option = option;
+		this.columnBase = writer.column();
+	}
+
+	void write(Object value) throws IOException{
+		serializer(value).write(this, value);
+	}
+	void writePretty(Object value, int indents) throws IOException{
+		serializer(value).writePretty(this, value, indents);
+	}
+	int width(Object value, int budget){
+		if(budget<0) return Serializer.TOO_WIDE;
+		return serializer(value).width(this, value, budget);
+	}
+
+	private Serializer serializer(Object value){
+		if(value==null) throw new Sussy("Cannot write null");
+		return serializer.serializer(value.getClass());
+	}
+
+	/**
+	 * @return Current column for pretty formatting; {@code 0} if {@link ToStringOption#maxLineWidth} is not set, and
+	 * columns equal to or greater than {@link ToStringOption#maxLineWidth} are all reported as {@link
+	 * ToStringOption#maxLineWidth}
+	 */
+	int prettyColumn(){
+		if(option.maxLineWidth<=0) return 0;
+		return Math.min(option.maxLineWidth, column());
+	}
+
+	private int column(){
+		int len = buffer.length();
+		int newline = buffer.lastIndexOf("\n");
+		return newline>=0 ? len-newline-1 : (int)Math.min(Integer.MAX_VALUE, (long)columnBase+len);
+	}
+
+	void flushIfFull() throws IOException{
+		if(buffer.length()>=FLUSH_SIZE) flush();
+	}
+
+	void flush() throws IOException{
+		if(buffer.length()==0) return;
+		columnBase = column();
+		writer.append(buffer);
+		buffer.setLength(0);
+	}
+}
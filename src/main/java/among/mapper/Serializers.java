@@ -0,0 +1,340 @@
+package among.mapper;
+
+import among.ToStringContext;
+import among.ToStringOption;
+import among.exception.Sussy;
+import among.internals.LiteralFormats;
+import among.obj.Among;
+
+import java.io.IOException;
+import java.lang.invoke.MethodHandle;
+import java.lang.reflect.Array;
+import java.util.Collection;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Serializers of each kind of values. Formatting mirrors {@link Among#toString(ToStringOption)} and {@link
+ * Among#toPrettyString(int, ToStringOption)} of primitives, objects and lists.
+ */
+final class Serializers{
+	private Serializers(){}
+
+	/**
+	 * Serializer writing values as primitives.
+	 */
+	static final class ValueSerializer extends Serializer{
+		static final ValueSerializer TO_STRING = new ValueSerializer(String::valueOf);
+		static final ValueSerializer ENUM = new ValueSerializer(o -> ((Enum<?>)o).name());
+
+		private final Function<Object, String> text;
+
+		ValueSerializer(Function<Object, String> text){
+			this.text = text;
+		}
+
+		@Override void write(SerializerOutput out, Object value){
+			String s = text.apply(value);
+			if(out.option.jsonCompatibility||!LiteralFormats.isSimpleValue(s)) LiteralFormats.primitiveToString(out.buffer, s);
+			else LiteralFormats.simpleValueToString(out.buffer, s);
+		}
+		@Override void writePretty(SerializerOutput out, Object value, int indents){
+			pretty(out.buffer, text.apply(value), indents, out.option);
+		}
+		@Override int width(SerializerOutput out, Object value, int budget){
+			String s = text.apply(value);
+			if(s.length()>budget) return TOO_WIDE;
+			out.scratch.setLength(0);
+			pretty(out.scratch, s, 0, out.option);
+			return measured(out.scratch, budget);
+		}
+
+		private static void pretty(StringBuilder stb, String s, int indents, ToStringOption option){
+			if(option.jsonCompatibility||!LiteralFormats.isSimpleValue(s))
+				LiteralFormats.primitiveToPrettyString(stb, s, indents, option);
+			else LiteralFormats.simpleValueToString(stb, s);
+		}
+	}
+
+	/**
+	 * Serializer writing {@link Among} nodes as-is.
+	 */
+	static final class NodeSerializer extends Serializer{
+		static final NodeSerializer INSTANCE = new NodeSerializer();
+
+		@Override void write(SerializerOutput out, Object value){
+			((Among)value).toString(out.buffer, out.option, ToStringContext.NONE);
+		}
+		@Override void writePretty(SerializerOutput out, Object value, int indents){
+			ToStringOption option = out.option;
+			if(option.maxLineWidth<=0){
+				((Among)value).toPrettyString(out.buffer, indents, option, ToStringContext.NONE);
+				return;
+			}
+			// layout of the node depends on the column, which the node can only see from the string builder
+			int column = out.prettyColumn();
+			StringBuilder stb = new StringBuilder();
+			for(int i = 0; i<column; i++) stb.append(' ');
+			((Among)value).toPrettyString(stb, indents, option, ToStringContext.NONE);
+			out.buffer.append(stb, column, stb.length());
+		}
+		@Override int width(SerializerOutput out, Object value, int budget){
+			if(budget<=0) return TOO_WIDE; // no node is narrower than a character
+			// the node formatted with maxLineWidth of the budget fits in single line if and only if its width fits
+			ToStringOption option = out.option;
+			StringBuilder stb = new StringBuilder();
+			((Among)value).toPrettyString(stb, 0, new ToStringOption(option.indent, option.compactObjectSize,
+					option.compactListSize, option.jsonCompatibility, budget), ToStringContext.NONE);
+			return measured(stb, budget);
+		}
+	}
+
+	@FunctionalInterface
+	interface PropertyVisitor<X extends Throwable>{
+		/**
+		 * @return Whether to continue visiting
+		 */
+		boolean visit(String key, Object value) throws X;
+	}
+
+	/**
+	 * Serializer writing values as objects. Properties with {@code null} value are skipped.
+	 */
+	abstract static class ObjectSerializer extends Serializer{
+		/**
+		 * @return Number of properties with non-null value
+		 */
+		abstract int size(Object value);
+		/**
+		 * Visits each property with non-null value.
+		 */
+		abstract <X extends Throwable> void forEach(Object value, PropertyVisitor<X> visitor) throws X;
+
+		@Override void write(SerializerOutput out, Object value) throws IOException{
+			boolean json = out.option.jsonCompatibility;
+			out.buffer.append('{');
+			boolean[] first = {true};
+			forEach(value, (key, v) -> {
+				if(first[0]) first[0] = false;
+				else out.buffer.append(',');
+				if(!json&&LiteralFormats.isSimpleKey(key)) LiteralFormats.simpleKeyToString(out.buffer, key);
+				else LiteralFormats.primitiveToString(out.buffer, key);
+				out.buffer.append(':');
+				out.write(v);
+				out.flushIfFull();
+				return true;
+			});
+			out.buffer.append('}');
+		}
+
+		@Override void writePretty(SerializerOutput out, Object value, int indents) throws IOException{
+			ToStringOption option = out.option;
+			int column = out.prettyColumn();
+			int size = size(value);
+			if(size==0){
+				out.buffer.append("{}");
+				return;
+			}
+			out.buffer.append('{');
+			boolean isCompact = option.maxLineWidth<=0 ? size<=option.compactObjectSize :
+					width(out, value, option.maxLineWidth-column)!=TOO_WIDE;
+			int elementIndents = isCompact ? indents : indents+1;
+			int[] i = {0};
+			forEach(value, (key, v) -> {
+				if(!isCompact){
+					if(option.jsonCompatibility&&i[0]>0) out.buffer.append(',');
+					LiteralFormats.newlineAndIndent(out.buffer, indents+1, option);
+				}else out.buffer.append(i[0]>0 ? ", " : " ");
+				i[0]++;
+				if(!option.jsonCompatibility&&LiteralFormats.isSimpleKey(key))
+					LiteralFormats.simpleKeyToString(out.buffer, key);
+				else LiteralFormats.primitiveToPrettyString(out.buffer, key, elementIndents, option);
+				out.buffer.append(": ");
+				out.writePretty(v, elementIndents);
+				out.flushIfFull();
+				return true;
+			});
+			if(!isCompact) LiteralFormats.newlineAndIndent(out.buffer, indents, option);
+			else out.buffer.append(' ');
+			out.buffer.append('}');
+		}
+
+		@Override int width(SerializerOutput out, Object value, int budget){
+			ToStringOption option = out.option;
+			int[] w = {2};
+			boolean[] first = {true};
+			forEach(value, (key, v) -> {
+				if(first[0]) first[0] = false;
+				else w[0] += 2;
+				if(w[0]+key.length()>budget) return tooWide(w);
+				out.scratch.setLength(0);
+				if(!option.jsonCompatibility&&LiteralFormats.isSimpleKey(key))
+					LiteralFormats.simpleKeyToString(out.scratch, key);
+				else LiteralFormats.primitiveToPrettyString(out.scratch, key, 0, option);
+				int k = measured(out.scratch, budget-w[0]);
+				if(k==TOO_WIDE) return tooWide(w);
+				w[0] += k+2;
+				int vw = out.width(v, budget-w[0]);
+				if(vw==TOO_WIDE) return tooWide(w);
+				w[0] += vw;
+				return true;
+			});
+			if(w[0]==TOO_WIDE) return TOO_WIDE;
+			return first[0] ? fit(2, budget) : fit(w[0]+2, budget);
+		}
+	}
+
+	@FunctionalInterface
+	interface ElementVisitor<X extends Throwable>{
+		/**
+		 * @return Whether to continue visiting
+		 */
+		boolean visit(int index, Object value) throws X;
+	}
+
+	/**
+	 * Serializer writing values as lists. {@code null} elements are rejected.
+	 */
+	abstract static class ListSerializer extends Serializer{
+		abstract int size(Object value);
+		abstract <X extends Throwable> void forEach(Object value, ElementVisitor<X> visitor) throws X;
+
+		@Override void write(SerializerOutput out, Object value) throws IOException{
+			out.buffer.append('[');
+			forEach(value, (i, v) -> {
+				if(i>0) out.buffer.append(',');
+				out.write(v);
+				out.flushIfFull();
+				return true;
+			});
+			out.buffer.append(']');
+		}
+
+		@Override void writePretty(SerializerOutput out, Object value, int indents) throws IOException{
+			ToStringOption option = out.option;
+			int column = out.prettyColumn();
+			int size = size(value);
+			if(size==0){
+				out.buffer.append("[]");
+				return;
+			}
+			out.buffer.append('[');
+			boolean isCompact = option.maxLineWidth<=0 ? size<=option.compactListSize :
+					width(out, value, option.maxLineWidth-column)!=TOO_WIDE;
+			int elementIndents = isCompact ? indents : indents+1;
+			forEach(value, (i, v) -> {
+				if(!isCompact){
+					if(option.jsonCompatibility&&i>0) out.buffer.append(',');
+					LiteralFormats.newlineAndIndent(out.buffer, indents+1, option);
+				}else out.buffer.append(i>0 ? ", " : " ");
+				out.writePretty(v, elementIndents);
+				out.flushIfFull();
+				return true;
+			});
+			if(!isCompact) LiteralFormats.newlineAndIndent(out.buffer, indents, option);
+			else out.buffer.append(' ');
+			out.buffer.append(']');
+		}
+
+		@Override int width(SerializerOutput out, Object value, int budget){
+			int[] w = {2};
+			forEach(value, (i, v) -> {
+				if(i>0) w[0] += 2;
+				int vw = out.width(v, budget-w[0]);
+				if(vw==TOO_WIDE) return tooWide(w);
+				w[0] += vw;
+				return true;
+			});
+			if(w[0]==TOO_WIDE) return TOO_WIDE;
+			return size(value)==0 ? fit(2, budget) : fit(w[0]+2, budget);
+		}
+	}
+
+	private static boolean tooWide(int[] width){
+		width[0] = Serializer.TOO_WIDE;
+		return false;
+	}
+
+	static final class MapSerializer extends ObjectSerializer{
+		static final MapSerializer INSTANCE = new MapSerializer();
+
+		@Override int size(Object value){
+			int size = 0;
+			for(Object v : ((Map<?, ?>)value).values())
+				if(v!=null) size++;
+			return size;
+		}
+		@Override <X extends Throwable> void forEach(Object value, PropertyVisitor<X> visitor) throws X{
+			for(Map.Entry<?, ?> e : ((Map<?, ?>)value).entrySet()){
+				if(e.getValue()!=null&&!visitor.visit(String.valueOf(e.getKey()), e.getValue())) return;
+			}
+		}
+	}
+
+	/**
+	 * Serializer for records and POJOs, reading each property with getter {@link MethodHandle}s.
+	 */
+	static final class BeanSerializer extends ObjectSerializer{
+		private final String[] keys;
+		private final MethodHandle[] getters;
+
+		BeanSerializer(String[] keys, MethodHandle[] getters){
+			this.keys = keys;
+			this.getters = getters;
+		}
+
+		@Override int size(Object value){
+			int size = 0;
+			for(MethodHandle getter : getters)
+				if(get(getter, value)!=null) size++;
+			return size;
+		}
+		@Override <X extends Throwable> void forEach(Object value, PropertyVisitor<X> visitor) throws X{
+			for(int i = 0; i<keys.length; i++){
+				Object v = get(getters[i], value);
+				if(v!=null&&!visitor.visit(keys[i], v)) return;
+			}
+		}
+
+		private static Object get(MethodHandle getter, Object value){
+			try{
+				return (Object)getter.invokeExact(value);
+			}catch(RuntimeException|Error ex){
+				throw ex;
+			}catch(Throwable t){
+				throw new Sussy(t);
+			}
+		}
+	}
+
+	static final class CollectionSerializer extends ListSerializer{
+		static final CollectionSerializer INSTANCE = new CollectionSerializer();
+
+		@Override int size(Object value){
+			return ((Collection<?>)value).size();
+		}
+		@Override <X extends Throwable> void forEach(Object value, ElementVisitor<X> visitor) throws X{
+			int i = 0;
+			for(Object o : (Collection<?>)value)
+				if(!visitor.visit(i++, o)) return;
+		}
+	}
+
+	static final class ArraySerializer extends ListSerializer{
+		static final ArraySerializer INSTANCE = new ArraySerializer();
+
+		@Override int size(Object value){
+			return Array.getLength(value);
+		}
+		@Override <X extends Throwable> void forEach(Object value, ElementVisitor<X> visitor) throws X{
+			if(value instanceof Object[]){
+				Object[] array = (Object[])value;
+				for(int i = 0; i<array.length; i++)
+					if(!visitor.visit(i, array[i])) return;
+			}else{
+				for(int i = 0, len = Array.getLength(value); i<len; i++)
+					if(!visitor.visit(i, Array.get(value, i))) return;
+			}
+		}
+	}
+}
@@ -0,0 +1,147 @@
+package among.mapper;
+
+import org.jetbrains.annotations.Nullable;
+
+import java.lang.reflect.Array;
+import java.lang.reflect.GenericArrayType;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.lang.reflect.TypeVariable;
+import java.lang.reflect.WildcardType;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Utilities for resolving generic types.
+ */
+final class Types{
+	private Types(){}
+
+	/**
+	 * @return Erasure of the type
+	 */
+	static Class<?> raw(Type type){
+		if(type instanceof Class) return (Class<?>)type;
+		if(type instanceof ParameterizedType) return (Class<?>)((ParameterizedType)type).getRawType();
+		if(type instanceof GenericArrayType)
+			return Array.newInstance(raw(((GenericArrayType)type).getGenericComponentType()), 0).getClass();
+		if(type instanceof WildcardType) return raw(((WildcardType)type).getUpperBounds()[0]);
+		if(type instanceof TypeVariable) return raw(((TypeVariable<?>)type).getBounds()[0]);
+		throw new IllegalArgumentException("Unsupported type "+type);
+	}
+
+	/**
+	 * @return Type variables of the raw type of {@code type}, mapped to the type arguments; empty map if the type is
+	 * not parameterized
+	 */
+	static Map<TypeVariable<?>, Type> variables(Type type){
+		if(!(type instanceof ParameterizedType)) return Collections.emptyMap();
+		TypeVariable<?>[] params = raw(type).getTypeParameters();
+		Type[] args = ((ParameterizedType)type).getActualTypeArguments();
+		Map<TypeVariable<?>, Type> m = new HashMap<>();
+		for(int i = 0; i<params.length; i++) m.put(params[i], args[i]);
+		return m;
+	}
+
+	/**
+	 * Substitutes type variables in the type. Unbound type variables are left as-is.
+	 */
+	static Type resolve(Type type, Map<TypeVariable<?>, Type> variables){
+		if(variables.isEmpty()) return type;
+		if(type instanceof TypeVariable){
+			Type t = variables.get(type);
+			return t!=null ? t : type;
+		}
+		if(type instanceof ParameterizedType){
+			ParameterizedType p = (ParameterizedType)type;
+			Type[] params = p.getActualTypeArguments();
+			Type[] args = new Type[params.length];
+			for(int i = 0; i<args.length; i++) args[i] = resolve(params[i], variables);
+			return new ResolvedType(p.getOwnerType(), (Class<?>)p.getRawType(), args);
+		}
+		if(type instanceof GenericArrayType){
+			Type component = resolve(((GenericArrayType)type).getGenericComponentType(), variables);
+			return component instanceof Class ? Array.newInstance((Class<?>)component, 0).getClass() : type;
+		}
+		if(type instanceof WildcardType) return resolve(((WildcardType)type).getUpperBounds()[0], variables);
+		return type;
+	}
+
+	/**
+	 * Finds type argument of the supertype as seen from {@code type}; for example, {@code typeArgument(ArrayList<String>,
+	 * Collection.class, 0)} returns {@code String}.
+	 *
+	 * @return The type argument, or {@code Object.class} if it cannot be determined
+	 */
+	static Type typeArgument(Type type, Class<?> supertype, int index){
+		Type t = find(raw(type), variables(type), supertype);
+		if(t instanceof ParameterizedType) return ((ParameterizedType)t).getActualTypeArguments()[index];
+		return Object.class;
+	}
+
+	@Nullable private static Type find(Class<?> raw, Map<TypeVariable<?>, Type> variables, Class<?> supertype){
+		if(raw==supertype)
+			return raw.getTypeParameters().length==0 ? raw : resolve(new ResolvedType(null, raw, raw.getTypeParameters()), variables);
+		Type superclass = raw.getGenericSuperclass();
+		if(superclass!=null&&supertype.isAssignableFrom(raw(superclass))){
+			Type t = resolve(superclass, variables);
+			return find(raw(t), variables(t), supertype);
+		}
+		for(Type i : raw.getGenericInterfaces()){
+			if(!supertype.isAssignableFrom(raw(i))) continue;
+			Type t = resolve(i, variables);
+			return find(raw(t), variables(t), supertype);
+		}
+		return null;
+	}
+
+	/**
+	 * Parameterized type created from substitution. Equality and hash code are compatible with the implementation of
+	 * the runtime.
+	 */
+	private static final class ResolvedType implements ParameterizedType{
+		@Nullable private final Type owner;
+		private final Class<?> raw;
+		private final Type[] args;
+
+		ResolvedType(@Nullable Type owner, Class<?> raw, Type[] args){
+			this.owner = owner;
+			this.raw = raw;
+			this.args = args;
+		}
+
+		@Override public Type[] getActualTypeArguments(){
+			return args.clone();
+		}
+		@Override public Type getRawType(){
+			return raw;
+		}
+		@Nullable @Override public Type getOwnerType(){
+			return owner;
+		}
+
+		@Override public boolean equals(Object o){
+			if(this==o) return true;
+			if(!(o instanceof ParameterizedType)) return false;
+			ParameterizedType p = (ParameterizedType)o;
+			return raw.equals(p.getRawType())&&
+					Objects.equals(owner, p.getOwnerType())&&
+					Arrays.equals(args, p.getActualTypeArguments());
+		}
+		@Override public int hashCode(){
+			return Arrays.hashCode(args)^Objects.hashCode(owner)^raw.hashCode();
+		}
+
+		@Override public String toString(){
+			StringBuilder stb = new StringBuilder(raw.getName()).append('<');
+			for(int i = 0; i<args.length; i++){
+				if(i>0) stb.append(", ");
+				stb.append(args[i].getTypeName());
+			}
+			return stb.append('>').toString();
+		}
+	}
+}
@@ -0,0 +1,90 @@
+package among.mapper;
+
+import among.exception.Sussy;
+import among.obj.Among;
+import among.tape.TapeCursor;
+import org.jetbrains.annotations.Nullable;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Binding of primitive nodes to strings, numbers, booleans, characters and enums.
+ */
+final class ValueBinding<T> extends Binding<T>{
+	private static final Map<Class<?>, ValueBinding<?>> BINDINGS = new HashMap<>();
+
+	static{
+		register(String.class, s -> s, String.class, CharSequence.class);
+		register(Boolean.class, ValueBinding::parseBool, boolean.class, Boolean.class);
+		register(Character.class, ValueBinding::parseChar, char.class, Character.class);
+		register(Byte.class, Byte::valueOf, byte.class, Byte.class);
+		register(Short.class, Short::valueOf, short.class, Short.class);
+		register(Integer.class, Integer::valueOf, int.class, Integer.class);
+		register(Long.class, Long::valueOf, long.class, Long.class);
+		register(Float.class, Float::valueOf, float.class, Float.class);
+		register(Double.class, Double::valueOf, double.class, Double.class);
+		register(BigInteger.class, BigInteger::new, BigInteger.class);
+		register(BigDecimal.class, BigDecimal::new, BigDecimal.class, Number.class);
+	}
+
+	private static <T> void register(Class<T> type, Function<String, T> converter, Class<?>... targets){
+		ValueBinding<T> binding = new ValueBinding<>(type, converter);
+		for(Class<?> c : targets) BINDINGS.put(c, binding);
+	}
+
+	/**
+	 * @return Binding for the type, or {@code null} if the type is not bound from primitives
+	 */
+	@Nullable static Binding<?> of(Class<?> type){
+		if(type.isEnum()) return enumBinding(type);
+		return BINDINGS.get(type);
+	}
+
+	private static <E> ValueBinding<E> enumBinding(Class<E> type){
+		Map<String, E> constants = new HashMap<>();
+		for(E e : type.getEnumConstants()) constants.put(((Enum<?>)e).name(), e);
+		return new ValueBinding<>(type, s -> {
+			E e = constants.get(s);
+			if(e==null) throw new IllegalArgumentException("No enum constant named '"+s+"'");
+			return e;
+		});
+	}
+
+	private static Boolean parseBool(String s){
+		if(s.equalsIgnoreCase("true")) return Boolean.TRUE;
+		if(s.equalsIgnoreCase("false")) return Boolean.FALSE;
+		throw new IllegalArgumentException("Not a boolean");
+	}
+
+	private static Character parseChar(String s){
+		if(s.length()!=1) throw new IllegalArgumentException("Not a single character");
+		return s.charAt(0);
+	}
+
+	private final Class<T> type;
+	private final Function<String, T> converter;
+
+	private ValueBinding(Class<T> type, Function<String, T> converter){
+		this.type = type;
+		this.converter = converter;
+	}
+
+	@Override T read(Among among){
+		return convert(among.asPrimitive().getValue());
+	}
+	@Override T read(TapeCursor cursor){
+		return convert(cursor.getValue());
+	}
+
+	private T convert(String value){
+		try{
+			return converter.apply(value);
+		}catch(IllegalArgumentException|ArithmeticException ex){ // NumberFormatException is IllegalArgumentException
+			throw new Sussy("Cannot convert '"+value+"' to "+type.getName(), ex);
+		}
+	}
+}
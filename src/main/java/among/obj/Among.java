@@ -1,12 +1,18 @@
 package among.obj;
 
+import among.AmongVisitor;
 import among.AmongWalker;
 import among.NodePath;
 import among.ToPrettyString;
 import among.exception.SussyCast;
+import among.internals.Digests;
 import org.jetbrains.annotations.Nullable;
 
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.Collection;
 import java.util.Map;
+import java.util.Objects;
 
 /**
  * Base class for all among nodes.
@@ -17,27 +23,166 @@ import java.util.Map;
  * @see AmongNameable
  */
 public abstract class Among extends ToPrettyString.Base{
-	private int sourcePosition = -1;
+	/**
+	 * State of frozen nodes, or {@code null} if this node is not frozen. Hash codes, digests and memory estimates are
+	 * only cached on frozen nodes; child nodes have no reference to their parents, so the cache of mutable nodes could
+	 * not be invalidated when their descendants are modified. Keeping the caches in separate object spares mutable
+	 * nodes from paying for them, and frozen nodes without any cached value share single empty state.
+	 */
+	@Nullable private volatile FrozenState frozen;
 
 	/**
-	 * Returns position of this node in source. This value does not affect other operations, for example {@link
-	 * Object#equals(Object)}.<br>
-	 * This value is initialized during parsing. For Among values that created from other source has this value set to
-	 * {@code -1} by default.
+	 * Returns whether this node is frozen. Frozen nodes, and all of their child nodes, cannot be modified.
 	 *
-	 * @return position of this node in source
+	 * @return Whether this node is frozen
+	 * @see Among#freeze()
 	 */
-	public int sourcePosition(){
-		return sourcePosition;
+	public final boolean isFrozen(){
+		return frozen!=null;
 	}
+
 	/**
-	 * Sets position of this node in source. This value does not affect other operations, for example {@link
+	 * Freeze this node and all of its child nodes. Any attempt to modify frozen nodes will throw {@link
+	 * IllegalStateException}. Hash codes and digests of frozen nodes are computed at most once, and frozen trees can
+	 * be read concurrently by multiple threads.<br>
+	 * Freezing is irreversible; {@link Among#copy()} can be used to obtain a modifiable copy of frozen nodes.
+	 */
+	public final void freeze(){
+		if(frozen!=null) return;
+		freezeChildren();
+		freezeShallow();
+	}
+
+	/**
+	 * Freeze this node without freezing child nodes. Only valid if every child node is, or will be created as, frozen.
+	 */
+	final void freezeShallow(){
+		if(frozen==null) frozen = FrozenState.EMPTY;
+	}
+
+	abstract void freezeChildren();
+
+	/**
+	 * Freeze each child node and replace it with canonical instance, in place. Only called on nodes not frozen yet,
+	 * right before freezing them; storage borrowed from other nodes is copied first, so that nodes frozen before are
+	 * never modified.
+	 */
+	abstract void canonicalizeChildren(AmongDeduplicator deduplicator);
+
+	/**
+	 * Canonicalize each child node of this frozen node, without modifying this node. Returns this node if every child
+	 * node is already canonical; otherwise a new frozen node with canonical child nodes is returned.
+	 */
+	abstract Among canonicalCopy(AmongDeduplicator deduplicator);
+
+	/**
+	 * Check if this node can be modified. Should be called before every modification affecting {@link
 	 * Object#equals(Object)}.
 	 *
-	 * @param sourcePosition position of this node in source
+	 * @throws IllegalStateException If this node is frozen
 	 */
-	public void setSourcePosition(int sourcePosition){
-		this.sourcePosition = sourcePosition;
+	final void checkModification(){
+		if(frozen!=null) throw new IllegalStateException("Cannot modify frozen node");
+	}
+
+	/**
+	 * Returns stable 128-bit digest of this node's content. Two nodes with same content - that is, two nodes equal to
+	 * each other by {@link Object#equals(Object)} - will produce same digest regardless of the JVM instance. Digests
+	 * are computed as Merkle tree; digest of each node is derived from digests of its child nodes.<br>
+	 * Digests of frozen nodes are computed only once; digests of mutable nodes are computed on each call, reusing
+	 * cached digests of frozen child nodes.
+	 *
+	 * @return Digest of this node
+	 */
+	public final AmongDigest digest(){
+		FrozenState f = this.frozen;
+		if(f!=null&&f.digest!=null) return f.digest;
+		MessageDigest md = Digests.md5();
+		updateDigest(md);
+		AmongDigest digest = AmongDigest.of(md.digest());
+		if(f!=null) this.frozen = new FrozenState(f.hash, f.hashCached, digest, f.retainedBytes);
+		return digest;
+	}
+
+	abstract void updateDigest(MessageDigest md);
+
+	/**
+	 * Computes hash code of this node. Hash codes of frozen nodes are computed only once; hash codes of mutable nodes
+	 * are computed on each call, reusing cached hash codes of frozen child nodes.
+	 */
+	@Override public final int hashCode(){
+		FrozenState f = this.frozen;
+		if(f!=null&&f.hashCached) return f.hash;
+		int hash = computeHashCode();
+		if(f!=null) this.frozen = new FrozenState(hash, true, f.digest, f.retainedBytes);
+		return hash;
+	}
+
+	abstract int computeHashCode();
+
+	/**
+	 * Returns estimated size of memory retained by this node and all of its child nodes, in bytes. The estimate is
+	 * based on typical 64-bit JVM with compressed object pointers; strings and subtrees shared between multiple nodes
+	 * are counted for each reference, so the result is usually an upper bound.<br>
+	 * The result is cached on frozen nodes, making repeated calls on frozen trees cheap. For mutable nodes, the tree is
+	 * walked on each call, stopping at frozen child nodes with cached result.
+	 *
+	 * @return Estimated size of memory retained by this node, in bytes
+	 * @see among.internals.MemoryEstimates
+	 */
+	public final long estimateRetainedBytes(){
+		FrozenState f = this.frozen;
+		if(f==null) return computeRetainedBytes();
+		if(f.retainedBytes>=0) return f.retainedBytes;
+		long bytes = computeRetainedBytes();
+		this.frozen = new FrozenState(f.hash, f.hashCached, f.digest, bytes);
+		return bytes;
+	}
+
+	abstract long computeRetainedBytes();
+
+	/**
+	 * Checks if this node is known to be not equal to {@code other}, using cached hash codes or digests. This method
+	 * does not compute hash codes or digests; {@code false} is returned if it cannot be decided with cache only.
+	 *
+	 * @param other Other node
+	 * @return Whether this node is known to be not equal to {@code other}
+	 */
+	final boolean knownNotEqual(Among other){
+		FrozenState f1 = this.frozen, f2 = other.frozen;
+		if(f1==null||f2==null) return false;
+		if(f1.hashCached&&f2.hashCached&&f1.hash!=f2.hash) return true;
+		return f1.digest!=null&&f2.digest!=null&&!f1.digest.equals(f2.digest);
+	}
+
+	/**
+	 * Immutable set of values cached on frozen nodes. Caching a value replaces the state with a new one; values cached
+	 * concurrently by multiple threads might get lost, in which case they are computed again on next call.
+	 */
+	private static final class FrozenState{
+		static final FrozenState EMPTY = new FrozenState(0, false, null, -1);
+
+		final int hash;
+		final boolean hashCached;
+		@Nullable final AmongDigest digest;
+		final long retainedBytes;
+
+		FrozenState(int hash, boolean hashCached, @Nullable AmongDigest digest, long retainedBytes){
+			this.hash = hash;
+			this.hashCached = hashCached;
+			this.digest = digest;
+			this.retainedBytes = retainedBytes;
+		}
+	}
+
+	static void digestString(MessageDigest md, String string){
+		byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+		int len = bytes.length;
+		md.update((byte)(len >>> 24));
+		md.update((byte)(len >>> 16));
+		md.update((byte)(len >>> 8));
+		md.update((byte)len);
+		md.update(bytes);
 	}
 
 	/**
@@ -117,7 +262,11 @@ public abstract class Among extends ToPrettyString.Base{
 	}
 
 	/**
-	 * Create a deep copy of this instance; all child nodes will be copied over new object.
+	 * Create a deep copy of this instance; all child nodes will be copied over new object. The copy is never frozen.<br>
+	 * Frozen subtrees are copied lazily; the copy borrows the children of frozen nodes until they are accessed through
+	 * the copy or the copy is modified, at which point only the nodes on the path being accessed get cloned. As such,
+	 * copying frozen trees is a constant time operation regardless of the size of the tree. Frozen nodes themselves
+	 * are never modified by the copy, and can still be read from multiple threads.
 	 *
 	 * @return Deep copy of this instance
 	 */
@@ -140,6 +289,14 @@ public abstract class Among extends ToPrettyString.Base{
 	 */
 	public abstract void walk(AmongWalker visitor, NodePath path);
 
+	/**
+	 * Visit each child nodes of this value, in depth-first order. Unlike {@link Among#walk(AmongWalker)}, paths of
+	 * each node are not tracked.
+	 *
+	 * @param visitor Specific operation to be performed on each node
+	 */
+	public abstract void visit(AmongVisitor visitor);
+
 	/**
 	 * Create an instance of {@link AmongPrimitive} with empty value.
 	 *
@@ -312,6 +469,31 @@ public abstract class Among extends ToPrettyString.Base{
 		return namedList(null, elements);
 	}
 
+	/**
+	 * Create a packed instance of {@link AmongList} with numeric elements.
+	 *
+	 * @param elements Initial elements of the object
+	 * @return A new instance of {@link AmongList}
+	 * @see AmongList#pack()
+	 */
+	public static AmongList packedList(long... elements){
+		return elements.length==0 ? new AmongList() :
+				new AmongList(null, new PackedValues(elements.clone(), null, null, elements.length));
+	}
+
+	/**
+	 * Create a packed instance of {@link AmongList} with numeric elements. Each element is represented as an integer
+	 * if it has no fractional part, and as the result of {@link Double#toString(double)} otherwise.
+	 *
+	 * @param elements Initial elements of the object
+	 * @return A new instance of {@link AmongList}
+	 * @see AmongList#pack()
+	 */
+	public static AmongList packedList(double... elements){
+		return elements.length==0 ? new AmongList() :
+				new AmongList(null, new PackedValues(null, elements.clone(), null, elements.length));
+	}
+
 	/**
 	 * Create an empty instance of {@link AmongList} with a name. Providing {@code null} or empty string for the name
 	 * essentially creates an unnamed list.
@@ -339,4 +521,53 @@ public abstract class Among extends ToPrettyString.Base{
 		}
 		return l;
 	}
+
+	/**
+	 * Create a frozen instance of {@link AmongObject} backed by the map. Properties are not copied; each value is
+	 * wrapped on first access as described in {@link Among#wrap(Object)}, and the wrapped node is reused afterwards. The
+	 * map should not be modified after wrapping. Each key is converted to its string representation via {@link
+	 * String#valueOf(Object)}.
+	 *
+	 * @param map Map to wrap
+	 * @return A new frozen instance of {@link AmongObject}
+	 * @throws NullPointerException If {@code map == null}; or on access of {@code null} value
+	 * @see AmongObject#asJavaMap()
+	 */
+	public static AmongObject wrap(Map<?, ?> map){
+		return AmongObject.adapt(new JavaCollections.MapAdapter(Objects.requireNonNull(map)));
+	}
+
+	/**
+	 * Create a frozen instance of {@link AmongList} backed by the collection. Elements are not copied, except for
+	 * collections without random access, which are copied to an array once; each element is wrapped on first access as
+	 * described in {@link Among#wrap(Object)}, and the wrapped node is reused afterwards. The collection should not be
+	 * modified after wrapping.
+	 *
+	 * @param collection Collection to wrap
+	 * @return A new frozen instance of {@link AmongList}
+	 * @throws NullPointerException If {@code collection == null}; or on access of {@code null} element
+	 * @see AmongList#asJavaList()
+	 */
+	public static AmongList wrap(Collection<?> collection){
+		return (AmongList)JavaCollections.wrap(Objects.requireNonNull(collection));
+	}
+
+	/**
+	 * Create a frozen node representing the value, for passing Java values to macros and other APIs accepting read-only
+	 * nodes. Values are converted as follows:
+	 * <ul>
+	 *     <li>Frozen {@link Among} nodes are returned as-is; other {@link Among} nodes are copied and frozen.</li>
+	 *     <li>{@link Map}s are wrapped as objects, as in {@link Among#wrap(Map)}.</li>
+	 *     <li>{@link Collection}s and arrays are wrapped as lists, as in {@link Among#wrap(Collection)}.</li>
+	 *     <li>Enums are converted to primitives of their name.</li>
+	 *     <li>Other values are converted to primitives of their string representation via {@link Object#toString()}.</li>
+	 * </ul>
+	 *
+	 * @param value Value to wrap
+	 * @return A frozen node representing the value
+	 * @throws NullPointerException If {@code value == null}; or on access of {@code null} value or element
+	 */
+	public static Among wrap(Object value){
+		return JavaCollections.wrap(value);
+	}
 }
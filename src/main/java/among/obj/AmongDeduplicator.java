@@ -0,0 +1,203 @@
+package among.obj;
+
+import among.internals.MemoryEstimates;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * Canonicalizes structurally identical subtrees into single shared instance. Each node passed through the deduplicator
+ * gets frozen, and every subtree identical to one of the previously seen subtree gets replaced by the one seen first.
+ * Subtrees are identical if they are equal by {@link Among#equals(Object)}, every object in them has the same order of
+ * properties and every list in them has the same {@link AmongList#isOperation() operation} flag, so that the string
+ * representation of canonical instance is the same. Packed lists are only replaced by other packed lists.<br>
+ * Nodes frozen before being passed to the deduplicator are never modified; if any of their child nodes has canonical
+ * instance, they are replaced with frozen copy referencing the canonical instances instead.<br>
+ * Single deduplicator can be used across multiple trees, sharing identical subtrees between them. Canonical instances
+ * are weakly referenced by the deduplicator; once a canonical instance is no longer reachable from anywhere else, such
+ * as the trees it was deduplicated into, it is garbage collected and forgotten by the deduplicator.
+ * <p>
+ * Note that the memory reclaimed is an estimate, based on typical 64-bit JVM with compressed object pointers; and it
+ * assumes duplicate nodes are not referenced from anywhere else.
+ *
+ * @see Among#freeze()
+ * @see MemoryEstimates
+ */
+public final class AmongDeduplicator{
+	private final Map<Key, Key> canonical = new HashMap<>();
+	private final ReferenceQueue<Among> collected = new ReferenceQueue<>();
+
+	private long nodes;
+	private long duplicates;
+	private long bytesReclaimed;
+
+	/**
+	 * Freeze and deduplicate the node. The returned node might be a different instance if an identical subtree was
+	 * seen before. Child nodes of {@code among} will be replaced with canonical instances in place, unless the node
+	 * was already frozen.
+	 *
+	 * @param among Node to deduplicate
+	 * @return Canonical instance of {@code among}
+	 */
+	public Among deduplicate(Among among){
+		return canonicalize(among);
+	}
+
+	Among canonicalize(Among among){
+		if(among.isFrozen()) among = among.canonicalCopy(this);
+		else{
+			among.canonicalizeChildren(this);
+			among.freezeShallow();
+		}
+		purgeCollected();
+		nodes++;
+		Key key = new Key(among, collected);
+		Key k = canonical.putIfAbsent(key, key);
+		Among c = k==null ? null : k.get();
+		if(c==null){
+			if(k!=null) canonical.put(key, key); // collected after the lookup
+			return among;
+		}
+		if(c!=among){
+			duplicates++;
+			bytesReclaimed += estimateReclaimedBytes(among, c);
+		}
+		return c;
+	}
+
+	/**
+	 * @return Total number of nodes visited
+	 */
+	public long nodes(){
+		return nodes;
+	}
+	/**
+	 * @return Total number of nodes replaced by canonical instance
+	 */
+	public long duplicates(){
+		return duplicates;
+	}
+	/**
+	 * @return Estimated size of memory reclaimed, in bytes
+	 */
+	public long bytesReclaimed(){
+		return bytesReclaimed;
+	}
+
+	/**
+	 * @return Number of canonical instances currently known to the deduplicator
+	 */
+	public int size(){
+		purgeCollected();
+		return canonical.size();
+	}
+
+	/**
+	 * Forget all canonical instances seen and reset the statistics.
+	 */
+	public void clear(){
+		canonical.clear();
+		while(collected.poll()!=null);
+		nodes = 0;
+		duplicates = 0;
+		bytesReclaimed = 0;
+	}
+
+	private static long estimateReclaimedBytes(Among duplicate, Among canonical){
+		// child nodes of duplicate are already replaced; only the node itself, its container and strings not shared
+		// with canonical instance get reclaimed
+		if(duplicate.isPrimitive()){
+			String v = duplicate.asPrimitive().getValue();
+			return MemoryEstimates.PRIMITIVE+(v==canonical.asPrimitive().getValue() ? 0 : MemoryEstimates.string(v));
+		}
+		String name = duplicate.asNameable().getName();
+		long bytes = name==canonical.asNameable().getName() ? 0 : MemoryEstimates.string(name);
+		if(duplicate.isObj()) bytes += MemoryEstimates.OBJECT+MemoryEstimates.linkedHashMap(duplicate.asObj().size());
+		else bytes += MemoryEstimates.LIST+MemoryEstimates.arrayList(duplicate.asList().size());
+		return bytes;
+	}
+
+	/**
+	 * @return Estimated size of memory used by the deduplicator itself, excluding canonical instances
+	 */
+	public long estimateRetainedBytes(){
+		int size = size();
+		// each key is a weak reference: referent, queue, next, discovered and the cached hash
+		return MemoryEstimates.hashMap(size)+
+				(long)size*MemoryEstimates.object(4, 4);
+	}
+
+	private void purgeCollected(){
+		for(Reference<? extends Among> ref; (ref = collected.poll())!=null; )
+			canonical.remove(ref);
+	}
+
+	/**
+	 * Key of canonical instances, weakly referencing the instance. As child nodes are canonicalized first, identical
+	 * children are the same instance; children are compared by identity, making each comparison proportional to the
+	 * number of children instead of the size of subtree. Keys of collected instances are only equal to themselves.
+	 */
+	private static final class Key extends WeakReference<Among>{
+		private final int hash;
+
+		Key(Among among, ReferenceQueue<Among> queue){
+			super(among, queue);
+			this.hash = hash(among);
+		}
+
+		@Override public boolean equals(Object o){
+			if(this==o) return true;
+			if(!(o instanceof Key)) return false;
+			Key k = (Key)o;
+			if(hash!=k.hash) return false;
+			Among a = get(), b = k.get();
+			return a!=null&&b!=null&&identical(a, b);
+		}
+		@Override public int hashCode(){
+			return hash;
+		}
+
+		private static int hash(Among among){
+			if(among.isPrimitive()) return among.asPrimitive().getValue().hashCode();
+			int hash = among.asNameable().getName().hashCode();
+			if(among.isObj()){
+				for(Map.Entry<String, Among> e : among.asObj().peekProperties().entrySet())
+					hash = 31*(31*hash+e.getKey().hashCode())+System.identityHashCode(e.getValue());
+				return hash;
+			}
+			AmongList list = among.asList();
+			hash = 31*hash+(list.isOperation() ? 1 : 0);
+			if(list.isPacked()) return 31*hash+list.hashCode();
+			for(int i = 0; i<list.size(); i++)
+				hash = 31*hash+System.identityHashCode(list.peek(i));
+			return hash;
+		}
+
+		private static boolean identical(Among a, Among b){
+			if(a.getClass()!=b.getClass()) return false;
+			if(a.isPrimitive()) return a.asPrimitive().getValue().equals(b.asPrimitive().getValue());
+			if(!a.asNameable().getName().equals(b.asNameable().getName())) return false;
+			if(a.isObj()){
+				Map<String, Among> p1 = a.asObj().peekProperties(), p2 = b.asObj().peekProperties();
+				if(p1.size()!=p2.size()) return false;
+				// property order affects the string representation, compare in iteration order
+				Iterator<Map.Entry<String, Among>> it1 = p1.entrySet().iterator(), it2 = p2.entrySet().iterator();
+				while(it1.hasNext()){
+					Map.Entry<String, Among> e1 = it1.next(), e2 = it2.next();
+					if(!e1.getKey().equals(e2.getKey())||e1.getValue()!=e2.getValue()) return false;
+				}
+				return true;
+			}
+			AmongList l1 = a.asList(), l2 = b.asList();
+			if(l1.isOperation()!=l2.isOperation()||l1.isPacked()!=l2.isPacked()||l1.size()!=l2.size()) return false;
+			if(l1.isPacked()) return l1.equals(l2);
+			for(int i = 0; i<l1.size(); i++)
+				if(l1.peek(i)!=l2.peek(i)) return false;
+			return true;
+		}
+	}
+}
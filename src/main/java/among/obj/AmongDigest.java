@@ -0,0 +1,60 @@
+package among.obj;
+
+/**
+ * 128-bit content digest of {@link Among} nodes. Digests are stable across JVM instances, and can be used as a key for
+ * content-addressed caching.<br>
+ * Note that digests are not meant to be cryptographically secure.
+ *
+ * @see Among#digest()
+ */
+public final class AmongDigest{
+	public final long high, low;
+
+	public AmongDigest(long high, long low){
+		this.high = high;
+		this.low = low;
+	}
+
+	/**
+	 * Creates digest from first 16 bytes of the array, in big-endian order.
+	 *
+	 * @param bytes Byte array, such as the output of {@link java.security.MessageDigest#digest()}
+	 * @return Digest of the bytes
+	 * @throws ArrayIndexOutOfBoundsException If {@code bytes.length < 16}
+	 */
+	public static AmongDigest of(byte[] bytes){
+		long high = 0, low = 0;
+		for(int i = 0; i<8; i++) high = high<<8|bytes[i]&0xFF;
+		for(int i = 8; i<16; i++) low = low<<8|bytes[i]&0xFF;
+		return new AmongDigest(high, low);
+	}
+
+	/**
+	 * @return Big-endian byte representation of this digest
+	 */
+	public byte[] toBytes(){
+		byte[] bytes = new byte[16];
+		for(int i = 0; i<8; i++){
+			bytes[i] = (byte)(high>>>(56-i*8));
+			bytes[i+8] = (byte)(low>>>(56-i*8));
+		}
+		return bytes;
+	}
+
+	@Override public boolean equals(Object o){
+		if(this==o) return true;
+		if(o==null||getClass()!=o.getClass()) return false;
+		AmongDigest that = (AmongDigest)o;
+		return high==that.high&&low==that.low;
+	}
+	@Override public int hashCode(){
+		return Long.hashCode(high^low);
+	}
+
+	/**
+	 * @return Hexadecimal representation of this digest
+	 */
+	@Override public String toString(){
+		return String.format("%016x%016x", high, low);
+	}
+}
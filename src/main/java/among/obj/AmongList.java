@@ -1,12 +1,17 @@
 package among.obj;
 
+import among.AmongVisitor;
 import among.AmongWalker;
 import among.NodePath;
 import among.ToStringContext;
 import among.ToStringOption;
+import among.internals.Digests;
 import among.internals.LiteralFormats;
+import among.internals.MemoryEstimates;
 import org.jetbrains.annotations.Nullable;
 
+import java.security.MessageDigest;
+import java.util.AbstractList;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Iterator;
@@ -30,10 +35,24 @@ import java.util.stream.Stream;
  * Note that operations get compiled into list; operations do not have separate type representation. Instead, {@link
  * AmongList#operation} flag is used to distinguish operations from lists. This flag is mainly for parsing, however,
  * since the majority of usages do not check the field for type checking.
+ * <p>
+ * Lists consisting only of numeric primitives can be packed with {@link AmongList#pack()}, storing the numbers in
+ * primitive arrays instead of separate {@link AmongPrimitive} instances. Packed lists behave identically to ordinary
+ * lists; primitive nodes are created lazily on access, and structural modification unpacks the list.
  */
 public class AmongList extends AmongNameable implements Iterable<Among>{
-	private final List<Among> values = new ArrayList<>();
+	private List<Among> values = new ArrayList<>();
 	private boolean operation;
+	/**
+	 * Whether {@link AmongList#values} is borrowed from the frozen list this list was copied from. Borrowed list and its
+	 * elements are never modified; both should be copied before either exposing the elements or modification.
+	 */
+	private boolean lazy;
+	/**
+	 * Packed storage of numeric elements. If present, {@link AmongList#values} is unused.
+	 */
+	@Nullable private PackedValues packed;
+	@Nullable private JavaCollections.ListView javaList;
 
 	AmongList(){}
 	AmongList(@Nullable String name){
@@ -45,51 +64,106 @@ public class AmongList extends AmongNameable implements Iterable<Among>{
 		for(Among a : this.values)
 			Objects.requireNonNull(a);
 	}
+	AmongList(@Nullable String name, PackedValues packed){
+		super(name);
+		this.packed = packed;
+	}
+	private AmongList(AmongList copyFrom){
+		super(copyFrom.getName());
+		this.operation = copyFrom.operation;
+		if(copyFrom.packed!=null){
+			this.packed = copyFrom.packed.copy();
+			return;
+		}
+		if(copyFrom.isFrozen()||copyFrom.lazy){ // frozen subtrees can't be modified, borrow until accessed
+			this.values = copyFrom.values;
+			this.lazy = true;
+		}else{
+			for(Among among : copyFrom.values)
+				this.values.add(among.copy());
+		}
+	}
 
 	/**
 	 * @return Unmodifiable view of the values
 	 */
 	public List<Among> values(){
-		return Collections.unmodifiableList(values);
+		if(packed!=null) return new AbstractList<Among>(){
+			@Override public Among get(int index){
+				return AmongList.this.get(index);
+			}
+			@Override public int size(){
+				return AmongList.this.size();
+			}
+		};
+		return Collections.unmodifiableList(ownValues());
+	}
+
+	/**
+	 * Returns read-only view of this list as Java list. Elements are not copied; each element is converted on access,
+	 * with primitives as their value, objects as {@link AmongObject#asJavaMap()} and lists as {@link
+	 * AmongList#asJavaList()}. The view reflects later modifications of this list, and the same view instance is
+	 * returned on each call.
+	 *
+	 * @return Read-only view of this list as Java list
+	 * @see Among#wrap(java.util.Collection)
+	 */
+	public List<Object> asJavaList(){
+		JavaCollections.ListView javaList = this.javaList;
+		if(javaList==null) this.javaList = javaList = new JavaCollections.ListView(this);
+		return javaList;
 	}
 
 	public int size(){
-		return values.size();
+		return packed!=null ? packed.size : values.size();
 	}
 	public boolean isEmpty(){
-		return values.isEmpty();
+		return size()==0;
 	}
 	public void clear(){
-		values.clear();
+		checkModification();
+		if(packed!=null||lazy){
+			this.packed = null;
+			this.values = new ArrayList<>();
+			this.lazy = false;
+		}else values.clear();
 	}
 
 	public Among get(int index){
-		return values.get(index);
+		return packed!=null ? packed.get(index, isFrozen()) : ownValues().get(index);
 	}
 
 	public void set(int index, String value){
 		set(index, new AmongPrimitive(value));
 	}
 	public void set(int index, Among among){
-		this.values.set(index, Objects.requireNonNull(among));
+		checkModification();
+		unpack();
+		ownValues().set(index, Objects.requireNonNull(among));
 	}
 
 	public void add(String value){
 		add(new AmongPrimitive(value));
 	}
 	public void add(Among among){
-		this.values.add(Objects.requireNonNull(among));
+		checkModification();
+		unpack();
+		ownValues().add(Objects.requireNonNull(among));
 	}
 
 	public void add(int index, String value){
 		add(index, new AmongPrimitive(value));
 	}
 	public void add(int index, Among among){
-		this.values.add(index, Objects.requireNonNull(among));
+		checkModification();
+		unpack();
+		ownValues().add(index, Objects.requireNonNull(among));
 	}
 
 	public void removeAt(int index){
-		this.values.remove(index);
+		checkModification();
+		unpack();
+		ownValues().remove(index);
 	}
 
 	/**
@@ -104,6 +178,7 @@ public class AmongList extends AmongNameable implements Iterable<Among>{
 	 * @param operation Whether this list is operation or not. This flag has no effect on equality check.
 	 */
 	public void setOperation(boolean operation){
+		checkModification();
 		this.operation = operation;
 	}
 
@@ -111,11 +186,102 @@ public class AmongList extends AmongNameable implements Iterable<Among>{
 	 * @return Iterator for each element on this list. {@link Iterator#remove()} is unsupported.
 	 */
 	@Override public Iterator<Among> iterator(){
-		return Collections.unmodifiableList(values).iterator();
+		return values().iterator();
 	}
 
 	public Stream<Among> stream(){
-		return this.values.stream();
+		return packed!=null ? values().stream() : ownValues().stream();
+	}
+
+	/**
+	 * Returns whether this list is packed.
+	 *
+	 * @return Whether this list is packed
+	 * @see AmongList#pack()
+	 */
+	public boolean isPacked(){
+		return packed!=null;
+	}
+
+	/**
+	 * Pack this list, if it consists only of numeric primitives. Packed lists store numbers in primitive arrays instead
+	 * of separate {@link AmongPrimitive} instances, greatly reducing memory usage of large numeric lists. Exact text of
+	 * each number is preserved; packing does not affect equality, hash code or string representation of this
+	 * list.<br>
+	 * Primitive nodes obtained from this list before packing are detached from this list. Element lists are not packed
+	 * by this method.
+	 *
+	 * @return Whether this list is packed; {@code false} if any of the elements is not a numeric primitive
+	 */
+	public boolean pack(){
+		if(packed!=null) return true;
+		if(isFrozen()) return false; // frozen lists can be shared between threads, don't mess with the storage
+		PackedValues p = PackedValues.pack(ownValues());
+		if(p==null) return false;
+		this.packed = p;
+		this.values = new ArrayList<>();
+		return true;
+	}
+
+	private void unpack(){
+		if(packed==null) return;
+		this.values = packed.unpack();
+		this.packed = null;
+	}
+
+	/**
+	 * Returns all elements parsed into double, as if each element was parsed with {@link
+	 * AmongPrimitive#getDoubleValue()}. Elements of packed lists are read directly without parsing.
+	 *
+	 * @return Array of all elements parsed into double
+	 * @throws among.exception.SussyCast If any of the elements is not a primitive
+	 * @throws NumberFormatException     If any of the elements is not a valid double value
+	 */
+	public double[] toDoubleArray(){
+		double[] arr = new double[size()];
+		if(packed!=null) for(int i = 0; i<arr.length; i++) arr[i] = packed.toDouble(i);
+		else for(int i = 0; i<arr.length; i++) arr[i] = values.get(i).asPrimitive().getDoubleValue();
+		return arr;
+	}
+
+	/**
+	 * Returns all elements parsed into long, as if each element was parsed with {@link
+	 * AmongPrimitive#getLongValue()}. Elements of packed lists are read directly without parsing, if possible.
+	 *
+	 * @return Array of all elements parsed into long
+	 * @throws among.exception.SussyCast If any of the elements is not a primitive
+	 * @throws NumberFormatException     If any of the elements is not a valid long value
+	 */
+	public long[] toLongArray(){
+		long[] arr = new long[size()];
+		if(packed!=null) for(int i = 0; i<arr.length; i++) arr[i] = packed.toLong(i);
+		else for(int i = 0; i<arr.length; i++) arr[i] = values.get(i).asPrimitive().getLongValue();
+		return arr;
+	}
+
+	/**
+	 * Returns list of elements safe to both expose elements and modify. Only copies of frozen lists are modified by this
+	 * method; the list is copied from the frozen list, with each element replaced by its copy.
+	 */
+	private List<Among> ownValues(){
+		if(lazy){
+			List<Among> l = new ArrayList<>(this.values.size());
+			for(Among among : this.values)
+				l.add(among.copy());
+			this.values = l;
+			this.lazy = false;
+		}
+		return values;
+	}
+
+	/**
+	 * Creates frozen list backed by the list without copying. Every element of the list should be frozen.
+	 */
+	static AmongList adapt(List<Among> values){
+		AmongList l = new AmongList();
+		l.values = values;
+		l.freezeShallow();
+		return l;
 	}
 
 	@Override public AmongList asList(){
@@ -127,18 +293,23 @@ public class AmongList extends AmongNameable implements Iterable<Among>{
 
 	@Override public void walk(AmongWalker visitor, NodePath path){
 		if(visitor.walkBefore(this, path)){
-			for(int i = 0; i<this.values.size(); i++)
-				this.values.get(i).walk(visitor, path.subPath(i));
+			List<Among> values = packed!=null ? values() : ownValues();
+			for(int i = 0; i<values.size(); i++)
+				values.get(i).walk(visitor, path.subPath(i));
 			visitor.walkAfter(this, path);
 		}
 	}
+	@Override public void visit(AmongVisitor visitor){
+		if(visitor.visitBefore(this)){
+			List<Among> values = packed!=null ? values() : ownValues();
+			for(int i = 0; i<values.size(); i++)
+				values.get(i).visit(visitor);
+			visitor.visitAfter(this);
+		}
+	}
 
 	@Override public AmongList copy(){
-		AmongList l = new AmongList(this.getName());
-		l.setSourcePosition(this.sourcePosition());
-		l.setOperation(this.isOperation());
-		for(Among among : this.values)
-			l.add(among.copy());
+		AmongList l = new AmongList(this);
 		return l;
 	}
 
@@ -146,11 +317,113 @@ public class AmongList extends AmongNameable implements Iterable<Among>{
 		if(this==o) return true;
 		if(o==null||getClass()!=o.getClass()) return false;
 		AmongList l = (AmongList)o;
-		return getName().equals(l.getName())&&
-				values.equals(l.values);
+		if(knownNotEqual(l)) return false;
+		if(!getName().equals(l.getName())) return false;
+		if(packed==null&&l.packed==null) return values.equals(l.values);
+		if(size()!=l.size()) return false;
+		for(int i = 0; i<size(); i++){
+			if(packed!=null&&l.packed!=null){
+				if(!packed.text(i).equals(l.packed.text(i))) return false;
+			}else{
+				PackedValues p = packed!=null ? packed : l.packed;
+				Among e = (packed!=null ? l : this).values.get(i);
+				if(!e.isPrimitive()||!e.asPrimitive().getValue().equals(p.text(i))) return false;
+			}
+		}
+		return true;
+	}
+	@Override int computeHashCode(){
+		if(packed==null) return Objects.hash(getName(), values);
+		int hash = 1; // equivalent to List.hashCode()
+		for(int i = 0; i<packed.size; i++)
+			hash = 31*hash+Objects.hash(packed.text(i));
+		return 31*(31+getName().hashCode())+hash;
+	}
+	@Override long computeRetainedBytes(){
+		long bytes = MemoryEstimates.LIST+MemoryEstimates.string(getName())+MemoryEstimates.arrayList(values.size());
+		if(packed!=null) return bytes+packed.estimateRetainedBytes();
+		for(Among among : values)
+			bytes += among.estimateRetainedBytes();
+		return bytes;
+	}
+
+	@Override void freezeChildren(){
+		if(packed!=null) packed.freezeViews();
+		else if(lazy){ // elements are already frozen, but the list is still owned by another list
+			this.values = new ArrayList<>(this.values);
+			this.lazy = false;
+		}else for(Among among : values)
+			among.freeze();
+	}
+	@Override void canonicalizeChildren(AmongDeduplicator deduplicator){
+		if(packed!=null){
+			packed.freezeViews();
+			return;
+		}
+		if(lazy){
+			this.values = new ArrayList<>(this.values);
+			this.lazy = false;
+		}
+		for(int i = 0; i<values.size(); i++)
+			values.set(i, deduplicator.canonicalize(values.get(i)));
+	}
+	@Override Among canonicalCopy(AmongDeduplicator deduplicator){
+		if(packed!=null) return this;
+		List<Among> canonical = null;
+		for(int i = 0; i<values.size(); i++){
+			Among among = values.get(i);
+			Among c = deduplicator.canonicalize(among);
+			if(canonical==null&&c!=among) canonical = new ArrayList<>(values.subList(0, i));
+			if(canonical!=null) canonical.add(c);
+		}
+		if(canonical==null) return this;
+		AmongList l = new AmongList(getName());
+		l.operation = operation;
+		l.values = canonical;
+		l.freezeShallow();
+		return l;
+	}
+
+	@Override void updateDigest(MessageDigest md){
+		md.update((byte)'L');
+		digestString(md, getName());
+		if(packed!=null){
+			MessageDigest elementDigest = Digests.md5();
+			for(int i = 0; i<packed.size; i++){
+				AmongPrimitive view = packed.view(i);
+				if(view!=null) md.update(view.digest().toBytes());
+				else{
+					AmongPrimitive.updateDigest(elementDigest, packed.text(i));
+					md.update(elementDigest.digest());
+				}
+			}
+		}else for(Among among : values)
+			md.update(among.digest().toBytes());
+	}
+
+	/**
+	 * Returns the element without copying borrowed list. The element should not be exposed or modified. Only valid on lists not
+	 * packed.
+	 */
+	Among peek(int index){
+		return values.get(index);
+	}
+	/**
+	 * Returns text of the element of packed list, without creating primitive node.
+	 */
+	String packedText(int index){
+		return Objects.requireNonNull(packed).text(index);
+	}
+
+	void elementToString(int index, StringBuilder stb, ToStringOption option, ToStringContext context){
+		if(packed==null) values.get(index).toString(stb, option, context);
+		else if(packed.view(index)==null) AmongPrimitive.valueToString(stb, packed.text(index), option, context);
+		else packed.view(index).toString(stb, option, context);
 	}
-	@Override public int hashCode(){
-		return Objects.hash(getName(), values);
+	void elementToPrettyString(int index, StringBuilder stb, int indents, ToStringOption option, ToStringContext context){
+		if(packed==null) values.get(index).toPrettyString(stb, indents, option, context);
+		else if(packed.view(index)==null) AmongPrimitive.valueToPrettyString(stb, packed.text(index), indents, option, context);
+		else packed.view(index).toPrettyString(stb, indents, option, context);
 	}
 
 	@Override public void toString(StringBuilder stb, ToStringOption option, ToStringContext context){
@@ -159,29 +432,31 @@ public class AmongList extends AmongNameable implements Iterable<Among>{
 		if(isEmpty()) stb.append(operation ? "()" : "[]");
 		else{
 			stb.append(operation ? '(' : '[');
-			for(int i = 0; i<values.size(); i++){
+			for(int i = 0, size = size(); i<size; i++){
 				if(i>0) stb.append(",");
-				values.get(i).toString(stb, option, operation ? ToStringContext.OPERATION : ToStringContext.NONE);
+				elementToString(i, stb, option, operation ? ToStringContext.OPERATION : ToStringContext.NONE);
 			}
 			stb.append(operation ? ')' : ']');
 		}
 	}
 
 	@Override public void toPrettyString(StringBuilder stb, int indents, ToStringOption option, ToStringContext context){
+		int column = PrettyLayout.column(stb, 0, option);
 		nameToPrettyString(stb, indents, option, context);
 		if(hasName()) stb.append(' ');
 		boolean operation = this.operation&&!option.jsonCompatibility;
 		if(isEmpty()) stb.append(operation ? "()" : "[]");
 		else{
 			stb.append(operation ? '(' : '[');
-			boolean isCompact = values.size()<=option.compactListSize;
-			for(int i = 0; i<values.size(); i++){
+			int size = size();
+			boolean isCompact = PrettyLayout.isCompact(this, column, option, context);
+			for(int i = 0; i<size; i++){
 				if(!isCompact){
 					if(option.jsonCompatibility&&i>0) stb.append(',');
 					LiteralFormats.newlineAndIndent(stb, indents+1, option);
 				}else if(i>0) stb.append(", ");
 				else stb.append(' ');
-				values.get(i).toPrettyString(stb, isCompact ? indents : indents+1, option, operation ? ToStringContext.OPERATION : ToStringContext.NONE);
+				elementToPrettyString(i, stb, isCompact ? indents : indents+1, option, operation ? ToStringContext.OPERATION : ToStringContext.NONE);
 			}
 			if(!isCompact) LiteralFormats.newlineAndIndent(stb, indents, option);
 			else stb.append(' ');
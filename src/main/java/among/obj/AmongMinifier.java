@@ -0,0 +1,210 @@
+package among.obj;
+
+import among.AmongRoot;
+import among.ToStringContext;
+
+import java.util.Map;
+
+/**
+ * Formats {@link Among} and {@link AmongRoot} into the shortest form this class can produce, for storing or
+ * transferring over the network. Unlike {@link Among#toString()}, minified form is not bound to layout rules of {@link
+ * among.ToStringOption}:
+ * <ul>
+ *     <li>Each primitive value, property key and name is written in whichever form is the shortest among unquoted form,
+ *     double-quoted form and single-quoted form. Only the characters that would be misread in that form are escaped;
+ *     {@code //} and {@code /*} inside quoted form are not escaped, for example.</li>
+ *     <li>No whitespace or line break is written outside primitives; line breaks inside primitives are always escaped.
+ *     Separators between root values are only written after unquoted primitives.</li>
+ *     <li>Unnamed operations with single element are written as lists, since operations with single element are
+ *     unwrapped when parsed.</li>
+ * </ul>
+ * Parsing the minified form without any macros or operators imported yields nodes equal to the original ones. Note that
+ * line breaks are preserved as-is, including {@code \r}; unlike {@link Among#toString()}, which normalizes all line
+ * breaks to {@code \n}.
+ * <p>
+ * Macros and operators are not supported; use {@link among.AmongDefinition#toString()} for definitions.
+ */
+public final class AmongMinifier{
+	private AmongMinifier(){}
+
+	/**
+	 * Top level keywords. Values and names on root starting with one of these are quoted to prevent them being read as
+	 * statements.
+	 */
+	private static final String[] KEYWORDS = {"macro", "fn", "operator", "keyword", "undef", "use"};
+
+	/**
+	 * @param among Node to minify
+	 * @return Minified form of the node
+	 * @throws NullPointerException If {@code among == null}
+	 */
+	public static String minify(Among among){
+		StringBuilder stb = new StringBuilder();
+		minify(stb, among);
+		return stb.toString();
+	}
+	/**
+	 * @param root Root to minify
+	 * @return Minified form of the root
+	 * @throws NullPointerException If {@code root == null}
+	 */
+	public static String minify(AmongRoot root){
+		StringBuilder stb = new StringBuilder();
+		minify(stb, root);
+		return stb.toString();
+	}
+
+	/**
+	 * Appends minified form of the node. The node is formatted as a value of a property or a list; use {@link
+	 * AmongMinifier#minify(StringBuilder, AmongRoot)} to format root values.
+	 *
+	 * @param stb   String builder to append to
+	 * @param among Node to minify
+	 * @throws NullPointerException If either of the parameters are {@code null}
+	 */
+	public static void minify(StringBuilder stb, Among among){
+		node(stb, among, ToStringContext.NONE, false);
+	}
+	/**
+	 * Appends minified form of the root.
+	 *
+	 * @param stb  String builder to append to
+	 * @param root Root to minify
+	 * @throws NullPointerException If either of the parameters are {@code null}
+	 */
+	public static void minify(StringBuilder stb, AmongRoot root){
+		boolean unquoted = false, primitive = false;
+		for(int i = 0, size = root.size(); i<size; i++){
+			Among among = root.get(i);
+			// primitive followed by unnamed list or object would be read as its name
+			if(unquoted||primitive&&!among.isPrimitive()&&!among.asNameable().hasName()) stb.append(',');
+			unquoted = node(stb, among, ToStringContext.ROOT, i<size-1);
+			primitive = among.isPrimitive();
+		}
+	}
+
+	/**
+	 * @param separated Whether the node is followed by another root value. Only used on root.
+	 * @return Whether the node ended with an unquoted primitive, which needs separator before the next value on root
+	 */
+	private static boolean node(StringBuilder stb, Among among, ToStringContext context, boolean separated){
+		if(among.isPrimitive()) return primitive(stb, among.asPrimitive().getValue(), context, false, separated);
+		if(among.isObj()){
+			AmongObject o = among.asObj();
+			if(o.hasName()) primitive(stb, o.getName(), context, false, false);
+			stb.append('{');
+			boolean first = true;
+			for(Map.Entry<String, Among> e : o.peekProperties().entrySet()){
+				if(first) first = false;
+				else stb.append(',');
+				primitive(stb, e.getKey(), ToStringContext.NONE, true, false);
+				stb.append(':');
+				node(stb, e.getValue(), ToStringContext.NONE, false);
+			}
+			stb.append('}');
+		}else{
+			AmongList l = among.asList();
+			if(l.hasName()) primitive(stb, l.getName(), context, false, false);
+			// unnamed operation with single element gets unwrapped on parse
+			boolean operation = l.isOperation()&&(l.hasName()||l.size()!=1);
+			ToStringContext elementContext = operation ? ToStringContext.OPERATION : ToStringContext.NONE;
+			stb.append(operation ? '(' : '[');
+			boolean packed = l.isPacked();
+			for(int i = 0, size = l.size(); i<size; i++){
+				if(i>0) stb.append(',');
+				if(packed) primitive(stb, l.packedText(i), elementContext, false, false);
+				else node(stb, l.peek(i), elementContext, false);
+			}
+			stb.append(operation ? ')' : ']');
+		}
+		return false;
+	}
+
+	/**
+	 * Appends the literal in the shortest form.
+	 *
+	 * @param key       Whether the literal is a property key
+	 * @param separated Whether separator should be placed after the literal if it's written unquoted; used for
+	 *                  calculating the length
+	 * @return Whether the literal was written unquoted
+	 */
+	private static boolean primitive(StringBuilder stb, String value, ToStringContext context, boolean key, boolean separated){
+		int len = value.length();
+		if(len==0){
+			stb.append("\"\"");
+			return false;
+		}
+		boolean root = context==ToStringContext.ROOT;
+		int doubleQuotes = 0, singleQuotes = 0, quotedEscapes = 0, unquotedEscapes = 0;
+		for(int i = 0; i<len; i++){
+			char c = value.charAt(i);
+			if(c=='"') doubleQuotes++;
+			else if(c=='\'') singleQuotes++;
+			else if(c=='\\'||c=='\n'||c=='\r') quotedEscapes++;
+			if(needsEscape(value, i, key)) unquotedEscapes++;
+		}
+		int doubleQuoted = len+2+doubleQuotes+quotedEscapes;
+		int singleQuoted = len+2+singleQuotes+quotedEscapes;
+		if(context!=ToStringContext.OPERATION&&!(root&&startsWithKeyword(value))&&
+				len+unquotedEscapes+(separated ? 1 : 0)<=Math.min(doubleQuoted, singleQuoted)){
+			for(int i = 0; i<len; i++){
+				if(needsEscape(value, i, key)) escape(stb, value.charAt(i));
+				else stb.append(value.charAt(i));
+			}
+			return true;
+		}
+		char quote = doubleQuoted<=singleQuoted ? '"' : '\'';
+		stb.append(quote);
+		for(int i = 0; i<len; i++){
+			char c = value.charAt(i);
+			if(c==quote||c=='\\'||c=='\n'||c=='\r') escape(stb, c);
+			else stb.append(c);
+		}
+		stb.append(quote);
+		return false;
+	}
+
+	/**
+	 * @return Whether the character at index {@code i} has to be escaped in unquoted form
+	 */
+	private static boolean needsEscape(String value, int i, boolean key){
+		switch(value.charAt(i)){
+			case '\\': case '\n': case '\r': case ',': case '{': case '}':
+				return true;
+			case '[': case ']': case '(': case ')': // part of the literal in keys
+				return !key;
+			case ':': // part of the literal in values, unless it's the first character
+				return key||i==0;
+			case '/': // start of comments
+				if(i+1>=value.length()) return false;
+				char next = value.charAt(i+1);
+				return next=='/'||next=='*';
+			case '"': case '\'': // start of quoted primitive
+				return i==0;
+			case ' ': case '\t': // leading and trailing whitespaces are trimmed
+				return i==0||i==value.length()-1;
+			default:
+				return false;
+		}
+	}
+
+	private static void escape(StringBuilder stb, char c){
+		stb.append('\\');
+		stb.append(c=='\n' ? 'n' : c=='\r' ? 'r' : c);
+	}
+
+	/**
+	 * @return Whether unquoted form of the value would be read as a keyword on root, i.e. the value starts with a keyword
+	 * which is followed by nothing or a character ending the word without being escaped
+	 */
+	private static boolean startsWithKeyword(String value){
+		for(String k : KEYWORDS){
+			if(!value.startsWith(k)) continue;
+			if(value.length()==k.length()) return true;
+			switch(value.charAt(k.length())){
+				case ' ': case '\t': case ':': return true;
+			}
+		}
+		return false;
+	}
+}
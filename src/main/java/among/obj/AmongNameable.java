@@ -42,6 +42,7 @@ public abstract class AmongNameable extends Among{
 	 * @param name The name to be set
 	 */
 	public void setName(@Nullable String name){
+		checkModification();
 		this.name = name==null ? "" : name;
 	}
 	/**
@@ -1,17 +1,23 @@
 package among.obj;
 
+import among.AmongVisitor;
 import among.AmongWalker;
 import among.NodePath;
 import among.ToStringContext;
 import among.ToStringOption;
 import among.exception.Sussy;
 import among.internals.LiteralFormats;
+import among.internals.MemoryEstimates;
 import org.jetbrains.annotations.Nullable;
 
+import java.security.MessageDigest;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.function.BiConsumer;
 
 /**
  * Nameable {@link Among} node with properties. Property is a pair of a name(key) to a child node(values).
@@ -28,7 +34,13 @@ import java.util.Objects;
  * </pre>
  */
 public class AmongObject extends AmongNameable{
-	private final Map<String, Among> properties = new LinkedHashMap<>(); // Use linkedhashmap to preserve insertion order
+	private Map<String, Among> properties = new LinkedHashMap<>(); // Use linkedhashmap to preserve insertion order
+	/**
+	 * Whether {@link AmongObject#properties} is borrowed from the frozen object this object was copied from. Borrowed
+	 * map and its values are never modified; both should be copied before either exposing the values or modification.
+	 */
+	private boolean lazy;
+	@Nullable private JavaCollections.MapView javaMap;
 
 	AmongObject(){}
 	AmongObject(@Nullable String name){
@@ -40,6 +52,16 @@ public class AmongObject extends AmongNameable{
 		for(Among among : this.properties.values())
 			Objects.requireNonNull(among);
 	}
+	private AmongObject(AmongObject copyFrom){
+		super(copyFrom.getName());
+		if(copyFrom.isFrozen()||copyFrom.lazy){ // frozen subtrees can't be modified, borrow until accessed
+			this.properties = copyFrom.properties;
+			this.lazy = true;
+		}else{
+			for(Map.Entry<String, Among> e : copyFrom.properties.entrySet())
+				this.properties.put(e.getKey(), e.getValue().copy());
+		}
+	}
 
 	/**
 	 * Set the property with name {@code key} to {@code value}. This is utility method for method chaining.<br>
@@ -69,7 +91,8 @@ public class AmongObject extends AmongNameable{
 	 * @throws NullPointerException  If either {@code key == null} or {@code value == null}
 	 */
 	public AmongObject prop(String key, Among value){
-		if(this.properties.putIfAbsent(key, Objects.requireNonNull(value))!=null)
+		checkModification();
+		if(ownProperties().putIfAbsent(key, Objects.requireNonNull(value))!=null)
 			throw new IllegalStateException("Property '"+key+"' is already defined");
 		return this;
 	}
@@ -78,7 +101,40 @@ public class AmongObject extends AmongNameable{
 	 * @return Unmodifiable view of the properties
 	 */
 	public Map<String, Among> properties(){
-		return Collections.unmodifiableMap(properties);
+		return Collections.unmodifiableMap(ownProperties());
+	}
+
+	/**
+	 * Returns read-only view of this object as Java map. Properties are not copied; values are converted on access,
+	 * with primitives as their value, objects as {@link AmongObject#asJavaMap()} and lists as {@link
+	 * AmongList#asJavaList()}. The view reflects later modifications of this object, and the same view instance is
+	 * returned on each call.
+	 *
+	 * @return Read-only view of this object as Java map
+	 * @see Among#wrap(Map)
+	 */
+	public Map<String, Object> asJavaMap(){
+		JavaCollections.MapView javaMap = this.javaMap;
+		if(javaMap==null) this.javaMap = javaMap = new JavaCollections.MapView(this);
+		return javaMap;
+	}
+
+	/**
+	 * Returns the properties without copying borrowed map. The properties should not be exposed or modified.
+	 */
+	Map<String, Among> peekProperties(){
+		return properties;
+	}
+
+	/**
+	 * Performs the action for each property of this object, in insertion order. Unlike iterating through {@link
+	 * AmongObject#properties()}, no intermediate objects are created.
+	 *
+	 * @param action Action to be performed for each property
+	 * @throws NullPointerException If {@code action == null}
+	 */
+	public void forEachProperty(BiConsumer<String, Among> action){
+		ownProperties().forEach(action);
 	}
 
 	/**
@@ -100,7 +156,7 @@ public class AmongObject extends AmongNameable{
 	 * @throws NullPointerException If {@code key == null}
 	 */
 	@Nullable public Among getProperty(String key){
-		return this.properties.get(key);
+		return ownProperties().get(key);
 	}
 
 	/**
@@ -112,7 +168,7 @@ public class AmongObject extends AmongNameable{
 	 * @throws Sussy                If there is no property with given key
 	 */
 	public Among expectProperty(String key){
-		Among among = this.properties.get(key);
+		Among among = ownProperties().get(key);
 		if(among==null) throw new Sussy("No property named '"+key+'\'');
 		return among;
 	}
@@ -127,8 +183,9 @@ public class AmongObject extends AmongNameable{
 	 * @throws NullPointerException If {@code key == null}
 	 */
 	@Nullable public Among setProperty(String key, @Nullable Among value){
-		if(value==null) return this.properties.remove(key);
-		else return this.properties.put(key, value);
+		checkModification();
+		if(value==null) return ownProperties().remove(key);
+		else return ownProperties().put(key, value);
 	}
 
 	/**
@@ -140,7 +197,8 @@ public class AmongObject extends AmongNameable{
 	 * @throws NullPointerException If {@code key == null}
 	 */
 	@Nullable public Among removeProperty(String key){
-		return this.properties.remove(key);
+		checkModification();
+		return ownProperties().remove(key);
 	}
 
 	public int size(){
@@ -158,7 +216,36 @@ public class AmongObject extends AmongNameable{
 	 * Removes all property from this object.
 	 */
 	public void clear(){
-		properties.clear();
+		checkModification();
+		if(lazy){
+			this.properties = new LinkedHashMap<>();
+			this.lazy = false;
+		}else properties.clear();
+	}
+
+	/**
+	 * Returns property map safe to both expose values and modify. Only copies of frozen objects are modified by this
+	 * method; the map is copied from the frozen object, with each value replaced by its copy.
+	 */
+	private Map<String, Among> ownProperties(){
+		if(lazy){
+			Map<String, Among> m = new LinkedHashMap<>();
+			for(Map.Entry<String, Among> e : this.properties.entrySet())
+				m.put(e.getKey(), e.getValue().copy());
+			this.properties = m;
+			this.lazy = false;
+		}
+		return properties;
+	}
+
+	/**
+	 * Creates frozen object backed by the map without copying. Every value of the map should be frozen.
+	 */
+	static AmongObject adapt(Map<String, Among> properties){
+		AmongObject o = new AmongObject();
+		o.properties = properties;
+		o.freezeShallow();
+		return o;
 	}
 
 	@Override public AmongObject asObj(){
@@ -170,17 +257,21 @@ public class AmongObject extends AmongNameable{
 
 	@Override public void walk(AmongWalker visitor, NodePath path){
 		if(visitor.walkBefore(this, path)){
-			for(Map.Entry<String, Among> e : this.properties.entrySet())
+			for(Map.Entry<String, Among> e : ownProperties().entrySet())
 				e.getValue().walk(visitor, path.subPath(e.getKey()));
 			visitor.walkAfter(this, path);
 		}
 	}
+	@Override public void visit(AmongVisitor visitor){
+		if(visitor.visitBefore(this)){
+			for(Among among : ownProperties().values())
+				among.visit(visitor);
+			visitor.visitAfter(this);
+		}
+	}
 
 	@Override public AmongObject copy(){
-		AmongObject o = new AmongObject(this.getName());
-		o.setSourcePosition(this.sourcePosition());
-		for(Map.Entry<String, Among> e : this.properties.entrySet())
-			o.setProperty(e.getKey(), e.getValue().copy());
+		AmongObject o = new AmongObject(this);
 		return o;
 	}
 
@@ -188,12 +279,68 @@ public class AmongObject extends AmongNameable{
 		if(this==o) return true;
 		if(o==null||getClass()!=o.getClass()) return false;
 		AmongObject o2 = (AmongObject)o;
+		if(knownNotEqual(o2)) return false;
 		return getName().equals(o2.getName())&&
 				properties.equals(o2.properties);
 	}
-	@Override public int hashCode(){
+	@Override int computeHashCode(){
 		return Objects.hash(getName(), properties);
 	}
+	@Override long computeRetainedBytes(){
+		long bytes = MemoryEstimates.OBJECT+MemoryEstimates.string(getName())+MemoryEstimates.linkedHashMap(properties.size());
+		for(Map.Entry<String, Among> e : properties.entrySet())
+			bytes += MemoryEstimates.string(e.getKey())+e.getValue().estimateRetainedBytes();
+		return bytes;
+	}
+
+	@Override void freezeChildren(){
+		if(lazy){ // values are already frozen, but the map is still owned by another object
+			this.properties = new LinkedHashMap<>(this.properties);
+			this.lazy = false;
+		}else for(Among among : properties.values())
+			among.freeze();
+	}
+	@Override void canonicalizeChildren(AmongDeduplicator deduplicator){
+		if(lazy){
+			this.properties = new LinkedHashMap<>(this.properties);
+			this.lazy = false;
+		}
+		for(Map.Entry<String, Among> e : properties.entrySet())
+			e.setValue(deduplicator.canonicalize(e.getValue()));
+	}
+	@Override Among canonicalCopy(AmongDeduplicator deduplicator){
+		Map<String, Among> canonical = null;
+		int i = 0;
+		for(Map.Entry<String, Among> e : properties.entrySet()){
+			Among c = deduplicator.canonicalize(e.getValue());
+			if(canonical==null&&c!=e.getValue()){
+				canonical = new LinkedHashMap<>();
+				for(Map.Entry<String, Among> e2 : properties.entrySet()){
+					if(canonical.size()==i) break;
+					canonical.put(e2.getKey(), e2.getValue());
+				}
+			}
+			if(canonical!=null) canonical.put(e.getKey(), c);
+			i++;
+		}
+		if(canonical==null) return this;
+		AmongObject o = new AmongObject(getName());
+		o.properties = canonical;
+		o.freezeShallow();
+		return o;
+	}
+
+	@Override void updateDigest(MessageDigest md){
+		md.update((byte)'O');
+		digestString(md, getName());
+		// equality of objects does not depend on property order, neither should the digest
+		List<String> keys = new ArrayList<>(properties.keySet());
+		Collections.sort(keys);
+		for(String key : keys){
+			digestString(md, key);
+			md.update(properties.get(key).digest().toBytes());
+		}
+	}
 
 	@Override public void toString(StringBuilder stb, ToStringOption option, ToStringContext context){
 		nameToString(stb, option, context);
@@ -215,12 +362,13 @@ public class AmongObject extends AmongNameable{
 	}
 
 	@Override public void toPrettyString(StringBuilder stb, int indents, ToStringOption option, ToStringContext context){
+		int column = PrettyLayout.column(stb, 0, option);
 		nameToPrettyString(stb, indents, option, context);
 		if(hasName()) stb.append(' ');
 		if(isEmpty()) stb.append("{}");
 		else{
 			stb.append('{');
-			boolean isCompact = properties.size()<=option.compactObjectSize;
+			boolean isCompact = PrettyLayout.isCompact(this, column, option, context);
 			boolean first = true;
 			for(Map.Entry<String, Among> e : properties.entrySet()){
 				if(!isCompact){
@@ -1,12 +1,15 @@
 package among.obj;
 
+import among.AmongVisitor;
 import among.AmongWalker;
 import among.NodePath;
 import among.ToStringContext;
 import among.ToStringOption;
 import among.exception.Sussy;
 import among.internals.LiteralFormats;
+import among.internals.MemoryEstimates;
 
+import java.security.MessageDigest;
 import java.util.Objects;
 
 /**
@@ -29,6 +32,7 @@ public class AmongPrimitive extends Among{
 		return value;
 	}
 	public void setValue(String value){
+		checkModification();
 		this.value = Objects.requireNonNull(value);
 	}
 
@@ -142,10 +146,12 @@ public class AmongPrimitive extends Among{
 	@Override public void walk(AmongWalker visitor, NodePath path){
 		visitor.walk(this, path);
 	}
+	@Override public void visit(AmongVisitor visitor){
+		visitor.visit(this);
+	}
 
 	@Override public AmongPrimitive copy(){
 		AmongPrimitive p = new AmongPrimitive(this.value);
-		p.setSourcePosition(this.sourcePosition());
 		return p;
 	}
 
@@ -155,19 +161,46 @@ public class AmongPrimitive extends Among{
 		AmongPrimitive that = (AmongPrimitive)o;
 		return Objects.equals(value, that.value);
 	}
-	@Override public int hashCode(){
+	@Override long computeRetainedBytes(){
+		return MemoryEstimates.PRIMITIVE+MemoryEstimates.string(value);
+	}
+
+	@Override int computeHashCode(){
 		return Objects.hash(value);
 	}
 
+	@Override void freezeChildren(){}
+	@Override void canonicalizeChildren(AmongDeduplicator deduplicator){}
+	@Override Among canonicalCopy(AmongDeduplicator deduplicator){
+		return this;
+	}
+
+	@Override void updateDigest(MessageDigest md){
+		updateDigest(md, value);
+	}
+
+	static void updateDigest(MessageDigest md, String value){
+		md.update((byte)'P');
+		digestString(md, value);
+	}
+
 	@Override public void toString(StringBuilder stb, ToStringOption option, ToStringContext context){
-		boolean useQuote = context!=ToStringContext.NONE||!LiteralFormats.isSimpleValue(getValue())||option.jsonCompatibility;
-		if(useQuote) LiteralFormats.primitiveToString(stb, getValue());
-		else LiteralFormats.simpleValueToString(stb, getValue());
+		valueToString(stb, getValue(), option, context);
 	}
 
 	@Override public void toPrettyString(StringBuilder stb, int indents, ToStringOption option, ToStringContext context){
-		boolean useQuote = context!=ToStringContext.NONE||!LiteralFormats.isSimpleValue(getValue())||option.jsonCompatibility;
-		if(useQuote) LiteralFormats.primitiveToPrettyString(stb, getValue(), indents, option);
-		else LiteralFormats.simpleValueToString(stb, getValue());
+		valueToPrettyString(stb, getValue(), indents, option, context);
+	}
+
+	static void valueToString(StringBuilder stb, String value, ToStringOption option, ToStringContext context){
+		boolean useQuote = context!=ToStringContext.NONE||!LiteralFormats.isSimpleValue(value)||option.jsonCompatibility;
+		if(useQuote) LiteralFormats.primitiveToString(stb, value);
+		else LiteralFormats.simpleValueToString(stb, value);
+	}
+
+	static void valueToPrettyString(StringBuilder stb, String value, int indents, ToStringOption option, ToStringContext context){
+		boolean useQuote = context!=ToStringContext.NONE||!LiteralFormats.isSimpleValue(value)||option.jsonCompatibility;
+		if(useQuote) LiteralFormats.primitiveToPrettyString(stb, value, indents, option);
+		else LiteralFormats.simpleValueToString(stb, value);
 	}
 }
@@ -0,0 +1,550 @@
+package among.obj;
+
+import among.AmongDefinition;
+import among.AmongRoot;
+import among.RootAndDefinition;
+import among.ToPrettyString;
+import among.ToStringContext;
+import among.ToStringOption;
+import among.internals.LiteralFormats;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.stream.Stream;
+
+/**
+ * Writer serializing {@link Among}, {@link AmongRoot}, {@link AmongDefinition} and {@link RootAndDefinition}
+ * incrementally, without rendering the whole text into memory. Output of {@link AmongWriter#write(ToPrettyString,
+ * ToStringOption)} and {@link AmongWriter#writePretty(ToPrettyString, int, ToStringOption)} is identical to {@link
+ * ToPrettyString#toString(ToStringOption)} and {@link ToPrettyString#toPrettyString(int, ToStringOption)}
+ * respectively.<br>
+ * Text is rendered into internal buffer, which gets flushed to the output each time it exceeds the buffer size between
+ * elements of objects, lists, roots and definitions. Single primitive value, macro or operator is always rendered
+ * whole.<br>
+ * Other {@link ToPrettyString} objects are rendered whole before being written.
+ * <p>
+ * With {@link AmongWriter#parallel(ForkJoinPool, int)}, elements of large objects, lists and roots are rendered in
+ * parallel into separate buffers, which are written in order. Elements which the layout depends on the column of
+ * preceding elements - compact formatting of pretty printing with {@link ToStringOption#maxLineWidth} - are always
+ * rendered sequentially, so the output stays identical to sequential rendering. The values must not be modified while
+ * being written.
+ */
+public final class AmongWriter implements Flushable, Closeable{
+	public static final int DEFAULT_BUFFER_SIZE = 8192;
+	public static final int DEFAULT_PARALLEL_THRESHOLD = 256;
+
+	/**
+	 * Renders the object in most compact form, using the pool to render large objects, lists and roots in parallel.
+	 *
+	 * @param value  Object to render
+	 * @param option Option to use
+	 * @param pool   Pool to render elements on
+	 * @return String representation of the object, identical to {@link ToPrettyString#toString(ToStringOption)}
+	 * @throws NullPointerException If any of the parameters are {@code null}
+	 */
+	public static String toStringParallel(ToPrettyString value, ToStringOption option, ForkJoinPool pool){
+		StringBuilder stb = new StringBuilder();
+		try{
+			new AmongWriter(stb).parallel(Objects.requireNonNull(pool)).write(value, option).flush();
+		}catch(IOException ex){
+			throw new UncheckedIOException(ex); // StringBuilder does not throw IOException
+		}
+		return stb.toString();
+	}
+	/**
+	 * Renders the object in human-readable form, using the pool to render large objects, lists and roots in
+	 * parallel.
+	 *
+	 * @param value   Object to render
+	 * @param indents Level of indentation
+	 * @param option  Option to use
+	 * @param pool    Pool to render elements on
+	 * @return String representation of the object, identical to {@link ToPrettyString#toPrettyString(int,
+	 * ToStringOption)}
+	 * @throws NullPointerException If any of the parameters are {@code null}
+	 */
+	public static String toPrettyStringParallel(ToPrettyString value, int indents, ToStringOption option, ForkJoinPool pool){
+		StringBuilder stb = new StringBuilder();
+		try{
+			new AmongWriter(stb).parallel(Objects.requireNonNull(pool)).writePretty(value, indents, option).flush();
+		}catch(IOException ex){
+			throw new UncheckedIOException(ex); // StringBuilder does not throw IOException
+		}
+		return stb.toString();
+	}
+
+	/**
+	 * Create new writer writing UTF-8 encoded text to the stream.
+	 *
+	 * @param out Stream to write to
+	 * @return New writer
+	 * @throws NullPointerException If {@code out == null}
+	 */
+	public static AmongWriter of(OutputStream out){
+		return new AmongWriter(new OutputStreamWriter(Objects.requireNonNull(out), StandardCharsets.UTF_8));
+	}
+	/**
+	 * Create new writer writing UTF-8 encoded text to the channel.
+	 *
+	 * @param channel Channel to write to
+	 * @return New writer
+	 * @throws NullPointerException If {@code channel == null}
+	 */
+	public static AmongWriter of(WritableByteChannel channel){
+		return new AmongWriter(Channels.newWriter(Objects.requireNonNull(channel), StandardCharsets.UTF_8.newEncoder(), -1));
+	}
+
+	private final Appendable out;
+	private final int bufferSize;
+	private final StringBuilder buffer;
+	/**
+	 * Column at the start of the buffer.
+	 */
+	private int columnBase;
+
+	@Nullable private ForkJoinPool pool;
+	private int parallelThreshold = DEFAULT_PARALLEL_THRESHOLD;
+
+	/**
+	 * @param out Output to write to
+	 * @throws NullPointerException If {@code out == null}
+	 */
+	public AmongWriter(Appendable out){
+		this(out, DEFAULT_BUFFER_SIZE);
+	}
+	/**
+	 * @param out        Output to write to
+	 * @param bufferSize Number of characters to buffer before writing to output
+	 * @throws NullPointerException     If {@code out == null}
+	 * @throws IllegalArgumentException If {@code bufferSize <= 0}
+	 */
+	public AmongWriter(Appendable out, int bufferSize){
+		if(bufferSize<=0) throw new IllegalArgumentException("bufferSize <= 0");
+		this.out = Objects.requireNonNull(out);
+		this.bufferSize = bufferSize;
+		this.buffer = new StringBuilder(Math.min(bufferSize, DEFAULT_BUFFER_SIZE)+64);
+	}
+
+	/**
+	 * Renders elements of objects, lists and roots with {@link AmongWriter#DEFAULT_PARALLEL_THRESHOLD} or more
+	 * elements in parallel.
+	 *
+	 * @param pool Pool to render elements on, or {@code null} to disable parallel rendering
+	 * @return This
+	 */
+	public AmongWriter parallel(@Nullable ForkJoinPool pool){
+		return parallel(pool, DEFAULT_PARALLEL_THRESHOLD);
+	}
+	/**
+	 * Renders elements of objects, lists and roots with {@code threshold} or more elements in parallel.
+	 *
+	 * @param pool      Pool to render elements on, or {@code null} to disable parallel rendering
+	 * @param threshold Minimum number of elements to render in parallel
+	 * @return This
+	 * @throws IllegalArgumentException If {@code threshold <= 0}
+	 */
+	public AmongWriter parallel(@Nullable ForkJoinPool pool, int threshold){
+		if(threshold<=0) throw new IllegalArgumentException("threshold <= 0");
+		this.pool = pool;
+		this.parallelThreshold = threshold;
+		return this;
+	}
+
+	/**
+	 * Writes the object, formatted in most compact form with default option.
+	 *
+	 * @param value Object to write
+	 * @return This
+	 * @throws IOException If an I/O error occurs
+	 * @see ToPrettyString#toString(ToStringOption)
+	 */
+	public AmongWriter write(ToPrettyString value) throws IOException{
+		return write(value, ToStringOption.DEFAULT, ToStringContext.NONE);
+	}
+	/**
+	 * Writes the object, formatted in most compact form.
+	 *
+	 * @param value  Object to write
+	 * @param option Option to use
+	 * @return This
+	 * @throws IOException If an I/O error occurs
+	 * @see ToPrettyString#toString(ToStringOption)
+	 */
+	public AmongWriter write(ToPrettyString value, ToStringOption option) throws IOException{
+		return write(value, option, ToStringContext.NONE);
+	}
+	/**
+	 * Writes the object, formatted in most compact form.
+	 *
+	 * @param value   Object to write
+	 * @param option  Option to use
+	 * @param context Context of the formatting
+	 * @return This
+	 * @throws IOException If an I/O error occurs
+	 * @see ToPrettyString#toString(ToStringOption, ToStringContext)
+	 */
+	public AmongWriter write(ToPrettyString value, ToStringOption option, ToStringContext context) throws IOException{
+		compact(value, option, context);
+		drainIfFull();
+		return this;
+	}
+
+	/**
+	 * Writes the object, formatted in human-readable form with default option.
+	 *
+	 * @param value Object to write
+	 * @return This
+	 * @throws IOException If an I/O error occurs
+	 * @see ToPrettyString#toPrettyString()
+	 */
+	public AmongWriter writePretty(ToPrettyString value) throws IOException{
+		return writePretty(value, 0, ToStringOption.DEFAULT, ToStringContext.NONE);
+	}
+	/**
+	 * Writes the object, formatted in human-readable form.
+	 *
+	 * @param value   Object to write
+	 * @param indents Number of indentations
+	 * @param option  Option to use
+	 * @return This
+	 * @throws IOException If an I/O error occurs
+	 * @see ToPrettyString#toPrettyString(int, ToStringOption)
+	 */
+	public AmongWriter writePretty(ToPrettyString value, int indents, ToStringOption option) throws IOException{
+		return writePretty(value, indents, option, ToStringContext.NONE);
+	}
+	/**
+	 * Writes the object, formatted in human-readable form.
+	 *
+	 * @param value   Object to write
+	 * @param indents Number of indentations
+	 * @param option  Option to use
+	 * @param context Context of the formatting
+	 * @return This
+	 * @throws IOException If an I/O error occurs
+	 * @see ToPrettyString#toPrettyString(int, ToStringOption, ToStringContext)
+	 */
+	public AmongWriter writePretty(ToPrettyString value, int indents, ToStringOption option, ToStringContext context) throws IOException{
+		pretty(value, indents, option, context);
+		drainIfFull();
+		return this;
+	}
+
+	/**
+	 * Writes the text as-is.
+	 *
+	 * @param text Text to write
+	 * @return This
+	 * @throws IOException If an I/O error occurs
+	 */
+	public AmongWriter append(CharSequence text) throws IOException{
+		buffer.append(text);
+		drainIfFull();
+		return this;
+	}
+
+	/**
+	 * Returns current column of the output, i.e. number of characters written after the last line feed, including the
+	 * buffered text. Text written directly to the output before creating this writer is not counted.
+	 *
+	 * @return Current column of the output
+	 */
+	public int column(){
+		int len = buffer.length();
+		int newline = buffer.lastIndexOf("\n");
+		return newline>=0 ? len-newline-1 : (int)Math.min(Integer.MAX_VALUE, (long)columnBase+len);
+	}
+
+	/**
+	 * Writes all buffered text to the output, and flushes the output if it is {@link Flushable}.
+	 *
+	 * @throws IOException If an I/O error occurs
+	 */
+	@Override public void flush() throws IOException{
+		drain();
+		if(out instanceof Flushable) ((Flushable)out).flush();
+	}
+
+	/**
+	 * Writes all buffered text to the output, and closes the output if it is {@link Closeable}.
+	 *
+	 * @throws IOException If an I/O error occurs
+	 */
+	@Override public void close() throws IOException{
+		flush();
+		if(out instanceof Closeable) ((Closeable)out).close();
+	}
+
+	private void compact(ToPrettyString value, ToStringOption option, ToStringContext context) throws IOException{
+		if(value instanceof Among) node((Among)value, option, context);
+		else if(value instanceof AmongRoot){
+			AmongRoot root = (AmongRoot)value;
+			elements(root.size(), true, (w, i) -> w.node(root.get(i), option, ToStringContext.ROOT));
+		}else if(value instanceof AmongDefinition){
+			AmongDefinition definition = (AmongDefinition)value;
+			Iterator<ToPrettyString.Base> it = Stream.concat(definition.macros().allMacros(), definition.operators().allOperators()).iterator();
+			boolean first = true;
+			while(it.hasNext()){
+				if(first) first = false;
+				else buffer.append(',');
+				it.next().toString(buffer, option, ToStringContext.NONE);
+				drainIfFull();
+			}
+		}else if(value instanceof RootAndDefinition){
+			RootAndDefinition rad = (RootAndDefinition)value;
+			if(rad.definition().isEmpty()){
+				if(!rad.root().isEmpty()) compact(rad.root(), option, ToStringContext.NONE);
+			}else{
+				compact(rad.definition(), option, ToStringContext.NONE);
+				if(!rad.root().isEmpty()){
+					buffer.append(',');
+					compact(rad.root(), option, ToStringContext.NONE);
+				}
+			}
+		}else value.toString(buffer, option, context);
+	}
+
+	private void pretty(ToPrettyString value, int indents, ToStringOption option, ToStringContext context) throws IOException{
+		if(value instanceof Among) prettyNode((Among)value, indents, option, context);
+		else if(value instanceof AmongRoot){
+			AmongRoot root = (AmongRoot)value;
+			elements(root.size(), true, (w, i) -> {
+				if(i>0) w.buffer.append('\n');
+				w.prettyNode(root.get(i), indents, option, ToStringContext.ROOT);
+			});
+		}else if(value instanceof AmongDefinition){
+			AmongDefinition definition = (AmongDefinition)value;
+			Iterator<ToPrettyString.Base> it = Stream.concat(definition.macros().allMacros(), definition.operators().allOperators()).iterator();
+			boolean first = true;
+			while(it.hasNext()){
+				if(first) first = false;
+				else buffer.append('\n');
+				it.next().toPrettyString(buffer, indents, option, ToStringContext.NONE);
+				drainIfFull();
+			}
+		}else if(value instanceof RootAndDefinition){
+			RootAndDefinition rad = (RootAndDefinition)value;
+			if(rad.definition().isEmpty()){
+				if(!rad.root().isEmpty()) pretty(rad.root(), indents, option, ToStringContext.NONE);
+			}else{
+				pretty(rad.definition(), indents, option, ToStringContext.NONE);
+				if(!rad.root().isEmpty()){
+					LiteralFormats.newlineAndIndent(buffer, indents, option);
+					pretty(rad.root(), indents, option, ToStringContext.NONE);
+				}
+			}
+		}else value.toPrettyString(buffer, indents, option, context);
+	}
+
+	// Following methods mirror toString() and toPrettyString() of each node, with buffer drained between elements
+
+	private void node(Among among, ToStringOption option, ToStringContext context) throws IOException{
+		if(among.isPrimitive()){
+			among.toString(buffer, option, context);
+		}else if(among.isObj()){
+			AmongObject o = among.asObj();
+			o.nameToString(buffer, option, context);
+			if(o.isEmpty()) buffer.append("{}");
+			else{
+				buffer.append('{');
+				properties(o.peekProperties(), true, (w, i, key, value) -> {
+					if(i>0) w.buffer.append(',');
+					if(!option.jsonCompatibility&&LiteralFormats.isSimpleKey(key))
+						LiteralFormats.simpleKeyToString(w.buffer, key);
+					else LiteralFormats.primitiveToString(w.buffer, key);
+					w.buffer.append(':');
+					w.node(value, option, ToStringContext.NONE);
+				});
+				buffer.append('}');
+			}
+		}else{
+			AmongList l = among.asList();
+			l.nameToString(buffer, option, context);
+			boolean operation = l.isOperation()&&!option.jsonCompatibility;
+			if(l.isEmpty()) buffer.append(operation ? "()" : "[]");
+			else{
+				buffer.append(operation ? '(' : '[');
+				ToStringContext elementContext = operation ? ToStringContext.OPERATION : ToStringContext.NONE;
+				boolean packed = l.isPacked();
+				elements(l.size(), true, (w, i) -> {
+					if(i>0) w.buffer.append(",");
+					if(packed) l.elementToString(i, w.buffer, option, elementContext);
+					else w.node(l.peek(i), option, elementContext);
+				});
+				buffer.append(operation ? ')' : ']');
+			}
+		}
+	}
+
+	private void prettyNode(Among among, int indents, ToStringOption option, ToStringContext context) throws IOException{
+		if(among.isPrimitive()){
+			among.toPrettyString(buffer, indents, option, context);
+		}else if(among.isObj()){
+			AmongObject o = among.asObj();
+			int column = PrettyLayout.column(buffer, columnBase, option);
+			o.nameToPrettyString(buffer, indents, option, context);
+			if(o.hasName()) buffer.append(' ');
+			if(o.isEmpty()) buffer.append("{}");
+			else{
+				buffer.append('{');
+				boolean isCompact = PrettyLayout.isCompact(o, column, option, context);
+				int elementIndents = isCompact ? indents : indents+1;
+				// compact elements are placed in one line, so they cannot be rendered independently of the column
+				properties(o.peekProperties(), !isCompact||option.maxLineWidth<=0, (w, i, key, value) -> {
+					if(!isCompact){
+						if(option.jsonCompatibility&&i>0) w.buffer.append(',');
+						LiteralFormats.newlineAndIndent(w.buffer, indents+1, option);
+					}else w.buffer.append(i>0 ? ", " : " ");
+					if(!option.jsonCompatibility&&LiteralFormats.isSimpleKey(key))
+						LiteralFormats.simpleKeyToString(w.buffer, key);
+					else LiteralFormats.primitiveToPrettyString(w.buffer, key, elementIndents, option);
+					w.buffer.append(": ");
+					w.prettyNode(value, elementIndents, option, ToStringContext.NONE);
+				});
+				if(!isCompact) LiteralFormats.newlineAndIndent(buffer, indents, option);
+				else buffer.append(' ');
+				buffer.append('}');
+			}
+		}else{
+			AmongList l = among.asList();
+			int column = PrettyLayout.column(buffer, columnBase, option);
+			l.nameToPrettyString(buffer, indents, option, context);
+			if(l.hasName()) buffer.append(' ');
+			boolean operation = l.isOperation()&&!option.jsonCompatibility;
+			if(l.isEmpty()) buffer.append(operation ? "()" : "[]");
+			else{
+				buffer.append(operation ? '(' : '[');
+				boolean isCompact = PrettyLayout.isCompact(l, column, option, context);
+				int elementIndents = isCompact ? indents : indents+1;
+				ToStringContext elementContext = operation ? ToStringContext.OPERATION : ToStringContext.NONE;
+				boolean packed = l.isPacked();
+				elements(l.size(), !isCompact||option.maxLineWidth<=0, (w, i) -> {
+					if(!isCompact){
+						if(option.jsonCompatibility&&i>0) w.buffer.append(',');
+						LiteralFormats.newlineAndIndent(w.buffer, indents+1, option);
+					}else w.buffer.append(i>0 ? ", " : " ");
+					if(packed) l.elementToPrettyString(i, w.buffer, elementIndents, option, elementContext);
+					else w.prettyNode(l.peek(i), elementIndents, option, elementContext);
+				});
+				if(!isCompact) LiteralFormats.newlineAndIndent(buffer, indents, option);
+				else buffer.append(' ');
+				buffer.append(operation ? ')' : ']');
+			}
+		}
+	}
+
+	/**
+	 * Writes each element, either sequentially or in parallel.
+	 *
+	 * @param size     Number of elements
+	 * @param parallel Whether the elements can be rendered in parallel; only elements which does not depend on the
+	 *                 column of preceding element can be rendered in parallel
+	 * @param element  Function writing each element, including separators
+	 */
+	private void elements(int size, boolean parallel, ElementWriter element) throws IOException{
+		ForkJoinPool pool = this.pool;
+		if(pool==null||!parallel||size<parallelThreshold){
+			for(int i = 0; i<size; i++){
+				element.write(this, i);
+				drainIfFull();
+			}
+			return;
+		}
+		int column = column();
+		int chunkSize = Math.max(1, size/(pool.getParallelism()*8));
+		int maxTasks = pool.getParallelism()*2;
+		ArrayDeque<ForkJoinTask<StringBuilder>> tasks = new ArrayDeque<>();
+		try{
+			for(int start = 0; start<size||!tasks.isEmpty(); ){
+				while(start<size&&tasks.size()<maxTasks){
+					int from = start, to = (int)Math.min(size, (long)start+chunkSize);
+					tasks.add(pool.submit(() -> {
+						AmongWriter w = new AmongWriter(new StringBuilder(), Integer.MAX_VALUE);
+						w.columnBase = column;
+						for(int i = from; i<to; i++) element.write(w, i);
+						return w.buffer;
+					}));
+					start = to;
+				}
+				buffer.append(result(tasks.poll()));
+				drainIfFull();
+			}
+		}finally{
+			for(ForkJoinTask<?> t : tasks) t.cancel(false);
+		}
+	}
+
+	private void properties(Map<String, Among> properties, boolean parallel, PropertyWriter property) throws IOException{
+		if(pool==null||!parallel||properties.size()<parallelThreshold){
+			int i = 0;
+			for(Map.Entry<String, Among> e : properties.entrySet()){
+				property.write(this, i++, e.getKey(), e.getValue());
+				drainIfFull();
+			}
+		}else{
+			String[] keys = properties.keySet().toArray(new String[0]);
+			Among[] values = properties.values().toArray(new Among[0]);
+			elements(keys.length, true, (w, i) -> property.write(w, i, keys[i], values[i]));
+		}
+	}
+
+	private static StringBuilder result(ForkJoinTask<StringBuilder> task) throws IOException{
+		try{
+			return task.get();
+		}catch(InterruptedException ex){
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException();
+		}catch(ExecutionException ex){
+			Throwable cause = ex.getCause();
+			if(cause instanceof IOException) throw (IOException)cause;
+			if(cause instanceof RuntimeException) throw (RuntimeException)cause;
+			if(cause instanceof Error) throw (Error)cause;
+			throw new IllegalStateException(cause);
+		}
+	}
+
+	@FunctionalInterface
+	private interface ElementWriter{
+		void write(AmongWriter writer, int index) throws IOException;
+	}
+
+	@FunctionalInterface
+	private interface PropertyWriter{
+		void write(AmongWriter writer, int index, String key, Among value) throws IOException;
+	}
+
+	private void drainIfFull() throws IOException{
+		if(buffer.length()>=bufferSize) drain();
+	}
+
+	private void drain() throws IOException{
+		if(buffer.length()==0) return;
+		columnBase = column();
+		out.append(buffer);
+		buffer.setLength(0);
+		if(buffer.capacity()>bufferSize*4L) buffer.trimToSize(); // release memory used by unusually long values
+	}
+
+	@Override public String toString(){
+		return "AmongWriter{"+
+				"out="+out+
+				", bufferSize="+bufferSize+
+				'}';
+	}
+}
@@ -0,0 +1,330 @@
+package among.obj;
+
+import among.AmongRoot;
+import among.internals.Digests;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Writer producing canonical form of {@link Among} nodes, suitable for hashing and comparing content. Unlike {@link
+ * Among#toString()}, canonical form does not depend on {@link among.ToStringOption} or the formatting rules of the
+ * source; it is fixed, and stays identical across JVM instances and versions of the library.
+ * <p>
+ * Canonical form is UTF-8 encoded text, consisting of:
+ * <ul>
+ *     <li>Primitives, written as strings quoted with {@code "}. Only {@code "}, {@code \} and characters below
+ *     {@code U+0020} are escaped, as {@code \"}, {@code \\} and <code>&#92;u00XX</code> (lowercase hex) respectively.
+ *     Unpaired surrogates are escaped with <code>&#92;uXXXX</code> as well. No other characters are escaped.</li>
+ *     <li>Objects, written as {@code {"key":value,...}}; and lists, written as {@code [value,...]}. Names are written
+ *     right before the object or list as quoted string, if present. No whitespace is placed between tokens.
+ *     Operations are written as lists, since they are equal to plain lists.</li>
+ *     <li>Roots, written as each value followed by line feed.</li>
+ * </ul>
+ * With {@link KeyOrder#SORTED}, properties are written in ascending order of keys compared with {@link
+ * String#compareTo(String)}, making the output independent of insertion order; same as {@link Object#equals(Object)}
+ * of objects. With {@link KeyOrder#INSERTION}, properties are written in insertion order.
+ * <p>
+ * If number normalization is enabled, primitives representing decimal numbers (optional sign, digits, optional
+ * fraction and optional exponent; e.g. {@code +1.50}, {@code 1e3}) are written in normalized form: {@link
+ * BigDecimal#toString()} of the value with trailing zeros removed, except for integers with 20 or less trailing zeros,
+ * which are written in plain form ({@code 1000} instead of {@code 1E+3}). Zero is always written as {@code 0}.
+ * Primitives not representing numbers are written as-is. Note that number normalization makes the canonical form of
+ * some unequal nodes identical, e.g. {@code 1.0} and {@code 1}.
+ * <p>
+ * Output is computed in single pass, written to the output through fixed size buffer. {@link
+ * CanonicalWriter#digest(Among)} hashes the output as it is written, without materializing it.
+ */
+public final class CanonicalWriter implements Flushable, Closeable{
+	public static final int DEFAULT_BUFFER_SIZE = 8192;
+
+	/**
+	 * Integers with trailing zeros up to this value are written in plain form.
+	 */
+	private static final int MAX_PLAIN_TRAILING_ZEROS = 20;
+	private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+	public enum KeyOrder{
+		/**
+		 * Properties are written in ascending order of keys.
+		 */
+		SORTED,
+		/**
+		 * Properties are written in insertion order.
+		 */
+		INSERTION
+	}
+
+	/**
+	 * Returns canonical form of the node, with sorted keys and normalized numbers.
+	 *
+	 * @param among Node
+	 * @return Canonical form, encoded in UTF-8
+	 * @throws NullPointerException If {@code among == null}
+	 */
+	public static byte[] toBytes(Among among){
+		return toBytes(among, KeyOrder.SORTED, true);
+	}
+	/**
+	 * Returns canonical form of the node.
+	 *
+	 * @param among            Node
+	 * @param keyOrder         Order of properties
+	 * @param normalizeNumbers Whether numbers should be normalized
+	 * @return Canonical form, encoded in UTF-8
+	 * @throws NullPointerException If {@code among == null} or {@code keyOrder == null}
+	 */
+	public static byte[] toBytes(Among among, KeyOrder keyOrder, boolean normalizeNumbers){
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		try(CanonicalWriter w = new CanonicalWriter(out, keyOrder, normalizeNumbers)){
+			w.write(among);
+		}catch(IOException ex){
+			throw new IllegalStateException("Unreachable", ex); // ByteArrayOutputStream does not throw IOException
+		}
+		return out.toByteArray();
+	}
+
+	/**
+	 * Returns 128-bit MD5 digest of the canonical form of the node, with sorted keys and normalized numbers.
+	 *
+	 * @param among Node
+	 * @return Digest of the canonical form
+	 * @throws NullPointerException If {@code among == null}
+	 */
+	public static AmongDigest digest(Among among){
+		MessageDigest md = Digests.md5();
+		digest(among, KeyOrder.SORTED, true, md);
+		return AmongDigest.of(md.digest());
+	}
+	/**
+	 * Returns 128-bit MD5 digest of the canonical form of the root, with sorted keys and normalized numbers.
+	 *
+	 * @param root Root
+	 * @return Digest of the canonical form
+	 * @throws NullPointerException If {@code root == null}
+	 */
+	public static AmongDigest digest(AmongRoot root){
+		MessageDigest md = Digests.md5();
+		try(CanonicalWriter w = new CanonicalWriter(new DigestOutput(md), KeyOrder.SORTED, true)){
+			w.write(root);
+		}catch(IOException ex){
+			throw new IllegalStateException("Unreachable", ex); // DigestOutput does not throw IOException
+		}
+		return AmongDigest.of(md.digest());
+	}
+	/**
+	 * Updates the message digest with canonical form of the node.
+	 *
+	 * @param among            Node
+	 * @param keyOrder         Order of properties
+	 * @param normalizeNumbers Whether numbers should be normalized
+	 * @param md               Message digest to update
+	 * @throws NullPointerException If any of the parameters are {@code null}
+	 */
+	public static void digest(Among among, KeyOrder keyOrder, boolean normalizeNumbers, MessageDigest md){
+		try(CanonicalWriter w = new CanonicalWriter(new DigestOutput(Objects.requireNonNull(md)), keyOrder, normalizeNumbers)){
+			w.write(among);
+		}catch(IOException ex){
+			throw new IllegalStateException("Unreachable", ex); // DigestOutput does not throw IOException
+		}
+	}
+
+	private final Utf8Output out;
+	private final KeyOrder keyOrder;
+	private final boolean normalizeNumbers;
+
+	/**
+	 * Creates new writer with sorted keys and normalized numbers.
+	 *
+	 * @param out Stream to write to
+	 * @throws NullPointerException If {@code out == null}
+	 */
+	public CanonicalWriter(OutputStream out){
+		this(out, KeyOrder.SORTED, true);
+	}
+	/**
+	 * @param out              Stream to write to
+	 * @param keyOrder         Order of properties
+	 * @param normalizeNumbers Whether numbers should be normalized
+	 * @throws NullPointerException If {@code out == null} or {@code keyOrder == null}
+	 */
+	public CanonicalWriter(OutputStream out, KeyOrder keyOrder, boolean normalizeNumbers){
+		this.out = new Utf8Output(Objects.requireNonNull(out), DEFAULT_BUFFER_SIZE);
+		this.keyOrder = Objects.requireNonNull(keyOrder);
+		this.normalizeNumbers = normalizeNumbers;
+	}
+
+	/**
+	 * Writes canonical form of the node.
+	 *
+	 * @param among Node to write
+	 * @return This
+	 * @throws IOException          If an I/O error occurs
+	 * @throws NullPointerException If {@code among == null}
+	 */
+	public CanonicalWriter write(Among among) throws IOException{
+		node(among);
+		return this;
+	}
+	/**
+	 * Writes canonical form of the root.
+	 *
+	 * @param root Root to write
+	 * @return This
+	 * @throws IOException          If an I/O error occurs
+	 * @throws NullPointerException If {@code root == null}
+	 */
+	public CanonicalWriter write(AmongRoot root) throws IOException{
+		for(Among among : root){
+			node(among);
+			out.put('\n');
+		}
+		return this;
+	}
+
+	@Override public void flush() throws IOException{
+		out.flush();
+	}
+
+	@Override public void close() throws IOException{
+		out.close();
+	}
+
+	private void node(Among among) throws IOException{
+		if(among.isPrimitive()){
+			primitive(among.asPrimitive().getValue());
+		}else if(among.isObj()){
+			AmongObject o = among.asObj();
+			if(o.hasName()) quoted(o.getName());
+			Map<String, Among> properties = o.peekProperties();
+			out.put('{');
+			if(keyOrder==KeyOrder.SORTED){
+				String[] keys = properties.keySet().toArray(new String[0]);
+				Arrays.sort(keys);
+				for(int i = 0; i<keys.length; i++){
+					if(i>0) out.put(',');
+					quoted(keys[i]);
+					out.put(':');
+					node(properties.get(keys[i]));
+				}
+			}else{
+				boolean first = true;
+				for(Map.Entry<String, Among> e : properties.entrySet()){
+					if(first) first = false;
+					else out.put(',');
+					quoted(e.getKey());
+					out.put(':');
+					node(e.getValue());
+				}
+			}
+			out.put('}');
+		}else{
+			AmongList l = among.asList();
+			if(l.hasName()) quoted(l.getName());
+			out.put('[');
+			boolean packed = l.isPacked();
+			for(int i = 0, size = l.size(); i<size; i++){
+				if(i>0) out.put(',');
+				if(packed) primitive(l.packedText(i));
+				else node(l.peek(i));
+			}
+			out.put(']');
+		}
+	}
+
+	private void primitive(String value) throws IOException{
+		quoted(normalizeNumbers&&isNumber(value) ? normalize(value) : value);
+	}
+
+	private void quoted(String s) throws IOException{
+		out.put('"');
+		for(int i = 0, len = s.length(); i<len; i++){
+			char c = s.charAt(i);
+			if(c=='"'||c=='\\'){
+				out.put('\\');
+				out.put(c);
+			}else if(c<0x20) unicodeEscape(c);
+			else if(c<0x80) out.put(c);
+			else if(!Character.isSurrogate(c)) out.encode(s, i);
+			else if(Character.isHighSurrogate(c)&&i+1<len&&Character.isLowSurrogate(s.charAt(i+1))) i = out.encode(s, i);
+			else unicodeEscape(c);
+		}
+		out.put('"');
+	}
+
+	private void unicodeEscape(char c) throws IOException{
+		out.put('\\');
+		out.put('u');
+		out.put(HEX[c>>12]);
+		out.put(HEX[c>>8&0xF]);
+		out.put(HEX[c>>4&0xF]);
+		out.put(HEX[c&0xF]);
+	}
+
+	/**
+	 * @return Whether the string matches {@code [+-]?[0-9]+(\.[0-9]+)?([eE][+-]?[0-9]+)?}
+	 */
+	static boolean isNumber(String s){
+		int len = s.length(), i = 0;
+		if(i<len&&(s.charAt(i)=='+'||s.charAt(i)=='-')) i++;
+		int start = i;
+		while(i<len&&isDigit(s.charAt(i))) i++;
+		if(i==start) return false;
+		if(i<len&&s.charAt(i)=='.'){
+			start = ++i;
+			while(i<len&&isDigit(s.charAt(i))) i++;
+			if(i==start) return false;
+		}
+		if(i<len&&(s.charAt(i)=='e'||s.charAt(i)=='E')){
+			i++;
+			if(i<len&&(s.charAt(i)=='+'||s.charAt(i)=='-')) i++;
+			start = i;
+			while(i<len&&isDigit(s.charAt(i))) i++;
+			if(i==start) return false;
+		}
+		return i==len;
+	}
+
+	private static boolean isDigit(char c){
+		return c>='0'&&c<='9';
+	}
+
+	static String normalize(String number){
+		BigDecimal d;
+		try{
+			d = new BigDecimal(number);
+		}catch(NumberFormatException|ArithmeticException ex){
+			return number; // exponent out of range
+		}
+		if(d.signum()==0) return "0";
+		d = d.stripTrailingZeros();
+		if(d.scale()<=0&&d.scale()>=-MAX_PLAIN_TRAILING_ZEROS) return d.toPlainString();
+		return d.toString();
+	}
+
+	/**
+	 * Stream updating message digest with bytes written, instead of storing them.
+	 */
+	private static final class DigestOutput extends OutputStream{
+		private final MessageDigest md;
+
+		DigestOutput(MessageDigest md){
+			this.md = md;
+		}
+
+		@Override public void write(int b){
+			md.update((byte)b);
+		}
+		@Override public void write(byte[] b, int off, int len){
+			md.update(b, off, len);
+		}
+	}
+}
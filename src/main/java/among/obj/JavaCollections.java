@@ -0,0 +1,264 @@
+package among.obj;
+
+import org.jetbrains.annotations.Nullable;
+
+import java.lang.reflect.Array;
+import java.util.AbstractList;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Adapters between {@link Among} nodes and Java collections. Neither direction copies the content; nodes and values
+ * are converted on access, and the conversion of each node or value is cached.
+ *
+ * @see AmongObject#asJavaMap()
+ * @see AmongList#asJavaList()
+ * @see Among#wrap(Object)
+ */
+final class JavaCollections{
+	private JavaCollections(){}
+
+	/**
+	 * @return Value of primitives, {@link AmongObject#asJavaMap()} of objects and {@link AmongList#asJavaList()} of
+	 * lists
+	 */
+	static Object unwrap(Among among){
+		if(among.isPrimitive()) return among.asPrimitive().getValue();
+		if(among.isObj()) return among.asObj().asJavaMap();
+		return among.asList().asJavaList();
+	}
+
+	/**
+	 * @return Frozen node representing the value
+	 */
+	@SuppressWarnings("unchecked")
+	static Among wrap(Object value){
+		if(value instanceof Among){
+			Among among = (Among)value;
+			if(among.isFrozen()) return among;
+			Among copy = among.copy();
+			copy.freeze();
+			return copy;
+		}
+		if(value instanceof Map) return AmongObject.adapt(new MapAdapter((Map<?, ?>)value));
+		if(value instanceof Collection||value.getClass().isArray())
+			return AmongList.adapt(new ListAdapter(elements(value)));
+		AmongPrimitive p = new AmongPrimitive(value instanceof Enum ? ((Enum<?>)value).name() : value.toString());
+		p.freeze();
+		return p;
+	}
+
+	private static List<?> elements(Object value){
+		if(value instanceof List&&value instanceof RandomAccess) return (List<?>)value;
+		if(value instanceof Collection) return Arrays.asList(((Collection<?>)value).toArray());
+		if(value instanceof Object[]) return Arrays.asList((Object[])value);
+		return new AbstractList<Object>(){
+			@Override public Object get(int index){
+				return Array.get(value, index);
+			}
+			@Override public int size(){
+				return Array.getLength(value);
+			}
+		};
+	}
+
+	/**
+	 * Read-only view of an object, reflecting its current properties.
+	 */
+	static final class MapView extends AbstractMap<String, Object>{
+		private final AmongObject object;
+		@Nullable private Set<Entry<String, Object>> entrySet;
+
+		MapView(AmongObject object){
+			this.object = object;
+		}
+
+		@Override public int size(){
+			return object.size();
+		}
+		@Override public boolean isEmpty(){
+			return object.isEmpty();
+		}
+		@Override public boolean containsKey(Object key){
+			return object.peekProperties().containsKey(key);
+		}
+		@Override @Nullable public Object get(Object key){
+			Among among = object.peekProperties().get(key);
+			return among==null ? null : unwrap(among);
+		}
+
+		@Override public Set<Entry<String, Object>> entrySet(){
+			if(entrySet==null) entrySet = new AbstractSet<Entry<String, Object>>(){
+				@Override public Iterator<Entry<String, Object>> iterator(){
+					Iterator<Entry<String, Among>> it = object.peekProperties().entrySet().iterator();
+					return new Iterator<Entry<String, Object>>(){
+						@Override public boolean hasNext(){
+							return it.hasNext();
+						}
+						@Override public Entry<String, Object> next(){
+							Entry<String, Among> e = it.next();
+							return new SimpleImmutableEntry<>(e.getKey(), unwrap(e.getValue()));
+						}
+					};
+				}
+				@Override public int size(){
+					return object.size();
+				}
+			};
+			return entrySet;
+		}
+	}
+
+	/**
+	 * Read-only view of a list, reflecting its current elements.
+	 */
+	static final class ListView extends AbstractList<Object> implements RandomAccess{
+		private final AmongList list;
+
+		ListView(AmongList list){
+			this.list = list;
+		}
+
+		@Override public Object get(int index){
+			return list.isPacked() ? list.packedText(index) : unwrap(list.peek(index));
+		}
+		@Override public int size(){
+			return list.size();
+		}
+	}
+
+	/**
+	 * Property map of frozen objects wrapping a Java map. Values are wrapped on first access; {@link
+	 * Entry#setValue(Object)} only replaces the cached node.
+	 */
+	static final class MapAdapter extends AbstractMap<String, Among>{
+		private final Map<?, ?> map;
+		private final Map<Object, Among> cache = new ConcurrentHashMap<>();
+		@Nullable private Set<Entry<String, Among>> entrySet;
+
+		MapAdapter(Map<?, ?> map){
+			this.map = map;
+		}
+
+		@Override public int size(){
+			return map.size();
+		}
+		@Override public boolean isEmpty(){
+			return map.isEmpty();
+		}
+		@Override public boolean containsKey(Object key){
+			return map.containsKey(key);
+		}
+		@Override @Nullable public Among get(Object key){
+			Object value = map.get(key);
+			return value==null ? null : wrapped(key, value);
+		}
+
+		private Among wrapped(Object key, Object value){
+			Among among = cache.get(key);
+			if(among!=null) return among;
+			among = wrap(value);
+			Among prev = cache.putIfAbsent(key, among);
+			return prev!=null ? prev : among;
+		}
+
+		@Override public Set<Entry<String, Among>> entrySet(){
+			if(entrySet==null) entrySet = new AbstractSet<Entry<String, Among>>(){
+				@Override public Iterator<Entry<String, Among>> iterator(){
+					Iterator<? extends Entry<?, ?>> it = map.entrySet().iterator();
+					return new Iterator<Entry<String, Among>>(){
+						@Override public boolean hasNext(){
+							return it.hasNext();
+						}
+						@Override public Entry<String, Among> next(){
+							Entry<?, ?> e = it.next();
+							return new AdapterEntry(e.getKey(), wrapped(e.getKey(), e.getValue()));
+						}
+					};
+				}
+				@Override public int size(){
+					return map.size();
+				}
+			};
+			return entrySet;
+		}
+
+		/**
+		 * Entry writing replaced values back to the cache. Not based on {@link SimpleEntry}, as the entry is not meant
+		 * to be serialized.
+		 */
+		private final class AdapterEntry implements Map.Entry<String, Among>{
+			private final Object key;
+			private Among value;
+
+			AdapterEntry(Object key, Among value){
+				this.key = key;
+				this.value = value;
+			}
+
+			@Override public String getKey(){
+				return String.valueOf(key);
+			}
+			@Override public Among getValue(){
+				return value;
+			}
+			@Override public Among setValue(Among value){
+				cache.put(key, value);
+				Among prev = this.value;
+				this.value = value;
+				return prev;
+			}
+
+			@Override public boolean equals(Object o){
+				if(this==o) return true;
+				if(!(o instanceof Map.Entry)) return false;
+				Map.Entry<?, ?> e = (Map.Entry<?, ?>)o;
+				return getKey().equals(e.getKey())&&value.equals(e.getValue());
+			}
+			@Override public int hashCode(){
+				return getKey().hashCode()^value.hashCode();
+			}
+			@Override public String toString(){
+				return getKey()+"="+value;
+			}
+		}
+	}
+
+	/**
+	 * Element list of frozen lists wrapping a Java list, collection or array. Elements are wrapped on first access;
+	 * {@link List#set(int, Object)} only replaces the cached node.
+	 */
+	static final class ListAdapter extends AbstractList<Among> implements RandomAccess{
+		private final List<?> list;
+		private final AtomicReferenceArray<Among> cache;
+
+		ListAdapter(List<?> list){
+			this.list = list;
+			this.cache = new AtomicReferenceArray<>(list.size());
+		}
+
+		@Override public Among get(int index){
+			Among among = cache.get(index);
+			if(among!=null) return among;
+			among = wrap(list.get(index));
+			return cache.compareAndSet(index, null, among) ? among : cache.get(index);
+		}
+		@Override public Among set(int index, Among element){
+			Among prev = get(index);
+			cache.set(index, element);
+			return prev;
+		}
+		@Override public int size(){
+			return cache.length();
+		}
+	}
+}
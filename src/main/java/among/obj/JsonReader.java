@@ -0,0 +1,387 @@
+package among.obj;
+
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Strict JSON reader producing {@link Among} nodes directly, without going through Among source or intermediate
+ * representation of third-party parsers. Input is UTF-8 encoded bytes, decoded as they are read; streams are read in
+ * chunks of {@link JsonReader#BUFFER_SIZE} bytes.
+ * <p>
+ * JSON values are mapped to nodes as follows:
+ * <ul>
+ *     <li>Objects and arrays are read as unnamed {@link AmongObject} and {@link AmongList}.</li>
+ *     <li>Strings are read as {@link AmongPrimitive}.</li>
+ *     <li>Numbers, {@code true}, {@code false} and {@code null} are read as {@link AmongPrimitive} with their text
+ *     as-is, identical to how Among source reads them.</li>
+ * </ul>
+ * Input must conform to RFC 8259; comments, trailing commas, unquoted keys, leading zeros, unescaped control
+ * characters and malformed UTF-8 sequences are rejected. Duplicate keys in single object are rejected as well. Nesting
+ * deeper than {@link JsonReader#MAX_DEPTH} levels is not allowed.
+ * <p>
+ * Object keys are interned in a string table owned by the reader, which is retained between reads; reading many
+ * objects with same set of keys stores each key only once. Optionally, numeric lists can be packed (see {@link
+ * AmongList#pack()}) and the result can be passed through {@link AmongDeduplicator}.
+ * <p>
+ * Instances of this class are not thread safe.
+ */
+public final class JsonReader{
+	public static final int BUFFER_SIZE = 8192;
+	public static final int MAX_DEPTH = 1000;
+
+	private final Map<String, String> keys = new HashMap<>();
+	private final StringBuilder scratch = new StringBuilder();
+
+	private boolean packNumericLists;
+	@Nullable private AmongDeduplicator deduplicator;
+
+	@Nullable private InputStream in;
+	private byte[] buf = new byte[0];
+	private int pos;
+	private int limit;
+	/**
+	 * Number of bytes read before the start of the buffer.
+	 */
+	private long offset;
+	private int line;
+	private long lineStart;
+
+	/**
+	 * @param packNumericLists Whether lists consisting only of numbers should be packed
+	 * @return This
+	 * @see AmongList#pack()
+	 */
+	public JsonReader packNumericLists(boolean packNumericLists){
+		this.packNumericLists = packNumericLists;
+		return this;
+	}
+	/**
+	 * @param deduplicator Deduplicator to pass the result through, or {@code null} to disable deduplication. Results of
+	 *                     the reader gets frozen if deduplicator is present.
+	 * @return This
+	 * @see AmongDeduplicator#deduplicate(Among)
+	 */
+	public JsonReader deduplicate(@Nullable AmongDeduplicator deduplicator){
+		this.deduplicator = deduplicator;
+		return this;
+	}
+
+	/**
+	 * Reads single JSON value from the stream. The stream is read until the end; anything other than whitespace after
+	 * the value is rejected. The stream is not closed by this method.
+	 *
+	 * @param in Stream to read from
+	 * @return Value read
+	 * @throws IOException          If an I/O error occurs, or the input is not a valid JSON
+	 * @throws NullPointerException If {@code in == null}
+	 */
+	public Among read(InputStream in) throws IOException{
+		if(buf.length!=BUFFER_SIZE) buf = new byte[BUFFER_SIZE];
+		return read(Objects.requireNonNull(in), buf, 0);
+	}
+	/**
+	 * Reads single JSON value from UTF-8 encoded bytes.
+	 *
+	 * @param json UTF-8 encoded JSON
+	 * @return Value read
+	 * @throws IOException          If the input is not a valid JSON
+	 * @throws NullPointerException If {@code json == null}
+	 */
+	public Among read(byte[] json) throws IOException{
+		return read(null, json, json.length);
+	}
+	/**
+	 * Reads single JSON value from the string.
+	 *
+	 * @param json JSON
+	 * @return Value read
+	 * @throws IOException          If the input is not a valid JSON
+	 * @throws NullPointerException If {@code json == null}
+	 */
+	public Among read(String json) throws IOException{
+		return read(json.getBytes(StandardCharsets.UTF_8));
+	}
+
+	/**
+	 * Forget all keys interned.
+	 */
+	public void clearStringTable(){
+		keys.clear();
+	}
+
+	private Among read(@Nullable InputStream in, byte[] buf, int limit) throws IOException{
+		this.in = in;
+		byte[] prevBuf = this.buf;
+		this.buf = buf;
+		this.pos = 0;
+		this.limit = limit;
+		this.offset = 0;
+		this.line = 0;
+		this.lineStart = 0;
+		try{
+			Among among = value(skipWhitespace(), 0);
+			if(skipWhitespace()!=-1){
+				pos--;
+				throw error("Unexpected characters after the value");
+			}
+			return deduplicator!=null ? deduplicator.deduplicate(among) : among;
+		}finally{
+			this.in = null;
+			if(in==null) this.buf = prevBuf;
+		}
+	}
+
+	private Among value(int c, int depth) throws IOException{
+		switch(c){
+			case '{': return object(depth+1);
+			case '[': return list(depth+1);
+			case '"': return new AmongPrimitive(string());
+			case 't': return literal("true");
+			case 'f': return literal("false");
+			case 'n': return literal("null");
+			case '-': case '0': case '1': case '2': case '3': case '4':
+			case '5': case '6': case '7': case '8': case '9':
+				return new AmongPrimitive(number(c));
+			case -1: throw error("Unexpected end of input");
+			default:
+				pos--;
+				throw error("Unexpected character "+describe(c));
+		}
+	}
+
+	private AmongObject object(int depth) throws IOException{
+		if(depth>MAX_DEPTH) throw error("Nesting too deep");
+		AmongObject o = new AmongObject();
+		int c = skipWhitespace();
+		if(c=='}') return o;
+		while(true){
+			if(c!='"') throw expected("property key", c);
+			long keyStart = position()-1;
+			String key = string();
+			String interned = keys.putIfAbsent(key, key);
+			if(interned!=null) key = interned;
+			c = skipWhitespace();
+			if(c!=':') throw expected("':'", c);
+			if(o.setProperty(key, value(skipWhitespace(), depth))!=null)
+				throw error("Duplicate property key '"+key+"'", keyStart);
+			c = skipWhitespace();
+			if(c=='}') return o;
+			if(c!=',') throw expected("',' or '}'", c);
+			c = skipWhitespace();
+		}
+	}
+
+	private AmongList list(int depth) throws IOException{
+		if(depth>MAX_DEPTH) throw error("Nesting too deep");
+		AmongList l = new AmongList();
+		int c = skipWhitespace();
+		if(c==']') return l;
+		while(true){
+			l.add(value(c, depth));
+			c = skipWhitespace();
+			if(c==']'){
+				if(packNumericLists) l.pack();
+				return l;
+			}
+			if(c!=',') throw expected("',' or ']'", c);
+			c = skipWhitespace();
+		}
+	}
+
+	private AmongPrimitive literal(String literal) throws IOException{
+		for(int i = 1; i<literal.length(); i++){
+			int c = next();
+			if(c!=literal.charAt(i)){
+				if(c!=-1) pos--;
+				throw error("Invalid literal, expected '"+literal+"'");
+			}
+		}
+		return new AmongPrimitive(literal);
+	}
+
+	private String number(int c) throws IOException{
+		StringBuilder stb = scratch;
+		stb.setLength(0);
+		if(c=='-'){
+			stb.append('-');
+			c = next();
+		}
+		if(c=='0'){
+			stb.append('0');
+			c = next();
+		}else if(c>='1'&&c<='9'){
+			c = digits(stb, c);
+		}else throw expected("digit", c);
+		if(c=='.'){
+			stb.append('.');
+			c = next();
+			if(c<'0'||c>'9') throw expected("digit", c);
+			c = digits(stb, c);
+		}
+		if(c=='e'||c=='E'){
+			stb.append((char)c);
+			c = next();
+			if(c=='+'||c=='-'){
+				stb.append((char)c);
+				c = next();
+			}
+			if(c<'0'||c>'9') throw expected("digit", c);
+			c = digits(stb, c);
+		}
+		if(c!=-1) pos--;
+		if(c>='0'&&c<='9') throw error("Leading zeros are not allowed");
+		return stb.toString();
+	}
+
+	private int digits(StringBuilder stb, int c) throws IOException{
+		do{
+			stb.append((char)c);
+			c = next();
+		}while(c>='0'&&c<='9');
+		return c;
+	}
+
+	private String string() throws IOException{
+		// fast path for ASCII strings without escapes, fully contained in the buffer
+		for(int i = pos; i<limit; i++){
+			byte b = buf[i];
+			if(b=='"'){
+				String s = new String(buf, pos, i-pos, StandardCharsets.ISO_8859_1);
+				pos = i+1;
+				return s;
+			}
+			if(b=='\\'||b<0x20) break; // negative values are non-ASCII bytes
+		}
+		StringBuilder stb = scratch;
+		stb.setLength(0);
+		while(true){
+			int c = next();
+			if(c=='"') return stb.toString();
+			else if(c=='\\') escape(stb);
+			else if(c>=0x80) codePoint(stb, c);
+			else if(c>=0x20) stb.append((char)c);
+			else if(c==-1) throw error("Unterminated string");
+			else{
+				pos--;
+				throw error("Unescaped control character "+describe(c)+" in string");
+			}
+		}
+	}
+
+	private void escape(StringBuilder stb) throws IOException{
+		int c = next();
+		switch(c){
+			case '"': case '\\': case '/': stb.append((char)c); break;
+			case 'b': stb.append('\b'); break;
+			case 'f': stb.append('\f'); break;
+			case 'n': stb.append('\n'); break;
+			case 'r': stb.append('\r'); break;
+			case 't': stb.append('\t'); break;
+			case 'u':
+				int ch = 0;
+				for(int i = 0; i<4; i++){
+					int h = Character.digit(next(), 16); // -1 is not a valid code point; digit() returns -1 for it
+					if(h<0) throw error("Invalid unicode escape");
+					ch = ch<<4|h;
+				}
+				stb.append((char)ch);
+				break;
+			case -1: throw error("Unterminated string");
+			default:
+				pos--;
+				throw error("Invalid escape sequence "+describe(c));
+		}
+	}
+
+	private void codePoint(StringBuilder stb, int b) throws IOException{
+		if(b>=0xC2&&b<=0xDF){
+			stb.append((char)((b&0x1F)<<6|continuation(0x80, 0xBF)));
+		}else if(b>=0xE0&&b<=0xEF){
+			// reject overlong encodings and surrogates
+			int c1 = continuation(b==0xE0 ? 0xA0 : 0x80, b==0xED ? 0x9F : 0xBF);
+			stb.append((char)((b&0x0F)<<12|c1<<6|continuation(0x80, 0xBF)));
+		}else if(b>=0xF0&&b<=0xF4){
+			int c1 = continuation(b==0xF0 ? 0x90 : 0x80, b==0xF4 ? 0x8F : 0xBF);
+			int c2 = continuation(0x80, 0xBF);
+			stb.appendCodePoint((b&0x07)<<18|c1<<12|c2<<6|continuation(0x80, 0xBF));
+		}else{
+			pos--;
+			throw error("Invalid UTF-8 sequence");
+		}
+	}
+
+	/**
+	 * @return Lower 6 bits of the continuation byte
+	 */
+	private int continuation(int min, int max) throws IOException{
+		int c = next();
+		if(c<min||c>max){
+			if(c!=-1) pos--;
+			throw error("Invalid UTF-8 sequence");
+		}
+		return c&0x3F;
+	}
+
+	private int skipWhitespace() throws IOException{
+		while(true){
+			int c = next();
+			switch(c){
+				case '\n':
+					line++;
+					lineStart = position();
+				case ' ': case '\t': case '\r':
+					break;
+				default:
+					return c;
+			}
+		}
+	}
+
+	/**
+	 * @return Next byte, or {@code -1} if the input has ended
+	 */
+	private int next() throws IOException{
+		if(pos==limit&&!fill()) return -1;
+		return buf[pos++]&0xFF;
+	}
+
+	private boolean fill() throws IOException{
+		if(in==null) return false;
+		offset += limit;
+		pos = 0;
+		limit = 0;
+		int read;
+		do read = in.read(buf);
+		while(read==0);
+		if(read<0) return false;
+		limit = read;
+		return true;
+	}
+
+	private long position(){
+		return offset+pos;
+	}
+
+	private IOException expected(String expected, int c){
+		if(c==-1) return error("Expected "+expected+", but reached end of input");
+		pos--;
+		return error("Expected "+expected+", but found "+describe(c));
+	}
+
+	private IOException error(String message){
+		return error(message, position());
+	}
+	private IOException error(String message, long position){
+		return new IOException(message+" (line "+(line+1)+", column "+(position-lineStart+1)+")");
+	}
+
+	private static String describe(int c){
+		return c>=0x20&&c<0x7F ? "'"+(char)c+"'" : String.format("0x%02X", c);
+	}
+}
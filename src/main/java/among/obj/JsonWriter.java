@@ -0,0 +1,199 @@
+package among.obj;
+
+import among.ToStringContext;
+import among.ToStringOption;
+import among.internals.LiteralFormats;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Writer serializing {@link Among} directly into UTF-8 encoded bytes, producing output identical to {@link
+ * Among#toString(ToStringOption)} with {@link ToStringOption#jsonCompatibility} enabled, encoded in UTF-8.<br>
+ * Unlike formatting the text with {@link Among#toString(ToStringOption)} and encoding it afterwards, neither the whole
+ * text nor the escaped copy of each string is created; strings are escaped and encoded as they are written into the
+ * byte buffer, which gets flushed to the output each time it is full. Elements of packed lists are written without
+ * creating primitive nodes.<br>
+ * Names of objects and lists, which does not have JSON counterpart, are written the same way {@link
+ * Among#toString(ToStringOption)} does.
+ *
+ * @see JsonReader
+ */
+public final class JsonWriter implements Flushable, Closeable{
+	public static final int DEFAULT_BUFFER_SIZE = 8192;
+
+	private static final ToStringOption JSON = ToStringOption.DEFAULT.variant().jsonCompatible().build();
+
+	/**
+	 * Serialize the node into UTF-8 encoded JSON.
+	 *
+	 * @param among Node to write
+	 * @return UTF-8 encoded bytes, identical to the string representation of {@code among} with JSON compatible
+	 * option encoded in UTF-8
+	 * @throws NullPointerException If {@code among == null}
+	 */
+	public static byte[] toBytes(Among among){
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		try(JsonWriter w = new JsonWriter(out)){
+			w.write(among);
+		}catch(IOException ex){
+			throw new IllegalStateException("Unreachable", ex); // ByteArrayOutputStream does not throw IOException
+		}
+		return out.toByteArray();
+	}
+
+	private final Utf8Output out;
+	/**
+	 * Used for rare cases where names need escaping other than the one for quoted string.
+	 */
+	private final StringBuilder scratch = new StringBuilder();
+
+	/**
+	 * @param out Stream to write to
+	 * @throws NullPointerException If {@code out == null}
+	 */
+	public JsonWriter(OutputStream out){
+		this(out, DEFAULT_BUFFER_SIZE);
+	}
+	/**
+	 * @param out        Stream to write to
+	 * @param bufferSize Number of bytes to buffer before writing to output
+	 * @throws NullPointerException     If {@code out == null}
+	 * @throws IllegalArgumentException If {@code bufferSize <= 0}
+	 */
+	public JsonWriter(OutputStream out, int bufferSize){
+		this.out = new Utf8Output(Objects.requireNonNull(out), bufferSize);
+	}
+
+	/**
+	 * Writes the node.
+	 *
+	 * @param among Node to write
+	 * @return This
+	 * @throws IOException          If an I/O error occurs
+	 * @throws NullPointerException If {@code among == null}
+	 */
+	public JsonWriter write(Among among) throws IOException{
+		node(among);
+		return this;
+	}
+
+	/**
+	 * Writes the string as-is, encoded in UTF-8.
+	 *
+	 * @param s String to write
+	 * @return This
+	 * @throws IOException If an I/O error occurs
+	 */
+	public JsonWriter append(CharSequence s) throws IOException{
+		out.append(s);
+		return this;
+	}
+
+	@Override public void flush() throws IOException{
+		out.flush();
+	}
+
+	@Override public void close() throws IOException{
+		out.close();
+	}
+
+	private void node(Among among) throws IOException{
+		if(among.isPrimitive()){
+			quoted(among.asPrimitive().getValue());
+		}else if(among.isObj()){
+			AmongObject o = among.asObj();
+			name(o);
+			Map<String, Among> properties = o.peekProperties();
+			if(properties.isEmpty()){
+				put('{');
+				put('}');
+				return;
+			}
+			put('{');
+			boolean first = true;
+			for(Map.Entry<String, Among> e : properties.entrySet()){
+				if(first) first = false;
+				else put(',');
+				quoted(e.getKey());
+				put(':');
+				node(e.getValue());
+			}
+			put('}');
+		}else{
+			AmongList l = among.asList();
+			name(l);
+			put('[');
+			boolean packed = l.isPacked();
+			for(int i = 0, size = l.size(); i<size; i++){
+				if(i>0) put(',');
+				if(packed) quoted(l.packedText(i));
+				else node(l.peek(i));
+			}
+			put(']');
+		}
+	}
+
+	private void name(AmongNameable nameable) throws IOException{
+		if(!nameable.hasName()) return;
+		scratch.setLength(0);
+		nameable.nameToString(scratch, JSON, ToStringContext.NONE);
+		out.append(scratch);
+	}
+
+	/**
+	 * Writes the string quoted, with same escapes as {@link LiteralFormats#primitiveToString(StringBuilder, String)}.
+	 */
+	private void quoted(String s) throws IOException{
+		put('"');
+		for(int i = 0, len = s.length(); i<len; i++){
+			char c = s.charAt(i);
+			switch(c){
+				case '\\': case '"':
+					put('\\');
+					put(c);
+					break;
+				case '\r':
+					if(i+1<len&&s.charAt(i+1)=='\n') i++;
+				case '\n':
+					put('\\');
+					put('n');
+					break;
+				case '\b':
+					put('\\');
+					put('b');
+					break;
+				case '\f':
+					put('\\');
+					put('f');
+					break;
+				case '/':
+					if(i+1<len){
+						char next = s.charAt(i+1);
+						if(next=='*'||next=='/'){
+							put('\\');
+							put('/');
+							put(next);
+							i++;
+							break;
+						}
+					}
+					put('/');
+					break;
+				default:
+					if(c<0x80) put(c);
+					else i = out.encode(s, i);
+			}
+		}
+		put('"');
+	}
+
+	private void put(int b) throws IOException{
+		out.put(b);
+	}
+}
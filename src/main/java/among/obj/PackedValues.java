@@ -0,0 +1,178 @@
+package among.obj;
+
+import among.internals.MemoryEstimates;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+
+/**
+ * Packed storage of {@link AmongList} consisting only of numeric primitives. Values are stored in either {@code long[]}
+ * or {@code double[]}; the original text of each element is kept only if it differs from the canonical representation
+ * of the number (e.g. {@code 01}, {@code 1e3}). Primitive nodes for each element are created lazily, and once created,
+ * they become the source of truth for the element.<br>
+ * Arrays of numbers and texts are never modified after creation, thus can be shared between copies. Primitive nodes are
+ * published atomically, so that packed lists of frozen lists can be read by multiple threads.
+ */
+final class PackedValues{
+	/**
+	 * Pack the list of elements. Returns {@code null} if any of the element is not a numeric primitive.
+	 */
+	@Nullable static PackedValues pack(List<Among> values){
+		int size = values.size();
+		if(size==0) return null;
+		for(Among among : values)
+			if(!among.isPrimitive()) return null;
+		long[] longs = new long[size];
+		String[] texts = null;
+		try{
+			for(int i = 0; i<size; i++){
+				String text = values.get(i).asPrimitive().getValue();
+				long l = longs[i] = Long.parseLong(text);
+				if(!Long.toString(l).equals(text)){
+					if(texts==null) texts = new String[size];
+					texts[i] = text;
+				}
+			}
+			return new PackedValues(longs, null, texts, size);
+		}catch(NumberFormatException ignored){}
+		double[] doubles = new double[size];
+		texts = null;
+		try{
+			for(int i = 0; i<size; i++){
+				String text = values.get(i).asPrimitive().getValue();
+				double d = doubles[i] = Double.parseDouble(text);
+				if(!format(d).equals(text)){
+					if(texts==null) texts = new String[size];
+					texts[i] = text;
+				}
+			}
+			return new PackedValues(null, doubles, texts, size);
+		}catch(NumberFormatException ex){
+			return null;
+		}
+	}
+
+	static String format(double d){
+		return d==(long)d&&Math.abs(d)<1e15 ? Long.toString((long)d) : Double.toString(d);
+	}
+
+	@Nullable private final long[] longs;
+	@Nullable private final double[] doubles;
+	@Nullable private final String[] texts;
+	final int size;
+	@Nullable private volatile AtomicReferenceArray<AmongPrimitive> views;
+
+	@SuppressWarnings("rawtypes")
+	private static final AtomicReferenceFieldUpdater<PackedValues, AtomicReferenceArray> VIEWS =
+			AtomicReferenceFieldUpdater.newUpdater(PackedValues.class, AtomicReferenceArray.class, "views");
+
+	PackedValues(@Nullable long[] longs, @Nullable double[] doubles, @Nullable String[] texts, int size){
+		this.longs = longs;
+		this.doubles = doubles;
+		this.texts = texts;
+		this.size = size;
+	}
+
+	/**
+	 * Returns text of the element, without creating primitive node.
+	 */
+	String text(int index){
+		AmongPrimitive view = view(index);
+		if(view!=null) return view.getValue();
+		return packedText(index);
+	}
+
+	private String packedText(int index){
+		if(texts!=null&&texts[index]!=null) return texts[index];
+		return longs!=null ? Long.toString(longs[index]) : format(doubles[index]);
+	}
+
+	@Nullable AmongPrimitive view(int index){
+		AtomicReferenceArray<AmongPrimitive> views = this.views;
+		return views==null ? null : views.get(index);
+	}
+
+	AmongPrimitive get(int index, boolean frozen){
+		if(index<0||index>=size) throw new IndexOutOfBoundsException("Index: "+index+", Size: "+size);
+		AtomicReferenceArray<AmongPrimitive> views = this.views;
+		if(views==null){
+			views = new AtomicReferenceArray<>(size);
+			if(!VIEWS.compareAndSet(this, null, views)) views = this.views;
+		}
+		AmongPrimitive p = views.get(index);
+		if(p==null){
+			p = new AmongPrimitive(packedText(index));
+			if(frozen) p.freeze();
+			if(!views.compareAndSet(index, null, p)) p = views.get(index);
+		}
+		return p;
+	}
+
+	double toDouble(int index){
+		AmongPrimitive view = view(index);
+		if(view!=null) return Double.parseDouble(view.getValue());
+		return longs!=null ? longs[index] : doubles[index];
+	}
+
+	long toLong(int index){
+		if(longs!=null&&view(index)==null) return longs[index];
+		return Long.parseLong(text(index));
+	}
+
+	void freezeViews(){
+		AtomicReferenceArray<AmongPrimitive> views = this.views;
+		if(views!=null) for(int i = 0; i<size; i++){
+			AmongPrimitive p = views.get(i);
+			if(p!=null) p.freeze();
+		}
+	}
+
+	long estimateRetainedBytes(){
+		long bytes = MemoryEstimates.object(4, 4)+
+				MemoryEstimates.array(size, 8);
+		if(texts!=null){
+			bytes += MemoryEstimates.array(size, MemoryEstimates.REFERENCE);
+			for(String text : texts)
+				if(text!=null) bytes += MemoryEstimates.string(text);
+		}
+		AtomicReferenceArray<AmongPrimitive> views = this.views;
+		if(views!=null){
+			bytes += MemoryEstimates.object(1, 0)+
+					MemoryEstimates.array(size, MemoryEstimates.REFERENCE);
+			for(int i = 0; i<size; i++){
+				AmongPrimitive p = views.get(i);
+				if(p!=null) bytes += p.estimateRetainedBytes();
+			}
+		}
+		return bytes;
+	}
+
+	PackedValues copy(){
+		PackedValues p = new PackedValues(longs, doubles, texts, size);
+		AtomicReferenceArray<AmongPrimitive> views = this.views;
+		if(views!=null){
+			AtomicReferenceArray<AmongPrimitive> copy = new AtomicReferenceArray<>(size);
+			for(int i = 0; i<size; i++){
+				AmongPrimitive view = views.get(i);
+				if(view!=null) copy.set(i, view.copy());
+			}
+			p.views = copy;
+		}
+		return p;
+	}
+
+	/**
+	 * Create a list of primitive nodes. Primitive nodes created before are preserved.
+	 */
+	List<Among> unpack(){
+		List<Among> list = new ArrayList<>(size);
+		for(int i = 0; i<size; i++){
+			AmongPrimitive view = view(i);
+			list.add(view!=null ? view : new AmongPrimitive(packedText(i)));
+		}
+		return list;
+	}
+}
@@ -0,0 +1,145 @@
+package among.obj;
+
+import among.ToStringContext;
+import among.ToStringOption;
+import among.internals.LiteralFormats;
+
+import java.util.Map;
+
+/**
+ * Layout decisions of pretty formatting, shared between {@link Among#toPrettyString(StringBuilder, int,
+ * ToStringOption, ToStringContext)} and {@link AmongWriter}.
+ * <p>
+ * With {@link ToStringOption#maxLineWidth} set, each object or list measures width of its compact form starting from
+ * the current column. Measurement stops as soon as the width exceeds the remaining space in the line, so each
+ * measurement visits at most {@code maxLineWidth} characters worth of nodes; formatting stays linear to the size of
+ * the output without caching width of each node.
+ */
+final class PrettyLayout{
+	private PrettyLayout(){}
+
+	private static final int TOO_WIDE = -1;
+
+	private static final ThreadLocal<StringBuilder> SCRATCH = ThreadLocal.withInitial(StringBuilder::new);
+
+	/**
+	 * @param stb        Buffer the node is being appended to
+	 * @param baseColumn Column at the start of the buffer
+	 * @param option     Option to use
+	 * @return Current column of the buffer, or {@code 0} if {@link ToStringOption#maxLineWidth} is not set. Columns
+	 * equal to or greater than {@link ToStringOption#maxLineWidth} are all reported as {@link
+	 * ToStringOption#maxLineWidth}.
+	 */
+	static int column(CharSequence stb, int baseColumn, ToStringOption option){
+		if(option.maxLineWidth<=0) return 0;
+		int len = stb.length();
+		for(int i = len-1, min = Math.max(0, len-option.maxLineWidth); i>=min; i--)
+			if(stb.charAt(i)=='\n') return len-i-1;
+		return len>=option.maxLineWidth ? option.maxLineWidth : (int)Math.min(option.maxLineWidth, (long)baseColumn+len);
+	}
+
+	/**
+	 * @param object  The object
+	 * @param column  Column where the object starts, as returned by {@link PrettyLayout#column(CharSequence, int,
+	 *                ToStringOption)}
+	 * @param option  Option to use
+	 * @param context Context of the formatting
+	 * @return Whether the object should be formatted compact
+	 */
+	static boolean isCompact(AmongObject object, int column, ToStringOption option, ToStringContext context){
+		if(option.maxLineWidth<=0) return object.peekProperties().size()<=option.compactObjectSize;
+		return width(object, option, context, option.maxLineWidth-column, SCRATCH.get())!=TOO_WIDE;
+	}
+
+	/**
+	 * @param list    The list
+	 * @param column  Column where the list starts, as returned by {@link PrettyLayout#column(CharSequence, int,
+	 *                ToStringOption)}
+	 * @param option  Option to use
+	 * @param context Context of the formatting
+	 * @return Whether the list should be formatted compact
+	 */
+	static boolean isCompact(AmongList list, int column, ToStringOption option, ToStringContext context){
+		if(option.maxLineWidth<=0) return list.size()<=option.compactListSize;
+		return width(list, option, context, option.maxLineWidth-column, SCRATCH.get())!=TOO_WIDE;
+	}
+
+	/**
+	 * Returns width of the node formatted compact, including every child element.
+	 *
+	 * @return Width of the node, or {@link PrettyLayout#TOO_WIDE} if it exceeds the budget or spans multiple lines
+	 */
+	private static int width(Among among, ToStringOption option, ToStringContext context, int budget, StringBuilder scratch){
+		if(budget<0) return TOO_WIDE;
+		if(among.isPrimitive()){
+			if(among.asPrimitive().getValue().length()>budget) return TOO_WIDE;
+			scratch.setLength(0);
+			among.toPrettyString(scratch, 0, option, context);
+			return measured(scratch, budget);
+		}
+		AmongNameable nameable = among.asNameable();
+		int w = 0;
+		if(nameable.hasName()){
+			if(nameable.getName().length()>=budget) return TOO_WIDE;
+			scratch.setLength(0);
+			nameable.nameToPrettyString(scratch, 0, option, context);
+			w = measured(scratch, budget);
+			if(w==TOO_WIDE) return TOO_WIDE;
+			w++;
+		}
+		if(among.isObj()){
+			Map<String, Among> properties = among.asObj().peekProperties();
+			if(properties.isEmpty()) return fit(w+2, budget);
+			w += 2;
+			boolean first = true;
+			for(Map.Entry<String, Among> e : properties.entrySet()){
+				if(first) first = false;
+				else w += 2;
+				String key = e.getKey();
+				if(w+key.length()>budget) return TOO_WIDE;
+				scratch.setLength(0);
+				if(!option.jsonCompatibility&&LiteralFormats.isSimpleKey(key))
+					LiteralFormats.simpleKeyToString(scratch, key);
+				else LiteralFormats.primitiveToPrettyString(scratch, key, 0, option);
+				int k = measured(scratch, budget-w);
+				if(k==TOO_WIDE) return TOO_WIDE;
+				w += k+2;
+				int v = width(e.getValue(), option, ToStringContext.NONE, budget-w, scratch);
+				if(v==TOO_WIDE) return TOO_WIDE;
+				w += v;
+			}
+			return fit(w+2, budget);
+		}else{
+			AmongList list = among.asList();
+			if(list.isEmpty()) return fit(w+2, budget);
+			boolean operation = list.isOperation()&&!option.jsonCompatibility;
+			ToStringContext elementContext = operation ? ToStringContext.OPERATION : ToStringContext.NONE;
+			boolean packed = list.isPacked();
+			w += 2;
+			for(int i = 0, size = list.size(); i<size; i++){
+				if(i>0) w += 2;
+				int v;
+				if(packed){
+					scratch.setLength(0);
+					list.elementToPrettyString(i, scratch, 0, option, elementContext);
+					v = measured(scratch, budget-w);
+				}else v = width(list.peek(i), option, elementContext, budget-w, scratch);
+				if(v==TOO_WIDE) return TOO_WIDE;
+				w += v;
+			}
+			return fit(w+2, budget);
+		}
+	}
+
+	private static int measured(StringBuilder scratch, int budget){
+		int len = scratch.length();
+		if(len>budget) return TOO_WIDE;
+		for(int i = 0; i<len; i++)
+			if(scratch.charAt(i)=='\n') return TOO_WIDE;
+		return len;
+	}
+
+	private static int fit(int width, int budget){
+		return width>budget ? TOO_WIDE : width;
+	}
+}
@@ -0,0 +1,306 @@
+package among.obj;
+
+import among.internals.MemoryEstimates;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compact side table of source positions, keyed by node identity. Nodes do not store their source positions; positions
+ * recorded by the parser are kept in the table of each {@link among.CompileResult}, and may be moved to the table of
+ * the engine afterwards. Each entry stores the position of the node along with an identifier of the file it was read
+ * from, packed into single {@code long}; no object is allocated per entry.<br>
+ * Single table can hold positions from multiple sources; the file each node was read from can be retrieved with
+ * {@link SourcePositionTable#fileOf(Among)}. Entries of each file are chained together, so that {@link
+ * SourcePositionTable#removeFile(int)} takes time proportional to the number of entries removed.<br>
+ * Nodes are strongly referenced by the table until their entries are removed, or {@link SourcePositionTable#clear()}
+ * is called.
+ *
+ * @see SourcePositionTable#put(Among, int, int)
+ */
+public final class SourcePositionTable{
+	private static final int DEFAULT_CAPACITY = 16;
+	/**
+	 * Placeholder of removed entries. Slots of removed entries are not reused until the next rehash, so that chains of
+	 * each file stay intact.
+	 */
+	private static final Among REMOVED = new AmongPrimitive("");
+
+	private Among[] keys = new Among[DEFAULT_CAPACITY];
+	private long[] entries = new long[DEFAULT_CAPACITY];
+	/**
+	 * Index of the next slot of the same file, or {@code -1}.
+	 */
+	private int[] next = new int[DEFAULT_CAPACITY];
+	/**
+	 * Index of the first slot of each file, offset by one; the first element is used for the unknown file.
+	 */
+	private int[] heads = {-1};
+	private int size;
+	private int removed;
+
+	private final List<String> files = new ArrayList<>();
+	private final Map<String, Integer> fileToId = new HashMap<>();
+
+	/**
+	 * Returns identifier of the file. New identifier will be assigned if the file was not registered before.
+	 *
+	 * @param file Path of the file
+	 * @return Identifier of the file
+	 */
+	public int fileId(String file){
+		Integer id = fileToId.get(file);
+		if(id==null){
+			id = files.size();
+			files.add(file);
+			fileToId.put(file, id);
+			heads = Arrays.copyOf(heads, files.size()+1);
+			heads[files.size()] = -1;
+		}
+		return id;
+	}
+	/**
+	 * Returns path of the file with given identifier.
+	 *
+	 * @param fileId Identifier of the file
+	 * @return Path of the file, or {@code null} if there's no file with the identifier
+	 */
+	@Nullable public String file(int fileId){
+		return fileId>=0&&fileId<files.size() ? files.get(fileId) : null;
+	}
+
+	/**
+	 * @return Number of nodes in this table
+	 */
+	public int size(){
+		return size;
+	}
+
+	/**
+	 * @return Estimated size of memory used by this table, excluding the nodes
+	 * @see MemoryEstimates
+	 */
+	public long estimateRetainedBytes(){
+		long bytes = MemoryEstimates.object(6, 8)+
+				MemoryEstimates.array(keys.length, MemoryEstimates.REFERENCE)+
+				MemoryEstimates.array(entries.length, 8)+
+				MemoryEstimates.array(next.length, 4)+
+				MemoryEstimates.array(heads.length, 4)+
+				MemoryEstimates.arrayList(files.size())+
+				MemoryEstimates.hashMap(files.size());
+		for(String file : files) bytes += MemoryEstimates.string(file)+MemoryEstimates.object(0, 4); // Integer ids
+		return bytes;
+	}
+
+	/**
+	 * Put the source position of the node to this table. Previous entry of the node will be overwritten.
+	 *
+	 * @param node     The node
+	 * @param fileId   Identifier of the file, or {@code -1} if the file is unknown
+	 * @param position Position of the node in source
+	 * @throws IllegalArgumentException If {@code fileId} is not registered with {@link
+	 *                                  SourcePositionTable#fileId(String)}, and not {@code -1}
+	 */
+	public void put(Among node, int fileId, int position){
+		if(fileId<-1||fileId>=files.size()) throw new IllegalArgumentException("Unknown file ID "+fileId);
+		int i = indexOf(node);
+		if(keys[i]!=null){
+			if((int)(entries[i]>>32)==fileId){
+				entries[i] = entry(fileId, position);
+				return;
+			}
+			keys[i] = REMOVED; // leave the chain of the previous file intact
+			size--;
+			removed++;
+		}
+		if((size+removed+1)*4>keys.length*3){
+			rehash(Math.max(DEFAULT_CAPACITY, Integer.highestOneBit(Math.max(1, size+1)*2)*2));
+		}
+		i = indexOf(node);
+		keys[i] = node;
+		entries[i] = entry(fileId, position);
+		next[i] = heads[fileId+1];
+		heads[fileId+1] = i;
+		size++;
+	}
+
+	/**
+	 * Put every entry of the table to this table, with the file replaced.
+	 *
+	 * @param table  Table to copy entries from
+	 * @param fileId Identifier of the file, or {@code -1} if the file is unknown
+	 */
+	public void putAll(SourcePositionTable table, int fileId){
+		for(int i = 0; i<table.keys.length; i++){
+			Among k = table.keys[i];
+			if(k!=null&&k!=REMOVED) put(k, fileId, (int)table.entries[i]);
+		}
+	}
+
+	/**
+	 * @param node The node
+	 * @return Whether the node is in this table
+	 */
+	public boolean contains(Among node){
+		return keys[indexOf(node)]!=null;
+	}
+
+	/**
+	 * @param node The node
+	 * @return Position of the node in source, or {@code -1} if the node is not in this table
+	 */
+	public int position(Among node){
+		int i = indexOf(node);
+		return keys[i]==null ? -1 : (int)entries[i];
+	}
+	/**
+	 * @param node The node
+	 * @return Identifier of the file the node was read from, or {@code -1} if the node is not in this table or the
+	 * file is unknown
+	 */
+	public int fileIdOf(Among node){
+		int i = indexOf(node);
+		return keys[i]==null ? -1 : (int)(entries[i]>>32);
+	}
+	/**
+	 * @param node The node
+	 * @return Path of the file the node was read from, or {@code null} if the node is not in this table or the file
+	 * is unknown
+	 */
+	@Nullable public String fileOf(Among node){
+		return file(fileIdOf(node));
+	}
+
+	/**
+	 * Remove every entry of the file. Identifier of the file stays registered.
+	 *
+	 * @param fileId Identifier of the file, or {@code -1} for the unknown file
+	 * @return Number of entries removed
+	 */
+	public int removeFile(int fileId){
+		if(fileId<-1||fileId>=files.size()) return 0;
+		int count = 0;
+		for(int i = heads[fileId+1]; i!=-1; i = next[i]){
+			if(keys[i]==REMOVED) continue;
+			keys[i] = REMOVED;
+			count++;
+		}
+		heads[fileId+1] = -1;
+		size -= count;
+		removed += count;
+		return count;
+	}
+
+	/**
+	 * Remove every entry of the file. Does nothing if the file was not registered.
+	 *
+	 * @param file Path of the file
+	 * @return Number of entries removed
+	 * @see SourcePositionTable#removeFile(int)
+	 */
+	public int removeFile(String file){
+		Integer id = fileToId.get(file);
+		return id==null ? 0 : removeFile(id);
+	}
+
+	/**
+	 * Remove entries of every node not reachable from any of the nodes. Child nodes are traversed without copying
+	 * storage of copied nodes; elements of packed lists are not visited, as they do not have source positions.
+	 *
+	 * @param roots Nodes to retain entries of, along with their child nodes
+	 */
+	public void retainReachable(Iterable<? extends Among> roots){
+		SourcePositionTable retained = new SourcePositionTable();
+		retained.files.addAll(files);
+		retained.fileToId.putAll(fileToId);
+		retained.heads = new int[heads.length];
+		Arrays.fill(retained.heads, -1);
+		for(Among among : roots) retain(among, retained);
+		this.keys = retained.keys;
+		this.entries = retained.entries;
+		this.next = retained.next;
+		this.heads = retained.heads;
+		this.size = retained.size;
+		this.removed = retained.removed;
+	}
+
+	private void retain(Among among, SourcePositionTable retained){
+		int i = indexOf(among);
+		if(keys[i]!=null) retained.put(among, (int)(entries[i]>>32), (int)entries[i]);
+		if(among.isObj()){
+			for(Among child : among.asObj().peekProperties().values()) retain(child, retained);
+		}else if(among.isList()){
+			AmongList l = among.asList();
+			if(l.isPacked()) return;
+			for(int j = 0; j<l.size(); j++) retain(l.peek(j), retained);
+		}
+	}
+
+	/**
+	 * Remove all entries and files from this table.
+	 */
+	public void clear(){
+		keys = new Among[DEFAULT_CAPACITY];
+		entries = new long[DEFAULT_CAPACITY];
+		next = new int[DEFAULT_CAPACITY];
+		heads = new int[]{-1};
+		size = 0;
+		removed = 0;
+		files.clear();
+		fileToId.clear();
+	}
+
+	/**
+	 * Returns index of the slot either containing the node, or empty slot the node should be placed in. Slots of
+	 * removed entries are skipped.
+	 */
+	private int indexOf(Among node){
+		int mask = keys.length-1;
+		int i = mix(System.identityHashCode(node))&mask;
+		while(true){
+			Among k = keys[i];
+			if(k==null||k==node) return i;
+			i = i+1&mask;
+		}
+	}
+
+	private void rehash(int capacity){
+		Among[] oldKeys = keys;
+		long[] oldEntries = entries;
+		keys = new Among[capacity];
+		entries = new long[capacity];
+		next = new int[capacity];
+		Arrays.fill(heads, -1);
+		removed = 0;
+		for(int i = 0; i<oldKeys.length; i++){
+			Among k = oldKeys[i];
+			if(k==null||k==REMOVED) continue;
+			int j = indexOf(k);
+			keys[j] = k;
+			entries[j] = oldEntries[i];
+			int head = (int)(oldEntries[i]>>32)+1;
+			next[j] = heads[head];
+			heads[head] = j;
+		}
+	}
+
+	private static long entry(int fileId, int position){
+		return (long)fileId<<32|position&0xFFFFFFFFL;
+	}
+
+	private static int mix(int h){
+		h *= 0x9E3779B9;
+		return h^h>>>16;
+	}
+
+	@Override public String toString(){
+		return "SourcePositionTable{"+
+				"size="+size+
+				", files="+files+
+				'}';
+	}
+}
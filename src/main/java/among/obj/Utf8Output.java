@@ -0,0 +1,75 @@
+package among.obj;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Byte buffer encoding text in UTF-8, written to the output each time it is full. Shared between writers producing
+ * bytes directly, without encoding whole text at once.
+ */
+final class Utf8Output{
+	private final OutputStream out;
+	private final byte[] buffer;
+	private int count;
+
+	Utf8Output(OutputStream out, int bufferSize){
+		if(bufferSize<=0) throw new IllegalArgumentException("bufferSize <= 0");
+		this.out = out;
+		this.buffer = new byte[bufferSize];
+	}
+
+	void put(int b) throws IOException{
+		if(count==buffer.length) drain();
+		buffer[count++] = (byte)b;
+	}
+
+	void append(CharSequence s) throws IOException{
+		for(int i = 0, len = s.length(); i<len; i++)
+			i = encode(s, i);
+	}
+
+	/**
+	 * Encodes the character at {@code index} in UTF-8. Unpaired surrogates are replaced with {@code '?'}.
+	 *
+	 * @return Index of the last character consumed
+	 */
+	int encode(CharSequence s, int index) throws IOException{
+		char c = s.charAt(index);
+		if(c<0x80){
+			put(c);
+		}else if(c<0x800){
+			put(0xC0|c>>6);
+			put(0x80|c&0x3F);
+		}else if(!Character.isSurrogate(c)){
+			put(0xE0|c>>12);
+			put(0x80|c>>6&0x3F);
+			put(0x80|c&0x3F);
+		}else if(Character.isHighSurrogate(c)&&index+1<s.length()&&Character.isLowSurrogate(s.charAt(index+1))){
+			int cp = Character.toCodePoint(c, s.charAt(++index));
+			put(0xF0|cp>>18);
+			put(0x80|cp>>12&0x3F);
+			put(0x80|cp>>6&0x3F);
+			put(0x80|cp&0x3F);
+		}else put('?');
+		return index;
+	}
+
+	void drain() throws IOException{
+		if(count==0) return;
+		out.write(buffer, 0, count);
+		count = 0;
+	}
+
+	void flush() throws IOException{
+		drain();
+		out.flush();
+	}
+
+	void close() throws IOException{
+		try{
+			drain();
+		}finally{
+			out.close();
+		}
+	}
+}
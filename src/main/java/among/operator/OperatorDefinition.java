@@ -83,7 +83,7 @@ public final class OperatorDefinition extends ToPrettyString.Base{
 		return type;
 	}
 	@Nullable public String alias(){
-		return name;
+		return alias;
 	}
 	public byte properties(){
 		return properties;
@@ -1,5 +1,6 @@
 package among.operator;
 
+import among.internals.MemoryEstimates;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
@@ -208,6 +209,43 @@ public final class OperatorRegistry{
 		return operators.values().stream();
 	}
 
+	/**
+	 * @return Estimated size of memory retained by this registry and all operators registered, in bytes
+	 * @see MemoryEstimates
+	 */
+	public long estimateRetainedBytes(){
+		long bytes = MemoryEstimates.object(5, 0)+
+				MemoryEstimates.hashMap(operators.size())+
+				MemoryEstimates.hashMap(priorityGroup.size())+
+				MemoryEstimates.hashMap(operatorByStartingCodepoint.size())+
+				MemoryEstimates.hashMap(keywordByStartingCodepoint.size());
+		for(NameGroup g : operators.values()){
+			bytes += NAME_GROUP_SIZE+MemoryEstimates.string(g.name)+MemoryEstimates.array(g.codePoints.length, 4);
+			for(OperatorDefinition def : g.defByType.values())
+				bytes += OPERATOR_DEFINITION_SIZE+MemoryEstimates.string(def.name())+
+						(def.alias()==null ? 0 : MemoryEstimates.string(def.alias()));
+		}
+		for(PriorityGroup g : priorityGroup.values())
+			bytes += PRIORITY_GROUP_SIZE+MemoryEstimates.hashMap(g.operators.size());
+		return bytes;
+	}
+
+	/**
+	 * Size of each name group, including its {@link EnumMap} with a slot for each operator type, and the entry in the
+	 * tree set of {@link OperatorRegistry#operatorByStartingCodepoint} with its key, value, links and color.
+	 */
+	private static final int NAME_GROUP_SIZE = MemoryEstimates.object(3, 1)+
+			MemoryEstimates.object(5, 4)+(int)MemoryEstimates.array(OperatorType.values().length, MemoryEstimates.REFERENCE)+
+			MemoryEstimates.object(5, 1);
+	/**
+	 * Size of each operator definition: name, type, alias, properties, keyword flag and priority.
+	 */
+	private static final int OPERATOR_DEFINITION_SIZE = MemoryEstimates.object(3, 10);
+	/**
+	 * Size of each priority group: priority, type, associativity and map of operators.
+	 */
+	private static final int PRIORITY_GROUP_SIZE = MemoryEstimates.object(2, 9);
+
 	@Override public boolean equals(Object obj){
 		if(this==obj) return true;
 		if(!(obj instanceof OperatorRegistry)) return false;
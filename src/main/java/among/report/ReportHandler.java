@@ -1,6 +1,7 @@
 package among.report;
 
 import among.Source;
+import among.obj.Among;
 import org.jetbrains.annotations.Nullable;
 
 import java.util.function.BiConsumer;
@@ -140,6 +141,17 @@ public interface ReportHandler{
 	 */
 	void report(ReportType type, String message, int srcIndex, @Nullable Throwable ex, String... hints);
 
+	/**
+	 * Returns position of the node in the source being reported on, which can be passed to the reports. Positions are
+	 * known for the nodes created from the source during parsing.
+	 *
+	 * @param among The node
+	 * @return Position of the node in the source, or {@code -1} if the position is unknown
+	 */
+	default int sourcePositionOf(Among among){
+		return -1;
+	}
+
 	/**
 	 * Create a new report handler with specified 'default source position'; report will use specified source position
 	 * if source position is not specified.
@@ -148,8 +160,15 @@ public interface ReportHandler{
 	 * @return New report handler with specified default source position
 	 */
 	default ReportHandler reportAt(int sourcePosition){
-		return (type, message, srcIndex, ex, hints) ->
-				report(type, message, srcIndex<0 ? sourcePosition : srcIndex, ex, hints);
+		ReportHandler h = this;
+		return new ReportHandler(){
+			@Override public void report(ReportType type, String message, int srcIndex, @Nullable Throwable ex, String... hints){
+				h.report(type, message, srcIndex<0 ? sourcePosition : srcIndex, ex, hints);
+			}
+			@Override public int sourcePositionOf(Among among){
+				return h.sourcePositionOf(among);
+			}
+		};
 	}
 
 	/**
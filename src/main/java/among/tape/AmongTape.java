@@ -0,0 +1,568 @@
+package among.tape;
+
+import among.AmongRoot;
+import among.obj.Among;
+import among.obj.AmongList;
+import among.obj.AmongObject;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Read-only, flat representation of {@link AmongRoot}. Instead of a tree of node objects, each node is laid out on a
+ * 'tape' of integer records in depth-first order, with all strings stored in a deduplicated string pool. This
+ * significantly reduces both the memory footprint and the cost of garbage collection for large data sets.
+ * <p>
+ * Each node occupies {@link AmongTape#STRIDE} integers, each being:
+ * <ol start="0">
+ *     <li>{@link AmongTape#KIND}: Type of the node, one of {@link AmongTape#PRIMITIVE}, {@link AmongTape#LIST},
+ *     {@link AmongTape#OPERATION} or {@link AmongTape#OBJECT}</li>
+ *     <li>{@link AmongTape#STRING}: Index of the value (for primitives) or the name (for lists and objects) in string
+ *     pool</li>
+ *     <li>{@link AmongTape#KEY}: Index of the property key in string pool, if the parent is an object;
+ *     {@code -1} otherwise</li>
+ *     <li>{@link AmongTape#CHILDREN}: Number of child nodes</li>
+ *     <li>{@link AmongTape#END}: Index of the node right after the subtree of this node</li>
+ * </ol>
+ * Child nodes are placed right after their parent; as such, the first child of node {@code n} is at {@code n+1},
+ * and next sibling of node {@code n} is at {@code END} of node {@code n}.
+ * <p>
+ * Nodes can be accessed with {@link TapeCursor}, or converted back to tree form with {@link AmongTape#toRoot()}.
+ * <p>
+ * Tapes can be stored outside the heap with {@link AmongTape#offHeap(AmongRoot)}, and saved to a file with {@link
+ * AmongTape#save(Path)}. Saved files can be mapped back to memory with {@link AmongTape#map(Path)}, without parsing
+ * the source again. The file consists of a header of {@link AmongTape#HEADER_SIZE} bytes - magic number, format
+ * version, number of values, nodes and strings, and size of string data in bytes - followed by node records, offsets
+ * of each string in string data, and the UTF-8 encoded string data itself. All integers are stored in big-endian.
+ *
+ * @see TapeCursor
+ */
+public abstract class AmongTape{
+	public static final int KIND = 0;
+	public static final int STRING = 1;
+	public static final int KEY = 2;
+	public static final int CHILDREN = 3;
+	public static final int END = 4;
+	public static final int STRIDE = 5;
+
+	public static final int PRIMITIVE = 0;
+	public static final int LIST = 1;
+	public static final int OPERATION = 2;
+	public static final int OBJECT = 3;
+
+	public static final int MAGIC = 0x414D5450; // AMTP
+	public static final int VERSION = 1;
+	public static final int HEADER_SIZE = 24;
+
+	/**
+	 * Create a tape from values of {@code root}, allocated on heap.
+	 *
+	 * @param root Root to be converted
+	 * @return A new tape
+	 */
+	public static AmongTape of(AmongRoot root){
+		Writer w = new Writer(null);
+		for(Among among : root) w.write(among, -1);
+		return new HeapTape(Arrays.copyOf(w.data, w.size), w.strings.toArray(new String[0]), root.size());
+	}
+
+	/**
+	 * Create a tape from values of {@code root}, allocated outside the heap. Node records are encoded directly into the
+	 * buffer; the root is walked twice, first to count nodes and collect strings, then to write the records.
+	 *
+	 * @param root Root to be converted
+	 * @return A new tape
+	 * @throws IllegalStateException If the tape is too large to fit in buffers
+	 */
+	public static BufferTape offHeap(AmongRoot root){
+		Writer w = new Writer(null);
+		long nodeCount = 0;
+		for(Among among : root) nodeCount += w.intern(among);
+		byte[][] strings = new byte[w.strings.size()][];
+		for(int i = 0; i<strings.length; i++) strings[i] = w.strings.get(i).getBytes(StandardCharsets.UTF_8);
+		IntBuffer nodes = ByteBuffer.allocateDirect(checkSize(nodeCount*STRIDE*4)).asIntBuffer();
+		IntBuffer offsets = ByteBuffer.allocateDirect(checkSize((strings.length+1L)*4)).asIntBuffer();
+		ByteBuffer data = ByteBuffer.allocateDirect(totalLength(strings));
+		w.target = nodes;
+		for(Among among : root) w.write(among, -1);
+		for(byte[] string : strings){
+			offsets.put(data.position());
+			data.put(string);
+		}
+		offsets.put(data.position());
+		((Buffer)offsets).flip();
+		((Buffer)data).flip();
+		return new BufferTape(nodes, offsets, data, root.size());
+	}
+
+	/**
+	 * Map the tape saved with {@link AmongTape#save(Path)} to memory. The contents of the file are not copied to heap.
+	 * Node records and string offsets are validated once, so that traversing the tape always terminates. Modifying the
+	 * file while the tape is in use might produce unwanted behavior.
+	 *
+	 * @param path Path of the file
+	 * @return Tape mapped from the file
+	 * @throws IOException If an I/O error occurs, or the file is not a valid tape
+	 */
+	public static BufferTape map(Path path) throws IOException{
+		try(FileChannel ch = FileChannel.open(path, StandardOpenOption.READ)){
+			ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+			while(header.hasRemaining())
+				if(ch.read(header, header.position())<0) throw new IOException("Invalid tape file: Unexpected end of file");
+			((Buffer)header).flip();
+			Header h = Header.read(header, ch.size());
+			long pos = HEADER_SIZE;
+			ByteBuffer nodes = ch.map(FileChannel.MapMode.READ_ONLY, pos, h.nodeBytes());
+			pos += h.nodeBytes();
+			ByteBuffer offsets = ch.map(FileChannel.MapMode.READ_ONLY, pos, h.offsetBytes());
+			pos += h.offsetBytes();
+			ByteBuffer data = ch.map(FileChannel.MapMode.READ_ONLY, pos, h.stringBytes);
+			return validate(new BufferTape(nodes.asIntBuffer(), offsets.asIntBuffer(), data, h.valueCount));
+		}catch(IllegalArgumentException ex){
+			throw new IOException("Invalid tape file: "+ex.getMessage(), ex);
+		}
+	}
+
+	/**
+	 * Read the tape written with {@link AmongTape#write(WritableByteChannel)} from the buffer, starting at its current
+	 * position. The contents of the buffer are not copied; the returned tape is backed by the buffer. Node records and
+	 * string offsets are validated once, so that traversing the tape always terminates.
+	 *
+	 * @param buffer Buffer containing the tape
+	 * @return Tape backed by the buffer
+	 * @throws IllegalArgumentException If the buffer does not contain a valid tape
+	 */
+	public static BufferTape read(ByteBuffer buffer){
+		ByteBuffer b = buffer.duplicate();
+		Header h = Header.read(b, b.remaining());
+		int pos = b.position();
+		ByteBuffer nodes = slice(b, pos, (int)h.nodeBytes());
+		pos += (int)h.nodeBytes();
+		ByteBuffer offsets = slice(b, pos, (int)h.offsetBytes());
+		pos += (int)h.offsetBytes();
+		ByteBuffer data = slice(b, pos, h.stringBytes);
+		return validate(new BufferTape(nodes.asIntBuffer(), offsets.asIntBuffer(), data, h.valueCount));
+	}
+
+	/**
+	 * Checks that every field of every node record is in bounds, and the subtree of each node is laid out as described
+	 * in {@link AmongTape}; in particular, {@link AmongTape#END} of each node is past the node itself and within the
+	 * subtree of its parent.
+	 *
+	 * @throws IllegalArgumentException If the tape is not valid
+	 */
+	private static BufferTape validate(BufferTape tape){
+		int stringCount = tape.stringCount();
+		int stringBytes = tape.stringDataSize();
+		for(int i = 0, prev = 0; i<=stringCount; i++){
+			int offset = tape.stringOffset(i);
+			if(offset<prev||offset>stringBytes||(i==0&&offset!=0))
+				throw new IllegalArgumentException("Invalid string offset at "+i);
+			prev = offset;
+		}
+		int nodeCount = tape.nodeCount();
+		int n = 0;
+		for(int i = 0; i<tape.valueCount(); i++)
+			n = validateValue(tape, n, nodeCount, stringCount);
+		if(n!=nodeCount) throw new IllegalArgumentException("Invalid node count");
+		return tape;
+	}
+
+	/**
+	 * Validates the subtree of a top-level value. Subtrees are traversed with an explicit stack instead of recursion,
+	 * so that deeply nested tapes can't overflow the call stack.
+	 *
+	 * @return Index of the node right after the subtree
+	 */
+	private static int validateValue(AmongTape tape, int value, int end, int stringCount){
+		int[] starts = new int[16], ends = new int[16], remaining = new int[16];
+		int depth = 0;
+		int node = value;
+		int parentKind = -1, parentEnd = end;
+		while(true){
+			int next = validateNode(tape, node, parentEnd, parentKind, stringCount);
+			int children = tape.field(node, CHILDREN);
+			if(children>0){
+				if(depth==starts.length){
+					starts = Arrays.copyOf(starts, depth*2);
+					ends = Arrays.copyOf(ends, depth*2);
+					remaining = Arrays.copyOf(remaining, depth*2);
+				}
+				starts[depth] = node;
+				ends[depth] = next;
+				remaining[depth] = children;
+				depth++;
+				parentKind = tape.field(node, KIND);
+				parentEnd = next;
+				node++;
+				continue;
+			}
+			if(next!=node+1) throw new IllegalArgumentException("Invalid end of node "+node);
+			while(depth>0&&--remaining[depth-1]==0){
+				depth--;
+				if(next!=ends[depth]) throw new IllegalArgumentException("Invalid end of node "+starts[depth]);
+			}
+			if(depth==0) return next;
+			node = next;
+			parentKind = tape.field(starts[depth-1], KIND);
+			parentEnd = ends[depth-1];
+		}
+	}
+
+	/**
+	 * Validates fields of the node, without its child nodes.
+	 *
+	 * @return Value of {@link AmongTape#END} of the node
+	 */
+	private static int validateNode(AmongTape tape, int node, int end, int parentKind, int stringCount){
+		if(node>=end) throw new IllegalArgumentException("Node "+node+" out of bounds");
+		int kind = tape.field(node, KIND);
+		if(kind<PRIMITIVE||kind>OBJECT) throw new IllegalArgumentException("Invalid kind of node "+node);
+		int string = tape.field(node, STRING);
+		if(string<0||string>=stringCount) throw new IllegalArgumentException("Invalid string of node "+node);
+		int key = tape.field(node, KEY);
+		if(parentKind==OBJECT ? key<0||key>=stringCount : key!=-1)
+			throw new IllegalArgumentException("Invalid key of node "+node);
+		int nodeEnd = tape.field(node, END);
+		if(nodeEnd<=node||nodeEnd>end) throw new IllegalArgumentException("Invalid end of node "+node);
+		int children = tape.field(node, CHILDREN);
+		if(kind==PRIMITIVE){
+			if(children!=0||nodeEnd!=node+1) throw new IllegalArgumentException("Invalid primitive node "+node);
+			return nodeEnd;
+		}
+		if(children<0||children>nodeEnd-node-1) throw new IllegalArgumentException("Invalid child count of node "+node);
+		return nodeEnd;
+	}
+
+	private static ByteBuffer slice(ByteBuffer b, int position, int size){
+		((Buffer)b).limit(position+size);
+		((Buffer)b).position(position);
+		return b.slice();
+	}
+
+	/**
+	 * @return Number of top-level values
+	 */
+	public abstract int valueCount();
+	/**
+	 * @return Number of nodes in this tape
+	 */
+	public abstract int nodeCount();
+	/**
+	 * @return Number of strings in string pool
+	 */
+	public abstract int stringCount();
+
+	/**
+	 * Returns a field of a node.
+	 *
+	 * @param node  Index of the node
+	 * @param field Field of the node, one of {@link AmongTape#KIND}, {@link AmongTape#STRING}, {@link AmongTape#KEY},
+	 *              {@link AmongTape#CHILDREN} or {@link AmongTape#END}
+	 * @return Value of the field
+	 */
+	public abstract int field(int node, int field);
+	/**
+	 * Returns a string from string pool.
+	 *
+	 * @param index Index of the string
+	 * @return The string
+	 */
+	public abstract String string(int index);
+
+	/**
+	 * @return A new cursor pointing at first top-level value, or at the end of the tape if there is no value
+	 */
+	public TapeCursor cursor(){
+		return new TapeCursor(this, 0);
+	}
+
+	/**
+	 * Convert the tape back to tree form.
+	 *
+	 * @return A new root containing all values of this tape
+	 */
+	public AmongRoot toRoot(){
+		AmongRoot root = new AmongRoot();
+		for(int n = 0, i = 0; i<valueCount(); i++, n = field(n, END))
+			root.add(toAmong(n));
+		return root;
+	}
+
+	/**
+	 * Convert the node and its child nodes to tree form.
+	 *
+	 * @param node Index of the node
+	 * @return A new node
+	 */
+	public Among toAmong(int node){
+		String string = string(field(node, STRING));
+		switch(field(node, KIND)){
+			case PRIMITIVE: return Among.value(string);
+			case OBJECT:{
+				AmongObject o = Among.namedObject(string);
+				for(int c = node+1, end = field(node, END); c<end; c = field(c, END))
+					o.setProperty(string(field(c, KEY)), toAmong(c));
+				return o;
+			}
+			default:{
+				AmongList l = Among.namedList(string);
+				l.setOperation(field(node, KIND)==OPERATION);
+				for(int c = node+1, end = field(node, END); c<end; c = field(c, END))
+					l.add(toAmong(c));
+				return l;
+			}
+		}
+	}
+
+	/**
+	 * Copy this tape to buffers allocated outside the heap.
+	 *
+	 * @return A new tape with identical contents
+	 * @throws IllegalStateException If the tape is too large to fit in buffers
+	 */
+	public BufferTape toOffHeap(){
+		byte[][] strings = encodeStrings();
+		Header h = new Header(this, strings);
+		IntBuffer nodes = ByteBuffer.allocateDirect(checkSize(h.nodeBytes())).asIntBuffer();
+		for(int n = 0; n<nodeCount(); n++)
+			for(int f = 0; f<STRIDE; f++)
+				nodes.put(field(n, f));
+		IntBuffer offsets = ByteBuffer.allocateDirect(checkSize(h.offsetBytes())).asIntBuffer();
+		ByteBuffer data = ByteBuffer.allocateDirect(h.stringBytes);
+		for(byte[] string : strings){
+			offsets.put(data.position());
+			data.put(string);
+		}
+		offsets.put(data.position());
+		((Buffer)nodes).flip();
+		((Buffer)offsets).flip();
+		((Buffer)data).flip();
+		return new BufferTape(nodes, offsets, data, valueCount());
+	}
+
+	/**
+	 * Save this tape to a file. Existing file will be overwritten.
+	 *
+	 * @param path Path of the file
+	 * @throws IOException           If an I/O error occurs
+	 * @throws IllegalStateException If the tape is too large to be saved
+	 * @see AmongTape#map(Path)
+	 */
+	public void save(Path path) throws IOException{
+		try(FileChannel ch = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)){
+			write(ch);
+		}
+	}
+
+	/**
+	 * Write this tape to the channel.
+	 *
+	 * @param channel Channel to write to
+	 * @throws IOException           If an I/O error occurs
+	 * @throws IllegalStateException If the tape is too large to be saved
+	 * @see AmongTape#read(ByteBuffer)
+	 */
+	public void write(WritableByteChannel channel) throws IOException{
+		byte[][] strings = encodeStrings();
+		Header h = new Header(this, strings);
+		checkSize(h.nodeBytes());
+		checkSize(h.offsetBytes());
+		ByteBuffer b = ByteBuffer.allocate(8192);
+		b.putInt(MAGIC).putInt(VERSION).putInt(h.valueCount).putInt(h.nodeCount).putInt(h.stringCount).putInt(h.stringBytes);
+		for(int n = 0; n<nodeCount(); n++)
+			for(int f = 0; f<STRIDE; f++)
+				putInt(b, channel, field(n, f));
+		int offset = 0;
+		for(byte[] string : strings){
+			putInt(b, channel, offset);
+			offset += string.length;
+		}
+		putInt(b, channel, offset);
+		for(byte[] bytes : strings){
+			for(int j = 0; j<bytes.length; ){
+				if(!b.hasRemaining()) flush(b, channel);
+				int len = Math.min(b.remaining(), bytes.length-j);
+				b.put(bytes, j, len);
+				j += len;
+			}
+		}
+		flush(b, channel);
+	}
+
+	private static void putInt(ByteBuffer b, WritableByteChannel channel, int value) throws IOException{
+		if(b.remaining()<4) flush(b, channel);
+		b.putInt(value);
+	}
+
+	private static void flush(ByteBuffer b, WritableByteChannel channel) throws IOException{
+		((Buffer)b).flip();
+		while(b.hasRemaining()) channel.write(b);
+		((Buffer)b).clear();
+	}
+
+	private static int checkSize(long bytes){
+		if(bytes>Integer.MAX_VALUE) throw new IllegalStateException("Tape too large");
+		return (int)bytes;
+	}
+
+	/**
+	 * Encodes each string in string pool once; offsets and sizes are taken from the encoded bytes, as the length of
+	 * encoded strings with malformed surrogates can't be computed reliably without encoding them.
+	 */
+	private byte[][] encodeStrings(){
+		byte[][] strings = new byte[stringCount()][];
+		for(int i = 0; i<strings.length; i++) strings[i] = string(i).getBytes(StandardCharsets.UTF_8);
+		return strings;
+	}
+
+	private static int totalLength(byte[][] strings){
+		long bytes = 0;
+		for(byte[] string : strings) bytes += string.length;
+		return checkSize(bytes);
+	}
+
+	/**
+	 * Counts and sizes stored in the header of saved tapes.
+	 */
+	private static final class Header{
+		final int valueCount;
+		final int nodeCount;
+		final int stringCount;
+		final int stringBytes;
+
+		Header(AmongTape tape, byte[][] strings){
+			this.valueCount = tape.valueCount();
+			this.nodeCount = tape.nodeCount();
+			this.stringCount = strings.length;
+			this.stringBytes = totalLength(strings);
+		}
+		private Header(int valueCount, int nodeCount, int stringCount, int stringBytes){
+			this.valueCount = valueCount;
+			this.nodeCount = nodeCount;
+			this.stringCount = stringCount;
+			this.stringBytes = stringBytes;
+		}
+
+		long nodeBytes(){
+			return (long)nodeCount*STRIDE*4;
+		}
+		long offsetBytes(){
+			return (stringCount+1L)*4;
+		}
+
+		static Header read(ByteBuffer b, long size){
+			if(size<HEADER_SIZE) throw new IllegalArgumentException("Unexpected end of file");
+			if(b.getInt()!=MAGIC) throw new IllegalArgumentException("Invalid magic number");
+			int version = b.getInt();
+			if(version!=VERSION) throw new IllegalArgumentException("Unsupported version "+version);
+			Header h = new Header(b.getInt(), b.getInt(), b.getInt(), b.getInt());
+			if(h.valueCount<0||h.nodeCount<0||h.stringCount<0||h.stringBytes<0||h.valueCount>h.nodeCount)
+				throw new IllegalArgumentException("Invalid header");
+			if(h.nodeBytes()>Integer.MAX_VALUE||h.offsetBytes()>Integer.MAX_VALUE||
+					HEADER_SIZE+h.nodeBytes()+h.offsetBytes()+h.stringBytes>size)
+				throw new IllegalArgumentException("Unexpected end of file");
+			return h;
+		}
+	}
+
+	/**
+	 * Writes tape records of nodes.
+	 */
+	static final class Writer{
+		/**
+		 * Buffer to write the records to, or {@code null} to write to {@link Writer#data}.
+		 */
+		@Nullable IntBuffer target;
+		int[] data;
+		int size;
+		final List<String> strings = new ArrayList<>();
+		private final Map<String, Integer> stringToIndex = new HashMap<>();
+
+		Writer(@Nullable IntBuffer target){
+			this.target = target;
+			this.data = target==null ? new int[STRIDE*64] : new int[0];
+		}
+
+		/**
+		 * Collects strings of the node and its child nodes to the string pool, without writing records.
+		 *
+		 * @return Number of nodes in the subtree
+		 */
+		long intern(Among among){
+			if(among.isPrimitive()){
+				string(among.asPrimitive().getValue());
+				return 1;
+			}
+			long nodes = 1;
+			if(among.isObj()){
+				AmongObject o = among.asObj();
+				string(o.getName());
+				for(Map.Entry<String, Among> e : o.properties().entrySet()){
+					string(e.getKey());
+					nodes += intern(e.getValue());
+				}
+			}else{
+				AmongList l = among.asList();
+				string(l.getName());
+				for(Among e : l) nodes += intern(e);
+			}
+			return nodes;
+		}
+
+		void write(Among among, int key){
+			int node = size;
+			if(target==null&&size+STRIDE>data.length) data = Arrays.copyOf(data, data.length*2);
+			size += STRIDE;
+			int children;
+			if(among.isPrimitive()){
+				put(node+KIND, PRIMITIVE);
+				put(node+STRING, string(among.asPrimitive().getValue()));
+				children = 0;
+			}else if(among.isObj()){
+				AmongObject o = among.asObj();
+				put(node+KIND, OBJECT);
+				put(node+STRING, string(o.getName()));
+				children = o.size();
+				o.forEachProperty((k, v) -> write(v, string(k)));
+			}else{
+				AmongList l = among.asList();
+				put(node+KIND, l.isOperation() ? OPERATION : LIST);
+				put(node+STRING, string(l.getName()));
+				children = l.size();
+				for(Among e : l) write(e, -1);
+			}
+			put(node+KEY, key);
+			put(node+CHILDREN, children);
+			put(node+END, size/STRIDE);
+		}
+
+		private void put(int index, int value){
+			if(target!=null) target.put(index, value);
+			else data[index] = value;
+		}
+
+		int string(String s){
+			Integer i = stringToIndex.get(s);
+			if(i==null){
+				i = strings.size();
+				strings.add(s);
+				stringToIndex.put(s, i);
+			}
+			return i;
+		}
+	}
+}
@@ -0,0 +1,60 @@
+package among.tape;
+
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * {@link AmongTape} backed by {@link ByteBuffer}s, either allocated outside the heap or mapped from a file. Neither the
+ * node records nor the strings are stored in heap; strings are decoded from UTF-8 on each access.<br>
+ * Node records, string offsets and string data are each stored in separate buffers, and as such, each of them can be
+ * at most 2GB in size.
+ *
+ * @see AmongTape#offHeap(among.AmongRoot)
+ * @see AmongTape#map(java.nio.file.Path)
+ */
+public final class BufferTape extends AmongTape{
+	private final IntBuffer nodes;
+	private final IntBuffer stringOffsets;
+	private final ByteBuffer stringData;
+	private final int valueCount;
+
+	BufferTape(IntBuffer nodes, IntBuffer stringOffsets, ByteBuffer stringData, int valueCount){
+		this.nodes = nodes;
+		this.stringOffsets = stringOffsets;
+		this.stringData = stringData;
+		this.valueCount = valueCount;
+	}
+
+	@Override public int valueCount(){
+		return valueCount;
+	}
+	@Override public int nodeCount(){
+		return nodes.limit()/STRIDE;
+	}
+	@Override public int stringCount(){
+		return stringOffsets.limit()-1;
+	}
+
+	@Override public int field(int node, int field){
+		return nodes.get(node*STRIDE+field);
+	}
+	int stringOffset(int index){
+		return stringOffsets.get(index);
+	}
+	int stringDataSize(){
+		return stringData.limit();
+	}
+
+	@Override public String string(int index){
+		if(index<0||index>=stringCount()) throw new IndexOutOfBoundsException("String index out of bounds: "+index);
+		int start = stringOffsets.get(index);
+		int end = stringOffsets.get(index+1);
+		if(start==end) return "";
+		ByteBuffer b = stringData.duplicate();
+		((Buffer)b).limit(end);
+		((Buffer)b).position(start);
+		return StandardCharsets.UTF_8.decode(b).toString();
+	}
+}
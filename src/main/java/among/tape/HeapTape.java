@@ -0,0 +1,33 @@
+package among.tape;
+
+/**
+ * {@link AmongTape} allocated on heap.
+ */
+public final class HeapTape extends AmongTape{
+	private final int[] data;
+	private final String[] strings;
+	private final int valueCount;
+
+	HeapTape(int[] data, String[] strings, int valueCount){
+		this.data = data;
+		this.strings = strings;
+		this.valueCount = valueCount;
+	}
+
+	@Override public int valueCount(){
+		return valueCount;
+	}
+	@Override public int nodeCount(){
+		return data.length/STRIDE;
+	}
+	@Override public int stringCount(){
+		return strings.length;
+	}
+
+	@Override public int field(int node, int field){
+		return data[node*STRIDE+field];
+	}
+	@Override public String string(int index){
+		return strings[index];
+	}
+}
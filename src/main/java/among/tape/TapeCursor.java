@@ -0,0 +1,200 @@
+package among.tape;
+
+import among.exception.Sussy;
+import among.obj.Among;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Arrays;
+
+/**
+ * Flyweight accessor for nodes of {@link AmongTape}. Single cursor instance can be moved around the tape, reading each
+ * node without creating any objects other than the strings themselves.<br>
+ * The cursor keeps track of parents of current node, making it possible to move between siblings and parents.
+ * Parents are tracked only from the node cursor was moved with {@link TapeCursor#moveTo(int)}.
+ */
+public final class TapeCursor{
+	private final AmongTape tape;
+	private int node;
+	private int[] parents = new int[8];
+	private int depth;
+
+	TapeCursor(AmongTape tape, int node){
+		this.tape = tape;
+		this.node = node;
+	}
+
+	public AmongTape tape(){
+		return tape;
+	}
+
+	/**
+	 * @return Index of current node
+	 */
+	public int node(){
+		return node;
+	}
+	/**
+	 * @return Whether the cursor is pointing at a node; {@code false} if it's at the end of the tape
+	 */
+	public boolean isValid(){
+		return node<tape.nodeCount();
+	}
+	/**
+	 * @return Depth of current node, relative to the node cursor was moved with {@link TapeCursor#moveTo(int)}
+	 */
+	public int depth(){
+		return depth;
+	}
+
+	/**
+	 * Move this cursor to specific node. Parents of the node will not be tracked.
+	 *
+	 * @param node Index of the node
+	 * @return This
+	 * @throws IndexOutOfBoundsException If the node index is out of bounds
+	 */
+	public TapeCursor moveTo(int node){
+		if(node<0||node>=tape.nodeCount()) throw new IndexOutOfBoundsException("Node index out of bounds: "+node);
+		this.node = node;
+		this.depth = 0;
+		return this;
+	}
+
+	/**
+	 * Move to first child of current node.
+	 *
+	 * @return Whether the cursor moved; {@code false} if current node has no child nodes
+	 */
+	public boolean moveToFirstChild(){
+		if(tape.field(node, AmongTape.CHILDREN)==0) return false;
+		if(depth==parents.length) parents = Arrays.copyOf(parents, depth*2);
+		parents[depth++] = node;
+		node++;
+		return true;
+	}
+	/**
+	 * Move to next sibling of current node.
+	 *
+	 * @return Whether the cursor moved; {@code false} if current node is the last child of its parent
+	 */
+	public boolean moveToNextSibling(){
+		int next = tape.field(node, AmongTape.END);
+		int end = depth==0 ? tape.nodeCount() : tape.field(parents[depth-1], AmongTape.END);
+		if(next>=end) return false;
+		node = next;
+		return true;
+	}
+	/**
+	 * Move to parent of current node.
+	 *
+	 * @return Whether the cursor moved; {@code false} if the parent is not tracked
+	 */
+	public boolean moveToParent(){
+		if(depth==0) return false;
+		node = parents[--depth];
+		return true;
+	}
+	/**
+	 * Move to element of current list at specific index.
+	 *
+	 * @param index Index of the element
+	 * @return Whether the cursor moved; {@code false} if there is no element at the index
+	 */
+	public boolean moveToElement(int index){
+		if(index<0||index>=size()) return false;
+		moveToFirstChild();
+		for(int i = 0; i<index; i++) node = tape.field(node, AmongTape.END);
+		return true;
+	}
+	/**
+	 * Move to property of current object with specific key.
+	 *
+	 * @param key Key of the property
+	 * @return Whether the cursor moved; {@code false} if current node is not an object or there is no property with
+	 * the key
+	 */
+	public boolean moveToProperty(String key){
+		if(!isObj()) return false;
+		for(int c = node+1, end = tape.field(node, AmongTape.END); c<end; c = tape.field(c, AmongTape.END)){
+			if(tape.string(tape.field(c, AmongTape.KEY)).equals(key)){
+				moveToFirstChild();
+				node = c;
+				return true;
+			}
+		}
+		return false;
+	}
+
+	public boolean isPrimitive(){
+		return tape.field(node, AmongTape.KIND)==AmongTape.PRIMITIVE;
+	}
+	public boolean isObj(){
+		return tape.field(node, AmongTape.KIND)==AmongTape.OBJECT;
+	}
+	/**
+	 * @return Whether current node is a list, including operations
+	 */
+	public boolean isList(){
+		int kind = tape.field(node, AmongTape.KIND);
+		return kind==AmongTape.LIST||kind==AmongTape.OPERATION;
+	}
+	public boolean isOperation(){
+		return tape.field(node, AmongTape.KIND)==AmongTape.OPERATION;
+	}
+	public boolean isNameable(){
+		return !isPrimitive();
+	}
+
+	/**
+	 * @return Value of current primitive
+	 * @throws Sussy If current node is not a primitive
+	 */
+	public String getValue(){
+		if(!isPrimitive()) throw new Sussy("Expected primitive");
+		return tape.string(tape.field(node, AmongTape.STRING));
+	}
+	/**
+	 * @return Name of current list or object
+	 * @throws Sussy If current node is a primitive
+	 */
+	public String getName(){
+		if(isPrimitive()) throw new Sussy("Expected nameable");
+		return tape.string(tape.field(node, AmongTape.STRING));
+	}
+	/**
+	 * @return Whether current list or object has a name; {@code false} for primitives
+	 */
+	public boolean hasName(){
+		return !isPrimitive()&&!tape.string(tape.field(node, AmongTape.STRING)).isEmpty();
+	}
+	/**
+	 * @return Property key of current node if its parent is an object, {@code null} otherwise
+	 */
+	@Nullable public String key(){
+		int key = tape.field(node, AmongTape.KEY);
+		return key==-1 ? null : tape.string(key);
+	}
+	/**
+	 * @return Number of elements or properties of current node; {@code 0} for primitives
+	 */
+	public int size(){
+		return tape.field(node, AmongTape.CHILDREN);
+	}
+
+	/**
+	 * @return Current node and its child nodes converted to tree form
+	 */
+	public Among toAmong(){
+		return tape.toAmong(node);
+	}
+
+	/**
+	 * @return A new cursor at the same position
+	 */
+	public TapeCursor copy(){
+		TapeCursor c = new TapeCursor(tape, node);
+		c.parents = parents.clone();
+		c.depth = depth;
+		return c;
+	}
+}
@@ -0,0 +1,92 @@
+package test;
+
+import among.AmongDefinition;
+import among.AmongRoot;
+import among.CompileResult;
+import among.RootAndDefinition;
+import among.Source;
+import among.binary.AmongBinary;
+import among.internals.library.DefaultInstanceProvider;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+public class BinaryTests{
+	private static final String[] EQUALITY_TESTS = {
+			"1", "2", "3", "4", "5", "6", "7", "associativity", "collapseUnaryOperation", "collections", "crossRef",
+			"eval", "fmt", "fn", "json1", "json2", "json3", "keywordTest", "listTest", "macroTest", "numberTest",
+			"objTest", "operationTest", "operation_newline", "primitiveTest", "undefTest", "unicodeTest"
+	};
+
+	@Test public void equalityTests() throws IOException{
+		AmongDefinition imports = libraries();
+		for(String file : EQUALITY_TESTS){
+			RootAndDefinition r = TestUtil.make(TestUtil.expectSourceFrom("equality_tests", file), false);
+			ByteArrayOutputStream out = new ByteArrayOutputStream();
+			AmongBinary.write(r, out);
+
+			RootAndDefinition read = AmongBinary.readRootAndDefinition(new ByteArrayInputStream(out.toByteArray()), imports);
+			Assertions.assertEquals(r.root().values(), read.root().values(), file);
+			Assertions.assertEquals(r.definition().macros(), read.definition().macros(), file);
+			Assertions.assertEquals(r.definition().operators(), read.definition().operators(), file);
+		}
+	}
+
+	@Test public void macroExpansion() throws IOException{
+		RootAndDefinition r = TestUtil.make(TestUtil.expectSourceFrom("equality_tests", "macroTest"), false);
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		AmongBinary.write(r.definition(), out);
+		AmongDefinition definition = AmongBinary.readDefinition(new ByteArrayInputStream(out.toByteArray()));
+
+		String src = "macro1()\n"+
+				"{ a: macro2 { param: [ 1, 2 ] } }\n"+
+				"nestedMacro[ x, y ]\n"+
+				"nestedMacro[ x ]";
+		CompileResult expected = TestUtil.engine.read(Source.of(src), null, r.definition());
+		CompileResult actual = TestUtil.engine.read(Source.of(src), null, definition);
+		Assertions.assertEquals(expected.isSuccess(), actual.isSuccess());
+		Assertions.assertEquals(expected.root().values(), actual.root().values());
+		Assertions.assertEquals(expected.hasWarning(), actual.hasWarning());
+	}
+
+	@Test public void codeDefinedMacros() throws IOException{
+		RootAndDefinition r = TestUtil.make(Source.of("use eval\nmacro sum[a, b]: eval(a + b)\nsum[1, 2]"), false);
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		AmongBinary.write(r.definition(), out);
+		byte[] bytes = out.toByteArray();
+
+		Assertions.assertThrows(IOException.class, () -> AmongBinary.readDefinition(new ByteArrayInputStream(bytes)));
+		AmongDefinition definition = AmongBinary.readDefinition(new ByteArrayInputStream(bytes), libraries());
+		CompileResult result = TestUtil.engine.read(Source.of("sum[3, 4]"), null, definition);
+		result.expectSuccess();
+		Assertions.assertEquals(r.definition().macros(), definition.macros());
+		Assertions.assertEquals(TestUtil.engine.read(Source.of("sum[3, 4]"), null, r.definition()).root().values(), result.root().values());
+	}
+
+	@Test public void rootOnly() throws IOException{
+		AmongRoot root = TestUtil.make(TestUtil.expectSourceFrom("equality_tests", "json1"), false).root();
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		AmongBinary.write(root, out);
+		byte[] bytes = out.toByteArray();
+		Assertions.assertEquals(root.values(), AmongBinary.readRoot(new ByteArrayInputStream(bytes)).values());
+		Assertions.assertThrows(IOException.class, () -> AmongBinary.readDefinition(new ByteArrayInputStream(bytes)));
+	}
+
+	@Test public void invalidBinary(){
+		Assertions.assertThrows(IOException.class, () -> AmongBinary.readRoot(new ByteArrayInputStream(new byte[]{1, 2, 3})));
+		Assertions.assertThrows(IOException.class, () -> AmongBinary.readRoot(new ByteArrayInputStream(new byte[]{0x41, 0x4D, 0x4E, 0x42, 1, 1, 5})));
+	}
+
+	private static AmongDefinition libraries(){
+		AmongDefinition definition = new AmongDefinition();
+		for(AmongDefinition d : new AmongDefinition[]{
+				DefaultInstanceProvider.eval(),
+				DefaultInstanceProvider.collection(),
+				DefaultInstanceProvider.format()
+		}) d.macros().allMacros().forEach(definition.macros()::add);
+		return definition;
+	}
+}
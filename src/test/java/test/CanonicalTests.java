@@ -0,0 +1,83 @@
+package test;
+
+import among.AmongRoot;
+import among.RootAndDefinition;
+import among.obj.Among;
+import among.obj.AmongDigest;
+import among.obj.CanonicalWriter;
+import among.obj.CanonicalWriter.KeyOrder;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+import static among.obj.Among.*;
+
+public class CanonicalTests{
+	private static final String[] FILES = {
+			"1", "2", "3", "4", "5", "6", "7", "collections", "json1", "json2", "json3", "macroTest", "objTest",
+			"operationTest", "primitiveTest", "unicodeTest"
+	};
+
+	@Test public void format(){
+		Among among = namedObject("obj")
+				.prop("b", namedList("op", 1, "x y"))
+				.prop("a", object())
+				.prop("c", list());
+		Assertions.assertEquals("\"obj\"{\"a\":{},\"b\":\"op\"[\"1\",\"x y\"],\"c\":[]}", canonical(among));
+		Assertions.assertEquals("\"obj\"{\"b\":\"op\"[\"1\",\"x y\"],\"a\":{},\"c\":[]}",
+				new String(CanonicalWriter.toBytes(among, KeyOrder.INSERTION, true), StandardCharsets.UTF_8));
+		Assertions.assertEquals("\"\\\"\\\\\\u000a\\u0009/* é😀 \\ud800\"",
+				canonical(value("\"\\\n\t/* é😀 \ud800")));
+	}
+
+	@Test public void numbers(){
+		String[][] cases = {
+				{"1", "1"}, {"+1", "1"}, {"007", "7"}, {"-0.0", "0"}, {"0e10", "0"}, {"+1.50", "1.5"}, {"1e3", "1000"},
+				{"1.5E2", "150"}, {"1e25", "1E+25"}, {"0.000001", "0.000001"}, {"1e-7", "1E-7"}, {"-12.340", "-12.34"},
+				{"1.", "1."}, {".5", ".5"}, {"NaN", "NaN"}, {"0x10", "0x10"}, {"1e", "1e"}, {"abc", "abc"}
+		};
+		for(String[] c : cases){
+			Assertions.assertEquals('"'+c[1]+'"', canonical(value(c[0])), c[0]);
+			Assertions.assertEquals('"'+c[0]+'"',
+					new String(CanonicalWriter.toBytes(value(c[0]), KeyOrder.SORTED, false), StandardCharsets.UTF_8), c[0]);
+		}
+		Assertions.assertEquals(canonical(list(1, 2.5, 3)), canonical(packedList(1, 2.5, 3)));
+		Assertions.assertEquals(CanonicalWriter.digest(list("1.0", "2")), CanonicalWriter.digest(list("1", "2.00")));
+	}
+
+	@Test public void digest() throws IOException, NoSuchAlgorithmException{
+		for(String file : FILES){
+			RootAndDefinition r = TestUtil.make(TestUtil.expectSourceFrom("equality_tests", file), false);
+			AmongRoot root = r.root();
+			StringBuilder stb = new StringBuilder();
+			for(Among among : root){
+				byte[] bytes = CanonicalWriter.toBytes(among);
+				Assertions.assertEquals(AmongDigest.of(MessageDigest.getInstance("MD5").digest(bytes)), CanonicalWriter.digest(among));
+				Assertions.assertEquals(CanonicalWriter.digest(among), CanonicalWriter.digest(among.copy()));
+				stb.append(new String(bytes, StandardCharsets.UTF_8)).append('\n');
+			}
+			Assertions.assertEquals(AmongDigest.of(MessageDigest.getInstance("MD5").digest(stb.toString().getBytes(StandardCharsets.UTF_8))),
+					CanonicalWriter.digest(root));
+		}
+	}
+
+	@Test public void keyOrder(){
+		Among a = object().prop("x", 1).prop("y", list(object().prop("p", 1).prop("q", 2)));
+		Among b = object().prop("y", list(object().prop("q", 2).prop("p", 1))).prop("x", 1);
+		Assertions.assertEquals(a, b);
+		Assertions.assertEquals(CanonicalWriter.digest(a), CanonicalWriter.digest(b));
+		Assertions.assertArrayEquals(CanonicalWriter.toBytes(a), CanonicalWriter.toBytes(b));
+		Assertions.assertFalse(canonical(a, KeyOrder.INSERTION).equals(canonical(b, KeyOrder.INSERTION)));
+	}
+
+	private static String canonical(Among among){
+		return new String(CanonicalWriter.toBytes(among), StandardCharsets.UTF_8);
+	}
+	private static String canonical(Among among, KeyOrder keyOrder){
+		return new String(CanonicalWriter.toBytes(among, keyOrder, true), StandardCharsets.UTF_8);
+	}
+}
@@ -0,0 +1,157 @@
+package test;
+
+import among.AmongEngine;
+import among.CompileResult;
+import among.CompiledCache;
+import among.FileCompiledCache;
+import among.ReadResult;
+import among.Source;
+import among.SourcePositionMode;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import static among.obj.Among.*;
+
+public class CompiledCacheTests{
+	@Test public void fileCache() throws IOException{
+		Path directory = Files.createTempDirectory("among");
+		try{
+			Map<String, String> sources = new HashMap<>();
+			sources.put("a", "use b\nsum[1, 2]\n{ a: [ 1, 2 ] }");
+			sources.put("b", "use eval\nmacro sum[a, b]: eval(a + b)\nsum[3, 4]");
+			FileCompiledCache cache = new FileCompiledCache(directory);
+
+			AmongEngine engine = engine(sources, cache);
+			ReadResult a = engine.getOrReadFrom("a");
+			a.expectSuccess();
+			Assertions.assertTrue(a instanceof ReadResult.Compiled);
+			Assertions.assertEquals(2, count(directory));
+
+			engine = engine(sources, cache);
+			ReadResult cachedA = engine.getOrReadFrom("a");
+			Assertions.assertTrue(cachedA instanceof ReadResult.Cached);
+			Assertions.assertTrue(engine.getOrReadFrom("b") instanceof ReadResult.Cached);
+			Assertions.assertEquals(a.root().values(), cachedA.root().values());
+			Assertions.assertEquals(value("3.0"), cachedA.root().get(0));
+			Assertions.assertEquals(object().prop("a", list(1, 2)), cachedA.root().get(1));
+
+			// code-defined macros referenced by cached definition are resolved
+			Assertions.assertEquals(value("11.0"), engine.read(Source.of("sum[5, 6]"), null,
+					engine.getOrReadFrom("b").definition()).root().single());
+
+			// change of dependency invalidates dependents
+			sources.put("b", "use eval\nmacro sum[a, b]: eval(a * b)");
+			engine = engine(sources, cache);
+			ReadResult changedA = engine.getOrReadFrom("a");
+			Assertions.assertTrue(changedA instanceof ReadResult.Compiled);
+			Assertions.assertTrue(engine.getOrReadFrom("b") instanceof ReadResult.Compiled);
+			Assertions.assertEquals(value("2.0"), changedA.root().get(0));
+
+			engine = engine(sources, cache);
+			Assertions.assertTrue(engine.getOrReadFrom("a") instanceof ReadResult.Cached);
+
+			// change of source invalidates the entry
+			sources.put("a", "use b\nsum[3, 3]");
+			engine = engine(sources, cache);
+			ReadResult changedSource = engine.getOrReadFrom("a");
+			Assertions.assertTrue(changedSource instanceof ReadResult.Compiled);
+			Assertions.assertTrue(engine.getOrReadFrom("b") instanceof ReadResult.Cached);
+			Assertions.assertEquals(value("9.0"), changedSource.root().single());
+		}finally{
+			try(Stream<Path> s = Files.list(directory)){
+				s.forEach(p -> p.toFile().delete());
+			}
+			Files.deleteIfExists(directory);
+		}
+	}
+
+	@Test public void failedCompilationIsNotCached(){
+		Map<String, CompiledCache.Entry> entries = new HashMap<>();
+		Map<String, String> sources = new HashMap<>();
+		sources.put("a", "use missing\n{ a: b");
+		sources.put("b", "[ b ]");
+		AmongEngine engine = engine(sources, memoryCache(entries));
+		Assertions.assertFalse(engine.getOrReadFrom("a", null).isSuccess());
+		Assertions.assertTrue(engine.getOrReadFrom("b").isSuccess());
+		Assertions.assertFalse(entries.containsKey("a"));
+		Assertions.assertTrue(entries.containsKey("b"));
+		Assertions.assertTrue(entries.get("b").dependencies().isEmpty());
+	}
+
+	@Test public void compileOptions(){
+		Map<String, String> sources = new HashMap<>();
+		sources.put("a", "{ a: 1, a: 2 }\n[ 1, 2, 3 ]");
+		CompiledCache cache = memoryCache(new HashMap<>());
+
+		AmongEngine engine = engine(sources, cache);
+		engine.allowDuplicateObjectProperty = true;
+		Assertions.assertTrue(engine.getOrReadFrom("a").isSuccess());
+
+		engine = engine(sources, cache);
+		engine.allowDuplicateObjectProperty = true;
+		Assertions.assertTrue(engine.getOrReadFrom("a") instanceof ReadResult.Cached);
+
+		engine = engine(sources, cache);
+		Assertions.assertFalse(engine.getOrReadFrom("a", null).isSuccess());
+
+		engine = engine(sources, cache);
+		engine.allowDuplicateObjectProperty = true;
+		engine.packNumericLists = true;
+		ReadResult a = engine.getOrReadFrom("a");
+		Assertions.assertTrue(a instanceof ReadResult.Compiled);
+		Assertions.assertTrue(a.root().get(1).asList().isPacked());
+	}
+
+	@Test public void sourcePositionTable(){
+		Map<String, String> sources = new HashMap<>();
+		sources.put("a", "[ a ]");
+		CompiledCache cache = memoryCache(new HashMap<>());
+		engine(sources, cache).getOrReadFrom("a").expectSuccess();
+
+		AmongEngine engine = engine(sources, cache);
+		engine.sourcePositionMode = SourcePositionMode.TABLE;
+		ReadResult a = engine.getOrReadFrom("a");
+		Assertions.assertTrue(a instanceof ReadResult.Compiled);
+		Assertions.assertEquals(0, engine.sourcePositions().position(a.root().single()));
+		Assertions.assertEquals("a", engine.sourcePositions().fileOf(a.root().single()));
+	}
+
+	private static CompiledCache memoryCache(Map<String, CompiledCache.Entry> entries){
+		return new CompiledCache(){
+			@Override public CompiledCache.Entry load(String path){
+				return entries.get(path);
+			}
+			@Override public void store(String path, CompiledCache.Entry entry){
+				entries.put(path, entry);
+			}
+			@Override public void invalidate(String path){
+				entries.remove(path);
+			}
+		};
+	}
+
+	private static AmongEngine engine(Map<String, String> sources, CompiledCache cache){
+		AmongEngine engine = new AmongEngine(){
+			@Override protected void handleCompileError(String path, CompileResult result){}
+		};
+		engine.addSourceProvider(path -> {
+			String src = sources.get(path);
+			return src==null ? null : Source.of(src);
+		});
+		engine.setCompiledCache(cache);
+		return engine;
+	}
+
+	private static long count(Path directory) throws IOException{
+		try(Stream<Path> s = Files.list(directory)){
+			return s.count();
+		}
+	}
+}
@@ -0,0 +1,159 @@
+package test;
+
+import among.AmongEngine;
+import among.CompileResult;
+import among.ReadResult;
+import among.Source;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static among.obj.Among.*;
+
+public class ConcurrentEngineTests{
+	@Test public void singleFlight() throws Exception{
+		AtomicInteger resolveCount = new AtomicInteger();
+		CountDownLatch latch = new CountDownLatch(1);
+		AmongEngine engine = new AmongEngine();
+		engine.addSourceProvider(path -> {
+			if(!path.equals("lib")) return null;
+			resolveCount.incrementAndGet();
+			latch.await(); // hold the resolution until every thread requested the path
+			return Source.of("use eval\nmacro sum[a, b]: eval(a + b)\nsum[1, 2]");
+		});
+		ExecutorService executor = Executors.newFixedThreadPool(8);
+		try{
+			List<Future<ReadResult>> futures = new ArrayList<>();
+			for(int i = 0; i<8; i++) futures.add(executor.submit(() -> engine.getOrReadFrom("lib")));
+			Thread.sleep(100);
+			latch.countDown();
+			ReadResult first = futures.get(0).get(10, TimeUnit.SECONDS);
+			first.expectSuccess();
+			Assertions.assertEquals(value("3.0"), first.root().single());
+			for(Future<ReadResult> f : futures)
+				Assertions.assertSame(first, f.get(10, TimeUnit.SECONDS));
+			Assertions.assertEquals(1, resolveCount.get());
+		}finally{
+			executor.shutdownNow();
+		}
+	}
+
+	@Test public void readFromJoinsInFlight() throws Exception{
+		AtomicInteger resolveCount = new AtomicInteger();
+		CountDownLatch latch = new CountDownLatch(1);
+		AmongEngine engine = new AmongEngine();
+		engine.addSourceProvider(path -> {
+			if(!path.equals("lib")) return null;
+			resolveCount.incrementAndGet();
+			latch.await();
+			return Source.of("[1, 2]");
+		});
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		try{
+			Future<ReadResult> first = executor.submit(() -> engine.getOrReadFrom("lib"));
+			Thread.sleep(100);
+			List<Future<ReadResult>> futures = new ArrayList<>();
+			for(int i = 0; i<3; i++) futures.add(executor.submit(() -> engine.readFrom("lib")));
+			Thread.sleep(100);
+			latch.countDown();
+			ReadResult r = first.get(10, TimeUnit.SECONDS);
+			r.expectSuccess();
+			for(Future<ReadResult> f : futures)
+				Assertions.assertSame(r, f.get(10, TimeUnit.SECONDS));
+			Assertions.assertEquals(1, resolveCount.get());
+
+			Assertions.assertNotSame(r, engine.readFrom("lib")); // nothing in flight; resolved again
+			Assertions.assertEquals(2, resolveCount.get());
+		}finally{
+			executor.shutdownNow();
+		}
+	}
+
+	@Test public void parallelImports() throws Exception{
+		Map<String, Integer> resolveCount = new ConcurrentHashMap<>();
+		AmongEngine engine = new AmongEngine();
+		engine.addSourceProvider(path -> {
+			resolveCount.merge(path, 1, Integer::sum);
+			if(path.equals("common")) return Source.of("macro common: 42");
+			if(path.startsWith("script")) return Source.of("use common\n{ name: "+path+", value: common }");
+			return null;
+		});
+		ExecutorService executor = Executors.newFixedThreadPool(8);
+		try{
+			List<Future<ReadResult>> futures = new ArrayList<>();
+			for(int i = 0; i<64; i++){
+				String path = "script"+i%16;
+				futures.add(executor.submit(() -> engine.getOrReadFrom(path)));
+			}
+			for(int i = 0; i<futures.size(); i++){
+				ReadResult r = futures.get(i).get(10, TimeUnit.SECONDS);
+				r.expectSuccess();
+				Assertions.assertEquals(object().prop("name", "script"+i%16).prop("value", 42), r.root().single());
+			}
+			for(int count : resolveCount.values())
+				Assertions.assertEquals(1, count);
+			Assertions.assertEquals(17, resolveCount.size());
+		}finally{
+			executor.shutdownNow();
+		}
+	}
+
+	@Test public void selfReference(){
+		List<String> reports = new ArrayList<>();
+		AmongEngine engine = reportingEngine(reports);
+		engine.addSourceProvider(path -> path.equals("a") ? Source.of("use a") : null);
+		Assertions.assertFalse(engine.getOrReadFrom("a").isSuccess());
+		Assertions.assertTrue(reports.stream().anyMatch(s -> s.contains("'a': Self-reference")), reports::toString);
+	}
+
+	@Test public void circularReferenceAcrossThreads(){
+		Assertions.assertTimeoutPreemptively(Duration.ofSeconds(10), () -> {
+			CountDownLatch latch = new CountDownLatch(2);
+			List<String> reports = new ArrayList<>();
+			AmongEngine engine = reportingEngine(reports);
+			engine.addSourceProvider(path -> {
+				switch(path){
+					case "a": case "b":
+						// make sure both threads start resolving before either of them imports the other
+						latch.countDown();
+						latch.await();
+						return Source.of(path.equals("a") ? "use b" : "use a");
+					default: return null;
+				}
+			});
+			ExecutorService executor = Executors.newFixedThreadPool(2);
+			try{
+				Future<ReadResult> a = executor.submit(() -> engine.getOrReadFrom("a"));
+				Future<ReadResult> b = executor.submit(() -> engine.getOrReadFrom("b"));
+				Assertions.assertFalse(a.get().isSuccess());
+				Assertions.assertFalse(b.get().isSuccess());
+			}finally{
+				executor.shutdownNow();
+			}
+			synchronized(reports){
+				Assertions.assertTrue(reports.stream().anyMatch(s -> s.contains("Circular reference detected")), reports::toString);
+			}
+		});
+	}
+
+	private static AmongEngine reportingEngine(List<String> reports){
+		return new AmongEngine(){
+			@Override protected void handleCompileError(String path, CompileResult result){
+				synchronized(reports){
+					result.printReports(path, reports::add);
+				}
+			}
+		};
+	}
+}
@@ -1,17 +1,27 @@
 package test;
 
 import among.AmongDefinition;
+import among.AmongEngine;
 import among.AmongRoot;
+import among.AmongVisitor;
+import among.CompileResult;
+import among.Source;
 import among.NodePath;
 import among.exception.Sussy;
 import among.internals.library.DefaultInstanceProvider;
 import among.macro.Macro;
+import among.macro.MacroDefinition;
 import among.macro.MacroReplacement;
 import among.macro.MacroType;
+import among.obj.AmongList;
+import among.obj.AmongObject;
+import among.obj.AmongPrimitive;
 import among.operator.OperatorType;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 
+import java.lang.reflect.Field;
+
 import static among.obj.Among.*;
 
 public class CopyTests{
@@ -78,4 +88,97 @@ public class CopyTests{
 
 		Assertions.assertEquals(def.operators(), def2.operators());
 	}
+
+	@Test public void lazyCopy(){
+		AmongObject o1 = object()
+				.prop("L", list(1, 2, namedList("nested", 3, 4)))
+				.prop("O", namedObject("Obj").prop("A", "A"));
+		AmongObject o2 = o1.copy();
+		Assertions.assertEquals(o1, o2);
+
+		o2.expectProperty("L").asList().get(2).asList().add("5");
+		o2.expectProperty("O").asObj().setName("Renamed");
+		Assertions.assertEquals(list(1, 2, namedList("nested", 3, 4)), o1.expectProperty("L"));
+		Assertions.assertEquals(namedObject("Obj").prop("A", "A"), o1.expectProperty("O"));
+		Assertions.assertEquals(list(1, 2, namedList("nested", 3, 4, 5)), o2.expectProperty("L"));
+
+		AmongObject o3 = o1.copy();
+		o1.setProperty("O", value("Replaced"));
+		o1.expectProperty("L").asList().removeAt(0);
+		Assertions.assertEquals(namedObject("Obj").prop("A", "A"), o3.expectProperty("O"));
+		Assertions.assertEquals(list(1, 2, namedList("nested", 3, 4)), o3.expectProperty("L"));
+	}
+
+	@Test public void lazyCopyOfCopy(){
+		AmongList l1 = list(list(1, 2), list(3, 4));
+		AmongList l2 = l1.copy();
+		AmongList l3 = l2.copy();
+		l3.get(0).asList().set(0, "one");
+		l2.get(1).asList().clear();
+		Assertions.assertEquals(list(list(1, 2), list(3, 4)), l1);
+		Assertions.assertEquals(list(list(1, 2), list()), l2);
+		Assertions.assertEquals(list(list("one", 2), list(3, 4)), l3);
+	}
+
+	@Test public void childObtainedBeforeCopy(){
+		AmongObject o = object().prop("a", object().prop("x", 1));
+		AmongObject a = o.expectProperty("a").asObj();
+		AmongObject copy = o.copy();
+		a.setProperty("x", value(2));
+		Assertions.assertEquals(object().prop("a", object().prop("x", 1)), copy);
+		Assertions.assertEquals("{a:{x:1}}", copy.toString());
+	}
+
+	@Test public void copyOfFrozen(){
+		AmongObject o = object()
+				.prop("L", list(1, 2, namedList("nested", 3, 4)))
+				.prop("O", namedObject("Obj").prop("A", "A"));
+		o.freeze();
+		AmongObject copy = o.copy();
+		Assertions.assertFalse(copy.isFrozen());
+		Assertions.assertEquals(o, copy);
+		Assertions.assertEquals(o.toString(), copy.toString());
+
+		AmongList nested = copy.expectProperty("L").asList().get(2).asList();
+		Assertions.assertFalse(nested.isFrozen());
+		nested.add("5");
+		copy.expectProperty("O").asObj().setName("Renamed");
+		Assertions.assertEquals(list(1, 2, namedList("nested", 3, 4)), o.expectProperty("L"));
+		Assertions.assertEquals(namedObject("Obj").prop("A", "A"), o.expectProperty("O"));
+		Assertions.assertEquals(list(1, 2, namedList("nested", 3, 4, 5)), copy.expectProperty("L"));
+		Assertions.assertTrue(o.expectProperty("L").asList().get(2).isFrozen());
+	}
+
+	@Test public void macroExpansionSharesTemplate() throws ReflectiveOperationException{
+		CompileResult result = new AmongEngine().read(Source.of(
+				"macro m(x) : { a: [1, 2, 3], b: { c: deep }, v: x }\n"+
+						"m(5)\nm(6)"));
+		result.expectSuccess();
+		AmongList[] templateList = new AmongList[1];
+		result.definition().macros().allMacros().forEach(m -> ((MacroDefinition)m).visitTemplate(new AmongVisitor(){
+			@Override public void visit(AmongPrimitive primitive){}
+			@Override public boolean visitBefore(AmongList list){
+				templateList[0] = list;
+				return false;
+			}
+		}));
+		Assertions.assertNotNull(templateList[0]);
+		Assertions.assertTrue(templateList[0].isFrozen());
+
+		AmongObject o1 = result.root().get(0).asObj(), o2 = result.root().get(1).asObj();
+		Assertions.assertFalse(o1.isFrozen());
+		AmongList a1 = o1.expectProperty("a").asList(), a2 = o2.expectProperty("a").asList();
+		Assertions.assertNotSame(templateList[0], a1);
+		// only the spine touched by the replacement is copied; untouched subtrees borrow storage of the template
+		Field values = AmongList.class.getDeclaredField("values");
+		values.setAccessible(true);
+		Assertions.assertSame(values.get(templateList[0]), values.get(a1));
+		Assertions.assertSame(values.get(templateList[0]), values.get(a2));
+
+		a1.add(value(4)); // modifying the expansion does not affect the template or others
+		Assertions.assertNotSame(values.get(templateList[0]), values.get(a1));
+		Assertions.assertEquals(list(1, 2, 3), templateList[0]);
+		Assertions.assertEquals(object().prop("a", list(1, 2, 3, 4)).prop("b", object().prop("c", "deep")).prop("v", 5), o1);
+		Assertions.assertEquals(object().prop("a", list(1, 2, 3)).prop("b", object().prop("c", "deep")).prop("v", 6), o2);
+	}
 }
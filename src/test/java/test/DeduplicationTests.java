@@ -0,0 +1,100 @@
+package test;
+
+import among.AmongEngine;
+import among.AmongRoot;
+import among.CompileResult;
+import among.Source;
+import among.obj.Among;
+import among.obj.AmongDeduplicator;
+import among.obj.AmongList;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import static among.obj.Among.*;
+
+public class DeduplicationTests{
+	@Test public void deduplicateRoot(){
+		AmongRoot root = new AmongRoot();
+		root.add(list(object().prop("A", 1).prop("B", list(1, 2)), object().prop("A", 1).prop("B", list(1, 2))));
+		root.add(object().prop("A", 1).prop("B", list(1, 2)));
+		root.add(value("1"));
+
+		long bytes = root.deduplicate();
+		Assertions.assertTrue(bytes>0);
+		Assertions.assertTrue(root.get(0).isFrozen());
+
+		Among o1 = root.get(0).asList().get(0);
+		Assertions.assertSame(o1, root.get(0).asList().get(1));
+		Assertions.assertSame(o1, root.get(1));
+		Assertions.assertSame(root.get(2), o1.asObj().expectProperty("A"));
+		Assertions.assertSame(root.get(2), o1.asObj().expectProperty("B").asList().get(0));
+		Assertions.assertEquals(list(object().prop("A", 1).prop("B", list(1, 2)), object().prop("A", 1).prop("B", list(1, 2))), root.get(0));
+	}
+
+	@Test public void sharedDeduplicator(){
+		AmongDeduplicator deduplicator = new AmongDeduplicator();
+		Among a = deduplicator.deduplicate(namedList("macro", list("default", "block")));
+		Among b = deduplicator.deduplicate(namedList("macro", list("default", "block")));
+		Assertions.assertSame(a, b);
+		Assertions.assertEquals(4, deduplicator.duplicates());
+		Assertions.assertEquals(8, deduplicator.nodes());
+		Assertions.assertEquals(4, deduplicator.size());
+	}
+
+	@Test public void engineOption(){
+		AmongEngine engine = new AmongEngine();
+		engine.deduplicateCompileResult = true;
+		CompileResult result = engine.read(Source.of("macro block{}: { default: [1, 2, 3] }\n"+
+				"block{}\nblock{}\n[block{}, block{}]"));
+		result.printReports();
+		result.expectSuccess();
+		AmongRoot root = result.root();
+		Assertions.assertSame(root.get(0), root.get(1));
+		Assertions.assertSame(root.get(0), root.get(2).asList().get(0));
+		Assertions.assertTrue(root.get(0).isFrozen());
+		Assertions.assertThrows(IllegalStateException.class, () -> root.get(0).asObj().removeProperty("default"));
+	}
+
+	@Test public void operationFlag(){
+		AmongDeduplicator deduplicator = new AmongDeduplicator();
+		AmongList operation = list(1, 2);
+		operation.setOperation(true);
+		Among a = deduplicator.deduplicate(list(operation, list(1, 2)));
+		Assertions.assertNotSame(a.asList().get(0), a.asList().get(1));
+		Assertions.assertEquals("[(\"1\",\"2\"),[1,2]]", a.toString());
+
+		Among b = deduplicator.deduplicate(list(list(1, 2), list(1, 2)));
+		Assertions.assertEquals(a, b);
+		Assertions.assertNotSame(a, b); // equal, but not identical
+		Assertions.assertSame(a.asList().get(1), b.asList().get(0));
+		Assertions.assertEquals("[[1,2],[1,2]]", b.toString());
+	}
+
+	@Test public void propertyOrder(){
+		AmongDeduplicator deduplicator = new AmongDeduplicator();
+		Among a = deduplicator.deduplicate(object().prop("a", 1).prop("b", 2));
+		Among b = deduplicator.deduplicate(object().prop("b", 2).prop("a", 1));
+		Assertions.assertEquals(a, b);
+		Assertions.assertNotSame(a, b); // equal, but printed differently
+		Assertions.assertEquals("{a:1,b:2}", a.toString());
+		Assertions.assertEquals("{b:2,a:1}", b.toString());
+		Assertions.assertSame(a, deduplicator.deduplicate(object().prop("a", 1).prop("b", 2)));
+	}
+
+	@Test public void frozenNodesUntouched(){
+		AmongDeduplicator deduplicator = new AmongDeduplicator();
+		Among canonical = deduplicator.deduplicate(list(1, 2));
+		AmongList frozen = list(list(1, 2), list(3));
+		frozen.freeze();
+		Among child = frozen.get(0), child2 = frozen.get(1);
+
+		AmongList l = list(frozen.copy(), list(1, 2));
+		Assertions.assertSame(l, deduplicator.deduplicate(l));
+		Assertions.assertSame(canonical, l.get(1));
+		Assertions.assertSame(canonical, l.get(0).asList().get(0));
+		Assertions.assertSame(child2, l.get(0).asList().get(1)); // already canonical
+		// children of nodes frozen before are not replaced, even through copies borrowing their storage
+		Assertions.assertSame(child, frozen.get(0));
+		Assertions.assertNotSame(canonical.asList().get(0), child.asList().get(0));
+	}
+}
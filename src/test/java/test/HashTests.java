@@ -0,0 +1,78 @@
+package test;
+
+import among.obj.Among;
+import among.obj.AmongList;
+import among.obj.AmongObject;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import static among.obj.Among.*;
+
+public class HashTests{
+	@Test public void hashInvalidation(){
+		AmongObject o = object()
+				.prop("L", list(1, 2, 3))
+				.prop("O", object().prop("A", "B"));
+		int hash = o.hashCode();
+		Assertions.assertEquals(hash, o.hashCode());
+
+		o.expectProperty("L").asList().add("4");
+		Assertions.assertNotEquals(hash, o.hashCode());
+		Assertions.assertEquals(object()
+				.prop("L", list(1, 2, 3, 4))
+				.prop("O", object().prop("A", "B")).hashCode(), o.hashCode());
+
+		o.expectProperty("O").asObj().expectProperty("A").asPrimitive().setValue("C");
+		Assertions.assertNotEquals(o, object()
+				.prop("L", list(1, 2, 3, 4))
+				.prop("O", object().prop("A", "B")));
+	}
+
+	@Test public void digest(){
+		AmongObject o1 = object().prop("A", 1).prop("B", list("x", namedList("y", 2)));
+		AmongObject o2 = object().prop("B", list("x", namedList("y", 2))).prop("A", 1);
+		Assertions.assertEquals(o1, o2);
+		Assertions.assertEquals(o1.digest(), o2.digest());
+		Assertions.assertEquals(o1.digest(), o1.copy().digest());
+
+		Assertions.assertNotEquals(list("ab", "c").digest(), list("a", "bc").digest());
+		Assertions.assertNotEquals(list().digest(), object().digest());
+		Assertions.assertNotEquals(value("").digest(), list().digest());
+
+		o2.expectProperty("B").asList().get(1).asList().setName("z");
+		Assertions.assertNotEquals(o1.digest(), o2.digest());
+	}
+
+	@Test public void digestStability(){
+		Assertions.assertEquals("3293510a96ad3b9f33c2e78312cb8ec1", value("Hello!").digest().toString());
+	}
+
+	@Test public void freeze(){
+		AmongList l = list(1, object().prop("A", list(2)));
+		l.freeze();
+		Assertions.assertTrue(l.isFrozen());
+		Assertions.assertTrue(l.get(1).isFrozen());
+		Assertions.assertThrows(IllegalStateException.class, () -> l.add("3"));
+		Assertions.assertThrows(IllegalStateException.class, () -> l.get(0).asPrimitive().setValue("0"));
+		Assertions.assertThrows(IllegalStateException.class, () -> l.get(1).asObj().removeProperty("A"));
+		Assertions.assertThrows(IllegalStateException.class, () -> l.get(1).asObj().expectProperty("A").asList().clear());
+
+		AmongList copy = l.copy();
+		Assertions.assertFalse(copy.isFrozen());
+		Assertions.assertFalse(copy.get(1).isFrozen());
+		copy.get(1).asObj().expectProperty("A").asList().add("3");
+		Assertions.assertEquals(list(1, object().prop("A", list(2))), l);
+		Assertions.assertEquals(list(1, object().prop("A", list(2, 3))), copy);
+	}
+
+	@Test public void frozenHashSurvivesModification(){
+		AmongList frozen = list(1, 2, list(3));
+		frozen.freeze();
+		int hash = frozen.hashCode();
+		Among mutable = list(1, 2, list(3));
+		Assertions.assertEquals(hash, mutable.hashCode());
+		mutable.asList().add("4");
+		Assertions.assertEquals(hash, frozen.hashCode());
+		Assertions.assertNotEquals(frozen, mutable);
+	}
+}
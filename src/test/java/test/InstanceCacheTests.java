@@ -0,0 +1,216 @@
+package test;
+
+import among.AmongEngine;
+import among.InstanceCache;
+import among.ReadResult;
+import among.RootAndDefinition;
+import among.Source;
+import among.SourcePositionMode;
+import among.obj.Among;
+import among.obj.SourcePositionTable;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+public class InstanceCacheTests{
+	@Test public void lru(){
+		InstanceCache cache = InstanceCache.builder().maximumSize(2).build();
+		cache.put("a", failure("a"));
+		cache.put("b", failure("b"));
+		Assertions.assertNotNull(cache.get("a")); // b is now least recently used
+		cache.put("c", failure("c"));
+		Assertions.assertTrue(cache.contains("a"));
+		Assertions.assertFalse(cache.contains("b"));
+		Assertions.assertTrue(cache.contains("c"));
+		Assertions.assertNull(cache.get("b"));
+
+		InstanceCache.Stats stats = cache.stats();
+		Assertions.assertEquals(1, stats.hitCount());
+		Assertions.assertEquals(1, stats.missCount());
+		Assertions.assertEquals(1, stats.evictionCount());
+		Assertions.assertEquals(0.5, stats.hitRate());
+		Assertions.assertEquals(2, cache.size());
+	}
+
+	@Test public void weight(){
+		InstanceCache cache = InstanceCache.builder().maximumWeight(10, r -> r.path().length()).build();
+		cache.put("aaaa", failure("aaaa"));
+		cache.put("bbbb", failure("bbbb"));
+		cache.put("cc", failure("cc"));
+		Assertions.assertEquals(3, cache.size());
+		cache.put("d", failure("d"));
+		Assertions.assertFalse(cache.contains("aaaa"));
+		Assertions.assertEquals(3, cache.size());
+		cache.put("eeeeeeeeeee", failure("eeeeeeeeeee")); // heavier than maximum itself
+		Assertions.assertEquals(0, cache.size());
+		Assertions.assertEquals(5, cache.stats().evictionCount());
+	}
+
+	@Test public void expiration(){
+		AtomicLong time = new AtomicLong();
+		InstanceCache cache = InstanceCache.builder()
+				.expireAfterAccess(Duration.ofNanos(10))
+				.expireAfterWrite(Duration.ofNanos(25))
+				.ticker(time::get)
+				.build();
+		cache.put("a", failure("a"));
+		cache.put("b", failure("b"));
+		time.set(8);
+		Assertions.assertNotNull(cache.get("a"));
+		time.set(16);
+		Assertions.assertNotNull(cache.get("a"));
+		Assertions.assertNull(cache.get("b"));
+		time.set(25);
+		Assertions.assertNull(cache.get("a"));
+		Assertions.assertEquals(0, cache.size());
+		Assertions.assertEquals(2, cache.stats().evictionCount());
+	}
+
+	@Test public void pin(){
+		InstanceCache cache = InstanceCache.builder()
+				.maximumSize(1)
+				.pin(path -> path.startsWith("lib/"))
+				.build();
+		cache.put("provided", new ReadResult.Provided("provided", new RootAndDefinition()));
+		cache.put("lib/a", failure("lib/a"));
+		cache.put("a", failure("a"));
+		cache.put("b", failure("b"));
+		Assertions.assertTrue(cache.contains("provided"));
+		Assertions.assertTrue(cache.contains("lib/a"));
+		Assertions.assertFalse(cache.contains("a"));
+		Assertions.assertTrue(cache.contains("b"));
+		cache.clear();
+		Assertions.assertEquals(0, cache.size());
+
+		InstanceCache unpinned = InstanceCache.builder().maximumSize(1).pinProvided(false).build();
+		unpinned.put("provided", new ReadResult.Provided("provided", new RootAndDefinition()));
+		unpinned.put("a", failure("a"));
+		Assertions.assertFalse(unpinned.contains("provided"));
+	}
+
+	@Test public void evictionListener(){
+		InstanceCache cache = InstanceCache.builder().maximumSize(1).build();
+		List<String> evicted = new ArrayList<>();
+		Consumer<String> listener = path -> {
+			Assertions.assertFalse(Thread.holdsLock(cache)); // notified outside the lock
+			evicted.add(path);
+		};
+		cache.addEvictionListener(listener);
+		cache.put("a", failure("a"));
+		cache.put("a", failure("a")); // replaced, not evicted
+		cache.put("b", failure("b"));
+		cache.clear();
+		Assertions.assertEquals(1, evicted.size());
+		Assertions.assertEquals("a", evicted.get(0));
+		cache.removeEvictionListener(listener);
+		cache.put("c", failure("c"));
+		cache.put("d", failure("d"));
+		Assertions.assertEquals(1, evicted.size());
+	}
+
+	@Test public void releaseSourcePositions(){
+		Map<String, String> sources = new HashMap<>();
+		sources.put("defs", "macro hello : [ 'Hello!' ]");
+		sources.put("a", "use defs\n[ 1, hello ]");
+		sources.put("b", "[ 3 ]");
+		AmongEngine engine = new AmongEngine();
+		engine.sourcePositionMode = SourcePositionMode.TABLE;
+		engine.addSourceProvider(path -> sources.containsKey(path) ? Source.of(sources.get(path)) : null);
+		engine.setInstanceCache(InstanceCache.builder().maximumSize(2).pin("defs"::equals).build());
+		SourcePositionTable table = engine.sourcePositions();
+
+		Among a = engine.getOrReadFrom("a").root().single();
+		Among hello = a.asList().get(1);
+		Assertions.assertEquals("a", table.fileOf(a));
+		Assertions.assertEquals("a", table.fileOf(hello)); // expanded at the call site
+		int defsEntries = table.size()-3; // a, 1 and expanded list
+
+		Among a2 = engine.readFrom("a").root().single(); // compiling again replaces the entries
+		Assertions.assertEquals(defsEntries+3, table.size());
+		Assertions.assertFalse(table.contains(a));
+		Assertions.assertFalse(table.contains(hello));
+		a = a2;
+		hello = a2.asList().get(1);
+		Assertions.assertEquals("a", table.fileOf(hello));
+
+		Among b = engine.getOrReadFrom("b").root().single();
+		engine.getOrReadFrom("c"); // evicts a
+		Assertions.assertFalse(engine.instanceCache().contains("a"));
+		Assertions.assertFalse(table.contains(a));
+		Assertions.assertFalse(table.contains(hello));
+		Assertions.assertTrue(table.contains(b));
+		Assertions.assertEquals(defsEntries+2, table.size());
+	}
+
+	@Test public void accessOrder(){
+		InstanceCache cache = InstanceCache.builder().maximumSize(2).build();
+		cache.put("a", failure("a"));
+		cache.put("b", failure("b"));
+		cache.get("a");
+		cache.put("c", failure("c")); // evicts b, least recently used
+		Assertions.assertTrue(cache.contains("a"));
+		Assertions.assertFalse(cache.contains("b"));
+		Assertions.assertTrue(cache.contains("c"));
+	}
+
+	@Test public void releaseSelfEvicted(){
+		Map<String, String> sources = new HashMap<>();
+		sources.put("a", "[ 1, 2 ]");
+		AmongEngine engine = new AmongEngine();
+		engine.sourcePositionMode = SourcePositionMode.TABLE;
+		engine.addSourceProvider(path -> sources.containsKey(path) ? Source.of(sources.get(path)) : null);
+		engine.setInstanceCache(InstanceCache.builder().expireAfterWrite(Duration.ZERO).build());
+
+		engine.getOrReadFrom("a").expectSuccess(); // evicted by its own put
+		Assertions.assertFalse(engine.instanceCache().contains("a"));
+		Assertions.assertEquals(0, engine.sourcePositions().size());
+	}
+
+	@Test public void engine(){
+		Map<String, String> sources = new HashMap<>();
+		sources.put("a", "use default_operators\nmacro a: 1 + 2");
+		sources.put("b", "use a\na");
+		sources.put("c", "use a\n[ a ]");
+		Map<String, Integer> resolveCount = new HashMap<>();
+		AmongEngine engine = new AmongEngine();
+		engine.addSourceProvider(path -> {
+			String src = sources.get(path);
+			if(src==null) return null;
+			resolveCount.merge(path, 1, Integer::sum);
+			return Source.of(src);
+		});
+		InstanceCache cache = InstanceCache.builder().maximumSize(2).build();
+		engine.setInstanceCache(cache);
+		Assertions.assertSame(cache, engine.instanceCache());
+
+		ReadResult b = engine.getOrReadFrom("b");
+		b.expectSuccess();
+		Assertions.assertSame(b, engine.getOrReadFrom("b"));
+		Assertions.assertTrue(cache.contains("default_operators")); // provided instances are pinned
+		Assertions.assertEquals(3, cache.size());
+
+		engine.getOrReadFrom("c").expectSuccess(); // evicts b
+		Assertions.assertFalse(cache.contains("b"));
+		Assertions.assertEquals(3, engine.memoryReport().instances());
+
+		ReadResult b2 = engine.getOrReadFrom("b");
+		b2.expectSuccess();
+		Assertions.assertNotSame(b, b2);
+		Assertions.assertEquals(b.root().values(), b2.root().values());
+		Assertions.assertEquals(2, resolveCount.get("b"));
+		Assertions.assertEquals(1, resolveCount.get("a"));
+		Assertions.assertEquals(1, resolveCount.get("c"));
+		Assertions.assertTrue(cache.stats().evictionCount()>0);
+	}
+
+	private static ReadResult failure(String path){
+		return new ReadResult.Failure(path);
+	}
+}
@@ -0,0 +1,133 @@
+package test;
+
+import among.RootAndDefinition;
+import among.ToStringOption;
+import among.obj.Among;
+import among.obj.AmongDeduplicator;
+import among.obj.AmongList;
+import among.obj.JsonReader;
+import among.obj.JsonWriter;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+import static among.obj.Among.*;
+
+public class JsonTests{
+	private static final ToStringOption JSON = ToStringOption.DEFAULT.variant().jsonCompatible().build();
+	private static final String[] FILES = {
+			"1", "2", "3", "4", "5", "6", "7", "collections", "json1", "json2", "json3", "macroTest", "objTest",
+			"operationTest", "primitiveTest", "unicodeTest"
+	};
+
+	@Test public void readJsonFiles() throws IOException{
+		JsonReader reader = new JsonReader();
+		for(String file : new String[]{"json1", "json2", "json3"}){
+			RootAndDefinition r = TestUtil.make(TestUtil.expectSourceFrom("equality_tests", file), false);
+			Among expected = r.root().values().get(0);
+			String json = expected.toString(JSON);
+			Assertions.assertEquals(expected, reader.read(json));
+			Assertions.assertEquals(expected, reader.read(new TrickleInputStream(json.getBytes(StandardCharsets.UTF_8))));
+			Assertions.assertEquals(expected, reader.read(expected.toPrettyString(0, JSON)));
+		}
+	}
+
+	@Test public void values() throws IOException{
+		JsonReader reader = new JsonReader();
+		Assertions.assertEquals(value("true"), reader.read("true"));
+		Assertions.assertEquals(value("null"), reader.read(" null "));
+		Assertions.assertEquals(value("-0.5e+10"), reader.read("-0.5e+10"));
+		Assertions.assertEquals(value("0"), reader.read("0"));
+		Assertions.assertEquals(list(), reader.read("[ ]"));
+		Assertions.assertEquals(object(), reader.read("{}"));
+		Assertions.assertEquals(object().prop("a", list(1, "b", object().prop("c", "null"))),
+				reader.read("{\"a\":[1,\"b\",{\"c\":null}]}"));
+		Assertions.assertEquals(value("\"\\/\b\f\n\r\t\u00e9\ud83d\ude00"),
+				reader.read("\"\\\"\\\\\\/\\b\\f\\n\\r\\t\\u00E9\\ud83d\\ude00\""));
+		Assertions.assertEquals(value("é😀ㄱ"), reader.read("\"é😀ㄱ\""));
+		Assertions.assertEquals(value("é😀ㄱ"), reader.read(new TrickleInputStream("\"é😀ㄱ\"".getBytes(StandardCharsets.UTF_8))));
+	}
+
+	@Test public void invalid(){
+		JsonReader reader = new JsonReader();
+		for(String json : new String[]{
+				"", " ", "[1,]", "{\"a\":1,}", "{a:1}", "{'a':1}", "01", "-", "1.", "1e", ".5", "+1", "tru", "nul",
+				"[1 2]", "1 2", "// comment\n1", "\"a\nb\"", "\"\\x\"", "\"\\u12\"", "\"abc", "[", "{\"a\" 1}",
+				"{\"a\":1,\"a\":2}", "NaN", "[1]]"
+		}) Assertions.assertThrows(IOException.class, () -> reader.read(json), json);
+		Assertions.assertThrows(IOException.class, () -> reader.read(new byte[]{'"', (byte)0xC0, (byte)0x80, '"'}));
+		Assertions.assertThrows(IOException.class, () -> reader.read(new byte[]{'"', (byte)0xED, (byte)0xA0, (byte)0x80, '"'}));
+		Assertions.assertThrows(IOException.class, () -> reader.read(new byte[]{'"', (byte)0xE3, (byte)0x84, '"'}));
+		StringBuilder deep = new StringBuilder();
+		for(int i = 0; i<=JsonReader.MAX_DEPTH; i++) deep.append('[');
+		Assertions.assertThrows(IOException.class, () -> reader.read(deep.toString()));
+
+		IOException ex = Assertions.assertThrows(IOException.class, () -> reader.read("{\n  \"a\": tru\n}"));
+		Assertions.assertTrue(ex.getMessage().contains("line 2"), ex.getMessage());
+	}
+
+	@Test public void packAndDeduplicate() throws IOException{
+		AmongDeduplicator deduplicator = new AmongDeduplicator();
+		JsonReader reader = new JsonReader().packNumericLists(true).deduplicate(deduplicator);
+		Among among = reader.read("[[1,2,3],[1,2,3],[1,\"a\"]]");
+		Assertions.assertEquals(list(list(1, 2, 3), list(1, 2, 3), list(1, "a")), among);
+		AmongList l = among.asList();
+		Assertions.assertTrue(l.get(0).asList().isPacked());
+		Assertions.assertFalse(l.get(2).asList().isPacked());
+		Assertions.assertSame(l.get(0), l.get(1));
+		Assertions.assertTrue(among.isFrozen());
+	}
+
+	@Test public void internedKeys() throws IOException{
+		JsonReader reader = new JsonReader();
+		Among a = reader.read("{\"key\":1}");
+		Among b = reader.read(new TrickleInputStream("{\"key\":2}".getBytes(StandardCharsets.UTF_8)));
+		Assertions.assertSame(a.asObj().properties().keySet().iterator().next(),
+				b.asObj().properties().keySet().iterator().next());
+	}
+
+	@Test public void writer() throws IOException{
+		for(String file : FILES){
+			RootAndDefinition r = TestUtil.make(TestUtil.expectSourceFrom("equality_tests", file), false);
+			for(Among among : r.root()) check(among);
+		}
+		check(value("a\r\nb\rc\n//x/*y*/ \\\"\b\f\t\u0001 é😀\ud800"));
+		check(namedObject("name with space").prop("key: {}", namedList("(op)", "x")));
+		AmongList packed = packedList(1, 2, 3000000000L);
+		check(packed);
+		check(object().prop("x", packedList(0.5, 1e100)));
+	}
+
+	@Test public void roundTrip() throws IOException{
+		JsonReader reader = new JsonReader();
+		Among among = object().prop("a", "// not a comment /* */").prop("b", list("a\nb", "é😀", object()));
+		Assertions.assertEquals(among, reader.read(JsonWriter.toBytes(among)));
+	}
+
+	private static void check(Among among){
+		Assertions.assertArrayEquals(among.toString(JSON).getBytes(StandardCharsets.UTF_8), JsonWriter.toBytes(among),
+				among::toString);
+	}
+
+	/**
+	 * Stream returning at most one byte at a time, to test reading across buffer boundaries.
+	 */
+	private static final class TrickleInputStream extends InputStream{
+		private final ByteArrayInputStream in;
+
+		TrickleInputStream(byte[] bytes){
+			this.in = new ByteArrayInputStream(bytes);
+		}
+
+		@Override public int read(){
+			return in.read();
+		}
+		@Override public int read(byte[] b, int off, int len){
+			return in.read(b, off, Math.min(len, 1));
+		}
+	}
+}
@@ -0,0 +1,79 @@
+package test;
+
+import among.ToStringOption;
+import among.internals.LiteralFormats;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+import java.util.function.BiConsumer;
+import java.util.regex.Pattern;
+
+public class LiteralFormatTests{
+	private static final String CHARS = "ab /*\\\"'{}[]():,=\r\n\t\f\b\u000Bé😀|";
+
+	@Test public void identicalToRegex(){
+		Random random = new Random(1234);
+		ToStringOption option = ToStringOption.DEFAULT;
+		ToStringOption json = option.variant().jsonCompatible().build();
+		for(int i = 0; i<100000; i++){
+			String s = randomString(random);
+			Assertions.assertEquals(Reference.SIMPLE_WORD.matcher(s).matches(), LiteralFormats.isSimpleWord(s), s);
+			Assertions.assertEquals(Reference.SIMPLE.matcher(s).matches(), LiteralFormats.isSimpleKey(s), s);
+			Assertions.assertEquals(Reference.SIMPLE.matcher(s).matches(), LiteralFormats.isSimpleValue(s), s);
+			Assertions.assertEquals(Reference.SIMPLE.matcher(s).matches(), LiteralFormats.isSimpleMacroName(s), s);
+
+			check(Reference.replace(Reference.WORD_SPECIALS, s, true), LiteralFormats::simpleWordToString, s);
+			check(Reference.replace(Reference.KEY_SPECIALS, s, true), LiteralFormats::simpleKeyToString, s);
+			check(Reference.replace(Reference.KEY_SPECIALS, s, true), LiteralFormats::simpleValueToString, s);
+			check(Reference.replace(Reference.MACRO_NAME_SPECIALS, s, true), LiteralFormats::simpleMacroNameToString, s);
+			check(Reference.replace(Reference.PARAM_SPECIALS, s, true), LiteralFormats::paramToString, s);
+			check('"'+Reference.replace(Reference.PRIMITIVE_SPECIALS, s, true)+'"', LiteralFormats::primitiveToString, s);
+			check('"'+Reference.NEWLINE.matcher(Reference.replace(Reference.PRIMITIVE_SPECIALS, s, false))
+							.replaceAll(LiteralFormats.newlineAndIndent(3, option)+'|')+'"',
+					(stb, v) -> LiteralFormats.primitiveToPrettyString(stb, v, 1, option), s);
+			check('"'+Reference.replace(Reference.PRIMITIVE_SPECIALS_JSON, s, true)+'"',
+					(stb, v) -> LiteralFormats.primitiveToPrettyString(stb, v, 1, json), s);
+		}
+	}
+
+	private static void check(String expected, BiConsumer<StringBuilder, String> function, String value){
+		StringBuilder stb = new StringBuilder("prefix");
+		function.accept(stb, value);
+		Assertions.assertEquals("prefix"+expected, stb.toString(), value);
+	}
+
+	private static String randomString(Random random){
+		StringBuilder stb = new StringBuilder();
+		for(int i = random.nextInt(8); i>0; i--)
+			stb.append(CHARS.charAt(random.nextInt(CHARS.length())));
+		return stb.toString();
+	}
+
+	/**
+	 * Previous regex-based implementation.
+	 */
+	private static final class Reference{
+		static final Pattern NEWLINE = Pattern.compile("\r\n?|\n");
+		static final Pattern BACKSPACE = Pattern.compile("\b");
+		static final Pattern FORMAT = Pattern.compile("\f");
+
+		static final Pattern SIMPLE_WORD = Pattern.compile("[^\\s:,{}\\[\\]()]+");
+		static final Pattern SIMPLE = Pattern.compile("^(?!\\s)[^:{}\r\n]+(?<!\\s)$");
+
+		static final Pattern PRIMITIVE_SPECIALS = Pattern.compile("[\\\\\"]|/[*/]");
+		static final Pattern PRIMITIVE_SPECIALS_JSON = Pattern.compile("[\\\\\"]");
+
+		static final Pattern WORD_SPECIALS = Pattern.compile("[\\s\\\\{}\\[\\]()\"',:]|/[*/]");
+		static final Pattern KEY_SPECIALS = Pattern.compile("[\\\\{}\\[\\]()\"',]|/[*/]");
+		static final Pattern MACRO_NAME_SPECIALS = Pattern.compile("[\\\\{}\\[\\]()\"',:]|/[*/]");
+		static final Pattern PARAM_SPECIALS = Pattern.compile("[\\s\\\\{}\\[\\]()\"',:=]|/[*/]");
+
+		static String replace(Pattern specialPattern, String value, boolean newline){
+			value = specialPattern.matcher(value).replaceAll("\\\\$0");
+			if(newline) value = NEWLINE.matcher(value).replaceAll("\\\\n");
+			value = BACKSPACE.matcher(value).replaceAll("\\\\b");
+			return FORMAT.matcher(value).replaceAll("\\\\f");
+		}
+	}
+}
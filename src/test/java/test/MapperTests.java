@@ -0,0 +1,167 @@
+package test;
+
+import among.AmongRoot;
+import among.exception.Sussy;
+import among.mapper.AmongMapper;
+import among.obj.Among;
+import among.obj.AmongList;
+import among.tape.AmongTape;
+import among.tape.TapeCursor;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+import static among.obj.Among.*;
+
+public class MapperTests{
+	private static final Among CONFIG = object()
+			.prop("name", "server")
+			.prop("port", 8080)
+			.prop("ratio", 0.5)
+			.prop("enabled", "TRUE")
+			.prop("mode", "FAST")
+			.prop("tags", list("a", "b", "a"))
+			.prop("ports", packedList(1, 2, 3))
+			.prop("limits", object().prop("cpu", 2).prop("mem", 512))
+			.prop("children", list(object().prop("name", "child").prop("port", 1)))
+			.prop("box", object().prop("value", list("x", "y")))
+			.prop("raw", namedList("op", "x", object().prop("k", "v")))
+			.prop("node", namedObject("n").prop("a", "b"))
+			.prop("secret", "ignored");
+
+	@Test public void pojo(){
+		AmongMapper mapper = new AmongMapper();
+		Config c = mapper.read(CONFIG, Config.class);
+		check(c);
+		Assertions.assertNull(c.secret);
+		Assertions.assertEquals("server!", c.setterName);
+		Assertions.assertEquals(Collections.emptyList(), c.children.get(0).children);
+		Assertions.assertEquals(Collections.emptyMap(), c.children.get(0).limits);
+	}
+
+	@Test public void tape(){
+		AmongRoot root = new AmongRoot();
+		root.add(CONFIG);
+		root.add(list(1, 2, 3));
+		TapeCursor cursor = AmongTape.of(root).cursor();
+		AmongMapper mapper = new AmongMapper();
+		check(mapper.read(cursor, Config.class));
+		Assertions.assertEquals(0, cursor.node());
+		Assertions.assertTrue(cursor.moveToNextSibling());
+		Assertions.assertArrayEquals(new int[]{1, 2, 3}, mapper.read(cursor, int[].class));
+	}
+
+	@SuppressWarnings("unchecked")
+	@Test public void types() throws NoSuchFieldException{
+		AmongMapper mapper = new AmongMapper();
+		Assertions.assertEquals(42, mapper.read(value(42), int.class));
+		Assertions.assertEquals('x', mapper.read(value("x"), char.class));
+		Assertions.assertEquals(Mode.SLOW, mapper.read(value("SLOW"), Mode.class));
+		Assertions.assertEquals(Arrays.asList("1", "2"), mapper.read(list(1, 2), List.class));
+		Assertions.assertEquals(new TreeSet<>(Arrays.asList(1L, 2L)), mapper.read(list(2, 1, 2), type("longSet")));
+		Assertions.assertEquals(Arrays.asList(Arrays.asList(1, 2), Collections.emptyList()),
+				mapper.read(list(list(1, 2), list()), type("nestedList")));
+		Map<String, Object> m = (Map<String, Object>)mapper.read(object().prop("a", list("b", object())), Object.class);
+		Map<String, Object> expected = new LinkedHashMap<>();
+		expected.put("a", Arrays.asList("b", new LinkedHashMap<>()));
+		Assertions.assertEquals(expected, m);
+		Box<Integer> box = (Box<Integer>)mapper.read(object().prop("value", 3), type("intBox"));
+		Assertions.assertEquals(3, box.value);
+		Assertions.assertSame(CONFIG, mapper.read(CONFIG, Among.class));
+	}
+
+	@Test public void errors(){
+		AmongMapper mapper = new AmongMapper();
+		Sussy ex = Assertions.assertThrows(Sussy.class,
+				() -> mapper.read(object().prop("children", list(object(), object().prop("port", "x"))), Config.class));
+		Assertions.assertEquals("Property 'children': Element 1: Property 'port': Cannot convert 'x' to java.lang.Integer", ex.getMessage());
+		Assertions.assertThrows(Sussy.class, () -> mapper.read(list(), Config.class));
+		Assertions.assertThrows(Sussy.class, () -> mapper.read(value("maybe"), boolean.class));
+		Assertions.assertThrows(Sussy.class, () -> mapper.read(value("MEDIUM"), Mode.class));
+		Assertions.assertThrows(Sussy.class, () -> mapper.read(value("x"), AmongList.class));
+		Assertions.assertThrows(IllegalArgumentException.class, () -> mapper.read(object(), Runnable.class));
+		Assertions.assertThrows(IllegalArgumentException.class, () -> mapper.read(object(), NoConstructor.class));
+
+		mapper.failOnUnknownProperties(true);
+		Assertions.assertThrows(Sussy.class, () -> mapper.read(CONFIG, Config.class));
+	}
+
+	private static void check(Config c){
+		Assertions.assertEquals("server", c.name);
+		Assertions.assertEquals(8080, c.port);
+		Assertions.assertEquals(0.5, c.ratio);
+		Assertions.assertTrue(c.enabled);
+		Assertions.assertEquals(Mode.FAST, c.mode);
+		Assertions.assertEquals(new TreeSet<>(Arrays.asList("a", "b")), c.tags);
+		Assertions.assertArrayEquals(new int[]{1, 2, 3}, c.ports);
+		Map<String, Integer> limits = new LinkedHashMap<>();
+		limits.put("cpu", 2);
+		limits.put("mem", 512);
+		Assertions.assertEquals(limits, c.limits);
+		Assertions.assertEquals(1, c.children.size());
+		Assertions.assertEquals("child", c.children.get(0).name);
+		Assertions.assertEquals(1, c.children.get(0).port);
+		Assertions.assertEquals(Arrays.asList("x", "y"), c.box.value);
+		Assertions.assertEquals(Arrays.asList("x", Collections.singletonMap("k", "v")), c.raw);
+		Assertions.assertEquals(namedObject("n").prop("a", "b"), c.node);
+	}
+
+	private static Type type(String field) throws NoSuchFieldException{
+		Field f = TypeHolder.class.getDeclaredField(field);
+		return f.getGenericType();
+	}
+
+	public enum Mode{
+		FAST, SLOW
+	}
+
+	public static class Base<T>{
+		Box<T> box;
+	}
+
+	public static class Config extends Base<List<String>>{
+		String name;
+		Integer port;
+		double ratio;
+		boolean enabled;
+		Mode mode;
+		TreeSet<String> tags;
+		int[] ports;
+		Map<String, Integer> limits = new LinkedHashMap<>();
+		List<Config> children = new ArrayList<>();
+		Object raw;
+		Among node;
+		transient String secret;
+		private String setterName;
+
+		public void setName(String name){
+			this.name = name;
+			this.setterName = name+"!";
+		}
+	}
+
+	public static class Box<T>{
+		T value;
+	}
+
+	public static class NoConstructor{
+		NoConstructor(int x){}
+	}
+
+	@SuppressWarnings("unused")
+	private static final class TypeHolder{
+		Set<Long> longSet;
+		List<? extends List<Integer>> nestedList;
+		Box<Integer> intBox;
+	}
+}
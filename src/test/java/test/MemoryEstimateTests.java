@@ -0,0 +1,89 @@
+package test;
+
+import among.AmongEngine;
+import among.AmongRoot;
+import among.CompileResult;
+import among.MemoryReport;
+import among.ReadResult;
+import among.Source;
+import among.obj.Among;
+import among.obj.AmongList;
+import among.obj.AmongObject;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import static among.obj.Among.*;
+
+public class MemoryEstimateTests{
+	@Test public void nodes(){
+		Assertions.assertEquals(72, value("abc").estimateRetainedBytes());
+		Assertions.assertEquals(24, value("").estimateRetainedBytes());
+
+		AmongObject o = object().prop("a", "abc");
+		long bytes = o.estimateRetainedBytes();
+		Assertions.assertTrue(bytes>value("abc").estimateRetainedBytes());
+		o.setProperty("b", list(1, 2, 3));
+		Assertions.assertTrue(o.estimateRetainedBytes()>bytes);
+		o.removeProperty("b");
+		Assertions.assertEquals(bytes, o.estimateRetainedBytes());
+
+		o.freeze();
+		Assertions.assertEquals(bytes, o.estimateRetainedBytes());
+		Assertions.assertEquals(bytes, o.estimateRetainedBytes());
+	}
+
+	@Test public void packed(){
+		AmongList l = list();
+		for(int i = 0; i<1000; i++) l.add(String.valueOf(i));
+		long bytes = l.estimateRetainedBytes();
+		Assertions.assertTrue(l.pack());
+		Assertions.assertTrue(l.estimateRetainedBytes()<bytes/4);
+	}
+
+	@Test public void root(){
+		CompileResult result = new AmongEngine().read(Source.of("macro m : [1, 2]\nm\n{a: b}"));
+		result.expectSuccess();
+		AmongRoot root = result.root();
+		long bytes = 0;
+		for(Among among : root) bytes += among.estimateRetainedBytes();
+		Assertions.assertTrue(root.estimateRetainedBytes()>bytes);
+		Assertions.assertTrue(result.definition().estimateRetainedBytes()>0);
+		Assertions.assertTrue(result.estimateRetainedBytes()>
+				root.estimateRetainedBytes()+result.definition().estimateRetainedBytes()+result.source().estimateRetainedBytes());
+	}
+
+	@Test public void engineReport(){
+		AmongEngine engine = new AmongEngine();
+		engine.addSourceProvider(path -> path.equals("a") ? Source.of("{a: [1, 2, 3], b: 'Hello!'}") : null);
+		Assertions.assertEquals(0, engine.memoryReport().instances());
+
+		ReadResult r = engine.getOrReadFrom("a");
+		r.expectSuccess();
+		MemoryReport report = engine.memoryReport();
+		Assertions.assertEquals(1, report.instances());
+		Assertions.assertEquals(r.estimateRetainedBytes(), report.instanceBytes().get("a"));
+		Assertions.assertEquals(r.estimateRetainedBytes(), report.totalInstanceBytes());
+		Assertions.assertTrue(report.totalBytes()>=report.totalInstanceBytes());
+
+		long bytes = r.estimateRetainedBytes();
+		r.dropCompileResult();
+		Assertions.assertTrue(r.estimateRetainedBytes()<bytes);
+
+		engine.clearInstances();
+		Assertions.assertEquals(0, engine.memoryReport().instances());
+	}
+
+	@Test public void resultCache(){
+		AmongEngine engine = new AmongEngine();
+		engine.addSourceProvider(path -> Source.of("{a: [1, 2, 3]}"));
+		ReadResult r = engine.getOrReadFrom("mutable");
+		long bytes = r.estimateRetainedBytes();
+		r.root().single().asObj().setProperty("b", list(4, 5, 6));
+		Assertions.assertTrue(r.estimateRetainedBytes()>bytes); // not cached, as the root can be modified
+
+		engine.deduplicateCompileResult = true;
+		ReadResult frozen = engine.getOrReadFrom("frozen");
+		Assertions.assertTrue(frozen.root().single().isFrozen());
+		Assertions.assertEquals(frozen.estimateRetainedBytes(), frozen.estimateRetainedBytes());
+	}
+}
@@ -0,0 +1,110 @@
+package test;
+
+import among.AmongRoot;
+import among.RootAndDefinition;
+import among.Source;
+import among.obj.Among;
+import among.obj.AmongList;
+import among.obj.AmongMinifier;
+import among.obj.AmongObject;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.Random;
+
+import static among.obj.Among.*;
+
+public class MinifyTests{
+	private static final String[] FILES = {
+			"1", "2", "3", "4", "5", "6", "7", "collections", "json1", "json2", "json3", "macroTest", "objTest",
+			"operationTest", "primitiveTest", "unicodeTest"
+	};
+	private static final String CHARS = "ab :/*\\\"'{}[](),=\r\n\t|é😀";
+
+	@Test public void files() throws IOException{
+		for(String file : FILES){
+			AmongRoot root = TestUtil.make(TestUtil.expectSourceFrom("equality_tests", file), false).root();
+			String minified = AmongMinifier.minify(root);
+			Assertions.assertTrue(minified.length()<=root.toString().length(), () -> file+"\n"+root+"\n"+minified);
+			check(root, minified);
+		}
+	}
+
+	@Test public void shortestForm(){
+		Assertions.assertEquals("{a:b,x\"y:[1,2]}", AmongMinifier.minify(object().prop("a", "b").prop("x\"y", list(1, 2))));
+		Assertions.assertEquals("it's", AmongMinifier.minify(value("it's")));
+		Assertions.assertEquals("'{\"a\", \"b\"}'", AmongMinifier.minify(value("{\"a\", \"b\"}")));
+		Assertions.assertEquals("\"//x//y//\"", AmongMinifier.minify(value("//x//y//")));
+		Assertions.assertEquals("a\\nb", AmongMinifier.minify(value("a\nb")));
+		Assertions.assertEquals("name[op(\"1\",\"+\",\"2\")]", AmongMinifier.minify(namedList("name", operation(namedList("op", 1, "+", 2)))));
+		Assertions.assertEquals("[x]", AmongMinifier.minify(operation(list("x"))));
+
+		AmongRoot root = new AmongRoot();
+		root.add(value("a"));
+		root.add(value("b c"));
+		root.add(list());
+		root.add(value("macro"));
+		root.add(value("macro x"));
+		root.add(object());
+		root.add(namedList("macro1"));
+		root.add(value("d"));
+		Assertions.assertEquals("a,b c,[]\"macro\"\"macro x\",{}macro1[]d", AmongMinifier.minify(root));
+		check(root, AmongMinifier.minify(root));
+	}
+
+	@Test public void randomRoundTrip(){
+		Random random = new Random(1234);
+		for(int n = 0; n<20; n++){
+			AmongRoot root = new AmongRoot();
+			for(int i = 0; i<20; i++) root.add(randomNode(random, 3));
+			check(root, AmongMinifier.minify(root));
+		}
+	}
+
+	@Test public void largeDocument() throws IOException{
+		RootAndDefinition r = TestUtil.make(TestUtil.expectSourceFrom("recompile_tests", "json"), false);
+		AmongRoot root = new AmongRoot();
+		for(int i = 0; i<2000; i++) root.add(r.root().get(0));
+		String minified = AmongMinifier.minify(root);
+		Assertions.assertTrue(minified.length()<root.toString().length());
+		check(root, minified);
+	}
+
+	private static void check(AmongRoot root, String minified){
+		Assertions.assertFalse(minified.contains("\n"), minified);
+		Assertions.assertEquals(root.values(), TestUtil.make(Source.of(minified), false).root().values(), minified);
+	}
+
+	private static Among randomNode(Random random, int depth){
+		switch(depth<=0 ? 0 : random.nextInt(4)){
+			case 1:{
+				AmongObject o = random.nextBoolean() ? namedObject(randomString(random)) : object();
+				for(int i = random.nextInt(4); i>0; i--)
+					o.setProperty(randomString(random), randomNode(random, depth-1));
+				return o;
+			}
+			case 2: case 3:{
+				AmongList l = random.nextBoolean() ? namedList(randomString(random)) : list();
+				for(int i = random.nextInt(4); i>0; i--) l.add(randomNode(random, depth-1));
+				if(random.nextInt(3)==0) l.setOperation(true);
+				return l;
+			}
+			default:
+				return value(randomString(random));
+		}
+	}
+
+	private static String randomString(Random random){
+		StringBuilder stb = new StringBuilder();
+		if(random.nextInt(4)==0) stb.append("macro");
+		for(int i = random.nextInt(6); i>0; i--)
+			stb.appendCodePoint(CHARS.codePointAt(CHARS.offsetByCodePoints(0, random.nextInt(CHARS.codePointCount(0, CHARS.length())))));
+		return stb.toString();
+	}
+
+	private static AmongList operation(AmongList list){
+		list.setOperation(true);
+		return list;
+	}
+}
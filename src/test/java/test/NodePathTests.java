@@ -0,0 +1,68 @@
+package test;
+
+import among.AmongVisitor;
+import among.NodePath;
+import among.obj.AmongList;
+import among.obj.AmongObject;
+import among.obj.AmongPrimitive;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static among.obj.Among.*;
+
+public class NodePathTests{
+	@Test public void subPathEquality(){
+		NodePath p1 = NodePath.of().subPath(1).subPath("a").subPath(2);
+		NodePath p2 = NodePath.index(1).prop("a").index(2).of();
+		NodePath p3 = NodePath.index(1).of().subPath("a").subPath(3);
+		NodePath p4 = NodePath.index(1).of().subPath(new NodePath.Property("a"), new NodePath.Index(2));
+
+		Assertions.assertEquals(p2, p1);
+		Assertions.assertEquals(p1, p2);
+		Assertions.assertEquals(p2, p4);
+		Assertions.assertEquals(p2.hashCode(), p1.hashCode());
+		Assertions.assertEquals(p2.hashCode(), p4.hashCode());
+		Assertions.assertEquals(p2.toString(), p1.toString());
+		Assertions.assertNotEquals(p1, p1.subPath(0));
+		Assertions.assertNotEquals(p1, NodePath.index(1).prop("b").index(2).of());
+		Assertions.assertEquals(3, p1.size());
+		Assertions.assertEquals("a", p1.get(1).property());
+		Assertions.assertEquals(2, p1.get(2).index());
+
+		List<NodePath.Element> elements = new ArrayList<>();
+		for(NodePath.Element e : p1) elements.add(e);
+		Assertions.assertEquals(NodePath.of(elements), p2);
+		Assertions.assertNotEquals(p3, p1);
+	}
+
+	@Test public void resolve(){
+		AmongList l = list("x", object().prop("a", list(1, 2, 3)));
+		NodePath path = NodePath.of().subPath(1).subPath("a").subPath(2);
+		Assertions.assertEquals(value(3), path.resolveAndGet(l));
+		Assertions.assertTrue(path.resolveAndSet(l, value(4)));
+		Assertions.assertEquals(list("x", object().prop("a", list(1, 2, 4))), l);
+		Assertions.assertNull(path.subPath(0).resolveAndGet(l));
+	}
+
+	@Test public void visit(){
+		AmongList l = list("x", object().prop("a", list(1, 2, 3)), list(), "y");
+		int[] counts = new int[3];
+		l.visit(new AmongVisitor(){
+			@Override public void visit(AmongPrimitive primitive){
+				counts[0]++;
+			}
+			@Override public boolean visitBefore(AmongObject object){
+				counts[1]++;
+				return true;
+			}
+			@Override public boolean visitBefore(AmongList list){
+				counts[2]++;
+				return list.size()!=3;
+			}
+		});
+		Assertions.assertArrayEquals(new int[]{2, 1, 3}, counts);
+	}
+}
@@ -0,0 +1,115 @@
+package test;
+
+import among.AmongEngine;
+import among.CompileResult;
+import among.Source;
+import among.obj.Among;
+import among.obj.AmongList;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static among.obj.Among.*;
+
+public class PackedListTests{
+	@Test public void pack(){
+		AmongList l = namedList("coords", 1, 2, -3, "04", "+5");
+		AmongList expected = l.copy();
+		int hash = l.hashCode();
+		String str = l.toString();
+		String pretty = l.toPrettyString();
+
+		Assertions.assertTrue(l.pack());
+		Assertions.assertTrue(l.isPacked());
+		Assertions.assertEquals(expected, l);
+		Assertions.assertEquals(l, expected);
+		Assertions.assertEquals(hash, l.hashCode());
+		Assertions.assertEquals(expected.digest(), l.digest());
+		Assertions.assertEquals(str, l.toString());
+		Assertions.assertEquals(pretty, l.toPrettyString());
+		Assertions.assertArrayEquals(new long[]{1, 2, -3, 4, 5}, l.toLongArray());
+		Assertions.assertArrayEquals(new double[]{1, 2, -3, 4, 5}, l.toDoubleArray());
+		Assertions.assertEquals(value("04"), l.get(3));
+		Assertions.assertSame(l.get(3), l.get(3));
+	}
+
+	@Test public void packDoubles(){
+		AmongList l = list(1, "1.5", "1e3", "-0.0", "NaN", 0.1);
+		Assertions.assertTrue(l.pack());
+		Assertions.assertEquals(list(1, "1.5", "1e3", "-0.0", "NaN", 0.1), l);
+		double[] arr = l.toDoubleArray();
+		Assertions.assertArrayEquals(new double[]{1, 1.5, 1000, -0.0, Double.NaN, 0.1}, arr);
+		Assertions.assertThrows(NumberFormatException.class, l::toLongArray);
+
+		Assertions.assertFalse(list(1, 2, "three").pack());
+		Assertions.assertFalse(list(1, 2, list(3)).pack());
+		Assertions.assertFalse(list().pack());
+	}
+
+	@Test public void modification(){
+		AmongList l = packedList(1, 2, 3);
+		l.get(1).asPrimitive().setValue("20");
+		Assertions.assertTrue(l.isPacked());
+		Assertions.assertEquals(list(1, 20, 3), l);
+		Assertions.assertArrayEquals(new long[]{1, 20, 3}, l.toLongArray());
+
+		AmongList copy = l.copy();
+		copy.get(0).asPrimitive().setValue("10");
+		Assertions.assertEquals(list(1, 20, 3), l);
+		Assertions.assertEquals(list(10, 20, 3), copy);
+
+		l.add("x");
+		Assertions.assertFalse(l.isPacked());
+		Assertions.assertEquals(list(1, 20, 3, "x"), l);
+
+		AmongList doubles = packedList(0.5, 2.0, 1e20);
+		Assertions.assertEquals(list("0.5", "2", "1.0E20"), doubles);
+		doubles.freeze();
+		Assertions.assertTrue(doubles.get(0).isFrozen());
+		Assertions.assertThrows(IllegalStateException.class, () -> doubles.get(1).asPrimitive().setValue("3"));
+	}
+
+	@Test public void engineOption(){
+		AmongEngine engine = new AmongEngine();
+		engine.packNumericLists = true;
+		CompileResult result = engine.read(Source.of("[1, 2, 3.5, [4, 5], [a, 6]]"));
+		result.expectSuccess();
+		AmongList l = result.root().single().asList();
+		Assertions.assertFalse(l.isPacked());
+		Assertions.assertTrue(l.get(3).asList().isPacked());
+		Assertions.assertFalse(l.get(4).asList().isPacked());
+		Assertions.assertEquals(list(1, 2, 3.5, list(4, 5), list("a", 6)), l);
+	}
+
+	@Test public void concurrentRead() throws Exception{
+		AmongList l = list();
+		for(int i = 0; i<1000; i++) l.add(String.valueOf(i));
+		Assertions.assertTrue(l.pack());
+		l.freeze();
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		try{
+			List<Future<Among[]>> futures = new ArrayList<>();
+			for(int t = 0; t<4; t++) futures.add(executor.submit(() -> {
+				Among[] elements = new Among[l.size()];
+				for(int i = 0; i<elements.length; i++) elements[i] = l.get(i);
+				return elements;
+			}));
+			Among[] first = futures.get(0).get();
+			for(Future<Among[]> f : futures){
+				Among[] elements = f.get();
+				for(int i = 0; i<elements.length; i++){
+					Assertions.assertSame(first[i], elements[i]);
+					Assertions.assertEquals(String.valueOf(i), elements[i].asPrimitive().getValue());
+					Assertions.assertTrue(elements[i].isFrozen());
+				}
+			}
+		}finally{
+			executor.shutdownNow();
+		}
+	}
+}
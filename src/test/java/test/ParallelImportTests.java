@@ -0,0 +1,200 @@
+package test;
+
+import among.AmongEngine;
+import among.CompileResult;
+import among.InstanceCache;
+import among.ReadResult;
+import among.RootAndDefinition;
+import among.Source;
+import among.internals.ImportScanner;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+import java.util.stream.Collectors;
+
+public class ParallelImportTests{
+	@Test public void scan(){
+		Assertions.assertEquals(Arrays.asList("a", "b c", "d", "e/f", "g\"h", "i"), ImportScanner.scan(Source.of(
+				"use a\n"+
+						"use b c // comment\n"+
+						"use public d, use 'e/f'\n"+
+						"/* use x */ use \"g\\\"h\"\n"+
+						"macro m{ use: y }\n"+
+						"[ use z\n, use z ]\n"+
+						"'use z'\n"+
+						"  use public i\n"+
+						"undef use j\n"+
+						"user k\n"+
+						"use\n")));
+		Assertions.assertEquals(Collections.emptyList(), ImportScanner.scan(Source.of("")));
+	}
+
+	@Test public void sameAsSequential() throws Exception{
+		Map<String, String> sources = new HashMap<>();
+		StringBuilder root = new StringBuilder();
+		for(int i = 0; i<12; i++){
+			// libraries define the same macro, so the result depends on the order of imports
+			sources.put("lib"+i, "use common\nmacro value: "+i+"\nmacro value"+i+": common");
+			root.append("use public lib").append(i).append('\n');
+		}
+		sources.put("common", "use eval\nmacro common: eval(1 + 2)");
+		root.append("value\n");
+		for(int i = 0; i<12; i++) root.append("value").append(i).append('\n');
+		sources.put("root", root.toString());
+
+		AmongEngine sequential = engine(sources, null);
+		ReadResult expected = sequential.getOrReadFrom("root");
+		expected.expectSuccess();
+
+		Set<String> threads = ConcurrentHashMap.newKeySet();
+		Map<String, Integer> resolveCount = new ConcurrentHashMap<>();
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		try{
+			AmongEngine parallel = engine(sources, (path, thread) -> {
+				threads.add(thread);
+				resolveCount.merge(path, 1, Integer::sum);
+			});
+			parallel.setImportExecutor(executor);
+			ReadResult r = parallel.getOrReadFrom("root");
+			r.expectSuccess();
+			Assertions.assertEquals(expected.root().values(), r.root().values());
+			Assertions.assertEquals(expected.definition().macros().allMacroSignatures().collect(Collectors.toList()),
+					r.definition().macros().allMacroSignatures().collect(Collectors.toList()));
+			Assertions.assertEquals(14, resolveCount.size());
+			for(int count : resolveCount.values())
+				Assertions.assertEquals(1, count);
+			Assertions.assertTrue(threads.size()>1, threads::toString);
+		}finally{
+			executor.shutdownNow();
+		}
+	}
+
+	@Test public void failureReportedToImporter() throws Exception{
+		Map<String, String> sources = new HashMap<>();
+		sources.put("root", "use broken\nuse missing\n1");
+		sources.put("broken", "{ a: 1, a: 2 }");
+		ExecutorService executor = Executors.newFixedThreadPool(2);
+		try{
+			List<String> reports = new ArrayList<>();
+			AmongEngine engine = new AmongEngine(){
+				@Override protected void handleCompileError(String path, CompileResult result){
+					if(path.equals("root")){
+						synchronized(reports){
+							result.printReports(path, reports::add);
+						}
+					}
+				}
+			};
+			engine.addSourceProvider(path -> {
+				String src = sources.get(path);
+				return src==null ? null : Source.of(src);
+			});
+			engine.setImportExecutor(executor);
+			Assertions.assertFalse(engine.getOrReadFrom("root").isSuccess());
+			String report = String.join("\n", reports);
+			Assertions.assertTrue(report.contains("Cannot resolve definitions from path 'broken': Error in script"), report);
+			Assertions.assertTrue(report.contains("Cannot resolve definitions from path 'missing': No script corresponding to path"), report);
+		}finally{
+			executor.shutdownNow();
+		}
+	}
+
+	@Test public void aheadResolutionOfCachedPath(){
+		Assertions.assertTimeoutPreemptively(Duration.ofSeconds(10), () -> {
+			ExecutorService executor = Executors.newFixedThreadPool(2);
+			try{
+				ReadResult lib = new ReadResult.Provided("lib", new RootAndDefinition());
+				InstanceCache delegate = InstanceCache.unbounded();
+				delegate.put("lib", lib);
+				AmongEngine engine = new AmongEngine();
+				List<Future<ReadResult>> waiting = new ArrayList<>();
+				AtomicInteger containsCalls = new AtomicInteger();
+				engine.setInstanceCache(new InstanceCache(){
+					@Override public ReadResult get(String path){
+						return delegate.get(path);
+					}
+					@Override public boolean contains(String path){
+						int call = containsCalls.incrementAndGet();
+						if(call<=2) return false; // hide lib until it's scheduled and registered ahead
+						if(call==3){ // request the path while the resolution ahead is registered
+							waiting.add(executor.submit(() -> engine.getOrReadFrom("lib")));
+							try{
+								Thread.sleep(100);
+							}catch(InterruptedException ex){
+								throw new RuntimeException(ex);
+							}
+						}
+						return delegate.contains(path);
+					}
+					@Override public void put(String path, ReadResult result){
+						delegate.put(path, result);
+					}
+					@Override public void clear(){
+						delegate.clear();
+					}
+					@Override public void forEach(BiConsumer<String, ReadResult> action){
+						delegate.forEach(action);
+					}
+					@Override public int size(){
+						return delegate.size();
+					}
+					@Override public Stats stats(){
+						return delegate.stats();
+					}
+				});
+				List<Runnable> tasks = new ArrayList<>();
+				engine.setImportExecutor(tasks::add);
+				engine.read(Source.of("use lib")).expectSuccess();
+				Assertions.assertEquals(1, tasks.size());
+				tasks.get(0).run();
+				Assertions.assertEquals(1, waiting.size());
+				Assertions.assertSame(lib, waiting.get(0).get(5, TimeUnit.SECONDS));
+			}finally{
+				executor.shutdownNow();
+			}
+		});
+	}
+
+	@Test public void unrequestedFailureIsDropped(){
+		Map<String, String> sources = new HashMap<>();
+		AmongEngine engine = engine(sources, null);
+		engine.setInstanceCache(InstanceCache.builder().maximumSize(0).build());
+		engine.setImportExecutor(Runnable::run);
+		// use statement in the macro body is not imported by the parser
+		Assertions.assertTrue(engine.read(Source.of("macro m:\nuse missing")).isSuccess());
+		sources.put("missing", "1");
+		engine.getOrReadFrom("missing").expectSuccess();
+	}
+
+	@FunctionalInterface
+	interface ResolveListener{
+		void onResolve(String path, String thread);
+	}
+
+	private static AmongEngine engine(Map<String, String> sources, ResolveListener listener){
+		AmongEngine engine = new AmongEngine();
+		engine.addSourceProvider(path -> {
+			String src = sources.get(path);
+			if(src==null) return null;
+			if(listener!=null) listener.onResolve(path, Thread.currentThread().getName());
+			Thread.sleep(20); // simulate I/O
+			return Source.of(src);
+		});
+		return engine;
+	}
+}
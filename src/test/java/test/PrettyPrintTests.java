@@ -0,0 +1,65 @@
+package test;
+
+import among.RootAndDefinition;
+import among.ToStringOption;
+import among.obj.Among;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+
+import static among.obj.Among.*;
+
+public class PrettyPrintTests{
+	private static final ToStringOption WIDTH_40 = ToStringOption.DEFAULT.variant().maxLineWidth(40).build();
+
+	@Test public void inlineIfFits(){
+		Assertions.assertEquals("[ 1, 2, 3, 4, 5, 6, 7, 8, 9, 10 ]",
+				list(1, 2, 3, 4, 5, 6, 7, 8, 9, 10).toPrettyString(WIDTH_40));
+		Assertions.assertEquals("obj { a: 1, b: 2, c: [ 3, 4, 5, 6 ] }",
+				namedObject("obj").prop("a", 1).prop("b", 2).prop("c", list(3, 4, 5, 6)).toPrettyString(WIDTH_40));
+	}
+
+	@Test public void blockIfTooWide(){
+		Among value = object()
+				.prop("name", "The quick brown fox")
+				.prop("numbers", list(1, 2, 3, 4, 5, 6))
+				.prop("nested", object().prop("list", list("a very long element", "another long element")));
+		Assertions.assertEquals("{\n"+
+				"  name: The quick brown fox\n"+
+				"  numbers: [ 1, 2, 3, 4, 5, 6 ]\n"+
+				"  nested: {\n"+
+				"    list: [\n"+
+				"      a very long element\n"+
+				"      another long element\n"+
+				"    ]\n"+
+				"  }\n"+
+				"}", value.toPrettyString(WIDTH_40));
+	}
+
+	@Test public void maxLineWidth() throws IOException{
+		for(String file : new String[]{"json1", "json2", "json3", "collections", "objTest"}){
+			RootAndDefinition r = TestUtil.make(TestUtil.expectSourceFrom("equality_tests", file), false);
+			String pretty = r.root().toPrettyString(WIDTH_40);
+			for(String line : pretty.split("\n")){
+				// lines wider than the limit can only contain single entry or element
+				if(line.length()>40) Assertions.assertFalse(line.trim().matches(".*[\\[{(] .*"), line);
+			}
+			Assertions.assertEquals(r.root().values(), TestUtil.make(pretty).root().values());
+		}
+	}
+
+	@Test public void multilinePrimitiveIsNotInline(){
+		Assertions.assertEquals("[\n  a\n  \"b\n      |c\"\n]", list("a", "b\nc").toPrettyString(WIDTH_40));
+	}
+
+	@Test public void indentOf(){
+		ToStringOption option = ToStringOption.DEFAULT.variant().indent("\t").build();
+		Assertions.assertEquals("", option.indentOf(0));
+		Assertions.assertEquals("\t\t\t", option.indentOf(3));
+		Assertions.assertSame(option.indentOf(3), option.indentOf(3));
+		StringBuilder stb = new StringBuilder();
+		for(int i = 0; i<100; i++) stb.append('\t');
+		Assertions.assertEquals(stb.toString(), option.indentOf(100));
+	}
+}
@@ -0,0 +1,150 @@
+package test;
+
+import among.ToStringOption;
+import among.exception.Sussy;
+import among.mapper.AmongMapper;
+import among.mapper.AmongSerializer;
+import among.obj.Among;
+import among.obj.AmongObject;
+import among.obj.AmongWriter;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static among.obj.Among.*;
+
+public class SerializerTests{
+	private static final ToStringOption[] OPTIONS = {
+			ToStringOption.DEFAULT,
+			ToStringOption.DEFAULT.variant().jsonCompatible().build(),
+			new ToStringOption("\t", 0, 0, false),
+			new ToStringOption("  ", 2, 3, false, 20),
+			new ToStringOption("  ", 2, 3, false, 40),
+			new ToStringOption("  ", 2, 3, true, 80)
+	};
+
+	@Test public void sameAsTree(){
+		AmongSerializer serializer = new AmongSerializer();
+		for(int i = 0; i<20; i++){
+			Server server = server(i);
+			Among tree = tree(server);
+			for(ToStringOption option : OPTIONS){
+				Assertions.assertEquals(tree.toString(option), serializer.toString(server, option));
+				Assertions.assertEquals(tree.toPrettyString(0, option), serializer.toPrettyString(server, 0, option));
+				Assertions.assertEquals(tree.toPrettyString(2, option), serializer.toPrettyString(server, 2, option));
+			}
+		}
+	}
+
+	@Test public void values(){
+		AmongSerializer serializer = new AmongSerializer();
+		ToStringOption option = ToStringOption.DEFAULT;
+		Assertions.assertEquals("1", serializer.toString(1, option));
+		Assertions.assertEquals("a\\, b", serializer.toString("a, b", option));
+		Assertions.assertEquals("[1,2,3]", serializer.toString(new int[]{1, 2, 3}, option));
+		Assertions.assertEquals("[true,x,SLOW]", serializer.toString(Arrays.asList(true, 'x', Mode.SLOW), option));
+		Map<Object, Object> map = new LinkedHashMap<>();
+		map.put(1, "a");
+		map.put("b", null);
+		map.put("c", Collections.emptyList());
+		Assertions.assertEquals("{1:a,c:[]}", serializer.toString(map, option));
+		Among operation = namedList("op", "x");
+		operation.asList().setOperation(true);
+		Assertions.assertEquals("op(\"x\")", serializer.toString(operation, option));
+		Assertions.assertThrows(Sussy.class, () -> serializer.toString(Arrays.asList("a", null), option));
+	}
+
+	@Test public void roundTrip() throws IOException{
+		AmongSerializer serializer = new AmongSerializer();
+		AmongMapper mapper = new AmongMapper();
+		Server server = server(7);
+		StringWriter out = new StringWriter();
+		try(AmongWriter writer = new AmongWriter(out, 16)){
+			writer.append("{ server: ");
+			serializer.writePretty(writer, server, 1, new ToStringOption("  ", 2, 3, false, 30));
+			writer.append(" }");
+		}
+		Among read = TestUtil.make(out.toString()).root().get(0).asObj().expectProperty("server");
+		Assertions.assertEquals(tree(server), read);
+		Server server2 = mapper.read(read, Server.class);
+		Assertions.assertEquals(tree(server), tree(server2));
+	}
+
+	@Test public void largeList(){
+		AmongSerializer serializer = new AmongSerializer();
+		List<Server> servers = new ArrayList<>();
+		for(int i = 0; i<2000; i++) servers.add(server(i));
+		ToStringOption option = new ToStringOption("  ", 2, 3, false, 80);
+		Assertions.assertEquals(tree(servers).toPrettyString(0, option), serializer.toPrettyString(servers, 0, option));
+	}
+
+	private static Server server(int i){
+		Server s = new Server();
+		s.name = "server-"+i;
+		s.port = 8000+i;
+		s.enabled = i%2==0;
+		s.mode = i%3==0 ? Mode.FAST : Mode.SLOW;
+		s.description = i%4==0 ? null : "line 1\nline \"2\"";
+		s.tags = new ArrayList<>();
+		for(int j = 0; j<i%5; j++) s.tags.add("tag"+j);
+		s.limits = new LinkedHashMap<>();
+		if(i%2==1) s.limits.put("cpu", i%7);
+		s.limits.put("memory limit", 512*i);
+		s.weights = new double[]{0.5, i};
+		if(i%3==1) s.extra = namedObject("meta").prop("a", list("x", i)).prop("b", "");
+		return s;
+	}
+
+	private static Among tree(List<Server> servers){
+		List<Among> l = new ArrayList<>();
+		for(Server s : servers) l.add(tree(s));
+		return list(l.toArray(new Object[0]));
+	}
+
+	private static Among tree(Server s){
+		AmongObject o = object().prop("name", s.name).prop("port", s.port).prop("enabled", s.enabled).prop("mode", s.mode.name());
+		if(s.description!=null) o.prop("description", s.description);
+		o.prop("tags", list(s.tags.toArray(new Object[0])));
+		AmongObject limits = object();
+		s.limits.forEach(limits::prop);
+		o.prop("limits", limits);
+		o.prop("weights", list(s.weights[0], s.weights[1]));
+		if(s.extra!=null) o.prop("extra", s.extra);
+		return o;
+	}
+
+	public enum Mode{
+		FAST, SLOW
+	}
+
+	public static class Base{
+		String name;
+		int port;
+	}
+
+	public static class Server extends Base{
+		private boolean enabled;
+		Mode mode;
+		String description;
+		List<String> tags;
+		Map<String, Integer> limits;
+		double[] weights;
+		Among extra;
+		transient int hash;
+
+		public boolean isEnabled(){
+			return enabled;
+		}
+		public void setEnabled(boolean enabled){
+			this.enabled = enabled;
+		}
+	}
+}
@@ -0,0 +1,164 @@
+package test;
+
+import among.AmongEngine;
+import among.CompileResult;
+import among.ReadResult;
+import among.Source;
+import among.SourcePositionMode;
+import among.macro.MacroDefinition;
+import among.obj.Among;
+import among.obj.AmongObject;
+import among.obj.SourcePositionTable;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static among.obj.Among.*;
+
+public class SourcePositionTests{
+	@Test public void positionTable(){
+		SourcePositionTable table = new SourcePositionTable();
+		int file = table.fileId("file");
+		Assertions.assertEquals(file, table.fileId("file"));
+		Assertions.assertEquals("file", table.file(file));
+		Assertions.assertNull(table.file(file+1));
+
+		List<Among> nodes = new ArrayList<>();
+		for(int i = 0; i<1000; i++){
+			Among a = value(i);
+			nodes.add(a);
+			table.put(a, i%2==0 ? file : -1, i);
+		}
+		Among equalButDifferent = value(0);
+		Assertions.assertEquals(1000, table.size());
+		for(int i = 0; i<1000; i++){
+			Among a = nodes.get(i);
+			Assertions.assertEquals(i, table.position(a));
+			Assertions.assertEquals(i%2==0 ? file : -1, table.fileIdOf(a));
+			Assertions.assertEquals(i%2==0 ? "file" : null, table.fileOf(a));
+		}
+		Assertions.assertFalse(table.contains(equalButDifferent));
+		Assertions.assertEquals(-1, table.position(equalButDifferent));
+
+		table.put(nodes.get(0), file, 12345);
+		Assertions.assertEquals(1000, table.size());
+		Assertions.assertEquals(12345, table.position(nodes.get(0)));
+
+		table.put(nodes.get(2), -1, 2); // moves the entry to another file
+		Assertions.assertEquals(1000, table.size());
+		Assertions.assertEquals(-1, table.fileIdOf(nodes.get(2)));
+		Assertions.assertEquals(499, table.removeFile(file));
+		Assertions.assertEquals(501, table.size());
+		Assertions.assertFalse(table.contains(nodes.get(0)));
+		Assertions.assertTrue(table.contains(nodes.get(1)));
+		Assertions.assertTrue(table.contains(nodes.get(2)));
+		Assertions.assertEquals(0, table.removeFile(file));
+		Assertions.assertEquals(0, table.removeFile("unknown"));
+		Assertions.assertThrows(IllegalArgumentException.class, () -> table.put(equalButDifferent, file+1, 0));
+
+		table.put(nodes.get(0), file, 0);
+		for(int i = 1000; i<2000; i++) table.put(value(i), file, i); // rehash keeps the chains intact
+		Assertions.assertEquals(1001, table.removeFile(file));
+		Assertions.assertEquals(501, table.removeFile(-1));
+		Assertions.assertEquals(0, table.size());
+
+		table.put(nodes.get(0), file, 0);
+		table.clear();
+		Assertions.assertEquals(0, table.size());
+		Assertions.assertFalse(table.contains(nodes.get(0)));
+	}
+
+	@Test public void result(){
+		AmongEngine engine = new AmongEngine();
+		CompileResult result = engine.read(Source.of("a\n{b: c}\nmacro m(x) : [ x ]\nm(d)"));
+		result.expectSuccess();
+		Among a = result.root().get(0);
+		AmongObject o = result.root().get(1).asObj();
+		Among c = o.expectProperty("b");
+		Among m = result.root().get(2);
+
+		SourcePositionTable table = result.sourcePositions();
+		Assertions.assertEquals(0, table.position(a));
+		Assertions.assertEquals(2, table.position(o));
+		Assertions.assertEquals(6, table.position(c));
+		Assertions.assertEquals(28, table.position(m));
+		Assertions.assertEquals(30, table.position(m.asList().get(0)));
+		Assertions.assertNull(table.fileOf(a));
+		// call node replaced by the expansion is dropped; template nodes are kept
+		Assertions.assertEquals(7, table.size());
+		Assertions.assertEquals(0, engine.sourcePositions().size());
+	}
+
+	@Test public void table(){
+		AmongEngine engine = new AmongEngine();
+		engine.sourcePositionMode = SourcePositionMode.TABLE;
+		CompileResult result = engine.read(Source.of("a\n{b: c}"));
+		result.expectSuccess();
+		Among a = result.root().get(0);
+		AmongObject o = result.root().get(1).asObj();
+		Among c = o.expectProperty("b");
+		Assertions.assertEquals(0, result.sourcePositions().size());
+
+		SourcePositionTable table = engine.sourcePositions();
+		Assertions.assertEquals(3, table.size());
+		Assertions.assertEquals(0, table.position(a));
+		Assertions.assertEquals(2, table.position(o));
+		Assertions.assertEquals(6, table.position(c));
+		Assertions.assertNull(table.fileOf(a));
+
+		engine.clearInstances();
+		Assertions.assertEquals(0, table.size());
+	}
+
+	@Test public void discard(){
+		AmongEngine engine = new AmongEngine();
+		engine.sourcePositionMode = SourcePositionMode.DISCARD;
+		CompileResult result = engine.read(Source.of("[a, {b: c}]"));
+		result.expectSuccess();
+		Assertions.assertEquals(0, result.sourcePositions().size());
+		Assertions.assertEquals(0, engine.sourcePositions().size());
+
+		result = engine.read(Source.of("[a, {b: }]"));
+		Assertions.assertFalse(result.isSuccess());
+		Assertions.assertEquals(0, result.sourcePositions().position(result.root().single()));
+	}
+
+	@Test public void importedMacro(){
+		AmongEngine engine = new AmongEngine();
+		engine.sourcePositionMode = SourcePositionMode.TABLE;
+		engine.addSourceProvider(path -> {
+			switch(path){
+				case "defs": return Source.of("macro hello : 'Hello!'\nmacro greet(x) : [ 'Hi', x ]");
+				case "main": return Source.of("use defs\n[ hello, world, greet(there) ]");
+				default: return null;
+			}
+		});
+		ReadResult r = engine.getOrReadFrom("main");
+		Assertions.assertTrue(r.isSuccess());
+		Among l = r.root().single();
+		Among hello = l.asList().get(0);
+		Among world = l.asList().get(1);
+		Among greet = l.asList().get(2);
+		Assertions.assertEquals(value("Hello!"), hello);
+		Assertions.assertEquals(list("Hi", "there"), greet);
+
+		SourcePositionTable table = engine.sourcePositions();
+		Assertions.assertEquals("main", table.fileOf(l));
+		Assertions.assertEquals("main", table.fileOf(world));
+		// expanded node is put at the position of the macro call
+		Assertions.assertEquals("main", table.fileOf(greet));
+		Assertions.assertEquals(25, table.position(greet));
+		Assertions.assertEquals("main", table.fileOf(hello));
+		Assertions.assertEquals(11, table.position(hello));
+		// arguments are positioned in the expanding source
+		Assertions.assertEquals("main", table.fileOf(greet.asList().get(1)));
+		Assertions.assertEquals(31, table.position(greet.asList().get(1)));
+
+		List<Among> templates = new ArrayList<>();
+		engine.getOrReadFrom("defs").definition().macros().allMacros()
+				.forEach(m -> ((MacroDefinition)m).visitTemplate(templates::add));
+		for(Among template : templates) Assertions.assertEquals("defs", table.fileOf(template));
+	}
+}
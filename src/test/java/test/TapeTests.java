@@ -0,0 +1,165 @@
+package test;
+
+import among.AmongRoot;
+import among.tape.AmongTape;
+import among.tape.BufferTape;
+import among.tape.TapeCursor;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static among.obj.Among.*;
+
+public class TapeTests{
+	@Test public void roundTrip(){
+		AmongRoot root = new AmongRoot();
+		root.add(object().prop("a", list(1, 2, namedList("op", "x"))).prop("b", namedObject("name").prop("c", "")));
+		root.add(value("top"));
+		root.add(list());
+		root.get(0).asObj().expectProperty("a").asList().get(2).asList().setOperation(true);
+
+		AmongTape tape = AmongTape.of(root);
+		Assertions.assertEquals(3, tape.valueCount());
+		Assertions.assertEquals(10, tape.nodeCount());
+		AmongRoot root2 = tape.toRoot();
+		Assertions.assertEquals(root.values(), root2.values());
+		Assertions.assertTrue(root2.get(0).asObj().expectProperty("a").asList().get(2).asList().isOperation());
+		Assertions.assertEquals(root.toString(), root2.toString());
+	}
+
+	@Test public void roundTripSources() throws IOException{
+		for(String file : new String[]{"json1", "json2", "json3", "eval", "collections", "unicodeTest", "numberTest"}){
+			AmongRoot root = TestUtil.make(TestUtil.expectSourceFrom("equality_tests", file), false).root();
+			AmongRoot root2 = AmongTape.of(root).toRoot();
+			Assertions.assertEquals(root.values(), root2.values(), file);
+			Assertions.assertEquals(root.toPrettyString(), root2.toPrettyString(), file);
+		}
+	}
+
+	@Test public void cursor(){
+		AmongRoot root = new AmongRoot();
+		root.add(object().prop("a", list(1, 2, 3)).prop("b", namedObject("name").prop("c", "see")));
+		root.add(value("second"));
+		TapeCursor c = AmongTape.of(root).cursor();
+
+		Assertions.assertTrue(c.isObj());
+		Assertions.assertEquals(2, c.size());
+		Assertions.assertTrue(c.moveToProperty("b"));
+		Assertions.assertEquals("b", c.key());
+		Assertions.assertEquals("name", c.getName());
+		Assertions.assertTrue(c.moveToProperty("c"));
+		Assertions.assertEquals("see", c.getValue());
+		Assertions.assertEquals(2, c.depth());
+		Assertions.assertFalse(c.moveToNextSibling());
+		Assertions.assertTrue(c.moveToParent());
+		Assertions.assertTrue(c.moveToParent());
+		Assertions.assertFalse(c.moveToParent());
+
+		Assertions.assertTrue(c.moveToProperty("a"));
+		TapeCursor c2 = c.copy();
+		Assertions.assertTrue(c.moveToElement(2));
+		Assertions.assertEquals("3", c.getValue());
+		Assertions.assertFalse(c2.moveToElement(3));
+		Assertions.assertEquals(list(1, 2, 3), c2.toAmong());
+
+		Assertions.assertTrue(c2.moveToParent());
+		Assertions.assertTrue(c2.moveToNextSibling());
+		Assertions.assertEquals("second", c2.getValue());
+		Assertions.assertFalse(c2.moveToNextSibling());
+	}
+
+	@Test public void offHeap() throws IOException{
+		for(String file : new String[]{"json1", "json2", "json3", "eval", "collections", "unicodeTest", "numberTest"}){
+			AmongRoot root = TestUtil.make(TestUtil.expectSourceFrom("equality_tests", file), false).root();
+			BufferTape tape = AmongTape.offHeap(root);
+			Assertions.assertEquals(root.values(), tape.toRoot().values(), file);
+
+			ByteArrayOutputStream out = new ByteArrayOutputStream();
+			tape.write(Channels.newChannel(out));
+			BufferTape tape2 = AmongTape.read(ByteBuffer.wrap(out.toByteArray()));
+			Assertions.assertEquals(tape.nodeCount(), tape2.nodeCount(), file);
+			Assertions.assertEquals(tape.stringCount(), tape2.stringCount(), file);
+			Assertions.assertEquals(root.values(), tape2.toRoot().values(), file);
+		}
+	}
+
+	@Test public void saveAndMap() throws IOException{
+		AmongRoot root = new AmongRoot();
+		root.add(object().prop("a", list(1, 2, 3)).prop("\uD83D\uDE33", namedObject("\u00e9").prop("c", "\u4e2d\u6587")));
+		root.add(value(""));
+		Path file = Files.createTempFile("among", ".tape");
+		try{
+			AmongTape.of(root).save(file);
+			BufferTape tape = AmongTape.map(file);
+			Assertions.assertEquals(2, tape.valueCount());
+			Assertions.assertEquals(root.values(), tape.toRoot().values());
+			TapeCursor c = tape.cursor();
+			Assertions.assertTrue(c.moveToProperty("\uD83D\uDE33"));
+			Assertions.assertEquals("\u00e9", c.getName());
+		}finally{
+			Files.deleteIfExists(file);
+		}
+		Path invalid = Files.createTempFile("among", ".tape");
+		try{
+			Files.write(invalid, new byte[]{1, 2, 3, 4});
+			Assertions.assertThrows(IOException.class, () -> AmongTape.map(invalid));
+		}finally{
+			Files.deleteIfExists(invalid);
+		}
+	}
+
+	@Test public void corrupted() throws IOException{
+		AmongRoot root = new AmongRoot();
+		root.add(object().prop("a", list(1, 2)).prop("b", "c"));
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		AmongTape.of(root).write(Channels.newChannel(out));
+		byte[] bytes = out.toByteArray();
+		Assertions.assertEquals(root.values(), AmongTape.read(ByteBuffer.wrap(bytes)).toRoot().values());
+
+		ByteBuffer.wrap(bytes).putInt(24+(AmongTape.STRIDE+AmongTape.END)*4, 1); // end of "a" points to itself
+		Assertions.assertThrows(IllegalArgumentException.class, () -> AmongTape.read(ByteBuffer.wrap(bytes)));
+		Path file = Files.createTempFile("among", ".tape");
+		try{
+			Files.write(file, bytes);
+			Assertions.assertThrows(IOException.class, () -> AmongTape.map(file));
+		}finally{
+			Files.deleteIfExists(file);
+		}
+	}
+
+	@Test public void loneSurrogate() throws IOException{
+		AmongRoot root = new AmongRoot();
+		root.add(list("a\uD800b", "\uDC00", "\u00e9\uD83D\uDE33"));
+		// lone surrogates are encoded as '?', offsets of following strings should not be affected
+		AmongRoot expected = new AmongRoot();
+		expected.add(list("a?b", "?", "\u00e9\uD83D\uDE33"));
+
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		AmongTape.of(root).write(Channels.newChannel(out));
+		Assertions.assertEquals(expected.values(), AmongTape.read(ByteBuffer.wrap(out.toByteArray())).toRoot().values());
+		Assertions.assertEquals(expected.values(), AmongTape.offHeap(root).toRoot().values());
+		Assertions.assertEquals(expected.values(), AmongTape.of(root).toOffHeap().toRoot().values());
+	}
+
+	@Test public void deepNesting(){
+		int depth = 100000;
+		ByteBuffer b = ByteBuffer.allocate(AmongTape.HEADER_SIZE+depth*AmongTape.STRIDE*4+8);
+		b.putInt(AmongTape.MAGIC).putInt(AmongTape.VERSION).putInt(1).putInt(depth).putInt(1).putInt(0);
+		for(int i = 0; i<depth; i++){
+			boolean leaf = i==depth-1;
+			b.putInt(leaf ? AmongTape.PRIMITIVE : AmongTape.LIST).putInt(0).putInt(-1).putInt(leaf ? 0 : 1).putInt(depth);
+		}
+		b.putInt(0).putInt(0);
+		b.flip();
+		Assertions.assertEquals(depth, AmongTape.read(b).nodeCount());
+
+		b.putInt(AmongTape.HEADER_SIZE+(depth-1)*AmongTape.STRIDE*4+AmongTape.END*4, depth-1);
+		Assertions.assertThrows(IllegalArgumentException.class, () -> AmongTape.read(b));
+	}
+}
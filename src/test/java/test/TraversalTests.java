@@ -0,0 +1,76 @@
+package test;
+
+import among.AmongRoot;
+import among.AmongTraversal;
+import among.obj.Among;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static among.obj.Among.*;
+
+public class TraversalTests{
+	@Test public void order(){
+		Among among = object()
+				.prop("a", list(1, list(2, 3)))
+				.prop("b", object().prop("c", 4))
+				.prop("d", list());
+		List<String> visited = new ArrayList<>();
+		AmongTraversal.forEach(among, t -> visited.add(t.depth()+":"+t.key()+":"+t.index()+":"+t.path()));
+		Assertions.assertEquals(Arrays.asList(
+				"0:null:-1:",
+				"1:a:0:.a",
+				"2:null:0:.a[0]",
+				"2:null:1:.a[1]",
+				"3:null:0:.a[1][0]",
+				"3:null:1:.a[1][1]",
+				"1:b:1:.b",
+				"2:c:0:.b.c",
+				"1:d:2:.d"), visited);
+
+		AmongTraversal t = new AmongTraversal(among);
+		while(t.next()){
+			Assertions.assertSame(t.current(), t.path().resolveAndGet(among));
+			if(t.depth()>0) Assertions.assertSame(t.parent(), t.path().resolveAndGet(among, 0, t.depth()-1));
+		}
+	}
+
+	@Test public void pruneAndStop(){
+		Among among = list(list(1, 2), list(3, 4), 5);
+		List<Among> visited = new ArrayList<>();
+		AmongTraversal t = new AmongTraversal(among);
+		while(t.next()){
+			visited.add(t.current());
+			if(t.depth()==1&&t.index()==0) t.prune();
+			if(t.current().equals(value(3))) t.stop();
+		}
+		Assertions.assertEquals(Arrays.asList(among, list(1, 2), list(3, 4), value(3)), visited);
+		Assertions.assertFalse(t.next());
+
+		t.reset(list(6));
+		visited.clear();
+		t.forEach(t2 -> visited.add(t2.current()));
+		Assertions.assertEquals(Arrays.asList(list(6), value(6)), visited);
+	}
+
+	@Test public void deep(){
+		Among among = value("leaf");
+		for(int i = 0; i<100; i++) among = i%2==0 ? list(among) : object().prop("p", among);
+		AmongTraversal t = new AmongTraversal(among);
+		int maxDepth = 0;
+		while(t.next()) maxDepth = Math.max(maxDepth, t.depth());
+		Assertions.assertEquals(100, maxDepth);
+	}
+
+	@Test public void parallel(){
+		AmongRoot root = new AmongRoot();
+		for(int i = 0; i<64; i++) root.add(list(i, object().prop("x", i), list(i, i)));
+		AtomicInteger count = new AtomicInteger();
+		AmongTraversal.parallelForEach(root, t -> count.incrementAndGet());
+		Assertions.assertEquals(64*7, count.get());
+	}
+}
@@ -0,0 +1,126 @@
+package test;
+
+import among.NodePath;
+import among.macro.Macro;
+import among.macro.MacroReplacement;
+import among.macro.MacroType;
+import among.obj.Among;
+import among.obj.AmongDeduplicator;
+import among.obj.AmongList;
+import among.obj.AmongObject;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+
+import static among.obj.Among.*;
+
+public class ViewTests{
+	@Test public void javaMap(){
+		AmongObject o = object().prop("a", 1).prop("b", list("x", object().prop("c", "d"))).prop("e", packedList(1, 2, 3));
+		Map<String, Object> map = o.asJavaMap();
+		Assertions.assertSame(map, o.asJavaMap());
+		Assertions.assertEquals(3, map.size());
+		Assertions.assertEquals("1", map.get("a"));
+		Assertions.assertNull(map.get("z"));
+		Assertions.assertEquals(Arrays.asList("a", "b", "e"), new ArrayList<>(map.keySet()));
+
+		Map<String, Object> expected = new LinkedHashMap<>();
+		expected.put("a", "1");
+		expected.put("b", Arrays.asList("x", Collections.singletonMap("c", "d")));
+		expected.put("e", Arrays.asList("1", "2", "3"));
+		Assertions.assertEquals(expected, map);
+		Assertions.assertEquals(expected.hashCode(), map.hashCode());
+
+		// nested views are the views of child nodes, not copies
+		Assertions.assertSame(o.expectProperty("b").asList().asJavaList(), map.get("b"));
+
+		o.prop("f", "g");
+		Assertions.assertEquals("g", map.get("f"));
+		o.expectProperty("b").asList().add("y");
+		Assertions.assertEquals(3, ((List<?>)map.get("b")).size());
+
+		Assertions.assertThrows(UnsupportedOperationException.class, () -> map.put("h", "i"));
+		Assertions.assertThrows(UnsupportedOperationException.class, () -> map.remove("a"));
+		Assertions.assertThrows(UnsupportedOperationException.class, () -> map.entrySet().iterator().remove());
+		Assertions.assertThrows(UnsupportedOperationException.class, () -> ((List<?>)map.get("b")).clear());
+	}
+
+	@Test public void lazyCopy(){
+		AmongObject o = object().prop("a", list("x"));
+		AmongObject copy = o.copy();
+		Map<String, Object> view = copy.asJavaMap();
+		Assertions.assertEquals(Collections.singletonList("x"), view.get("a"));
+		o.expectProperty("a").asList().add("y");
+		Assertions.assertEquals(Collections.singletonList("x"), view.get("a"));
+		Assertions.assertEquals(Arrays.asList("x", "y"), o.asJavaMap().get("a"));
+	}
+
+	@Test public void wrap(){
+		Map<String, Object> map = new LinkedHashMap<>();
+		map.put("a", 1);
+		map.put("b", Arrays.asList("x", Collections.singletonMap("c", 2.5)));
+		map.put("e", new int[]{1, 2});
+		map.put("f", value("g"));
+		AmongObject o = Among.wrap(map);
+		Assertions.assertTrue(o.isFrozen());
+		Assertions.assertEquals(object()
+				.prop("a", 1)
+				.prop("b", list("x", object().prop("c", 2.5)))
+				.prop("e", list(1, 2))
+				.prop("f", "g"), o);
+		Assertions.assertEquals(object()
+				.prop("a", 1)
+				.prop("b", list("x", object().prop("c", 2.5)))
+				.prop("e", list(1, 2))
+				.prop("f", "g").digest(), o.digest());
+		Assertions.assertSame(o.expectProperty("b"), o.expectProperty("b"));
+		Assertions.assertTrue(o.expectProperty("b").isFrozen());
+		Assertions.assertThrows(IllegalStateException.class, () -> o.prop("z", 1));
+		Assertions.assertThrows(IllegalStateException.class, () -> o.expectProperty("b").asList().add("y"));
+
+		AmongObject copy = o.copy();
+		copy.setProperty("a", value(2));
+		copy.expectProperty("b").asList().add("y");
+		Assertions.assertEquals("1", o.expectProperty("a").asPrimitive().getValue());
+		Assertions.assertEquals(2, o.expectProperty("b").asList().size());
+		Assertions.assertEquals(3, copy.expectProperty("b").asList().size());
+
+		AmongList set = Among.wrap(new LinkedHashSet<>(Arrays.asList("a", "b")));
+		Assertions.assertEquals(list("a", "b"), set);
+		Assertions.assertEquals("[a,b]", set.toString());
+
+		Map<String, Object> nulls = new HashMap<>();
+		nulls.put("a", null);
+		Assertions.assertNull(Among.wrap(nulls).getProperty("a"));
+		Assertions.assertThrows(NullPointerException.class, () -> Among.wrap(Arrays.asList("a", null)).get(1));
+	}
+
+	@Test public void deduplicate(){
+		List<Object> l = new ArrayList<>();
+		for(int i = 0; i<4; i++) l.add(Collections.singletonMap("a", "b"));
+		AmongList wrapped = Among.wrap(l);
+		AmongList deduplicated = new AmongDeduplicator().deduplicate(wrapped).asList();
+		Assertions.assertEquals(wrapped, deduplicated);
+		Assertions.assertSame(deduplicated.get(0), deduplicated.get(3));
+		Assertions.assertNotSame(wrapped.get(0), wrapped.get(3)); // frozen views are not modified
+	}
+
+	@Test public void macro(){
+		Macro macro = Macro.builder("pair", MacroType.LIST)
+				.param("key")
+				.param("value")
+				.build(object().prop("key", "").prop("value", ""),
+						MacroReplacement.valueReplacement(NodePath.prop("key").of(), 0),
+						MacroReplacement.valueReplacement(NodePath.prop("value").of(), 1));
+		Among result = macro.apply(Among.wrap(Arrays.asList("k", Collections.singletonMap("x", 1))));
+		Assertions.assertEquals(object().prop("key", "k").prop("value", object().prop("x", 1)), result);
+	}
+}
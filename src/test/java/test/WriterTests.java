@@ -0,0 +1,123 @@
+package test;
+
+import among.RootAndDefinition;
+import among.ToPrettyString;
+import among.ToStringOption;
+import among.AmongRoot;
+import among.obj.AmongList;
+import among.obj.AmongObject;
+import among.obj.AmongWriter;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ForkJoinPool;
+
+import static among.obj.Among.*;
+
+public class WriterTests{
+	private static final String[] FILES = {
+			"1", "2", "3", "4", "5", "6", "7", "collections", "json1", "json2", "json3", "macroTest", "objTest",
+			"operationTest", "primitiveTest", "unicodeTest"
+	};
+	private static final ToStringOption[] OPTIONS = {
+			ToStringOption.DEFAULT,
+			ToStringOption.DEFAULT.variant().jsonCompatible().build(),
+			ToStringOption.DEFAULT.variant().indent("\t").compactListSize(0).compactObjectSize(0).build(),
+			ToStringOption.DEFAULT.variant().compactListSize(100).compactObjectSize(100).build(),
+			ToStringOption.DEFAULT.variant().maxLineWidth(40).build(),
+			ToStringOption.DEFAULT.variant().maxLineWidth(80).jsonCompatible().build()
+	};
+
+	@Test public void identicalOutput() throws IOException{
+		for(String file : FILES){
+			RootAndDefinition r = TestUtil.make(TestUtil.expectSourceFrom("equality_tests", file), false);
+			for(ToStringOption option : OPTIONS){
+				check(r, option);
+				check(r.root(), option);
+				check(r.definition(), option);
+			}
+		}
+	}
+
+	@Test public void packed() throws IOException{
+		AmongList l = packedList(1, 2, 3, 4, 5, 6);
+		for(ToStringOption option : OPTIONS){
+			check(l, option);
+			check(namedList("op", l, object().prop("x", l)), option);
+		}
+	}
+
+	@Test public void outputStream() throws IOException{
+		RootAndDefinition r = TestUtil.make(TestUtil.expectSourceFrom("equality_tests", "unicodeTest"), false);
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		try(AmongWriter w = AmongWriter.of(out)){
+			w.writePretty(r);
+		}
+		Assertions.assertArrayEquals(r.toPrettyString().getBytes(StandardCharsets.UTF_8), out.toByteArray());
+
+		out.reset();
+		try(AmongWriter w = AmongWriter.of(Channels.newChannel(out))){
+			w.write(r.root()).append("\n").write(r.root(), ToStringOption.DEFAULT.variant().jsonCompatible().build());
+		}
+		Assertions.assertEquals(r.root()+"\n"+r.root().toString(ToStringOption.DEFAULT.variant().jsonCompatible().build()),
+				new String(out.toByteArray(), StandardCharsets.UTF_8));
+	}
+
+	@Test public void parallel() throws IOException{
+		ForkJoinPool pool = new ForkJoinPool(4);
+		try{
+			for(String file : FILES){
+				RootAndDefinition r = TestUtil.make(TestUtil.expectSourceFrom("equality_tests", file), false);
+				for(ToStringOption option : OPTIONS){
+					checkParallel(r, option, pool);
+					checkParallel(r.root(), option, pool);
+				}
+			}
+			AmongRoot root = new AmongRoot();
+			for(int i = 0; i<300; i++){
+				AmongObject o = namedObject("entry").prop("index", i);
+				for(int j = 0; j<i%40; j++)
+					o.prop("key "+j, j%3==0 ? packedList(1, 2, j) : list("value", j, namedList("op", "multi\nline", j)));
+				root.add(o);
+			}
+			for(ToStringOption option : OPTIONS){
+				checkParallel(root, option, pool);
+				Assertions.assertEquals(root.toString(option), AmongWriter.toStringParallel(root, option, pool));
+				Assertions.assertEquals(root.toPrettyString(1, option), AmongWriter.toPrettyStringParallel(root, 1, option, pool));
+			}
+		}finally{
+			pool.shutdown();
+		}
+	}
+
+	private static void checkParallel(ToPrettyString value, ToStringOption option, ForkJoinPool pool) throws IOException{
+		for(int threshold : new int[]{1, 3}){
+			StringWriter out = new StringWriter();
+			new AmongWriter(out, 16).parallel(pool, threshold).write(value, option).flush();
+			Assertions.assertEquals(value.toString(option), out.toString());
+
+			out = new StringWriter();
+			new AmongWriter(out, 16).parallel(pool, threshold).writePretty(value, 1, option).flush();
+			Assertions.assertEquals(value.toPrettyString(1, option), out.toString());
+		}
+	}
+
+	private static void check(ToPrettyString value, ToStringOption option) throws IOException{
+		for(int bufferSize : new int[]{1, 16, AmongWriter.DEFAULT_BUFFER_SIZE}){
+			StringWriter out = new StringWriter();
+			AmongWriter w = new AmongWriter(out, bufferSize);
+			w.write(value, option).flush();
+			Assertions.assertEquals(value.toString(option), out.toString());
+
+			out = new StringWriter();
+			w = new AmongWriter(out, bufferSize);
+			w.writePretty(value, 1, option).flush();
+			Assertions.assertEquals(value.toPrettyString(1, option), out.toString());
+		}
+	}
+}